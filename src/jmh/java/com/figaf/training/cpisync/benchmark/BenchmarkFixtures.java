@@ -0,0 +1,62 @@
+package com.figaf.training.cpisync.benchmark;
+
+import com.figaf.training.cpisync.application.dto.SyncedObjectVersionPayload;
+import com.figaf.training.cpisync.application.dto.SynchronizationActionType;
+import com.figaf.training.cpisync.application.dto.SynchronizationResultEntry;
+import com.figaf.training.cpisync.domain.SyncedObjectType;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+final class BenchmarkFixtures {
+
+    static final Instant MODIFICATION_DATE = Instant.parse("2025-01-18T11:59:12Z");
+
+    private BenchmarkFixtures() {
+    }
+
+    static String flowName(int index) {
+        return "IFLOW_" + index;
+    }
+
+    static byte[] randomPayload(int size) {
+        byte[] payload = new byte[size];
+        ThreadLocalRandom.current().nextBytes(payload);
+        return payload;
+    }
+
+    static SyncedObjectVersionPayload flowPayload(int index, byte[] archive) {
+        return flowPayload(index, archive, null);
+    }
+
+    /**
+     * Builds the payload with a digest computed up front, so the payload does not hash the archive again.
+     */
+    static SyncedObjectVersionPayload flowPayload(int index, byte[] archive, String archiveDigest) {
+        return SyncedObjectVersionPayload.builder()
+            .modificationDate(MODIFICATION_DATE)
+            .remoteVersion("1.0.0")
+            .displayName("Flow " + index)
+            .externalId("ext-" + index)
+            .parentTechnicalName("PKG_" + (index % 100))
+            .parentExternalId("pkg-ext-" + (index % 100))
+            .creationDate(MODIFICATION_DATE)
+            .createdBy("bench@figaf.com")
+            .modifiedBy("bench@figaf.com")
+            .payload(archive)
+            .payloadContentType("application/zip")
+            .payloadFileName("ext-" + index + ".zip")
+            .payloadDigest(archiveDigest)
+            .build();
+    }
+
+    static SynchronizationResultEntry entry(int index) {
+        return new SynchronizationResultEntry(
+            SyncedObjectType.INTEGRATION_FLOW,
+            flowName(index),
+            SynchronizationActionType.REGISTERED,
+            1,
+            false,
+            Instant.now()
+        );
+    }
+}
@@ -0,0 +1,75 @@
+package com.figaf.training.cpisync.benchmark;
+
+import com.figaf.training.cpisync.application.dto.SynchronizationResultEntry;
+import com.figaf.training.cpisync.application.service.synchronization.model.AbstractSynchronizationJob;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobPriority;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationMode;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationSnapshot;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Many flow workers recording entries while a dashboard polls the full snapshot of the same job.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JobProgressBenchmark {
+
+    private final AtomicInteger counter = new AtomicInteger();
+    private AbstractSynchronizationJob job;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        job = new AbstractSynchronizationJob() {
+            @Override
+            public Set<String> getPackageTechnicalNames() {
+                return null;
+            }
+
+            @Override
+            public SynchronizationMode getRequestedMode() {
+                return SynchronizationMode.FULL;
+            }
+
+            @Override
+            public SynchronizationJobPriority getPriority() {
+                return SynchronizationJobPriority.NORMAL;
+            }
+
+            @Override
+            public void run() {
+            }
+        };
+        job.markStarted(SynchronizationMode.FULL);
+        for (int i = 0; i < 10_000; i++) {
+            job.addEntry(BenchmarkFixtures.entry(i));
+        }
+    }
+
+    @Benchmark
+    @Group("progress")
+    @GroupThreads(8)
+    public void addEntry() {
+        SynchronizationResultEntry entry = BenchmarkFixtures.entry(counter.incrementAndGet());
+        job.addEntry(entry);
+    }
+
+    @Benchmark
+    @Group("progress")
+    @GroupThreads(1)
+    public SynchronizationSnapshot getFullSnapshot() {
+        return job.getFullSnapshot();
+    }
+}
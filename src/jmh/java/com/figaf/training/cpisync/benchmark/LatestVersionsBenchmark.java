@@ -0,0 +1,51 @@
+package com.figaf.training.cpisync.benchmark;
+
+import com.figaf.training.cpisync.application.service.InMemoryRepositoryService;
+import com.figaf.training.cpisync.application.service.SyncedObjectsService;
+import com.figaf.training.cpisync.domain.LatestVersionQuery;
+import com.figaf.training.cpisync.domain.SyncedObjectType;
+import com.figaf.training.cpisync.infrastructure.SynchronizationMapper;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LatestVersionsBenchmark {
+
+    @Param({"10000", "100000"})
+    private int historyCount;
+
+    private SyncedObjectsService service;
+
+    @Setup
+    public void setUp() {
+        InMemoryRepositoryService repository = new InMemoryRepositoryService(new SynchronizationMapper());
+        byte[] archive = BenchmarkFixtures.randomPayload(64);
+        for (int i = 0; i < historyCount; i++) {
+            int index = i;
+            repository.appendVersionIfNecessary(
+                BenchmarkFixtures.flowName(i),
+                SyncedObjectType.INTEGRATION_FLOW,
+                BenchmarkFixtures.MODIFICATION_DATE,
+                "1.0.0",
+                () -> BenchmarkFixtures.flowPayload(index, archive)
+            );
+        }
+        service = new SyncedObjectsService(repository);
+    }
+
+    @Benchmark
+    public void latestVersionsPage(Blackhole blackhole) {
+        LatestVersionQuery query = new LatestVersionQuery(SyncedObjectType.INTEGRATION_FLOW, null, null, null, null, 500);
+        service.forEachLatestVersion(query, (descriptor, version) -> blackhole.consume(version));
+    }
+}
@@ -0,0 +1,77 @@
+package com.figaf.training.cpisync.benchmark;
+
+import com.figaf.training.cpisync.application.service.InMemoryRepositoryService;
+import com.figaf.training.cpisync.domain.SyncedObjectType;
+import com.figaf.training.cpisync.infrastructure.SynchronizationMapper;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Measures {@link InMemoryRepositoryService#appendVersionIfNecessary} with many workers hitting the same histories.
+ * A small {@code keyCount} concentrates the writers on few histories and therefore on their monitors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class RepositoryAppendBenchmark {
+
+    @Param({"16", "10000"})
+    private int keyCount;
+
+    private final AtomicLong remoteVersion = new AtomicLong();
+    private InMemoryRepositoryService repository;
+    private byte[] archive;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        repository = new InMemoryRepositoryService(new SynchronizationMapper());
+        archive = BenchmarkFixtures.randomPayload(16 * 1024);
+        for (int i = 0; i < keyCount; i++) {
+            int index = i;
+            repository.appendVersionIfNecessary(
+                BenchmarkFixtures.flowName(i),
+                SyncedObjectType.INTEGRATION_FLOW,
+                BenchmarkFixtures.MODIFICATION_DATE,
+                "1.0.0",
+                () -> BenchmarkFixtures.flowPayload(index, archive)
+            );
+        }
+    }
+
+    @Benchmark
+    public Object appendUnchanged() {
+        int index = ThreadLocalRandom.current().nextInt(keyCount);
+        return repository.appendVersionIfNecessary(
+            BenchmarkFixtures.flowName(index),
+            SyncedObjectType.INTEGRATION_FLOW,
+            BenchmarkFixtures.MODIFICATION_DATE,
+            "1.0.0",
+            () -> BenchmarkFixtures.flowPayload(index, archive)
+        );
+    }
+
+    @Benchmark
+    public Object appendChanged() {
+        int index = ThreadLocalRandom.current().nextInt(keyCount);
+        String version = Long.toString(remoteVersion.incrementAndGet());
+        return repository.appendVersionIfNecessary(
+            BenchmarkFixtures.flowName(index),
+            SyncedObjectType.INTEGRATION_FLOW,
+            BenchmarkFixtures.MODIFICATION_DATE,
+            version,
+            () -> BenchmarkFixtures.flowPayload(index, archive)
+        );
+    }
+}
@@ -0,0 +1,89 @@
+package com.figaf.training.cpisync.benchmark;
+
+import com.figaf.training.cpisync.application.dto.SyncedObjectVersionPayload;
+import com.figaf.training.cpisync.application.service.SyncedObjectDescriptor;
+import com.figaf.training.cpisync.domain.PayloadDigests;
+import com.figaf.training.cpisync.domain.SyncedObjectType;
+import com.figaf.training.cpisync.domain.SyncedObjectVersion;
+import com.figaf.training.cpisync.infrastructure.SynchronizationMapper;
+import com.figaf.training.cpisync.infrastructure.database.entities.SyncedObjectHistoryEntity;
+import com.figaf.training.cpisync.infrastructure.database.entities.SyncedObjectVersionEntity;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the mapping hot paths. Run with {@code -prof gc} (enabled by default in the jmh task) to compare the
+ * allocation rate per synced flow, which is what {@link #syncFlowVersion} models: building the DTO from a downloaded
+ * archive and turning it into the stored domain version. The archive digest is computed once in {@link #setUp}: the
+ * sync hashes every downloaded archive once whatever the mapping does, so hashing it per call would only hide the
+ * copies between the layers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SynchronizationMapperBenchmark {
+
+    @Param({"16384", "2097152"})
+    private int payloadSize;
+
+    private final SynchronizationMapper mapper = new SynchronizationMapper();
+    private final SyncedObjectDescriptor descriptor = new SyncedObjectDescriptor("IFLOW_1", SyncedObjectType.INTEGRATION_FLOW);
+    private byte[] archive;
+    private String archiveDigest;
+    private SyncedObjectHistoryEntity historyEntity;
+    private SyncedObjectVersionEntity versionEntity;
+    private SyncedObjectVersion version;
+
+    @Setup
+    public void setUp() {
+        archive = BenchmarkFixtures.randomPayload(payloadSize);
+        archiveDigest = PayloadDigests.sha256Hex(archive);
+        historyEntity = new SyncedObjectHistoryEntity();
+        historyEntity.setId(1L);
+        historyEntity.setTechnicalName("IFLOW_1");
+        historyEntity.setObjectType(SyncedObjectType.INTEGRATION_FLOW.name());
+        version = buildVersion(BenchmarkFixtures.flowPayload(1, archive, archiveDigest));
+        versionEntity = mapper.toEntity(historyEntity, version);
+    }
+
+    @Benchmark
+    public SyncedObjectVersion syncFlowVersion() {
+        return buildVersion(BenchmarkFixtures.flowPayload(1, archive, archiveDigest));
+    }
+
+    @Benchmark
+    public SyncedObjectVersion toDomain() {
+        return mapper.toDomain(versionEntity, false);
+    }
+
+    @Benchmark
+    public SyncedObjectVersionEntity toEntity() {
+        return mapper.toEntity(historyEntity, version);
+    }
+
+    @Benchmark
+    public Object toResponse() {
+        return mapper.toResponse(descriptor, version);
+    }
+
+    @Benchmark
+    public SyncedObjectVersionPayload toPayloadFromExisting() {
+        return mapper.toPayloadFromExisting(version, true);
+    }
+
+    private SyncedObjectVersion buildVersion(SyncedObjectVersionPayload payload) {
+        SyncedObjectVersion.Builder builder = SyncedObjectVersion.builder()
+            .versionNumber(1)
+            .synchronizedAt(Instant.now());
+        payload.applyTo(builder);
+        return builder.build();
+    }
+}
@@ -20,6 +20,8 @@ public record SyncedObjectLatestVersionResponse(
     String modifiedBy,
     String payloadContentType,
     String payloadFileName,
-    Long payloadSize
+    Long payloadSize,
+    String payloadDigest,
+    Instant metadataTouchedAt
 ) {}
 
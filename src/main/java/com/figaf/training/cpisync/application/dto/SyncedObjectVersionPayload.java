@@ -1,11 +1,16 @@
 package com.figaf.training.cpisync.application.dto;
 
+import com.figaf.training.cpisync.domain.PayloadBytes;
+import com.figaf.training.cpisync.domain.PayloadSource;
 import com.figaf.training.cpisync.domain.SyncedObjectVersion;
 import java.time.Instant;
-import java.util.Arrays;
 import java.util.Optional;
 
-public class SyncedObjectVersionPayload {
+/**
+ * Remote object state about to be stored as a new version. The payload content is held as a {@link PayloadSource},
+ * so it must be closed once the repository has written it.
+ */
+public class SyncedObjectVersionPayload implements AutoCloseable {
 
     private final Instant modificationDate;
     private final String remoteVersion;
@@ -16,10 +21,11 @@ public class SyncedObjectVersionPayload {
     private final Instant creationDate;
     private final String createdBy;
     private final String modifiedBy;
-    private final byte[] payload;
+    private final PayloadSource payload;
     private final String payloadContentType;
     private final String payloadFileName;
     private final Long payloadSize;
+    private final String payloadDigest;
 
     private SyncedObjectVersionPayload(Builder builder) {
         this.modificationDate = builder.modificationDate;
@@ -31,10 +37,11 @@ public class SyncedObjectVersionPayload {
         this.creationDate = builder.creationDate;
         this.createdBy = builder.createdBy;
         this.modifiedBy = builder.modifiedBy;
-        this.payload = builder.payload == null ? null : builder.payload.clone();
+        this.payload = builder.payload;
         this.payloadContentType = builder.payloadContentType;
         this.payloadFileName = builder.payloadFileName;
         this.payloadSize = builder.payloadSize;
+        this.payloadDigest = builder.payloadDigest;
     }
 
     public Optional<Instant> getModificationDate() {
@@ -73,8 +80,8 @@ public class SyncedObjectVersionPayload {
         return Optional.ofNullable(modifiedBy);
     }
 
-    public Optional<byte[]> getPayload() {
-        return payload == null ? Optional.empty() : Optional.of(Arrays.copyOf(payload, payload.length));
+    public Optional<PayloadSource> getPayload() {
+        return Optional.ofNullable(payload);
     }
 
     public Optional<String> getPayloadContentType() {
@@ -89,7 +96,53 @@ public class SyncedObjectVersionPayload {
         return Optional.ofNullable(payloadSize);
     }
 
+    public Optional<String> getPayloadDigest() {
+        return Optional.ofNullable(payloadDigest);
+    }
+
+    /**
+     * Tells whether this payload carries the same content as the given version, based on the payload digests.
+     */
+    public boolean hasSameContentAs(SyncedObjectVersion version) {
+        return payloadDigest != null && version.getPayloadDigest().map(payloadDigest::equals).orElse(false);
+    }
+
     public void applyTo(SyncedObjectVersion.Builder builder) {
+        if (builder == null) {
+            return;
+        }
+        applyMetadataTo(builder);
+        applyPayloadAttributesTo(builder);
+        if (payload != null) {
+            builder.payload(payload.toPayloadBytes());
+        }
+    }
+
+    /**
+     * Applies content type, file name, size and digest of the payload without materializing its content.
+     */
+    public void applyPayloadAttributesTo(SyncedObjectVersion.Builder builder) {
+        if (builder == null) {
+            return;
+        }
+        if (payloadContentType != null) {
+            builder.payloadContentType(payloadContentType);
+        }
+        if (payloadFileName != null) {
+            builder.payloadFileName(payloadFileName);
+        }
+        if (payloadSize != null) {
+            builder.payloadSize(payloadSize);
+        }
+        if (payloadDigest != null) {
+            builder.payloadDigest(payloadDigest);
+        }
+    }
+
+    /**
+     * Applies the descriptive fields only, leaving the payload of the builder untouched.
+     */
+    public void applyMetadataTo(SyncedObjectVersion.Builder builder) {
         if (builder == null) {
             return;
         }
@@ -120,17 +173,12 @@ public class SyncedObjectVersionPayload {
         if (modifiedBy != null) {
             builder.modifiedBy(modifiedBy);
         }
+    }
+
+    @Override
+    public void close() {
         if (payload != null) {
-            builder.payloadRaw(payload);
-        }
-        if (payloadContentType != null) {
-            builder.payloadContentType(payloadContentType);
-        }
-        if (payloadFileName != null) {
-            builder.payloadFileName(payloadFileName);
-        }
-        if (payloadSize != null) {
-            builder.payloadSize(payloadSize);
+            payload.close();
         }
     }
 
@@ -148,10 +196,11 @@ public class SyncedObjectVersionPayload {
         private Instant creationDate;
         private String createdBy;
         private String modifiedBy;
-        private byte[] payload;
+        private PayloadSource payload;
         private String payloadContentType;
         private String payloadFileName;
         private Long payloadSize;
+        private String payloadDigest;
 
         private Builder() {
         }
@@ -201,8 +250,21 @@ public class SyncedObjectVersionPayload {
             return this;
         }
 
+        /**
+         * Hands the array over to the payload without copying it; the caller must not modify it afterwards.
+         */
         public Builder payload(byte[] payload) {
-            this.payload = payload == null ? null : payload.clone();
+            this.payload = payload == null ? null : PayloadSource.ofBytes(payload);
+            return this;
+        }
+
+        public Builder payload(PayloadBytes payload) {
+            this.payload = payload == null ? null : PayloadSource.ofBytes(payload);
+            return this;
+        }
+
+        public Builder payload(PayloadSource payload) {
+            this.payload = payload;
             return this;
         }
 
@@ -221,9 +283,17 @@ public class SyncedObjectVersionPayload {
             return this;
         }
 
+        public Builder payloadDigest(String payloadDigest) {
+            this.payloadDigest = payloadDigest;
+            return this;
+        }
+
         public SyncedObjectVersionPayload build() {
             if (payload != null && payloadSize == null) {
-                payloadSize = (long) payload.length;
+                payloadSize = payload.size();
+            }
+            if (payload != null && payloadDigest == null) {
+                payloadDigest = payload.digest();
             }
             return new SyncedObjectVersionPayload(this);
         }
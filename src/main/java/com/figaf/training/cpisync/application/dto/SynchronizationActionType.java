@@ -3,6 +3,6 @@ package com.figaf.training.cpisync.application.dto;
 public enum SynchronizationActionType {
     REGISTERED,
     UPDATED,
+    METADATA_TOUCHED,
     MARKED_AS_DELETED
 }
-
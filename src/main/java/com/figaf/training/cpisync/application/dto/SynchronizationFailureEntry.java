@@ -0,0 +1,18 @@
+package com.figaf.training.cpisync.application.dto;
+
+import com.figaf.training.cpisync.domain.SyncedObjectType;
+import java.time.Instant;
+
+/**
+ * Object that could not be synchronized in a run that otherwise went on. Its stored state is left as it was and it
+ * is not marked as deleted.
+ *
+ * @param packageTechnicalName package the object was listed in, equal to {@code technicalName} for packages
+ */
+public record SynchronizationFailureEntry(
+    SyncedObjectType type,
+    String technicalName,
+    String packageTechnicalName,
+    String message,
+    Instant failedAt
+) { }
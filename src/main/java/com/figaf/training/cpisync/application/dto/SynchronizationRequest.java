@@ -1,8 +1,13 @@
 package com.figaf.training.cpisync.application.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationMode;
 import java.util.List;
 
+/**
+ * @param packageTechnicalNames packages to synchronize, all packages when empty
+ * @param mode listing scope of the run, {@code app.sync.defaultMode} when absent
+ */
 @JsonIgnoreProperties(ignoreUnknown = true)
-public record SynchronizationRequest(List<String> packageTechnicalNames) {
+public record SynchronizationRequest(List<String> packageTechnicalNames, SynchronizationMode mode) {
 }
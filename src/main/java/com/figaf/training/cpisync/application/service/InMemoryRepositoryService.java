@@ -2,20 +2,31 @@ package com.figaf.training.cpisync.application.service;
 
 import com.figaf.training.cpisync.application.dto.SyncedObjectVersionPayload;
 import com.figaf.training.cpisync.application.dto.SynchronizationActionType;
+import com.figaf.training.cpisync.domain.ChangeDetectionMode;
+import com.figaf.training.cpisync.domain.LatestVersionCursor;
+import com.figaf.training.cpisync.domain.LatestVersionQuery;
 import com.figaf.training.cpisync.domain.RepositoryService;
 import com.figaf.training.cpisync.infrastructure.database.SynchronizationRepositoryChange;
 import com.figaf.training.cpisync.infrastructure.SynchronizationMapper;
 import com.figaf.training.cpisync.domain.SyncedObjectHistory;
+import com.figaf.training.cpisync.domain.SyncedObjectState;
 import com.figaf.training.cpisync.domain.SyncedObjectType;
 import com.figaf.training.cpisync.domain.SyncedObjectVersion;
+import com.figaf.training.cpisync.domain.SynchronizationWatermark;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
@@ -26,7 +37,16 @@ public class InMemoryRepositoryService implements RepositoryService {
 
     private final SynchronizationMapper mapper;
 
+    // the order of the latest-objects pages, objects synchronized at the same time by technical name
+    private static final Comparator<LatestVersion> LATEST_FIRST = Comparator
+        .comparing((LatestVersion latest) -> latest.version().getSynchronizedAt()).reversed()
+        .thenComparing(LatestVersion::technicalName);
+
     private final Map<SyncedObjectType, Map<String, SyncedObjectHistory>> storage = new ConcurrentHashMap<>();
+    private final AtomicReference<SynchronizationWatermark> watermark = new AtomicReference<>();
+
+    @Value("${app.sync.changeDetection:METADATA}")
+    private ChangeDetectionMode changeDetectionMode = ChangeDetectionMode.METADATA;
 
     @Override
     public Optional<SynchronizationRepositoryChange> appendVersionIfNecessary(
@@ -44,14 +64,22 @@ public class InMemoryRepositoryService implements RepositoryService {
             Optional<SyncedObjectVersion> latest = history.getLatestVersion();
 
             if (latest.isEmpty() || latest.get().isDeleted()) {
-                SyncedObjectVersion createdVersion = addVersion(history, payloadSupplier.get(), false);
-                return Optional.of(new SynchronizationRepositoryChange(SynchronizationActionType.REGISTERED, createdVersion));
+                try (SyncedObjectVersionPayload payload = payloadSupplier.get()) {
+                    SyncedObjectVersion createdVersion = addVersion(history, payload, false);
+                    return Optional.of(new SynchronizationRepositoryChange(SynchronizationActionType.REGISTERED, createdVersion));
+                }
             }
 
             SyncedObjectVersion currentVersion = latest.get();
             if (hasRemoteChanges(remoteModificationDate, remoteVersion, currentVersion)) {
-                SyncedObjectVersion updatedVersion = addVersion(history, payloadSupplier.get(), false);
-                return Optional.of(new SynchronizationRepositoryChange(SynchronizationActionType.UPDATED, updatedVersion));
+                try (SyncedObjectVersionPayload payload = payloadSupplier.get()) {
+                    if (changeDetectionMode == ChangeDetectionMode.CONTENT && payload.hasSameContentAs(currentVersion)) {
+                        SyncedObjectVersion touchedVersion = touchVersion(history, currentVersion, payload);
+                        return Optional.of(new SynchronizationRepositoryChange(SynchronizationActionType.METADATA_TOUCHED, touchedVersion));
+                    }
+                    SyncedObjectVersion updatedVersion = addVersion(history, payload, false);
+                    return Optional.of(new SynchronizationRepositoryChange(SynchronizationActionType.UPDATED, updatedVersion));
+                }
             }
 
             return Optional.empty();
@@ -59,7 +87,7 @@ public class InMemoryRepositoryService implements RepositoryService {
     }
 
     @Override
-    public Optional<SyncedObjectVersion> markDeleted(String technicalName, SyncedObjectType type) {
+    public Optional<SynchronizationRepositoryChange> markDeleted(String technicalName, SyncedObjectType type) {
         SyncedObjectHistory history = Optional.ofNullable(storage.get(type))
             .map(map -> map.get(technicalName))
             .orElse(null);
@@ -78,7 +106,7 @@ public class InMemoryRepositoryService implements RepositoryService {
                 return Optional.empty();
             }
             SyncedObjectVersion deletedVersion = addVersion(history, mapper.toPayloadFromExisting(current, false), true);
-            return Optional.of(deletedVersion);
+            return Optional.of(new SynchronizationRepositoryChange(SynchronizationActionType.MARKED_AS_DELETED, deletedVersion));
         }
     }
 
@@ -89,9 +117,79 @@ public class InMemoryRepositoryService implements RepositoryService {
             .orElseGet(java.util.List::of);
     }
 
+    @Override
+    public Optional<LatestVersionCursor> forEachLatestVersion(
+        LatestVersionQuery query,
+        BiConsumer<String, SyncedObjectVersion> consumer
+    ) {
+        List<LatestVersion> page = Optional.ofNullable(storage.get(query.type())).map(Map::values).orElseGet(List::of)
+            .stream()
+            .flatMap(history -> history.getLatestVersion().map(version -> new LatestVersion(history.getTechnicalName(), version)).stream())
+            .filter(latest -> matches(query, latest))
+            .sorted(LATEST_FIRST)
+            .limit(query.limit() + 1L)
+            .toList();
+        List<LatestVersion> passed = page.size() > query.limit() ? page.subList(0, query.limit()) : page;
+        passed.forEach(latest -> consumer.accept(latest.technicalName(), latest.version()));
+        if (page.size() <= query.limit()) {
+            return Optional.empty();
+        }
+        LatestVersion last = passed.getLast();
+        return Optional.of(new LatestVersionCursor(last.version().getSynchronizedAt(), last.technicalName()));
+    }
+
+    @Override
+    public LatestVersionCursor parseLatestVersionCursor(String token) {
+        // the tie-breaker is a technical name, any string orders
+        return LatestVersionCursor.fromToken(token);
+    }
+
+    @Override
+    public Collection<SyncedObjectState> findAllLatestStates() {
+        List<SyncedObjectState> states = new ArrayList<>();
+        storage.forEach((type, histories) -> histories.values().forEach(history -> history.getLatestVersion()
+            .ifPresent(version -> states.add(SyncedObjectState.of(type, history.getTechnicalName(), version)))));
+        return states;
+    }
+
+    @Override
+    public void markChildrenSynchronized(Collection<String> packageTechnicalNames) {
+        Map<String, SyncedObjectHistory> packages = storage.get(SyncedObjectType.INTEGRATION_PACKAGE);
+        if (packages == null) {
+            return;
+        }
+        Instant synchronizedAt = Instant.now();
+        for (String technicalName : packageTechnicalNames) {
+            SyncedObjectHistory history = packages.get(technicalName);
+            if (history == null) {
+                continue;
+            }
+            synchronized (history) {
+                history.getLatestVersion().ifPresent(latest ->
+                    history.replaceLatestVersion(latest.toBuilder().childrenSynchronizedAt(synchronizedAt).build()));
+            }
+        }
+    }
+
+    @Override
+    public void flushPendingWrites() {
+        // versions are stored immediately
+    }
+
+    @Override
+    public Optional<SynchronizationWatermark> findWatermark() {
+        return Optional.ofNullable(watermark.get());
+    }
+
+    @Override
+    public void saveWatermark(SynchronizationWatermark watermark) {
+        this.watermark.set(watermark);
+    }
+
     @Override
     public void deleteAll() {
         storage.clear();
+        watermark.set(null);
     }
 
     private SyncedObjectVersion addVersion(SyncedObjectHistory history, SyncedObjectVersionPayload payload, boolean deleted) {
@@ -100,6 +198,16 @@ public class InMemoryRepositoryService implements RepositoryService {
         return version;
     }
 
+    private SyncedObjectVersion touchVersion(
+        SyncedObjectHistory history,
+        SyncedObjectVersion currentVersion,
+        SyncedObjectVersionPayload payload
+    ) {
+        SyncedObjectVersion.Builder builder = currentVersion.toBuilder();
+        payload.applyMetadataTo(builder);
+        return history.replaceLatestVersion(builder.metadataTouchedAt(Instant.now()).childrenSynchronizedAt(null).build());
+    }
+
     private SyncedObjectVersion buildVersion(SyncedObjectHistory history, SyncedObjectVersionPayload payload, boolean deleted) {
         int versionNumber = history.getLatestVersion()
             .map(SyncedObjectVersion::getVersionNumber)
@@ -132,4 +240,17 @@ public class InMemoryRepositoryService implements RepositoryService {
         }
         return remoteModification.isAfter(currentModification);
     }
+
+    private static boolean matches(LatestVersionQuery query, LatestVersion latest) {
+        SyncedObjectVersion version = latest.version();
+        if (!query.matches(version)) {
+            return false;
+        }
+        LatestVersionCursor after = query.after();
+        return after == null
+            || version.getSynchronizedAt().isBefore(after.synchronizedAt())
+            || version.getSynchronizedAt().equals(after.synchronizedAt()) && latest.technicalName().compareTo(after.tieBreaker()) > 0;
+    }
+
+    private record LatestVersion(String technicalName, SyncedObjectVersion version) {}
 }
@@ -0,0 +1,97 @@
+package com.figaf.training.cpisync.application.service;
+
+import com.figaf.training.cpisync.application.service.synchronization.model.PersistedSynchronizationJob;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationEntryFilter;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationEntryPage;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobHistoryPage;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobHistoryQuery;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobProgress;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationMode;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationSnapshot;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationSnapshotMetadata;
+import com.figaf.training.cpisync.domain.SynchronizationJobStore;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+/**
+ * With the in-memory repository the synchronized objects do not survive a restart either, so jobs are only kept by
+ * the scheduler, which spill the entries they release from memory to a temporary file, there is nothing to resume and no history to query. Schedules missed while the service was down are not caught up.
+ */
+@Repository
+@ConditionalOnProperty(name = "app.repository.type", havingValue = "memory", matchIfMissing = true)
+public class InMemorySynchronizationJobStore implements SynchronizationJobStore {
+
+    @Override
+    public void create(UUID jobId, Set<String> packageTechnicalNames, SynchronizationMode requestedMode) {
+        // kept by the scheduler
+    }
+
+    @Override
+    public void save(SynchronizationJobProgress progress) {
+        // kept by the scheduler
+    }
+
+    @Override
+    public Optional<SynchronizationSnapshot> findSnapshot(UUID jobId) {
+        return Optional.empty();
+    }
+
+    @Override
+    public SynchronizationEntryPage findEntries(UUID jobId, long afterSequence, int limit, SynchronizationEntryFilter filter) {
+        return new SynchronizationEntryPage(List.of(), afterSequence, false);
+    }
+
+    @Override
+    public boolean persistsEntries() {
+        // jobs spill released entries themselves
+        return false;
+    }
+
+    @Override
+    public List<SynchronizationSnapshotMetadata> findRecentFinished(int limit) {
+        return List.of();
+    }
+
+    @Override
+    public SynchronizationJobHistoryPage findHistory(SynchronizationJobHistoryQuery query) {
+        return new SynchronizationJobHistoryPage(List.of(), null);
+    }
+
+    @Override
+    public List<PersistedSynchronizationJob> findUnfinished(Collection<String> liveNodes) {
+        return List.of();
+    }
+
+    @Override
+    public boolean claim(UUID jobId, String previousOwner) {
+        // no unfinished job is ever found
+        return false;
+    }
+
+    @Override
+    public Optional<Instant> findLastScheduledRun(String scheduleName) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void saveScheduledRun(String scheduleName, Instant firedAt, UUID jobId) {
+        // nothing to catch up after a restart
+    }
+
+    @Override
+    public boolean isLastScheduledJobUnfinished(String scheduleName) {
+        // a single node only runs its own jobs, which the schedule runner tracks itself
+        return false;
+    }
+
+    @Override
+    public void deleteAll() {
+        // kept by the scheduler
+    }
+}
@@ -0,0 +1,61 @@
+package com.figaf.training.cpisync.application.service;
+
+import com.figaf.training.cpisync.domain.ClusterCoordinator;
+import com.figaf.training.cpisync.domain.SynchronizationShard;
+import com.figaf.training.cpisync.domain.SynchronizationShardStatus;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * The in-memory repository is not shared between processes, so every process is a cluster of its own and always its
+ * leader.
+ */
+@Service
+@ConditionalOnProperty(name = "app.repository.type", havingValue = "memory", matchIfMissing = true)
+public class SingleNodeClusterCoordinator implements ClusterCoordinator {
+
+    private static final String NODE_ID = "local";
+
+    @Override
+    public String getNodeId() {
+        return NODE_ID;
+    }
+
+    @Override
+    public boolean isLeader() {
+        return true;
+    }
+
+    @Override
+    public List<String> getLiveNodes() {
+        return List.of(NODE_ID);
+    }
+
+    @Override
+    public void assignShards(Collection<SynchronizationShard> shards) {
+        // never called, a single node has no other live nodes to assign shards to
+    }
+
+    @Override
+    public List<SynchronizationShard> claimShards() {
+        return List.of();
+    }
+
+    @Override
+    public void finishShard(UUID runId, SynchronizationShardStatus status, String message) {
+        // no shards are assigned
+    }
+
+    @Override
+    public List<SynchronizationShard> findShards(UUID runId) {
+        return List.of();
+    }
+
+    @Override
+    public void deleteShards(UUID runId) {
+        // no shards are assigned
+    }
+}
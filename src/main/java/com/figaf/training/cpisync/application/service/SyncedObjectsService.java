@@ -1,11 +1,11 @@
 package com.figaf.training.cpisync.application.service;
 
-import com.figaf.training.cpisync.domain.SyncedObjectHistory;
-import com.figaf.training.cpisync.domain.SyncedObjectType;
+import com.figaf.training.cpisync.domain.LatestVersionCursor;
+import com.figaf.training.cpisync.domain.LatestVersionQuery;
 import com.figaf.training.cpisync.domain.SyncedObjectVersion;
 import com.figaf.training.cpisync.domain.RepositoryService;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -17,14 +17,26 @@ public class SyncedObjectsService {
 
     private final RepositoryService repository;
 
-    public Map<SyncedObjectDescriptor, SyncedObjectVersion> latestVersionsForType(SyncedObjectType type) {
-        final Map<SyncedObjectDescriptor, SyncedObjectVersion> mapLatest = new HashMap<>();
-        for (SyncedObjectHistory history : repository.findAllByType(type)) {
-            history.getLatestVersion().ifPresent(value ->
-                mapLatest.put(new SyncedObjectDescriptor(history.getTechnicalName(), history.getType()), value)
-            );
-        }
-        return mapLatest;
+    /**
+     * Passes a page of the latest versions matching the query to the consumer, most recently synchronized first.
+     *
+     * @return position of the last passed object if more objects match, otherwise empty
+     */
+    public Optional<LatestVersionCursor> forEachLatestVersion(
+        LatestVersionQuery query,
+        BiConsumer<SyncedObjectDescriptor, SyncedObjectVersion> consumer
+    ) {
+        return repository.forEachLatestVersion(
+            query,
+            (technicalName, version) -> consumer.accept(new SyncedObjectDescriptor(technicalName, query.type()), version)
+        );
+    }
+
+    /**
+     * @throws IllegalArgumentException when the token is not a cursor returned by {@link #forEachLatestVersion}
+     */
+    public LatestVersionCursor parseLatestVersionCursor(String token) {
+        return repository.parseLatestVersionCursor(token);
     }
 
     public void clearAll() {
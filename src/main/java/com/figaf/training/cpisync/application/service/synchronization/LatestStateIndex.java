@@ -0,0 +1,69 @@
+package com.figaf.training.cpisync.application.service.synchronization;
+
+import com.figaf.training.cpisync.domain.SyncedObjectState;
+import com.figaf.training.cpisync.domain.SyncedObjectType;
+import com.figaf.training.cpisync.domain.SyncedObjectVersion;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latest stored state of every object, loaded once per synchronization run so that unchanged remote objects are
+ * recognized without a repository round-trip. Versions appended during the run are written through; an outdated
+ * entry only costs the repository call it would have made anyway.
+ */
+class LatestStateIndex {
+
+    private final Map<SyncedObjectType, Map<String, SyncedObjectState>> states = new EnumMap<>(SyncedObjectType.class);
+    private final Map<String, Set<String>> storedFlowsByPackage = new HashMap<>();
+
+    private LatestStateIndex() {
+        for (SyncedObjectType type : SyncedObjectType.values()) {
+            states.put(type, new ConcurrentHashMap<>());
+        }
+    }
+
+    static LatestStateIndex of(Collection<SyncedObjectState> latestStates) {
+        LatestStateIndex index = new LatestStateIndex();
+        for (SyncedObjectState state : latestStates) {
+            index.states.get(state.type()).put(state.technicalName(), state);
+            if (state.type() == SyncedObjectType.INTEGRATION_FLOW && !state.deleted() && state.parentTechnicalName() != null) {
+                index.storedFlowsByPackage.computeIfAbsent(state.parentTechnicalName(), ignored -> new HashSet<>()).add(state.technicalName());
+            }
+        }
+        return index;
+    }
+
+    boolean isUpToDate(SyncedObjectType type, String technicalName, Instant remoteModification, String remoteVersion) {
+        SyncedObjectState state = states.get(type).get(technicalName);
+        return state != null && !state.isOutdatedBy(remoteModification, remoteVersion);
+    }
+
+    /**
+     * Whether the package is unchanged and its flows were synchronized completely for the stored version.
+     */
+    boolean hasSynchronizedChildren(String packageTechnicalName, Instant remoteModification, String remoteVersion) {
+        SyncedObjectState state = states.get(SyncedObjectType.INTEGRATION_PACKAGE).get(packageTechnicalName);
+        return state != null && state.childrenSynchronized() && !state.isOutdatedBy(remoteModification, remoteVersion);
+    }
+
+    /**
+     * Technical names of the flows of the package that were stored and not deleted when the index was loaded.
+     */
+    Set<String> storedFlows(String packageTechnicalName) {
+        return storedFlowsByPackage.getOrDefault(packageTechnicalName, Set.of());
+    }
+
+    void record(SyncedObjectType type, String technicalName, SyncedObjectVersion version) {
+        states.get(type).put(technicalName, SyncedObjectState.of(type, technicalName, version));
+    }
+
+    int size() {
+        return states.values().stream().mapToInt(Map::size).sum();
+    }
+}
@@ -0,0 +1,67 @@
+package com.figaf.training.cpisync.application.service.synchronization;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Cancellation of one synchronization run. Package and flow tasks run through {@link #track(Supplier)}, so a cancel
+ * interrupts the threads running them (a CPI call waiting for a permit, a retry backoff or a blocking read) and tasks
+ * that did not start yet fail right away. The tasks check {@link #throwIfCancelled()} between objects.
+ */
+class SynchronizationCancellation {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Set<Thread> activeThreads = new HashSet<>();
+    private volatile boolean cancelled;
+
+    <T> T track(Supplier<T> task) {
+        lock.lock();
+        try {
+            this.throwIfCancelled();
+            activeThreads.add(Thread.currentThread());
+        } finally {
+            lock.unlock();
+        }
+        try {
+            return task.get();
+        } finally {
+            lock.lock();
+            try {
+                activeThreads.remove(Thread.currentThread());
+                // the pooled thread must not carry the interrupt into the next task
+                Thread.interrupted();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    void cancel() {
+        lock.lock();
+        try {
+            cancelled = true;
+            activeThreads.forEach(Thread::interrupt);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Called before an error is recorded as well, so a call that failed because it was interrupted is not reported
+     * as a failed object.
+     *
+     * @throws CancellationException when the run was cancelled
+     */
+    void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Synchronization was cancelled");
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.figaf.training.cpisync.application.service.synchronization;
+
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobProgress;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobProgressTracker;
+import com.figaf.training.cpisync.domain.RepositoryService;
+import com.figaf.training.cpisync.domain.SynchronizationJobStore;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Saves the progress of one synchronization run at most once per interval, so a job interrupted by a restart resumes
+ * after the packages it completed. A checkpoint is saved only after the versions it refers to were written, and a
+ * package with a version that could not be written is left out of it. Versions appended after the last checkpoint
+ * stay stored, but the entries that reported them are lost with the process. A checkpoint that cannot be saved is
+ * logged and does not fail the run; its entries are saved with the next checkpoint.
+ */
+@Slf4j
+class SynchronizationCheckpoints {
+
+    private final long intervalNanos;
+    private final SynchronizationJobProgressTracker progressTracker;
+    private final RepositoryService repository;
+    private final SynchronizationJobStore jobStore;
+    private final SynchronizationFailures failures;
+    private final Queue<String> completedPackages = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile long lastSavedAt = System.nanoTime();
+
+    SynchronizationCheckpoints(
+        Duration interval,
+        SynchronizationJobProgressTracker progressTracker,
+        RepositoryService repository,
+        SynchronizationJobStore jobStore,
+        SynchronizationFailures failures
+    ) {
+        this.intervalNanos = interval.toNanos();
+        this.progressTracker = progressTracker;
+        this.repository = repository;
+        this.jobStore = jobStore;
+        this.failures = failures;
+    }
+
+    /**
+     * @param packageTechnicalName package whose package and flow versions were all appended without failures
+     */
+    void packageCompleted(String packageTechnicalName) {
+        completedPackages.add(packageTechnicalName);
+        // a thread that fails to take the lock leaves its package to the saving thread, which checks again after
+        // releasing it
+        while (!completedPackages.isEmpty() && this.isDue() && lock.tryLock()) {
+            try {
+                if (this.isDue()) {
+                    this.save();
+                    lastSavedAt = System.nanoTime();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private boolean isDue() {
+        return System.nanoTime() - lastSavedAt >= intervalNanos;
+    }
+
+    private void save() {
+        List<String> packages = new ArrayList<>();
+        for (String name = completedPackages.poll(); name != null; name = completedPackages.poll()) {
+            packages.add(name);
+        }
+        SynchronizationJobProgress taken = progressTracker.takeProgress(packages);
+        try {
+            // the progress refers to versions that may still be buffered, they have to be stored before it
+            repository.flushPendingWrites();
+            failures.recordFailedWrites();
+            Set<String> incompletePackages = failures.incompletePackages();
+            SynchronizationJobProgress progress = new SynchronizationJobProgress(
+                taken.metadata(),
+                taken.completedPackages().stream().filter(name -> !incompletePackages.contains(name)).toList(),
+                taken.entries(),
+                taken.lastEntrySequence(),
+                taken.failures()
+            );
+            jobStore.save(progress);
+            progressTracker.progressSaved(progress);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to save checkpoint of synchronization job {}", taken.metadata().jobId(), ex);
+        }
+    }
+}
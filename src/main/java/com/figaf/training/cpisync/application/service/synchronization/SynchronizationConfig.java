@@ -1,6 +1,8 @@
 package com.figaf.training.cpisync.application.service.synchronization;
 
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -37,6 +39,17 @@ public class SynchronizationConfig {
         return (ThreadPoolExecutor)Executors.newFixedThreadPool(concurrentThreads, Thread.ofVirtual().factory());
     }
 
+    /**
+     * Fires the configured schedules; the jobs themselves run on the job executor. Pending fire times are dropped on
+     * shutdown instead of being waited for.
+     */
+    @Bean(name = "synchronizationScheduleExecutor", destroyMethod = "shutdownNow")
+    public ScheduledExecutorService synchronizationScheduleExecutor() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, Thread.ofVirtual().name("sync-schedule").factory());
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        return executor;
+    }
+
     private int parsePositive(String value, int defaultValue) {
         try {
             int parsed = Integer.parseInt(value);
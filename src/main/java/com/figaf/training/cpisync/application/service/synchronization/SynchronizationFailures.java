@@ -0,0 +1,137 @@
+package com.figaf.training.cpisync.application.service.synchronization;
+
+import com.figaf.training.cpisync.application.dto.SynchronizationFailureEntry;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobProgressTracker;
+import com.figaf.training.cpisync.domain.SyncedObjectType;
+import com.figaf.training.cpisync.infrastructure.database.SynchronizationRepositoryChange;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+/**
+ * Objects that failed during one synchronization run, after the CPI calls were retried. Each failure is reported to
+ * the job and counted against the failure budget; once the budget is exceeded the run is aborted. Changes the
+ * repository still buffers are tracked until they are written, and fail their object if they cannot be.
+ */
+class SynchronizationFailures {
+
+    private final int budget;
+    private final SynchronizationJobProgressTracker progressTracker;
+    private final AtomicInteger failedCount = new AtomicInteger();
+    private final Set<String> incompletePackages = ConcurrentHashMap.newKeySet();
+    private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+
+    SynchronizationFailures(int budget, SynchronizationJobProgressTracker progressTracker) {
+        this.budget = Math.max(0, budget);
+        this.progressTracker = progressTracker;
+    }
+
+    /**
+     * @param packageTechnicalName package whose flows are no longer completely synchronized by this run
+     * @throws IllegalStateException when the failure exceeds the budget
+     */
+    void record(SyncedObjectType type, String technicalName, String packageTechnicalName, RuntimeException error) {
+        if (packageTechnicalName != null) {
+            incompletePackages.add(packageTechnicalName);
+        }
+        progressTracker.addFailure(new SynchronizationFailureEntry(
+            type,
+            technicalName,
+            packageTechnicalName,
+            ExceptionUtils.getRootCauseMessage(error),
+            Instant.now()
+        ));
+        if (failedCount.incrementAndGet() > budget) {
+            throw new IllegalStateException(
+                "More than %d objects failed to synchronize, aborting synchronization".formatted(budget), error);
+        }
+    }
+
+    /**
+     * Records a shard that another node did not complete. Its packages count as incomplete, but the shard is not
+     * counted against the budget: the objects it synchronized are not known here.
+     */
+    void recordShard(String nodeId, Collection<String> packageTechnicalNames, String message) {
+        incompletePackages.addAll(packageTechnicalNames);
+        progressTracker.addFailure(new SynchronizationFailureEntry(
+            SyncedObjectType.INTEGRATION_PACKAGE,
+            null,
+            null,
+            "Shard of %d packages on node %s failed: %s".formatted(packageTechnicalNames.size(), nodeId, message),
+            Instant.now()
+        ));
+    }
+
+    /**
+     * Keeps track of a change until the repository wrote it, see {@link #recordFailedWrites()}.
+     *
+     * @param packageTechnicalName package that is no longer completely synchronized if the write fails
+     */
+    void trackWrite(SyncedObjectType type, String technicalName, String packageTechnicalName, SynchronizationRepositoryChange change) {
+        CompletableFuture<Void> written = change.written();
+        if (!written.isDone() || written.isCompletedExceptionally()) {
+            pendingWrites.add(new PendingWrite(type, technicalName, packageTechnicalName, written));
+        }
+    }
+
+    /**
+     * Records the tracked changes whose write failed; called after the repository flushed its pending writes. Changes
+     * appended after the flush stay tracked.
+     *
+     * @throws IllegalStateException when the failures exceed the budget
+     */
+    void recordFailedWrites() {
+        List<PendingWrite> failed = new ArrayList<>();
+        List<PendingWrite> unwritten = new ArrayList<>();
+        for (PendingWrite write = pendingWrites.poll(); write != null; write = pendingWrites.poll()) {
+            if (!write.written().isDone()) {
+                unwritten.add(write);
+            } else if (write.written().isCompletedExceptionally()) {
+                failed.add(write);
+            }
+        }
+        pendingWrites.addAll(unwritten);
+        for (PendingWrite write : failed) {
+            Throwable error = write.written().exceptionNow();
+            this.record(
+                write.type(),
+                write.technicalName(),
+                write.packageTechnicalName(),
+                error instanceof RuntimeException runtime ? runtime : new IllegalStateException(error)
+            );
+        }
+        if (this.isExhausted()) {
+            throw new IllegalStateException("More than %d objects failed to synchronize, aborting synchronization".formatted(budget));
+        }
+    }
+
+    /**
+     * Whether the run is going to be aborted, so remaining tasks can stop early.
+     */
+    boolean isExhausted() {
+        return failedCount.get() > budget;
+    }
+
+    boolean hasFailures() {
+        return failedCount.get() > 0;
+    }
+
+    Set<String> incompletePackages() {
+        return incompletePackages;
+    }
+
+    private record PendingWrite(
+        SyncedObjectType type,
+        String technicalName,
+        String packageTechnicalName,
+        CompletableFuture<Void> written
+    ) {}
+}
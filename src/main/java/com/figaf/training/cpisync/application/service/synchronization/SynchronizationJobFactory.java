@@ -2,8 +2,13 @@ package com.figaf.training.cpisync.application.service.synchronization;
 
 import com.figaf.training.cpisync.application.service.synchronization.model.AbstractSynchronizationJob;
 import com.figaf.training.cpisync.application.service.synchronization.model.DefaultSynchronizationJob;
+import com.figaf.training.cpisync.application.service.synchronization.model.PersistedSynchronizationJob;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobPriority;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationMode;
+import com.figaf.training.cpisync.domain.SynchronizationJobStore;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -11,15 +16,70 @@ import org.springframework.stereotype.Component;
 public class SynchronizationJobFactory {
 
     private final SynchronizationService synchronizationService;
+    private final SynchronizationJobStore jobStore;
+
+    //Mode of jobs whose request does not choose one.
+    @Value("${app.sync.defaultMode:FULL}")
+    private SynchronizationMode defaultMode = SynchronizationMode.FULL;
+
+    //Saved entries each job keeps in memory; older ones are read from the job store, or from a spill file when the store does not keep entries.
+    @Value("${app.sync.retainedEntriesPerJob:10000}")
+    private int retainedEntriesPerJob = 10000;
 
     public AbstractSynchronizationJob createDefaultJob() {
-        return new DefaultSynchronizationJob(synchronizationService, null);
+        return this.limited(new DefaultSynchronizationJob(synchronizationService, null, defaultMode, SynchronizationJobPriority.NORMAL));
     }
 
     public AbstractSynchronizationJob createJob(Set<String> packageTechnicalNames) {
+        return createJob(packageTechnicalNames, null);
+    }
+
+    /**
+     * Creates a job requested by a user; package-scoped jobs are started before tenant-wide ones.
+     */
+    public AbstractSynchronizationJob createJob(Set<String> packageTechnicalNames, SynchronizationMode mode) {
+        return createJob(packageTechnicalNames, mode, defaultPriority(packageTechnicalNames));
+    }
+
+    public AbstractSynchronizationJob createJob(
+        Set<String> packageTechnicalNames,
+        SynchronizationMode mode,
+        SynchronizationJobPriority priority
+    ) {
         Set<String> sanitized = packageTechnicalNames == null || packageTechnicalNames.isEmpty()
             ? null
             : Set.copyOf(packageTechnicalNames);
-        return new DefaultSynchronizationJob(synchronizationService, sanitized);
+        return this.limited(new DefaultSynchronizationJob(synchronizationService, sanitized, mode == null ? defaultMode : mode, priority));
+    }
+
+    /**
+     * Recreates a job that an earlier process left unfinished, with its saved progress.
+     */
+    public AbstractSynchronizationJob resumeJob(PersistedSynchronizationJob persisted) {
+        SynchronizationMode mode = persisted.requestedMode() == null ? defaultMode : persisted.requestedMode();
+        AbstractSynchronizationJob job = new DefaultSynchronizationJob(
+            persisted.snapshot().metadata().jobId(),
+            synchronizationService,
+            persisted.packageTechnicalNames(),
+            mode,
+            defaultPriority(persisted.packageTechnicalNames())
+        );
+        // only the retained entries are restored into memory
+        this.limited(job).restore(persisted.snapshot(), persisted.completedPackages());
+        return job;
+    }
+
+    private AbstractSynchronizationJob limited(AbstractSynchronizationJob job) {
+        job.setRetainedEntries(retainedEntriesPerJob);
+        if (!jobStore.persistsEntries()) {
+            job.spillReleasedEntries();
+        }
+        return job;
+    }
+
+    private SynchronizationJobPriority defaultPriority(Set<String> packageTechnicalNames) {
+        return packageTechnicalNames == null || packageTechnicalNames.isEmpty()
+            ? SynchronizationJobPriority.NORMAL
+            : SynchronizationJobPriority.HIGH;
     }
 }
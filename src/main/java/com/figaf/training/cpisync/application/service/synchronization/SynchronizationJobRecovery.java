@@ -0,0 +1,95 @@
+package com.figaf.training.cpisync.application.service.synchronization;
+
+import com.figaf.training.cpisync.application.service.synchronization.model.AbstractSynchronizationJob;
+import com.figaf.training.cpisync.application.service.synchronization.model.PersistedSynchronizationJob;
+import com.figaf.training.cpisync.domain.ClusterCoordinator;
+import com.figaf.training.cpisync.domain.SynchronizationJobStore;
+import jakarta.annotation.Resource;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Restores the job list of the previous process once the application is ready, and continues the jobs it left
+ * unfinished from their last checkpoint. Jobs of other nodes are only continued once their node has no live
+ * heartbeat; the leader checks for such jobs periodically, and a job is claimed before it is continued, so only one
+ * node continues it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SynchronizationJobRecovery {
+
+    private final SynchronizationJobStore jobStore;
+    private final SynchronizationJobFactory jobFactory;
+    private final SynchronizationJobScheduler scheduler;
+    private final ClusterCoordinator cluster;
+
+    @Resource(name = "synchronizationScheduleExecutor")
+    private ScheduledExecutorService scheduleExecutor;
+
+    //Continues jobs interrupted by a restart; when disabled they are recorded as failed.
+    @Value("${app.sync.resumeInterruptedJobs:true}")
+    private boolean resumeInterruptedJobs = true;
+
+    //How often the leader looks for unfinished jobs of nodes that stopped.
+    @Value("${app.sync.orphanedJobsInterval:PT30S}")
+    private Duration orphanedJobsInterval = Duration.ofSeconds(30);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverJobs() {
+        scheduler.restoreHistory(jobStore.findRecentFinished(scheduler.getCompletedJobsRetention()));
+        // jobs owned by the node id of this process were left by the process before the restart
+        Set<String> otherLiveNodes = new HashSet<>(cluster.getLiveNodes());
+        otherLiveNodes.remove(cluster.getNodeId());
+        this.recoverJobs(otherLiveNodes);
+        scheduleExecutor.scheduleWithFixedDelay(
+            this::recoverOrphanedJobs,
+            orphanedJobsInterval.toMillis(),
+            orphanedJobsInterval.toMillis(),
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    private void recoverOrphanedJobs() {
+        try {
+            if (cluster.isLeader()) {
+                this.recoverJobs(cluster.getLiveNodes());
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Failed to look for synchronization jobs of stopped nodes", ex);
+        }
+    }
+
+    private void recoverJobs(Collection<String> liveNodes) {
+        for (PersistedSynchronizationJob persisted : jobStore.findUnfinished(liveNodes)) {
+            UUID jobId = persisted.snapshot().metadata().jobId();
+            if (!jobStore.claim(jobId, persisted.ownerNodeId())) {
+                log.debug("Synchronization job {} was claimed by another node", jobId);
+                continue;
+            }
+            AbstractSynchronizationJob job = jobFactory.resumeJob(persisted);
+            if (resumeInterruptedJobs) {
+                log.info("Resuming synchronization job {} of node {} after {} completed packages",
+                    job.getId(), persisted.ownerNodeId(), persisted.completedPackages().size());
+                scheduler.resumeSynchronization(job);
+            } else {
+                log.warn("Synchronization job {} was interrupted by a restart", job.getId());
+                job.markFailed(new IllegalStateException("Synchronization was interrupted by a restart"));
+                jobStore.save(job.takeProgress(List.of()));
+                scheduler.restoreHistory(List.of(job.getMetadataSnapshot()));
+            }
+        }
+    }
+}
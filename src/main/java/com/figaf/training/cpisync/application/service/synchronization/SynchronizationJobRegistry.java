@@ -0,0 +1,122 @@
+package com.figaf.training.cpisync.application.service.synchronization;
+
+import com.figaf.training.cpisync.application.service.synchronization.model.AbstractSynchronizationJob;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationSnapshotMetadata;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Jobs known to the scheduler, looked up by id and listed in registration order without a global lock. Finished jobs
+ * enter an eviction ring and the oldest ones are forgotten beyond the retention; queued and running jobs are never
+ * evicted, evicted jobs discard their spilled entries. Finished jobs of earlier processes are only kept as metadata.
+ */
+class SynchronizationJobRegistry {
+
+    private final int retention;
+    private final AtomicLong sequence = new AtomicLong();
+    // jobs of earlier processes are listed before the jobs of this one
+    private final AtomicLong restoredSequence = new AtomicLong(Long.MIN_VALUE);
+    private final Map<UUID, RegisteredJob> byId = new ConcurrentHashMap<>();
+    private final NavigableMap<Long, RegisteredJob> bySequence = new ConcurrentSkipListMap<>();
+    private final Queue<RegisteredJob> finished = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger finishedCount = new AtomicInteger();
+
+    SynchronizationJobRegistry(int retention) {
+        this.retention = Math.max(retention, 0);
+    }
+
+    int getRetention() {
+        return retention;
+    }
+
+    void register(AbstractSynchronizationJob job) {
+        RegisteredJob registered = new RegisteredJob(sequence.incrementAndGet(), job.getId(), job, null);
+        byId.put(registered.jobId(), registered);
+        bySequence.put(registered.sequence(), registered);
+    }
+
+    /**
+     * @param metadata a finished job of an earlier process
+     */
+    void restore(SynchronizationSnapshotMetadata metadata) {
+        RegisteredJob registered = new RegisteredJob(restoredSequence.incrementAndGet(), metadata.jobId(), null, metadata);
+        if (byId.putIfAbsent(registered.jobId(), registered) == null) {
+            bySequence.put(registered.sequence(), registered);
+            this.retire(registered);
+        }
+    }
+
+    /**
+     * Moves a job that ended into the eviction ring; called once per job.
+     */
+    void finished(AbstractSynchronizationJob job) {
+        RegisteredJob registered = byId.get(job.getId());
+        if (registered != null && registered.job() == job) {
+            this.retire(registered);
+        }
+    }
+
+    Optional<AbstractSynchronizationJob> findJob(UUID jobId) {
+        RegisteredJob registered = byId.get(jobId);
+        return registered == null ? Optional.empty() : Optional.ofNullable(registered.job());
+    }
+
+    Optional<SynchronizationSnapshotMetadata> findRestored(UUID jobId) {
+        RegisteredJob registered = byId.get(jobId);
+        return registered == null ? Optional.empty() : Optional.ofNullable(registered.restored());
+    }
+
+    /**
+     * Metadata of every job, in registration order.
+     */
+    List<SynchronizationSnapshotMetadata> getAllMetadata() {
+        List<SynchronizationSnapshotMetadata> metadata = new ArrayList<>();
+        bySequence.values().forEach(registered -> metadata.add(registered.metadata()));
+        return metadata;
+    }
+
+    void clear() {
+        List<RegisteredJob> cleared = List.copyOf(byId.values());
+        finished.clear();
+        finishedCount.set(0);
+        bySequence.clear();
+        byId.clear();
+        cleared.forEach(RegisteredJob::discard);
+    }
+
+    private void retire(RegisteredJob registered) {
+        finished.add(registered);
+        if (finishedCount.incrementAndGet() > retention) {
+            RegisteredJob evicted = finished.poll();
+            if (evicted != null) {
+                finishedCount.decrementAndGet();
+                byId.remove(evicted.jobId(), evicted);
+                bySequence.remove(evicted.sequence(), evicted);
+                evicted.discard();
+            }
+        }
+    }
+
+    private record RegisteredJob(long sequence, UUID jobId, AbstractSynchronizationJob job, SynchronizationSnapshotMetadata restored) {
+
+        SynchronizationSnapshotMetadata metadata() {
+            return job != null ? job.getMetadataSnapshot() : restored;
+        }
+
+        void discard() {
+            if (job != null) {
+                job.discardEntries();
+            }
+        }
+    }
+}
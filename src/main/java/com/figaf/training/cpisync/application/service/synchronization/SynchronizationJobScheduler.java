@@ -1,23 +1,57 @@
 package com.figaf.training.cpisync.application.service.synchronization;
 
+import com.figaf.training.cpisync.application.dto.SynchronizationResultEntry;
 import com.figaf.training.cpisync.application.service.synchronization.model.AbstractSynchronizationJob;
+import com.figaf.training.cpisync.application.service.synchronization.model.ScheduledSynchronization;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationEntryFilter;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationEntryPage;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobHistoryPage;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobHistoryQuery;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobProgress;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationProgressUpdate;
 import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationSnapshot;
 import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationSnapshotMetadata;
-import java.util.LinkedList;
+import com.figaf.training.cpisync.domain.SynchronizationJobStore;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.collections4.queue.CircularFifoQueue;
-import org.apache.commons.collections4.queue.SynchronizedQueue;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+/**
+ * Queue of synchronization jobs. Queued jobs are started by priority and then in submission order, as long as fewer
+ * than {@code app.sync.jobExecutorConcurrency} jobs run and the job does not overlap a running one:
+ * <ul>
+ *     <li>a tenant-wide job overlaps every other job, so it runs alone,</li>
+ *     <li>package-scoped jobs overlap when they share a package.</li>
+ * </ul>
+ * Every job reads the latest states once when it starts, so two overlapping jobs would both append the versions of
+ * the objects they share. A queued job also waits for an overlapping job queued before it, so a tenant-wide job is not
+ * passed by scoped jobs forever.
+ * A request that a queued job already covers is coalesced into it, and at most {@code app.sync.jobQueueCapacity}
+ * jobs wait at a time; a job that can start right away is always accepted.
+ */
 @Slf4j
 @Component
 public class SynchronizationJobScheduler {
@@ -26,42 +60,348 @@ public class SynchronizationJobScheduler {
     @Qualifier("synchronizationJobExecutor")
     private ThreadPoolExecutor jobExecutor;
 
-    private final Queue<AbstractSynchronizationJob> jobs = SynchronizedQueue.synchronizedQueue(new CircularFifoQueue<>(100));
+    @Autowired
+    private SynchronizationJobStore jobStore;
 
-    public CompletableFuture<UUID> startSynchronization(AbstractSynchronizationJob job) {
-        return CompletableFuture.supplyAsync(() -> {
-                jobs.add(job);
-                job.run();
-                return job.getId();
-            }, jobExecutor)
-            .exceptionally(throwable -> {
-                job.markFailed(throwable);
-                return job.getId();
-            });
+    //Jobs that may wait to be started; further requests are rejected.
+    @Value("${app.sync.jobQueueCapacity:16}")
+    private int queueCapacity = 16;
+
+    // finished jobs of earlier processes are registered by their metadata, their entries are loaded from the store
+    private final SynchronizationJobRegistry jobs;
+
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private final AtomicLong submissionSequence = new AtomicLong();
+    // ordered by priority, then submission
+    private final NavigableSet<QueuedJob> queue = new TreeSet<>(
+        Comparator.comparing((QueuedJob queued) -> queued.job().getPriority()).thenComparingLong(QueuedJob::sequence)
+    );
+    private final Set<AbstractSynchronizationJob> runningJobs = new HashSet<>();
+    private final Map<UUID, CompletableFuture<UUID>> completions = new ConcurrentHashMap<>();
+
+    public SynchronizationJobScheduler(
+        //Finished jobs listed and kept for lookups; queued and running jobs are always kept.
+        @Value("${app.sync.completedJobsRetention:50}") int completedJobsRetention
+    ) {
+        this.jobs = new SynchronizationJobRegistry(completedJobsRetention);
     }
 
+    /**
+     * @throws RejectedExecutionException when the queue is full
+     */
+    public ScheduledSynchronization startSynchronization(AbstractSynchronizationJob job) {
+        queueLock.lock();
+        try {
+            Optional<QueuedJob> covering = queue.stream().filter(queued -> this.covers(queued.job(), job)).findFirst();
+            if (covering.isPresent()) {
+                UUID jobId = covering.get().job().getId();
+                log.info("Synchronization request coalesced into queued job {}", jobId);
+                return new ScheduledSynchronization(jobId, true, completions.get(jobId));
+            }
+            if (queue.size() >= queueCapacity && !this.canStart(job)) {
+                throw new RejectedExecutionException(
+                    "%d synchronization jobs are already waiting, try again later".formatted(queue.size()));
+            }
+            jobStore.create(job.getId(), job.getPackageTechnicalNames(), job.getRequestedMode());
+            return new ScheduledSynchronization(job.getId(), false, this.enqueue(job));
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    /**
+     * Queues a job restored from the store again, regardless of the capacity; it skips the packages it completed
+     * before.
+     */
+    public CompletableFuture<UUID> resumeSynchronization(AbstractSynchronizationJob job) {
+        queueLock.lock();
+        try {
+            return this.enqueue(job);
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    /**
+     * Removes a queued job, or asks a running one to stop, which interrupts its in-flight CPI calls.
+     *
+     * @return the job after the request, or empty if it is not known
+     */
+    public Optional<SynchronizationSnapshotMetadata> cancel(UUID jobId) {
+        Optional<AbstractSynchronizationJob> job = jobs.findJob(jobId);
+        if (job.isEmpty()) {
+            return jobs.findRestored(jobId);
+        }
+        boolean dequeued;
+        queueLock.lock();
+        try {
+            dequeued = queue.removeIf(queued -> queued.job() == job.get());
+            if (!dequeued && runningJobs.contains(job.get())) {
+                log.info("Cancelling synchronization job {}", jobId);
+                job.get().cancel();
+            }
+        } finally {
+            queueLock.unlock();
+        }
+        if (dequeued) {
+            job.get().markCancelled();
+            this.finish(job.get());
+        }
+        return job.map(AbstractSynchronizationJob::getMetadataSnapshot);
+    }
+
+    /**
+     * Whether a job is queued or running.
+     */
     public boolean hasRunningJobs() {
-        return jobExecutor.getActiveCount() > 0;
+        queueLock.lock();
+        try {
+            return !queue.isEmpty() || !runningJobs.isEmpty();
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    /**
+     * Lists finished jobs of earlier processes before the jobs of this one.
+     */
+    public void restoreHistory(Collection<SynchronizationSnapshotMetadata> finishedJobs) {
+        finishedJobs.forEach(jobs::restore);
+    }
+
+    /**
+     * Number of finished jobs that are kept.
+     */
+    public int getCompletedJobsRetention() {
+        return jobs.getRetention();
     }
 
     public Optional<SynchronizationSnapshot> getProgress(UUID jobId) {
-        Optional<AbstractSynchronizationJob> runningJob = jobs.stream()
-            .filter(j -> Objects.equals(j.getId(), jobId))
-            .findFirst();
-        return runningJob.map(AbstractSynchronizationJob::getFullSnapshot).or(Optional::empty);
+        Optional<AbstractSynchronizationJob> job = jobs.findJob(jobId);
+        if (job.isPresent()) {
+            return job.map(this::getFullSnapshot);
+        }
+        return jobs.findRestored(jobId).isPresent() ? jobStore.findSnapshot(jobId) : Optional.empty();
+    }
+
+    /**
+     * Past and current jobs as stored, including the ones dropped from memory.
+     */
+    public SynchronizationJobHistoryPage getJobHistory(SynchronizationJobHistoryQuery query) {
+        return jobStore.findHistory(query);
+    }
+
+    /**
+     * Reads a page of the entries of a job, from memory or, for a finished job of an earlier process, from the store.
+     *
+     * @return the page, or empty if the job is not known
+     */
+    public Optional<SynchronizationEntryPage> getEntries(UUID jobId, long afterSequence, int limit, SynchronizationEntryFilter filter) {
+        Optional<AbstractSynchronizationJob> job = jobs.findJob(jobId);
+        if (job.isPresent()) {
+            return job.map(found -> this.readEntries(found, afterSequence, limit, filter));
+        }
+        return jobs.findRestored(jobId).map(ignored -> jobStore.findEntries(jobId, afterSequence, limit, filter));
+    }
+
+    /**
+     * Waits at most {@code timeout} for entries after the sequence number, or for the end of the job, and returns the
+     * entries recorded by then. A finished job of an earlier process is read from the store.
+     *
+     * @return the update, or empty if the job is not known
+     */
+    public Optional<SynchronizationProgressUpdate> awaitProgress(UUID jobId, long afterSequence, int limit, Duration timeout)
+        throws InterruptedException {
+        Optional<AbstractSynchronizationJob> found = jobs.findJob(jobId);
+        if (found.isEmpty()) {
+            return this.getMetadata(jobId).map(metadata -> {
+                SynchronizationEntryPage page = jobStore.findEntries(jobId, afterSequence, limit, SynchronizationEntryFilter.ALL);
+                return new SynchronizationProgressUpdate(metadata, page.entries(), page.nextAfter(), !page.hasMore());
+            });
+        }
+        AbstractSynchronizationJob job = found.get();
+        job.awaitProgress(afterSequence, timeout);
+        // the metadata is read first, so a finished job returns its final entries
+        SynchronizationSnapshotMetadata metadata = job.getMetadataSnapshot();
+        SynchronizationEntryPage page = this.readEntries(job, afterSequence, limit, SynchronizationEntryFilter.ALL);
+        boolean last = metadata.status().isFinished() && !page.hasMore();
+        return Optional.of(new SynchronizationProgressUpdate(metadata, page.entries(), page.nextAfter(), last));
+    }
+
+    public Optional<SynchronizationSnapshotMetadata> getMetadata(UUID jobId) {
+        Optional<AbstractSynchronizationJob> job = jobs.findJob(jobId);
+        if (job.isPresent()) {
+            return job.map(AbstractSynchronizationJob::getMetadataSnapshot);
+        }
+        return jobs.findRestored(jobId);
     }
 
     public List<SynchronizationSnapshotMetadata> getAllJobsMetadata() {
-        List<SynchronizationSnapshotMetadata> metadata = new LinkedList<>();
-        jobs.forEach(snapshot -> metadata.add(snapshot.getMetadataSnapshot()));
-        return metadata;
+        return jobs.getAllMetadata();
     }
 
+    /**
+     * Drops queued jobs, asks running jobs to stop and forgets every job.
+     */
     public void clearAll() {
-        jobExecutor.purge();
+        List<QueuedJob> dropped;
+        queueLock.lock();
+        try {
+            dropped = List.copyOf(queue);
+            queue.clear();
+            runningJobs.forEach(AbstractSynchronizationJob::cancel);
+        } finally {
+            queueLock.unlock();
+        }
+        for (QueuedJob queued : dropped) {
+            queued.job().markCancelled();
+            this.finish(queued.job());
+        }
         jobs.clear();
+        jobStore.deleteAll();
     }
 
-}
+    /**
+     * Reads the entries a job released from memory from the store, continuing with the entries it holds.
+     */
+    private SynchronizationEntryPage readEntries(AbstractSynchronizationJob job, long afterSequence, int limit, SynchronizationEntryFilter filter) {
+        long released = job.getReleasedEntries();
+        if (afterSequence >= released) {
+            return job.getEntries(afterSequence, limit, filter);
+        }
+        SynchronizationEntryPage saved = jobStore.findEntries(job.getId(), afterSequence, limit, filter);
+        if (saved.hasMore() || saved.entries().size() >= limit) {
+            return saved;
+        }
+        // every entry after the saved ones is held by the job
+        SynchronizationEntryPage held = job.getEntries(Math.max(saved.nextAfter(), released), limit - saved.entries().size(), filter);
+        List<SynchronizationEntryPage.SequencedEntry> entries = new ArrayList<>(saved.entries());
+        entries.addAll(held.entries());
+        return new SynchronizationEntryPage(entries, held.nextAfter(), held.hasMore());
+    }
+
+    private SynchronizationSnapshot getFullSnapshot(AbstractSynchronizationJob job) {
+        SynchronizationSnapshot snapshot = job.getFullSnapshot();
+        long released = job.getReleasedEntries();
+        if (released == 0) {
+            return snapshot;
+        }
+        List<SynchronizationResultEntry> entries = new ArrayList<>(snapshot.entries().size() + (int)released);
+        jobStore.findEntries(job.getId(), 0, (int)released, SynchronizationEntryFilter.ALL).entries()
+            .forEach(saved -> entries.add(saved.entry()));
+        entries.addAll(snapshot.entries());
+        return new SynchronizationSnapshot(snapshot.metadata(), entries, snapshot.failures());
+    }
 
+    private CompletableFuture<UUID> enqueue(AbstractSynchronizationJob job) {
+        CompletableFuture<UUID> completion = new CompletableFuture<>();
+        completions.put(job.getId(), completion);
+        queue.add(new QueuedJob(job, submissionSequence.incrementAndGet()));
+        jobs.register(job);
+        this.dispatch();
+        return completion;
+    }
+
+    /**
+     * Starts every queued job that is admitted now; called whenever a job is queued or finished.
+     */
+    private void dispatch() {
+        queueLock.lock();
+        try {
+            if (jobExecutor.isShutdown()) {
+                return;
+            }
+            List<AbstractSynchronizationJob> waiting = new ArrayList<>();
+            Iterator<QueuedJob> iterator = queue.iterator();
+            while (iterator.hasNext()) {
+                AbstractSynchronizationJob job = iterator.next().job();
+                if (!this.canStart(job) || waiting.stream().anyMatch(earlier -> this.overlaps(earlier, job))) {
+                    waiting.add(job);
+                    continue;
+                }
+                iterator.remove();
+                runningJobs.add(job);
+                jobExecutor.execute(() -> this.run(job));
+            }
+        } finally {
+            queueLock.unlock();
+        }
+    }
 
+    private void run(AbstractSynchronizationJob job) {
+        try {
+            job.run();
+        } catch (Throwable throwable) {
+            if (job.isCancellationRequested()) {
+                log.info("Synchronization job {} was cancelled", job.getId());
+                job.markCancelled();
+            } else {
+                job.markFailed(throwable);
+            }
+        } finally {
+            this.save(job);
+            queueLock.lock();
+            try {
+                runningJobs.remove(job);
+            } finally {
+                queueLock.unlock();
+            }
+            this.complete(job);
+            this.dispatch();
+        }
+    }
+
+    private void finish(AbstractSynchronizationJob job) {
+        this.save(job);
+        this.complete(job);
+    }
+
+    private void save(AbstractSynchronizationJob job) {
+        try {
+            SynchronizationJobProgress progress = job.takeProgress(List.of());
+            jobStore.save(progress);
+            job.progressSaved(progress);
+        } catch (RuntimeException ex) {
+            log.error("Failed to save synchronization job {}", job.getId(), ex);
+        }
+    }
+
+    private void complete(AbstractSynchronizationJob job) {
+        jobs.finished(job);
+        CompletableFuture<UUID> completion = completions.remove(job.getId());
+        if (completion != null) {
+            completion.complete(job.getId());
+        }
+    }
+
+    /**
+     * Whether the queued job does everything the request asks for, so the request can be merged into it.
+     */
+    private boolean covers(AbstractSynchronizationJob queued, AbstractSynchronizationJob requested) {
+        if (!Objects.equals(queued.getRequestedMode(), requested.getRequestedMode())
+            || queued.getPriority().compareTo(requested.getPriority()) > 0) {
+            return false;
+        }
+        Set<String> queuedPackages = queued.getPackageTechnicalNames();
+        Set<String> requestedPackages = requested.getPackageTechnicalNames();
+        return queuedPackages == null || (requestedPackages != null && queuedPackages.containsAll(requestedPackages));
+    }
+
+    private boolean canStart(AbstractSynchronizationJob job) {
+        return runningJobs.size() < jobExecutor.getMaximumPoolSize()
+            && runningJobs.stream().noneMatch(running -> this.overlaps(running, job));
+    }
+
+    private boolean overlaps(AbstractSynchronizationJob job, AbstractSynchronizationJob candidate) {
+        Set<String> jobPackages = job.getPackageTechnicalNames();
+        Set<String> candidatePackages = candidate.getPackageTechnicalNames();
+        if (jobPackages == null || candidatePackages == null) {
+            return true;
+        }
+        return !Collections.disjoint(jobPackages, candidatePackages);
+    }
+
+    private record QueuedJob(AbstractSynchronizationJob job, long sequence) {
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.figaf.training.cpisync.application.service.synchronization;
+
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationMode;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Schedules that start synchronization jobs inside the service.
+ *
+ * @param enabled whether the schedules fire at all
+ * @param zone time zone the cron expressions are evaluated in
+ * @param jitter upper bound of a random delay added to every fire time, so the runs of several schedules or nodes do
+ *               not hit the tenant at the same second
+ * @param skipIfRunning skips a fire time while the job the schedule started before is still queued or running
+ * @param catchUp what to do with fire times missed while the service was down
+ * @param jobs the schedules
+ */
+@ConfigurationProperties(prefix = "app.sync.schedule")
+public record SynchronizationScheduleProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("UTC") ZoneId zone,
+    @DefaultValue("PT0S") Duration jitter,
+    @DefaultValue("true") boolean skipIfRunning,
+    @DefaultValue("RUN_ONCE") CatchUpPolicy catchUp,
+    @DefaultValue List<Schedule> jobs
+) {
+
+    public enum CatchUpPolicy {
+        /**
+         * Missed fire times are dropped, the schedule continues with its next fire time.
+         */
+        SKIP,
+        /**
+         * One job is started right after startup, however many fire times were missed.
+         */
+        RUN_ONCE
+    }
+
+    /**
+     * @param name unique name of the schedule, used to remember its last fire time
+     * @param cron Spring cron expression with seconds, e.g. {@code 0 0 2 * * *}
+     * @param mode mode of the started jobs, {@code app.sync.defaultMode} when absent
+     * @param packageTechnicalNames package scope of the started jobs, the whole tenant when absent
+     */
+    public record Schedule(
+        String name,
+        String cron,
+        SynchronizationMode mode,
+        Set<String> packageTechnicalNames
+    ) {
+    }
+}
@@ -0,0 +1,169 @@
+package com.figaf.training.cpisync.application.service.synchronization;
+
+import com.figaf.training.cpisync.application.service.synchronization.SynchronizationScheduleProperties.CatchUpPolicy;
+import com.figaf.training.cpisync.application.service.synchronization.SynchronizationScheduleProperties.Schedule;
+import com.figaf.training.cpisync.application.service.synchronization.model.AbstractSynchronizationJob;
+import com.figaf.training.cpisync.application.service.synchronization.model.ScheduledSynchronization;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobPriority;
+import com.figaf.training.cpisync.domain.ClusterCoordinator;
+import com.figaf.training.cpisync.domain.SynchronizationJobStore;
+import com.figaf.training.cpisync.infrastructure.metrics.SynchronizationMetrics;
+import jakarta.annotation.Resource;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+
+/**
+ * Starts synchronization jobs by the schedules configured under {@code app.sync.schedule}. The jobs are queued with
+ * {@link SynchronizationJobPriority#LOW}, so manual requests are started before them.
+ * <p>
+ * Every fire time is delayed by a random jitter and recorded in the job store. On startup, a schedule whose next fire
+ * time after the recorded one already passed is caught up according to {@code app.sync.schedule.catchUp}.
+ * <p>
+ * Every node keeps the schedules, but only the current cluster leader starts jobs, so a cluster runs each fire time
+ * once and another node takes over when the leader stops. With {@code skipIfRunning}, a fire time is skipped while the
+ * job the schedule queued last is unfinished, which the job store answers across nodes, so a new leader also skips
+ * while the job of its predecessor is still running or about to be resumed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SynchronizationScheduleRunner {
+
+    private final SynchronizationScheduleProperties properties;
+    private final SynchronizationJobFactory jobFactory;
+    private final SynchronizationJobScheduler scheduler;
+    private final SynchronizationJobStore jobStore;
+    private final ClusterCoordinator cluster;
+    private final SynchronizationMetrics metrics;
+
+    @Resource(name = "synchronizationScheduleExecutor")
+    private ScheduledExecutorService scheduleExecutor;
+
+    // completion of the job each schedule started last on this node, answers without the job store while it runs
+    private final Map<String, CompletableFuture<UUID>> lastRuns = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.enabled()) {
+            return;
+        }
+        Set<String> names = new HashSet<>();
+        for (Schedule schedule : properties.jobs()) {
+            if (StringUtils.isBlank(schedule.name()) || !names.add(schedule.name())) {
+                throw new IllegalStateException("Synchronization schedules need a unique name, got '%s'".formatted(schedule.name()));
+            }
+            CronExpression cron = CronExpression.parse(schedule.cron());
+            Instant now = Instant.now();
+            this.catchUp(schedule, cron, now);
+            this.scheduleNext(schedule, cron, now);
+            log.info("Synchronization schedule {} ({}) started", schedule.name(), schedule.cron());
+        }
+    }
+
+    private void catchUp(Schedule schedule, CronExpression cron, Instant now) {
+        if (!cluster.isLeader()) {
+            return;
+        }
+        Optional<Instant> lastFiredAt = jobStore.findLastScheduledRun(schedule.name());
+        if (lastFiredAt.isEmpty()) {
+            return;
+        }
+        ZonedDateTime missed = cron.next(lastFiredAt.get().atZone(properties.zone()));
+        if (missed == null || !missed.toInstant().isBefore(now)) {
+            return;
+        }
+        if (properties.catchUp() == CatchUpPolicy.RUN_ONCE) {
+            log.info("Synchronization schedule {} missed its run at {}, running it now", schedule.name(), missed);
+            scheduleExecutor.schedule(() -> this.fire(schedule, now), this.jitterMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            log.info("Synchronization schedule {} missed its run at {}, waiting for the next one", schedule.name(), missed);
+        }
+    }
+
+    private void scheduleNext(Schedule schedule, CronExpression cron, Instant after) {
+        ZonedDateTime next = cron.next(after.atZone(properties.zone()));
+        if (next == null) {
+            log.warn("Synchronization schedule {} has no further fire time", schedule.name());
+            return;
+        }
+        long delayMillis = Math.max(0, Duration.between(Instant.now(), next.toInstant()).toMillis()) + this.jitterMillis();
+        scheduleExecutor.schedule(() -> {
+            try {
+                this.fire(schedule, next.toInstant());
+            } finally {
+                // continues from the nominal fire time, so the jitter does not shift or repeat fire times
+                this.scheduleNext(schedule, cron, next.toInstant());
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void fire(Schedule schedule, Instant firedAt) {
+        if (!cluster.isLeader()) {
+            log.debug("Synchronization schedule {} left to the cluster leader", schedule.name());
+            return;
+        }
+        try {
+            UUID jobId = null;
+            if (properties.skipIfRunning() && this.isPreviousRunUnfinished(schedule)) {
+                log.info("Synchronization schedule {} skipped, its previous job is still running", schedule.name());
+                metrics.scheduleFired(schedule.name(), "skipped");
+            } else {
+                jobId = this.submit(schedule);
+            }
+            jobStore.saveScheduledRun(schedule.name(), firedAt, jobId);
+        } catch (RuntimeException ex) {
+            log.error("Synchronization schedule {} failed to fire", schedule.name(), ex);
+        }
+    }
+
+    private boolean isPreviousRunUnfinished(Schedule schedule) {
+        CompletableFuture<UUID> previous = lastRuns.get(schedule.name());
+        if (previous != null && !previous.isDone()) {
+            return true;
+        }
+        return jobStore.isLastScheduledJobUnfinished(schedule.name());
+    }
+
+    private UUID submit(Schedule schedule) {
+        AbstractSynchronizationJob job = jobFactory.createJob(
+            schedule.packageTechnicalNames(),
+            schedule.mode(),
+            SynchronizationJobPriority.LOW
+        );
+        try {
+            ScheduledSynchronization scheduled = scheduler.startSynchronization(job);
+            lastRuns.put(schedule.name(), scheduled.completion());
+            metrics.scheduleFired(schedule.name(), scheduled.coalesced() ? "coalesced" : "submitted");
+            log.info("Synchronization schedule {} queued job {}", schedule.name(), scheduled.jobId());
+            return scheduled.jobId();
+        } catch (RejectedExecutionException ex) {
+            log.warn("Synchronization schedule {} could not queue its job: {}", schedule.name(), ex.getMessage());
+            metrics.scheduleFired(schedule.name(), "rejected");
+            return null;
+        }
+    }
+
+    private long jitterMillis() {
+        long bound = properties.jitter().toMillis();
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+}
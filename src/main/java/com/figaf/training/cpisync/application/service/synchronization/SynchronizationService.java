@@ -1,6 +1,5 @@
 package com.figaf.training.cpisync.application.service.synchronization;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.figaf.integration.common.entity.RequestContext;
 import com.figaf.integration.cpi.client.CpiRuntimeArtifactClient;
 import com.figaf.integration.cpi.client.IntegrationPackageClient;
@@ -10,35 +9,49 @@ import com.figaf.integration.cpi.entity.designtime_artifacts.IntegrationPackage;
 import com.figaf.training.cpisync.application.dto.SyncedObjectVersionPayload;
 import com.figaf.training.cpisync.application.dto.SynchronizationActionType;
 import com.figaf.training.cpisync.application.dto.SynchronizationResultEntry;
+import com.figaf.training.cpisync.application.service.synchronization.SynchronizationShardCoordinator.ShardedRun;
 import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobProgressTracker;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationMode;
+import com.figaf.training.cpisync.domain.PayloadSource;
 import com.figaf.training.cpisync.domain.RepositoryService;
 import com.figaf.training.cpisync.domain.SyncedObjectHistory;
 import com.figaf.training.cpisync.domain.SyncedObjectType;
 import com.figaf.training.cpisync.domain.SyncedObjectVersion;
+import com.figaf.training.cpisync.domain.SynchronizationJobStore;
+import com.figaf.training.cpisync.domain.SynchronizationWatermark;
 import com.figaf.training.cpisync.infrastructure.SynchronizationMapper;
+import com.figaf.training.cpisync.infrastructure.cpi.CpiCallExecutor;
+import com.figaf.training.cpisync.infrastructure.cpi.CpiEndpoint;
 import com.figaf.training.cpisync.infrastructure.cpi.CpiSystemConnectionParameters;
 import com.figaf.training.cpisync.infrastructure.cpi.RequestContextFactory;
+import com.figaf.training.cpisync.infrastructure.database.SynchronizationRepositoryChange;
+import com.figaf.training.cpisync.infrastructure.metrics.SynchronizationMetrics;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.Resource;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
@@ -52,7 +65,11 @@ public class SynchronizationService {
     private final CpiRuntimeArtifactClient cpiRuntimeArtifactClient;
     private final CpiSystemConnectionParameters connectionParameters;
     private final RepositoryService repository;
+    private final SynchronizationJobStore jobStore;
     private final SynchronizationMapper mapper;
+    private final CpiCallExecutor cpiCalls;
+    private final SynchronizationMetrics metrics;
+    private final SynchronizationShardCoordinator shardCoordinator;
 
     @Resource(name = "integrationFlowJobExecutor")
     private ThreadPoolExecutor flowsJobExecutor;
@@ -60,24 +77,211 @@ public class SynchronizationService {
     @Resource(name = "integrationPackagesJobExecutor")
     private ThreadPoolExecutor packagesJobExecutor;
 
+    //Payloads larger than this are spooled to a temporary file instead of being kept on the heap.
+    @Value("${app.sync.payloadSpoolThreshold:1048576}")
+    private long payloadSpoolThreshold;
+
+    //Skips listing the flows of packages whose metadata did not change since their flows were last synchronized.
+    @Value("${app.sync.skipUnchangedPackages:false}")
+    private boolean skipUnchangedPackages;
+
+    //Incremental runs are promoted to a full run once the last full run is older than this, to detect deletions.
+    @Value("${app.sync.fullReconciliationInterval:PT24H}")
+    private Duration fullReconciliationInterval = Duration.ofHours(24);
+
+    //Incremental runs also list packages modified this long before the high-water mark, to cover saves that were
+    //still in flight while the mark was taken.
+    @Value("${app.sync.incrementalOverlap:PT5M}")
+    private Duration incrementalOverlap = Duration.ofMinutes(5);
+
+    //Objects that may fail (after retries) before the whole run is aborted.
+    @Value("${app.sync.failureBudget:50}")
+    private int failureBudget = 50;
+
+    //Minimum time between two checkpoints of a running job; an interrupted job resumes after its last checkpoint.
+    @Value("${app.sync.checkpointInterval:PT10S}")
+    private Duration checkpointInterval = Duration.ofSeconds(10);
+
     public void runSynchronization(
         SynchronizationJobProgressTracker progressTracker,
-        Collection<String> packageTechnicalNames
+        Collection<String> packageTechnicalNames,
+        SynchronizationMode requestedMode
     ) {
         Set<String> packageFilter = normalizePackageFilter(packageTechnicalNames);
-        progressTracker.markStarted();
+        Instant startedAt = Instant.now();
+        Optional<SynchronizationWatermark> watermark = repository.findWatermark();
+        SynchronizationMode mode = this.resolveMode(requestedMode, watermark, startedAt);
+        progressTracker.markStarted(mode);
+        SynchronizationFailures failures = new SynchronizationFailures(failureBudget, progressTracker);
+        SynchronizationCheckpoints checkpoints = new SynchronizationCheckpoints(checkpointInterval, progressTracker, repository, jobStore, failures);
+        SynchronizationCancellation cancellation = new SynchronizationCancellation();
+        progressTracker.onCancellation(cancellation::cancel);
+        Set<String> resumedPackages = progressTracker.getCompletedPackages();
+        if (!resumedPackages.isEmpty()) {
+            log.info("Resuming synchronization, {} packages were completed before it was interrupted", resumedPackages.size());
+        }
+        Timer.Sample jobSample = metrics.startJob();
+        boolean succeeded = false;
+        try {
+            RequestContext requestContext = RequestContextFactory.createRequestContextForWebApi(connectionParameters);
+            Instant modifiedSince = mode == SynchronizationMode.INCREMENTAL
+                ? watermark.get().highWaterMark().minus(incrementalOverlap)
+                : null;
+            List<IntegrationPackage> packages = metrics.timePhase(
+                "list-packages",
+                () -> this.listPackages(requestContext, modifiedSince)
+            );
+            List<IntegrationPackage> scopedPackages = this.filterPackages(packages, packageFilter);
+            LatestStateIndex latestState = metrics.timePhase(
+                "load-state",
+                () -> LatestStateIndex.of(repository.findAllLatestStates())
+            );
+            log.debug("Loaded latest state of {} stored objects", latestState.size());
+
+            // a resumed run keeps to its own checkpoints instead of distributing the remaining packages again
+            Optional<ShardedRun> shardedRun = packageFilter == null && resumedPackages.isEmpty()
+                ? shardCoordinator.distribute(scopedPackages)
+                : Optional.empty();
+            List<IntegrationPackage> localPackages = shardedRun.map(ShardedRun::localPackages).orElse(scopedPackages);
+            PipelinedSynchronizationResult result;
+            try {
+                result = metrics.timePhase(
+                    "synchronize",
+                    () -> this.synchronizePipelined(localPackages, resumedPackages, latestState, failures, checkpoints, cancellation, progressTracker)
+                );
+                shardedRun.ifPresent(run -> metrics.timePhase(
+                    "await-shards",
+                    () -> shardCoordinator.awaitShards(run, failures, cancellation)
+                ));
+            } finally {
+                shardedRun.ifPresent(shardCoordinator::release);
+            }
+            // the shard jobs detected the deleted flows of their packages themselves
+            Set<String> shardedPackages = shardedRun.map(ShardedRun::remotePackages).orElse(Set.of());
+            Set<String> remotePackages = new HashSet<>(result.packages());
+            remotePackages.addAll(shardedPackages);
+            Set<String> remoteFlows = result.flows();
+            // the tombstone pass reads the stored state, which has to include the versions appended above
+            metrics.timePhase("flush-writes", repository::flushPendingWrites);
+            failures.recordFailedWrites();
+            cancellation.throwIfCancelled();
+
+            metrics.timePhase("mark-deleted", () -> {
+                if (mode == SynchronizationMode.FULL) {
+                    this.markDeletedMissing(remotePackages, SyncedObjectType.INTEGRATION_PACKAGE, failures, progressTracker, packageFilter, shardedPackages);
+                    this.markDeletedMissing(remoteFlows, SyncedObjectType.INTEGRATION_FLOW, failures, progressTracker, packageFilter, shardedPackages);
+                } else {
+                    // unlisted packages are unknown to this run, only the flows of listed packages are complete
+                    this.markDeletedMissingFlows(result.listedPackages(), remoteFlows, latestState, failures, progressTracker);
+                }
+                repository.flushPendingWrites();
+            });
+            failures.recordFailedWrites();
+            // only now every flow version of the listed packages is stored
+            Set<String> completePackages = new HashSet<>(result.listedPackages());
+            completePackages.removeAll(failures.incompletePackages());
+            repository.markChildrenSynchronized(completePackages);
+            if (packageFilter == null) {
+                repository.saveWatermark(this.advanceWatermark(watermark, mode, packages, failures, startedAt));
+            }
+            succeeded = true;
+        } finally {
+            if (!succeeded) {
+                this.flushAfterAbort();
+            }
+            metrics.stopJob(jobSample, mode, succeeded);
+        }
 
-        RequestContext requestContext = RequestContextFactory.createRequestContextForWebApi(connectionParameters);
-        List<IntegrationPackage> packages = integrationPackageClient.getIntegrationPackages(requestContext, null);
-        List<IntegrationPackage> scopedPackages = this.filterPackages(packages, packageFilter);
+        progressTracker.markCompleted();
+    }
 
-        Set<String> remotePackages = this.synchronizePackagesAsync(scopedPackages, progressTracker);
-        Set<String> remoteFlows = this.synchronizeFlowsAsync(scopedPackages, progressTracker);
+    /**
+     * Writes the versions an aborted or cancelled run appended, whose histories and payload references are already
+     * stored. A failure is only logged, so it does not replace the error that aborted the run.
+     */
+    private void flushAfterAbort() {
+        try {
+            repository.flushPendingWrites();
+        } catch (RuntimeException ex) {
+            log.error("Failed to write the pending versions of an aborted synchronization", ex);
+        }
+    }
 
-        this.markDeletedMissing(remotePackages, SyncedObjectType.INTEGRATION_PACKAGE, progressTracker, packageFilter);
-        this.markDeletedMissing(remoteFlows, SyncedObjectType.INTEGRATION_FLOW, progressTracker, packageFilter);
+    private SynchronizationMode resolveMode(
+        SynchronizationMode requestedMode,
+        Optional<SynchronizationWatermark> watermark,
+        Instant now
+    ) {
+        if (requestedMode != SynchronizationMode.INCREMENTAL) {
+            return SynchronizationMode.FULL;
+        }
+        Optional<SynchronizationWatermark> usable = watermark
+            .filter(mark -> mark.highWaterMark() != null && mark.lastFullSynchronizationAt() != null);
+        if (usable.isEmpty()) {
+            log.info("No watermark of a full synchronization is stored, running a full synchronization");
+            return SynchronizationMode.FULL;
+        }
+        Instant lastFullSynchronizationAt = usable.get().lastFullSynchronizationAt();
+        if (!lastFullSynchronizationAt.plus(fullReconciliationInterval).isAfter(now)) {
+            log.info("Last full synchronization ran at {}, running a full reconciliation", lastFullSynchronizationAt);
+            return SynchronizationMode.FULL;
+        }
+        return SynchronizationMode.INCREMENTAL;
+    }
 
-        progressTracker.markCompleted();
+    private List<IntegrationPackage> listPackages(RequestContext requestContext, Instant modifiedSince) {
+        if (modifiedSince == null) {
+            return cpiCalls.execute(
+                CpiEndpoint.INTEGRATION_PACKAGES,
+                () -> integrationPackageClient.getIntegrationPackages(requestContext, null)
+            );
+        }
+        // ModifiedDate is a string of epoch milliseconds, which compares correctly as long as the lengths match
+        String filter = "ModifiedDate ge '%d'".formatted(modifiedSince.toEpochMilli());
+        List<IntegrationPackage> packages = cpiCalls.execute(
+            CpiEndpoint.INTEGRATION_PACKAGES,
+            () -> integrationPackageClient.getIntegrationPackages(requestContext, filter)
+        );
+        // applied again locally, so an API that ignores the filter only costs the larger response
+        return packages.stream()
+            .filter(pkg -> pkg.getModificationDate() == null || !pkg.getModificationDate().toInstant().isBefore(modifiedSince))
+            .toList();
+    }
+
+    /**
+     * The high-water mark is taken from the remote modification dates, not the local clock, so clock skew between
+     * this service and CPI does not hide changes. It is held back to the oldest package with failed objects, so the
+     * next incremental run lists that package again.
+     */
+    private SynchronizationWatermark advanceWatermark(
+        Optional<SynchronizationWatermark> previous,
+        SynchronizationMode mode,
+        List<IntegrationPackage> packages,
+        SynchronizationFailures failures,
+        Instant startedAt
+    ) {
+        Instant highWaterMark = packages.stream()
+            .map(IntegrationPackage::getModificationDate)
+            .filter(Objects::nonNull)
+            .map(Date::toInstant)
+            .max(Comparator.naturalOrder())
+            .orElse(null);
+        Instant previousHighWaterMark = previous.map(SynchronizationWatermark::highWaterMark).orElse(null);
+        if (highWaterMark == null || (previousHighWaterMark != null && previousHighWaterMark.isAfter(highWaterMark))) {
+            highWaterMark = previousHighWaterMark;
+        }
+        Set<String> incompletePackages = failures.incompletePackages();
+        Optional<Instant> oldestIncomplete = packages.stream()
+            .filter(pkg -> incompletePackages.contains(pkg.getTechnicalName()) && pkg.getModificationDate() != null)
+            .map(pkg -> pkg.getModificationDate().toInstant())
+            .min(Comparator.naturalOrder());
+        if (oldestIncomplete.isPresent() && (highWaterMark == null || oldestIncomplete.get().isBefore(highWaterMark))) {
+            highWaterMark = oldestIncomplete.get();
+        }
+        Instant lastFullSynchronizationAt = mode == SynchronizationMode.FULL
+            ? startedAt
+            : previous.map(SynchronizationWatermark::lastFullSynchronizationAt).orElse(null);
+        return new SynchronizationWatermark(highWaterMark, lastFullSynchronizationAt);
     }
 
     private List<IntegrationPackage> filterPackages(List<IntegrationPackage> packages, Set<String> packageFilter) {
@@ -100,82 +304,162 @@ public class SynchronizationService {
         return normalized.isEmpty() ? null : normalized;
     }
 
-    private Optional<String> synchronizePackagesSync(IntegrationPackage pkg, SynchronizationJobProgressTracker progressTracker) {
+    /**
+     * A package that fails is still reported as present remotely, so it is not marked as deleted.
+     */
+    private Optional<String> synchronizePackagesSync(
+        IntegrationPackage pkg,
+        LatestStateIndex latestState,
+        SynchronizationFailures failures,
+        SynchronizationCancellation cancellation,
+        SynchronizationJobProgressTracker progressTracker
+    ) {
         String technicalName = pkg.getTechnicalName();
         if (StringUtils.isEmpty(technicalName)) {
             return Optional.empty();
         }
+        if (failures.isExhausted()) {
+            return Optional.of(technicalName);
+        }
         Instant remoteModification = this.toInstant(pkg.getModificationDate());
         try {
             this.handleRemoteObject(
                 technicalName,
                 SyncedObjectType.INTEGRATION_PACKAGE,
+                technicalName,
                 remoteModification,
                 pkg.getVersion(),
                 () -> buildIntegrationPackagePayload(pkg),
+                latestState,
+                failures,
                 progressTracker
             );
         } catch (DataIntegrityViolationException ex) {
             log.warn("Package {} was already updated on other thread", technicalName);
+        } catch (RuntimeException ex) {
+            cancellation.throwIfCancelled();
+            log.error("Failed to synchronize package {}", technicalName, ex);
+            metrics.objectFailed(SyncedObjectType.INTEGRATION_PACKAGE);
+            failures.record(SyncedObjectType.INTEGRATION_PACKAGE, technicalName, technicalName, ex);
         }
         return Optional.of(technicalName);
     }
 
-    private Set<String> synchronizePackagesAsync(
+    /**
+     * Schedules the package metadata task and the flow task of every package at once, so flow listing and artifact
+     * downloads of a package do not wait for the metadata of all other packages. Both streams are bounded by their own
+     * executors and are awaited together before the result is collected. A package counts as completed for the
+     * checkpoints once both of its tasks finished without failures. A cancel interrupts the tasks in flight, fails the
+     * ones not started yet and thereby the whole run.
+     */
+    private PipelinedSynchronizationResult synchronizePipelined(
         List<IntegrationPackage> packages,
+        Set<String> resumedPackages,
+        LatestStateIndex latestState,
+        SynchronizationFailures failures,
+        SynchronizationCheckpoints checkpoints,
+        SynchronizationCancellation cancellation,
         SynchronizationJobProgressTracker progressTracker
     ) {
-        Set<String> remotePackageNames = new HashSet<>();
-
-        List<Callable<Optional<String>>> tasks = new ArrayList<>();
+        List<CompletableFuture<Optional<String>>> packageFutures = new ArrayList<>(packages.size());
+        List<CompletableFuture<Collection<String>>> flowFutures = new ArrayList<>(packages.size());
+        List<CompletableFuture<Void>> checkpointFutures = new ArrayList<>(packages.size());
+        Set<String> listedPackages = new HashSet<>();
+        Set<String> remoteFlows = new HashSet<>();
         for (IntegrationPackage pkg : packages) {
-            tasks.add(() -> this.synchronizePackagesSync(pkg, progressTracker));
-        }
-
-        try {
-            for (Future<Optional<String>> future : packagesJobExecutor.invokeAll(tasks)) {
-                try {
-                    future.get().ifPresent(remotePackageNames::add);
-                } catch (ExecutionException ex) {
-                    throw new IllegalStateException("Failed to synchronize integration packages", ex.getCause());
+            String technicalName = pkg.getTechnicalName();
+            if (technicalName != null && resumedPackages.contains(technicalName)) {
+                // completed by an earlier attempt of the job, its versions are stored and stand in for the remote ones
+                packageFutures.add(CompletableFuture.completedFuture(Optional.of(technicalName)));
+                remoteFlows.addAll(latestState.storedFlows(technicalName));
+                listedPackages.add(technicalName);
+                continue;
+            }
+            CompletableFuture<Optional<String>> packageFuture = CompletableFuture.supplyAsync(
+                () -> cancellation.track(() -> this.synchronizePackagesSync(pkg, latestState, failures, cancellation, progressTracker)),
+                packagesJobExecutor
+            );
+            packageFutures.add(packageFuture);
+            CompletableFuture<?> packageDone = packageFuture;
+            if (this.hasSynchronizedFlows(pkg, latestState)) {
+                // the stored flows stand in for the remote ones, so they are not marked as deleted
+                remoteFlows.addAll(latestState.storedFlows(technicalName));
+                metrics.packageListingSkipped();
+            } else {
+                if (technicalName != null) {
+                    listedPackages.add(technicalName);
                 }
+                CompletableFuture<Collection<String>> flowFuture = CompletableFuture.supplyAsync(
+                    () -> cancellation.track(() -> this.synchronizeFlowsForPackage(pkg, latestState, failures, cancellation, progressTracker)),
+                    flowsJobExecutor
+                );
+                flowFutures.add(flowFuture);
+                packageDone = CompletableFuture.allOf(packageFuture, flowFuture);
             }
-        } catch (InterruptedException ex) {
-            Thread.currentThread().interrupt();
-            throw new IllegalStateException("Integration packages synchronization interrupted", ex);
+            if (technicalName != null) {
+                checkpointFutures.add(packageDone.thenRun(() -> {
+                    if (!failures.isExhausted() && !cancellation.isCancelled()
+                        && !failures.incompletePackages().contains(technicalName)) {
+                        checkpoints.packageCompleted(technicalName);
+                    }
+                }));
+            }
+        }
+
+        List<CompletableFuture<?>> allFutures = new ArrayList<>(packageFutures.size() + flowFutures.size() + checkpointFutures.size());
+        allFutures.addAll(packageFutures);
+        allFutures.addAll(flowFutures);
+        // a checkpoint must not be saved after the final state of the job
+        allFutures.addAll(checkpointFutures);
+        this.awaitDrained(allFutures);
+
+        Set<String> remotePackageNames = new HashSet<>();
+        for (CompletableFuture<Optional<String>> future : packageFutures) {
+            this.getCompleted(future, "Failed to synchronize integration packages").ifPresent(remotePackageNames::add);
         }
+        for (CompletableFuture<Collection<String>> future : flowFutures) {
+            remoteFlows.addAll(this.getCompleted(future, "Failed to synchronize integration flows"));
+        }
+        return new PipelinedSynchronizationResult(remotePackageNames, remoteFlows, listedPackages);
+    }
 
-        return remotePackageNames;
+    private boolean hasSynchronizedFlows(IntegrationPackage pkg, LatestStateIndex latestState) {
+        return skipUnchangedPackages
+            && pkg.getTechnicalName() != null
+            && latestState.hasSynchronizedChildren(pkg.getTechnicalName(), this.toInstant(pkg.getModificationDate()), pkg.getVersion());
     }
 
-    private Set<String> synchronizeFlowsAsync(
-        List<IntegrationPackage> packages,
-        SynchronizationJobProgressTracker progressTracker
-    ) {
-        Set<String> remoteFlows = ConcurrentHashMap.newKeySet();
+    private void awaitDrained(List<CompletableFuture<?>> futures) {
         try {
-            List<Callable<Collection<String>>> tasks = packages.stream()
-                .map(pkg -> (Callable<Collection<String>>) () -> synchronizeFlowsForPackage(pkg, progressTracker))
-                .toList();
-            List<Future<Collection<String>>> futures = flowsJobExecutor.invokeAll(tasks);
-            for (Future<Collection<String>> future : futures) {
-                Collection<String> flows;
-                try {
-                    flows = future.get();
-                    remoteFlows.addAll(flows);
-                } catch (ExecutionException ex) {
-                    throw new IllegalStateException("Failed to synchronize integration flows", ex.getCause());
-                }
-            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .exceptionally(ignored -> null)
+                .get();
         } catch (InterruptedException ex) {
+            futures.forEach(future -> future.cancel(true));
             Thread.currentThread().interrupt();
-            throw new IllegalStateException("Integration flows synchronization interrupted", ex);
+            throw new IllegalStateException("Integration packages and flows synchronization interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Unexpected synchronization failure", ex.getCause());
         }
-        return remoteFlows;
     }
 
+    private <T> T getCompleted(CompletableFuture<T> future, String failureMessage) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            throw new IllegalStateException(failureMessage, ex.getCause());
+        }
+    }
+
+    /**
+     * Returns the flows that exist remotely. When the package cannot be listed, its stored flows are returned instead,
+     * and a flow that fails is still included, so neither is marked as deleted.
+     */
     private Collection<String> synchronizeFlowsForPackage(
         IntegrationPackage pkg,
+        LatestStateIndex latestState,
+        SynchronizationFailures failures,
+        SynchronizationCancellation cancellation,
         SynchronizationJobProgressTracker progressTracker
     ) {
         String packageTechName = pkg.getTechnicalName();
@@ -187,17 +471,29 @@ public class SynchronizationService {
             throw new IllegalStateException(
                 "Package %s is missing externalId, aborting synchronization to avoid data loss".formatted(packageTechName));
         }
+        if (failures.isExhausted()) {
+            return latestState.storedFlows(packageTechName);
+        }
 
         RequestContext requestContext = RequestContextFactory.createRequestContextForWebApi(connectionParameters);
-        List<CpiArtifact> artifacts = cpiRuntimeArtifactClient.getArtifactsByPackage(
-            requestContext,
-            packageTechName,
-            pkg.getDisplayedName(),
-            packageExternalId,
-            CpiArtifactType.IFLOW);
+        List<CpiArtifact> artifacts;
+        try {
+            artifacts = cpiCalls.execute(CpiEndpoint.PACKAGE_ARTIFACTS, () -> cpiRuntimeArtifactClient.getArtifactsByPackage(
+                requestContext,
+                packageTechName,
+                pkg.getDisplayedName(),
+                packageExternalId,
+                CpiArtifactType.IFLOW));
+        } catch (RuntimeException ex) {
+            cancellation.throwIfCancelled();
+            log.error("Failed to list integration flows of package {}", packageTechName, ex);
+            failures.record(SyncedObjectType.INTEGRATION_PACKAGE, packageTechName, packageTechName, ex);
+            return latestState.storedFlows(packageTechName);
+        }
 
         Set<String> remoteFlows = new HashSet<>();
         for (CpiArtifact artifact : artifacts) {
+            cancellation.throwIfCancelled();
             String technicalName = artifact.getTechnicalName();
             if (technicalName == null) {
                 continue;
@@ -205,34 +501,65 @@ public class SynchronizationService {
             remoteFlows.add(technicalName);
 
             Instant remoteModification = this.toInstant(artifact.getModificationDate());
-            this.handleRemoteObject(
-                technicalName,
-                SyncedObjectType.INTEGRATION_FLOW,
-                remoteModification,
-                artifact.getVersion(),
-                () -> buildIntegrationFlowPayload(requestContext, pkg, artifact),
-                progressTracker
-            );
+            try {
+                this.handleRemoteObject(
+                    technicalName,
+                    SyncedObjectType.INTEGRATION_FLOW,
+                    packageTechName,
+                    remoteModification,
+                    artifact.getVersion(),
+                    () -> buildIntegrationFlowPayload(requestContext, pkg, artifact),
+                    latestState,
+                    failures,
+                    progressTracker
+                );
+            } catch (RuntimeException ex) {
+                cancellation.throwIfCancelled();
+                log.error("Failed to synchronize integration flow {} of package {}", technicalName, packageTechName, ex);
+                metrics.objectFailed(SyncedObjectType.INTEGRATION_FLOW);
+                failures.record(SyncedObjectType.INTEGRATION_FLOW, technicalName, packageTechName, ex);
+            }
 
         }
         return remoteFlows;
     }
 
+    /**
+     * @param packageTechnicalName package the object belongs to, which is incomplete if the version cannot be written
+     */
     private void handleRemoteObject(
         String technicalName,
         SyncedObjectType type,
+        String packageTechnicalName,
         Instant remoteModificationDate,
         String remoteVersion,
         Supplier<SyncedObjectVersionPayload> payloadSupplier,
+        LatestStateIndex latestState,
+        SynchronizationFailures failures,
         SynchronizationJobProgressTracker progressTracker
     ) {
-        repository.appendVersionIfNecessary(technicalName, type, remoteModificationDate, remoteVersion, payloadSupplier)
+        if (latestState.isUpToDate(type, technicalName, remoteModificationDate, remoteVersion)) {
+            metrics.objectProcessed(type, null);
+            return;
+        }
+        Optional<SynchronizationRepositoryChange> repositoryChange = metrics.timeRepositoryAppend(
+            type,
+            () -> repository.appendVersionIfNecessary(technicalName, type, remoteModificationDate, remoteVersion, payloadSupplier)
+        );
+        metrics.objectProcessed(type, repositoryChange.map(SynchronizationRepositoryChange::action).orElse(null));
+        repositoryChange
             .ifPresent(change -> {
+                failures.trackWrite(type, technicalName, packageTechnicalName, change);
+                latestState.record(type, technicalName, change.version());
                 progressTracker.addEntry(toResultEntry(type, technicalName, change.action(), change.version()));
                 if (change.action() == SynchronizationActionType.REGISTERED) {
+                    metrics.payloadBytesWritten(type, change.version().getPayloadSize().orElse(0L));
                     log.info("Registered {} {}", type, technicalName);
                 } else if (change.action() == SynchronizationActionType.UPDATED) {
+                    metrics.payloadBytesWritten(type, change.version().getPayloadSize().orElse(0L));
                     log.info("Updated {} {}", type, technicalName);
+                } else if (change.action() == SynchronizationActionType.METADATA_TOUCHED) {
+                    log.info("Metadata of {} {} touched without content changes", type, technicalName);
                 }
             });
     }
@@ -240,24 +567,57 @@ public class SynchronizationService {
     private void markDeletedMissing(
         Set<String> remoteKeys,
         SyncedObjectType type,
+        SynchronizationFailures failures,
         SynchronizationJobProgressTracker progressTracker,
-        Set<String> packageFilter
+        Set<String> packageFilter,
+        Set<String> shardedPackages
     ) {
         for (SyncedObjectHistory history : repository.findAllByType(type)) {
-            if (!isWithinScope(history, type, packageFilter)) {
+            if (!isWithinScope(history, type, packageFilter) || isInShard(history, type, shardedPackages)) {
                 continue;
             }
             if (!remoteKeys.contains(history.getTechnicalName())) {
-                repository.markDeleted(history.getTechnicalName(), type).ifPresent(version -> {
-                    progressTracker.addEntry(
-                        toResultEntry(type, history.getTechnicalName(), SynchronizationActionType.MARKED_AS_DELETED, version)
-                    );
-                    log.info("Marked {} {} as deleted", type, history.getTechnicalName());
-                });
+                String packageTechnicalName = type == SyncedObjectType.INTEGRATION_PACKAGE
+                    ? history.getTechnicalName()
+                    : history.getLatestVersion().flatMap(SyncedObjectVersion::getParentTechnicalName).orElse(null);
+                this.markDeleted(history.getTechnicalName(), type, packageTechnicalName, failures, progressTracker);
+            }
+        }
+    }
+
+    private void markDeletedMissingFlows(
+        Set<String> listedPackages,
+        Set<String> remoteFlows,
+        LatestStateIndex latestState,
+        SynchronizationFailures failures,
+        SynchronizationJobProgressTracker progressTracker
+    ) {
+        for (String packageTechnicalName : listedPackages) {
+            for (String flowTechnicalName : latestState.storedFlows(packageTechnicalName)) {
+                if (!remoteFlows.contains(flowTechnicalName)) {
+                    this.markDeleted(flowTechnicalName, SyncedObjectType.INTEGRATION_FLOW, packageTechnicalName, failures, progressTracker);
+                }
             }
         }
     }
 
+    private void markDeleted(
+        String technicalName,
+        SyncedObjectType type,
+        String packageTechnicalName,
+        SynchronizationFailures failures,
+        SynchronizationJobProgressTracker progressTracker
+    ) {
+        repository.markDeleted(technicalName, type).ifPresent(change -> {
+            failures.trackWrite(type, technicalName, packageTechnicalName, change);
+            metrics.objectProcessed(type, SynchronizationActionType.MARKED_AS_DELETED);
+            progressTracker.addEntry(
+                toResultEntry(type, technicalName, SynchronizationActionType.MARKED_AS_DELETED, change.version())
+            );
+            log.info("Marked {} {} as deleted", type, technicalName);
+        });
+    }
+
     private boolean isWithinScope(SyncedObjectHistory history, SyncedObjectType type, Set<String> packageFilter) {
         if (packageFilter == null || packageFilter.isEmpty()) {
             return true;
@@ -272,6 +632,15 @@ public class SynchronizationService {
         };
     }
 
+    private boolean isInShard(SyncedObjectHistory history, SyncedObjectType type, Set<String> shardedPackages) {
+        return type == SyncedObjectType.INTEGRATION_FLOW
+            && !shardedPackages.isEmpty()
+            && history.getLatestVersion()
+                .flatMap(SyncedObjectVersion::getParentTechnicalName)
+                .map(shardedPackages::contains)
+                .orElse(false);
+    }
+
     private SynchronizationResultEntry toResultEntry(
         SyncedObjectType type,
         String technicalName,
@@ -293,11 +662,11 @@ public class SynchronizationService {
     }
 
     private SyncedObjectVersionPayload buildIntegrationPackagePayload(IntegrationPackage pkg) {
-        byte[] payloadBytes;
+        PayloadSource payload;
         try {
-            payloadBytes = mapper.serializeToByteArray(pkg);
-        } catch (JsonProcessingException e) {
-            throw new IllegalStateException("Failed to serialize integration package %s".formatted(pkg.getTechnicalName()), e);
+            payload = PayloadSource.spool(output -> mapper.serializeTo(output, pkg), payloadSpoolThreshold);
+        } catch (UncheckedIOException e) {
+            throw new IllegalStateException("Failed to serialize integration package %s".formatted(pkg.getTechnicalName()), e.getCause());
         }
         return SyncedObjectVersionPayload.builder()
             .modificationDate(toInstant(pkg.getModificationDate()))
@@ -307,7 +676,7 @@ public class SynchronizationService {
             .creationDate(toInstant(pkg.getCreationDate()))
             .createdBy(pkg.getCreatedBy())
             .modifiedBy(pkg.getModifiedBy())
-            .payload(payloadBytes)
+            .payload(payload)
             .payloadContentType(MediaType.APPLICATION_JSON_VALUE)
             .payloadFileName(buildPackageFileName(pkg.getTechnicalName()))
             .build();
@@ -318,6 +687,7 @@ public class SynchronizationService {
         IntegrationPackage pkg,
         CpiArtifact artifact
     ) {
+        // the CPI client only exposes the archive as an array, which is handed over to the payload without copies
         byte[] artifactPayload = downloadIntegrationFlowArchive(requestContext, pkg.getExternalId(), artifact.getExternalId());
         return SyncedObjectVersionPayload.builder()
             .modificationDate(toInstant(artifact.getModificationDate()))
@@ -340,7 +710,14 @@ public class SynchronizationService {
             throw new IllegalStateException("Cannot download artifact payload without external identifiers");
         }
         try {
-            return cpiRuntimeArtifactClient.downloadArtifact(requestContext, packageExternalId, artifactExternalId);
+            byte[] archive = cpiCalls.execute(
+                CpiEndpoint.ARTIFACT_DOWNLOAD,
+                () -> cpiRuntimeArtifactClient.downloadArtifact(requestContext, packageExternalId, artifactExternalId)
+            );
+            if (archive != null) {
+                metrics.bytesDownloaded(archive.length);
+            }
+            return archive;
         } catch (RuntimeException ex) {
             throw new IllegalStateException("Failed to download artifact payload for %s".formatted(artifactExternalId), ex);
         }
@@ -357,4 +734,7 @@ public class SynchronizationService {
         return baseName + ".zip";
     }
 
+    private record PipelinedSynchronizationResult(Set<String> packages, Set<String> flows, Set<String> listedPackages) {
+    }
+
 }
@@ -0,0 +1,148 @@
+package com.figaf.training.cpisync.application.service.synchronization;
+
+import com.figaf.integration.cpi.entity.designtime_artifacts.IntegrationPackage;
+import com.figaf.training.cpisync.domain.ClusterCoordinator;
+import com.figaf.training.cpisync.domain.SynchronizationShard;
+import com.figaf.training.cpisync.domain.SynchronizationShardStatus;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Distributes the packages of a tenant-wide run across the live nodes by consistent hashing on their technical names.
+ * The node running the job keeps its own shard and assigns the others; those nodes synchronize their shards as
+ * package-scoped jobs (see {@link SynchronizationShardWorker}), which also detect deleted flows of their packages.
+ * The coordinating node waits for them and then performs the tenant-wide tombstone pass.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SynchronizationShardCoordinator {
+
+    private final ClusterCoordinator cluster;
+
+    //Shards tenant-wide runs across the live nodes of the cluster.
+    @Value("${app.cluster.sharding.enabled:false}")
+    private boolean enabled;
+
+    //Tenants with fewer packages are synchronized by a single node.
+    @Value("${app.cluster.sharding.minPackages:100}")
+    private int minPackages = 100;
+
+    @Value("${app.cluster.sharding.pollInterval:PT5S}")
+    private Duration pollInterval = Duration.ofSeconds(5);
+
+    //Shards not completed within this time count as failed.
+    @Value("${app.cluster.sharding.timeout:PT2H}")
+    private Duration timeout = Duration.ofHours(2);
+
+    /**
+     * Assigns the shards of the other live nodes.
+     *
+     * @return the run, or empty when the packages are synchronized by this node alone
+     */
+    Optional<ShardedRun> distribute(List<IntegrationPackage> packages) {
+        if (!enabled || packages.size() < minPackages) {
+            return Optional.empty();
+        }
+        List<String> nodes = cluster.getLiveNodes();
+        if (nodes.size() < 2 || !nodes.contains(cluster.getNodeId())) {
+            return Optional.empty();
+        }
+        ConsistentHashRing ring = new ConsistentHashRing(nodes);
+        List<IntegrationPackage> localPackages = new ArrayList<>();
+        Map<String, Set<String>> remoteShards = new HashMap<>();
+        for (IntegrationPackage pkg : packages) {
+            String owner = pkg.getTechnicalName() == null ? cluster.getNodeId() : ring.ownerOf(pkg.getTechnicalName());
+            if (owner.equals(cluster.getNodeId())) {
+                localPackages.add(pkg);
+            } else {
+                remoteShards.computeIfAbsent(owner, ignored -> new LinkedHashSet<>()).add(pkg.getTechnicalName());
+            }
+        }
+        if (remoteShards.isEmpty()) {
+            return Optional.empty();
+        }
+        UUID runId = UUID.randomUUID();
+        cluster.assignShards(remoteShards.entrySet().stream()
+            .map(shard -> new SynchronizationShard(runId, shard.getKey(), shard.getValue(), SynchronizationShardStatus.PENDING, null))
+            .toList());
+        log.info("Synchronization run {} keeps {} packages and assigned {} to nodes {}",
+            runId, localPackages.size(), packages.size() - localPackages.size(), remoteShards.keySet());
+        return Optional.of(new ShardedRun(runId, localPackages, remoteShards));
+    }
+
+    /**
+     * Waits until every assigned shard finished. Shards that failed, whose node stopped, or that did not finish in
+     * time are recorded as failures, which keeps their packages from counting as synchronized.
+     */
+    void awaitShards(ShardedRun run, SynchronizationFailures failures, SynchronizationCancellation cancellation) {
+        Map<String, Set<String>> pending = new HashMap<>(run.remoteShards());
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            while (!pending.isEmpty()) {
+                cancellation.throwIfCancelled();
+                Set<String> liveNodes = new HashSet<>(cluster.getLiveNodes());
+                for (SynchronizationShard shard : cluster.findShards(run.runId())) {
+                    Set<String> packages = pending.get(shard.nodeId());
+                    if (packages == null) {
+                        continue;
+                    }
+                    if (shard.status() == SynchronizationShardStatus.COMPLETED) {
+                        pending.remove(shard.nodeId());
+                    } else if (shard.status() == SynchronizationShardStatus.FAILED) {
+                        failures.recordShard(shard.nodeId(), pending.remove(shard.nodeId()), shard.message());
+                    } else if (!liveNodes.contains(shard.nodeId())) {
+                        failures.recordShard(shard.nodeId(), pending.remove(shard.nodeId()), "the node stopped");
+                    }
+                }
+                if (!pending.isEmpty() && System.nanoTime() - deadline > 0) {
+                    pending.forEach((nodeId, packages) -> failures.recordShard(nodeId, packages, "timed out after " + timeout));
+                    pending.clear();
+                }
+                if (!pending.isEmpty()) {
+                    Thread.sleep(pollInterval);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the shards of run " + run.runId(), ex);
+        }
+    }
+
+    /**
+     * Removes the shards of a run that no longer waits for them; shards not claimed yet are dropped, shards already
+     * running complete on their nodes.
+     */
+    void release(ShardedRun run) {
+        try {
+            cluster.deleteShards(run.runId());
+        } catch (RuntimeException ex) {
+            log.warn("Failed to remove the shards of run {}", run.runId(), ex);
+        }
+    }
+
+    /**
+     * @param remoteShards packages assigned to each other node
+     */
+    record ShardedRun(UUID runId, List<IntegrationPackage> localPackages, Map<String, Set<String>> remoteShards) {
+
+        Set<String> remotePackages() {
+            return remoteShards.values().stream()
+                .flatMap(Set::stream)
+                .collect(Collectors.toSet());
+        }
+    }
+}
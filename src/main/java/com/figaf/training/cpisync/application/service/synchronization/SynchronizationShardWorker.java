@@ -0,0 +1,97 @@
+package com.figaf.training.cpisync.application.service.synchronization;
+
+import com.figaf.training.cpisync.application.service.synchronization.model.AbstractSynchronizationJob;
+import com.figaf.training.cpisync.application.service.synchronization.model.ScheduledSynchronization;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobPriority;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobStatus;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationMode;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationSnapshotMetadata;
+import com.figaf.training.cpisync.domain.ClusterCoordinator;
+import com.figaf.training.cpisync.domain.SynchronizationShard;
+import com.figaf.training.cpisync.domain.SynchronizationShardStatus;
+import jakarta.annotation.Resource;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Picks up the shards other nodes assigned to this one and synchronizes each as a full, package-scoped job, then
+ * reports the outcome back to the coordinating node.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SynchronizationShardWorker {
+
+    private final ClusterCoordinator cluster;
+    private final SynchronizationJobFactory jobFactory;
+    private final SynchronizationJobScheduler scheduler;
+
+    @Resource(name = "synchronizationScheduleExecutor")
+    private ScheduledExecutorService scheduleExecutor;
+
+    @Value("${app.cluster.sharding.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.cluster.sharding.pollInterval:PT5S}")
+    private Duration pollInterval = Duration.ofSeconds(5);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            scheduleExecutor.scheduleWithFixedDelay(this::pollShards, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void pollShards() {
+        try {
+            cluster.claimShards().forEach(this::startShard);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to claim synchronization shards of node {}", cluster.getNodeId(), ex);
+        }
+    }
+
+    private void startShard(SynchronizationShard shard) {
+        AbstractSynchronizationJob job = jobFactory.createJob(
+            shard.packageTechnicalNames(),
+            SynchronizationMode.FULL,
+            SynchronizationJobPriority.NORMAL
+        );
+        ScheduledSynchronization scheduled;
+        try {
+            scheduled = scheduler.startSynchronization(job);
+        } catch (RejectedExecutionException ex) {
+            log.warn("Shard of run {} could not be queued: {}", shard.runId(), ex.getMessage());
+            cluster.finishShard(shard.runId(), SynchronizationShardStatus.FAILED, ex.getMessage());
+            return;
+        }
+        log.info("Synchronizing shard of run {} with {} packages as job {}",
+            shard.runId(), shard.packageTechnicalNames().size(), scheduled.jobId());
+        scheduled.completion().thenAccept(jobId -> this.reportShard(shard, jobId));
+    }
+
+    private void reportShard(SynchronizationShard shard, UUID jobId) {
+        Optional<SynchronizationSnapshotMetadata> metadata = scheduler.getMetadata(jobId);
+        SynchronizationJobStatus status = metadata.map(SynchronizationSnapshotMetadata::status).orElse(null);
+        try {
+            if (status == SynchronizationJobStatus.COMPLETED) {
+                cluster.finishShard(shard.runId(), SynchronizationShardStatus.COMPLETED, null);
+            } else {
+                String error = metadata.map(SynchronizationSnapshotMetadata::errorMessage).orElse(null);
+                cluster.finishShard(shard.runId(), SynchronizationShardStatus.FAILED,
+                    "job %s ended %s%s".formatted(jobId, status, error == null ? "" : ": " + error));
+            }
+        } catch (RuntimeException ex) {
+            log.error("Failed to report the shard of run {}", shard.runId(), ex);
+        }
+    }
+}
@@ -1,77 +1,349 @@
 package com.figaf.training.cpisync.application.service.synchronization.model;
 
+import com.figaf.training.cpisync.application.dto.SynchronizationFailureEntry;
 import com.figaf.training.cpisync.application.dto.SynchronizationResultEntry;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
+@Slf4j
 public abstract class AbstractSynchronizationJob implements SynchronizationJobProgressTracker, Runnable {
 
     @Getter
-    private final UUID id = UUID.randomUUID();
+    private final UUID id;
     private final AtomicReference<SynchronizationJobStatus> status = new AtomicReference<>(SynchronizationJobStatus.QUEUED);
+    private final AtomicReference<SynchronizationMode> mode = new AtomicReference<>();
     private final AtomicReference<Instant> startedAt = new AtomicReference<>();
     private final AtomicReference<Instant> finishedAt = new AtomicReference<>();
-    private final ConcurrentLinkedQueue<SynchronizationResultEntry> entries = new ConcurrentLinkedQueue<>();
+    // progress streams wait on entryAdded for entries and the end of the job
+    private final SynchronizationEntryLog entries = new SynchronizationEntryLog();
+    private final ReentrantLock entriesLock = new ReentrantLock();
+    private final Condition entryAdded = entriesLock.newCondition();
+    // entries up to this sequence number are saved and may be released from memory
+    private long savedSequence;
+    private volatile int retainedEntries = Integer.MAX_VALUE;
     private final AtomicLong registeredCount = new AtomicLong();
     private final AtomicLong updatedCount = new AtomicLong();
+    private final AtomicLong touchedCount = new AtomicLong();
     private final AtomicLong deletedCount = new AtomicLong();
+    private final ConcurrentLinkedQueue<SynchronizationFailureEntry> failures = new ConcurrentLinkedQueue<>();
+    private final AtomicLong failedCount = new AtomicLong();
     private final AtomicReference<String> errorMessage = new AtomicReference<>();
+    // added since the progress was last taken, see takeProgress
+    private final ConcurrentLinkedQueue<SynchronizationFailureEntry> unsavedFailures = new ConcurrentLinkedQueue<>();
+    private volatile Set<String> completedPackages = Set.of();
+    private final AtomicBoolean cancellationRequested = new AtomicBoolean();
+    private volatile Runnable cancellationAction;
+
+    protected AbstractSynchronizationJob() {
+        this(UUID.randomUUID());
+    }
+
+    protected AbstractSynchronizationJob(UUID id) {
+        this.id = id;
+    }
+
+    /**
+     * Package scope of the job, {@code null} for the whole tenant.
+     */
+    public abstract Set<String> getPackageTechnicalNames();
+
+    /**
+     * Mode the job was requested with, {@code null} for the configured default.
+     */
+    public abstract SynchronizationMode getRequestedMode();
+
+    public abstract SynchronizationJobPriority getPriority();
 
     public SynchronizationJobStatus getStatus() {
         return status.get();
     }
 
+    /**
+     * Keeps at most about this many saved entries in memory; older ones are released once saved and have to be read
+     * from the store.
+     */
+    public void setRetainedEntries(int retainedEntries) {
+        this.retainedEntries = retainedEntries;
+    }
+
+    /**
+     * Spills the entries released from memory to a temporary file, for a store that does not keep them; they stay
+     * readable from the job until {@link #discardEntries()}.
+     */
+    public void spillReleasedEntries() {
+        entriesLock.lock();
+        try {
+            entries.spillReleased();
+        } finally {
+            entriesLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the spilled entries of a job that is forgotten.
+     */
+    public void discardEntries() {
+        entriesLock.lock();
+        try {
+            entries.close();
+        } catch (UncheckedIOException ex) {
+            log.warn("Failed to discard the entries of synchronization job {}", id, ex);
+        } finally {
+            entriesLock.unlock();
+        }
+    }
+
+    /**
+     * Sequence number of the last entry released from memory, 0 while all entries are held.
+     */
+    public long getReleasedEntries() {
+        entriesLock.lock();
+        try {
+            return entries.released();
+        } finally {
+            entriesLock.unlock();
+        }
+    }
+
+    /**
+     * Scans the held entries after the given sequence number for up to {@code limit} matching ones.
+     */
+    public SynchronizationEntryPage getEntries(long afterSequence, int limit, SynchronizationEntryFilter filter) {
+        entriesLock.lock();
+        try {
+            List<SynchronizationEntryPage.SequencedEntry> page = new ArrayList<>(Math.min(limit, 1024));
+            long sequence = Math.clamp(afterSequence, entries.released(), entries.size());
+            while (sequence < entries.size() && page.size() < limit) {
+                SynchronizationResultEntry entry = entries.get(++sequence);
+                if (filter.matches(entry)) {
+                    page.add(new SynchronizationEntryPage.SequencedEntry(sequence, entry));
+                }
+            }
+            return new SynchronizationEntryPage(page, sequence, sequence < entries.size());
+        } finally {
+            entriesLock.unlock();
+        }
+    }
+
+    /**
+     * Waits until an entry after the given sequence number is recorded or the job finished, at most for the timeout.
+     */
+    public void awaitProgress(long sequence, Duration timeout) throws InterruptedException {
+        long remaining = timeout.toNanos();
+        entriesLock.lock();
+        try {
+            while (entries.size() <= sequence && !status.get().isFinished() && remaining > 0) {
+                remaining = entryAdded.awaitNanos(remaining);
+            }
+        } finally {
+            entriesLock.unlock();
+        }
+    }
+
     @Override
-    public void markStarted() {
+    public void markStarted(SynchronizationMode mode) {
         this.startedAt.compareAndSet(null, Instant.now());
+        this.mode.set(mode);
         this.status.set(SynchronizationJobStatus.RUNNING);
     }
 
     @Override
     public void addEntry(SynchronizationResultEntry entry) {
-        entries.add(entry);
-        switch (entry.action()) {
-            case REGISTERED -> registeredCount.incrementAndGet();
-            case UPDATED -> updatedCount.incrementAndGet();
-            case MARKED_AS_DELETED -> deletedCount.incrementAndGet();
+        this.record(entry);
+    }
+
+    @Override
+    public void addFailure(SynchronizationFailureEntry failure) {
+        this.record(failure);
+        unsavedFailures.add(failure);
+    }
+
+    @Override
+    public Set<String> getCompletedPackages() {
+        return completedPackages;
+    }
+
+    @Override
+    public SynchronizationJobProgress takeProgress(Collection<String> completedPackages) {
+        SynchronizationSnapshotMetadata metadata = this.getMetadataSnapshot();
+        List<SynchronizationResultEntry> unsaved;
+        long lastSequence;
+        entriesLock.lock();
+        try {
+            lastSequence = entries.size();
+            unsaved = entries.slice(savedSequence, lastSequence);
+        } finally {
+            entriesLock.unlock();
         }
+        return new SynchronizationJobProgress(
+            metadata,
+            List.copyOf(completedPackages),
+            unsaved,
+            lastSequence,
+            drain(unsavedFailures)
+        );
+    }
+
+    @Override
+    public void progressSaved(SynchronizationJobProgress progress) {
+        entriesLock.lock();
+        try {
+            savedSequence = Math.max(savedSequence, progress.lastEntrySequence());
+            entries.release(Math.min(savedSequence, entries.size() - retainedEntries));
+        } finally {
+            entriesLock.unlock();
+        }
+    }
+
+    @Override
+    public void onCancellation(Runnable action) {
+        this.cancellationAction = action;
+        if (cancellationRequested.get()) {
+            action.run();
+        }
+    }
+
+    /**
+     * Asks the running job to stop; it ends as {@link SynchronizationJobStatus#CANCELLED} unless it already finished.
+     */
+    public void cancel() {
+        cancellationRequested.set(true);
+        Runnable action = cancellationAction;
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    public boolean isCancellationRequested() {
+        return cancellationRequested.get();
     }
 
     @Override
     public void markCompleted() {
         this.finishedAt.set(Instant.now());
-        this.status.set(SynchronizationJobStatus.COMPLETED);
+        this.finish(failedCount.get() > 0 ? SynchronizationJobStatus.COMPLETED_WITH_ERRORS : SynchronizationJobStatus.COMPLETED);
     }
 
     @Override
     public void markFailed(Throwable error) {
         this.finishedAt.set(Instant.now());
-        this.status.set(SynchronizationJobStatus.FAILED);
         this.errorMessage.set(error == null ? null : ExceptionUtils.getMessage(error) + "\n" + ExceptionUtils.getStackTrace(error));
+        this.finish(SynchronizationJobStatus.FAILED);
+    }
+
+    public void markCancelled() {
+        this.finishedAt.set(Instant.now());
+        this.finish(SynchronizationJobStatus.CANCELLED);
     }
 
+    /**
+     * Continues a job that an earlier process saved but did not finish. The restored entries and failures are not
+     * saved again, and the counts are derived from them. Only the entries within the retained ones are held again,
+     * the ones before keep their sequence numbers and are read from the store; set the retained entries first.
+     */
+    public void restore(SynchronizationSnapshot snapshot, Set<String> completedPackages) {
+        this.startedAt.set(snapshot.metadata().startedAt());
+        List<SynchronizationResultEntry> restored = snapshot.entries();
+        entriesLock.lock();
+        try {
+            long skipped = entries.skip(restored.size() - (long)retainedEntries);
+            restored.subList((int)skipped, restored.size()).forEach(entries::append);
+            savedSequence = entries.size();
+        } finally {
+            entriesLock.unlock();
+        }
+        restored.forEach(this::count);
+        snapshot.failures().forEach(this::record);
+        this.completedPackages = Set.copyOf(completedPackages);
+    }
+
+    /**
+     * Snapshot with the entries held in memory, see {@link #getReleasedEntries()}.
+     */
     public SynchronizationSnapshot getFullSnapshot() {
-        return new SynchronizationSnapshot(this.getMetadataSnapshot(), List.copyOf(entries));
+        List<SynchronizationResultEntry> recorded;
+        entriesLock.lock();
+        try {
+            recorded = entries.slice(0, entries.size());
+        } finally {
+            entriesLock.unlock();
+        }
+        return new SynchronizationSnapshot(this.getMetadataSnapshot(), recorded, List.copyOf(failures));
     }
 
     public SynchronizationSnapshotMetadata getMetadataSnapshot() {
         return new SynchronizationSnapshotMetadata(
             id,
             status.get(),
+            mode.get(),
             startedAt.get(),
             finishedAt.get(),
             registeredCount.get(),
             updatedCount.get(),
+            touchedCount.get(),
             deletedCount.get(),
+            failedCount.get(),
             errorMessage.get()
         );
     }
 
-}
+    private void finish(SynchronizationJobStatus finalStatus) {
+        entriesLock.lock();
+        try {
+            status.set(finalStatus);
+            entryAdded.signalAll();
+        } finally {
+            entriesLock.unlock();
+        }
+    }
+
+    private void record(SynchronizationResultEntry entry) {
+        entriesLock.lock();
+        try {
+            entries.append(entry);
+            entryAdded.signalAll();
+        } finally {
+            entriesLock.unlock();
+        }
+        this.count(entry);
+    }
 
+    private void count(SynchronizationResultEntry entry) {
+        switch (entry.action()) {
+            case REGISTERED -> registeredCount.incrementAndGet();
+            case UPDATED -> updatedCount.incrementAndGet();
+            case METADATA_TOUCHED -> touchedCount.incrementAndGet();
+            case MARKED_AS_DELETED -> deletedCount.incrementAndGet();
+        }
+    }
+
+    private void record(SynchronizationFailureEntry failure) {
+        failures.add(failure);
+        failedCount.incrementAndGet();
+    }
+
+    private static <T> List<T> drain(Queue<T> queue) {
+        List<T> drained = new ArrayList<>();
+        for (T element = queue.poll(); element != null; element = queue.poll()) {
+            drained.add(element);
+        }
+        return drained;
+    }
+
+}
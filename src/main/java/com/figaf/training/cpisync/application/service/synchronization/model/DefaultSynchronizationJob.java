@@ -2,19 +2,47 @@ package com.figaf.training.cpisync.application.service.synchronization.model;
 
 import com.figaf.training.cpisync.application.service.synchronization.SynchronizationService;
 import java.util.Set;
-import lombok.RequiredArgsConstructor;
+import java.util.UUID;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
-@RequiredArgsConstructor
 public class DefaultSynchronizationJob extends AbstractSynchronizationJob {
 
     private final SynchronizationService synchronizationService;
+    @Getter
     private final Set<String> packageTechnicalNames;
+    @Getter
+    private final SynchronizationMode requestedMode;
+    @Getter
+    private final SynchronizationJobPriority priority;
+
+    public DefaultSynchronizationJob(
+        SynchronizationService synchronizationService,
+        Set<String> packageTechnicalNames,
+        SynchronizationMode requestedMode,
+        SynchronizationJobPriority priority
+    ) {
+        this(UUID.randomUUID(), synchronizationService, packageTechnicalNames, requestedMode, priority);
+    }
+
+    public DefaultSynchronizationJob(
+        UUID id,
+        SynchronizationService synchronizationService,
+        Set<String> packageTechnicalNames,
+        SynchronizationMode requestedMode,
+        SynchronizationJobPriority priority
+    ) {
+        super(id);
+        this.synchronizationService = synchronizationService;
+        this.packageTechnicalNames = packageTechnicalNames;
+        this.requestedMode = requestedMode;
+        this.priority = priority;
+    }
 
     @Override
     public void run() {
-        synchronizationService.runSynchronization(this, packageTechnicalNames);
+        synchronizationService.runSynchronization(this, packageTechnicalNames, requestedMode);
     }
 
 }
@@ -0,0 +1,18 @@
+package com.figaf.training.cpisync.application.service.synchronization.model;
+
+import java.util.Set;
+
+/**
+ * Saved job of an earlier process, with everything needed to continue it.
+ *
+ * @param packageTechnicalNames package scope of the job, {@code null} for the whole tenant
+ * @param completedPackages packages that were completed before the job was interrupted
+ * @param ownerNodeId node that ran the job, {@code null} for jobs saved before nodes were recorded
+ */
+public record PersistedSynchronizationJob(
+    Set<String> packageTechnicalNames,
+    SynchronizationMode requestedMode,
+    SynchronizationSnapshot snapshot,
+    Set<String> completedPackages,
+    String ownerNodeId
+) {}
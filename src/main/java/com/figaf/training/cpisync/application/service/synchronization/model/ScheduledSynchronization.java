@@ -0,0 +1,13 @@
+package com.figaf.training.cpisync.application.service.synchronization.model;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Job accepted by the scheduler.
+ *
+ * @param jobId job that does the work, which is an already queued job if the request was coalesced into it
+ * @param coalesced whether the request was merged into a queued job covering the same packages
+ * @param completion completes with {@code jobId} once the job finished
+ */
+public record ScheduledSynchronization(UUID jobId, boolean coalesced, CompletableFuture<UUID> completion) {}
@@ -0,0 +1,17 @@
+package com.figaf.training.cpisync.application.service.synchronization.model;
+
+import com.figaf.training.cpisync.application.dto.SynchronizationActionType;
+import com.figaf.training.cpisync.application.dto.SynchronizationResultEntry;
+import com.figaf.training.cpisync.domain.SyncedObjectType;
+
+/**
+ * Selects result entries of a job; a {@code null} criterion matches every entry.
+ */
+public record SynchronizationEntryFilter(SynchronizationActionType action, SyncedObjectType type) {
+
+    public static final SynchronizationEntryFilter ALL = new SynchronizationEntryFilter(null, null);
+
+    public boolean matches(SynchronizationResultEntry entry) {
+        return (action == null || action == entry.action()) && (type == null || type == entry.type());
+    }
+}
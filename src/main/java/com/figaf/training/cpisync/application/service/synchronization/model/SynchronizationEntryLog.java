@@ -0,0 +1,261 @@
+package com.figaf.training.cpisync.application.service.synchronization.model;
+
+import com.figaf.training.cpisync.application.dto.SynchronizationActionType;
+import com.figaf.training.cpisync.application.dto.SynchronizationResultEntry;
+import com.figaf.training.cpisync.domain.SyncedObjectType;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only, columnar store of the result entries of a job. Entries are kept in chunks of primitive columns: the
+ * technical name as an index into names interned per job, object type and action as ordinals and the time as epoch
+ * milliseconds, about 20 bytes per entry instead of an entry record with its instant. Chunks at the front can be
+ * released once their entries are saved elsewhere; entries keep their sequence numbers, starting at 1. Where nothing
+ * else saves them, released chunks are spilled to a temporary file instead and stay readable until the log is closed.
+ * <p>
+ * Not thread-safe, the job guards it with its entries lock.
+ */
+final class SynchronizationEntryLog {
+
+    private static final int CHUNK_SIZE = 1024;
+    private static final SyncedObjectType[] TYPES = SyncedObjectType.values();
+    private static final SynchronizationActionType[] ACTIONS = SynchronizationActionType.values();
+    private static final int NO_NAME = -1;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    // names, types, actions, deleted flags, versions and times of a chunk
+    private static final int CHUNK_BYTES = CHUNK_SIZE * (Integer.BYTES + 3 + Integer.BYTES + Long.BYTES);
+
+    private final Map<String, Integer> nameIndexes = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<Chunk> chunks = new ArrayList<>();
+    // entries dropped from the front, always whole chunks
+    private long dropped;
+    private long size;
+    private boolean spilling;
+    private Path spillFile;
+    private FileChannel spill;
+    // the spilled chunk read last, pages are read in sequence
+    private long readChunkIndex = -1;
+    private Chunk readChunk;
+    private boolean closed;
+
+    /**
+     * Spills released chunks to a temporary file instead of dropping them; set before any chunk is released.
+     */
+    void spillReleased() {
+        this.spilling = true;
+    }
+
+    /**
+     * @return the sequence number of the entry
+     */
+    long append(SynchronizationResultEntry entry) {
+        if (chunks.isEmpty() || chunks.getLast().count == CHUNK_SIZE) {
+            chunks.add(new Chunk());
+        }
+        Chunk chunk = chunks.getLast();
+        int index = chunk.count++;
+        chunk.names[index] = this.intern(entry.technicalName());
+        chunk.types[index] = (byte)entry.type().ordinal();
+        chunk.actions[index] = (byte)entry.action().ordinal();
+        chunk.deleted[index] = entry.deleted();
+        chunk.versions[index] = entry.version();
+        chunk.synchronizedAt[index] = entry.synchronizedAt() == null ? NO_TIME : entry.synchronizedAt().toEpochMilli();
+        return ++size;
+    }
+
+    /**
+     * Sequence number of the last entry.
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Sequence number of the last entry that can no longer be read from the log; later entries are held or spilled.
+     */
+    long released() {
+        return spill != null ? 0 : dropped;
+    }
+
+    /**
+     * Starts an empty log after the given number of entries, which are not held; only whole chunks are skipped, and
+     * none by a spilling log since they would not be readable.
+     *
+     * @return the number of skipped entries
+     */
+    long skip(long count) {
+        if (size > 0) {
+            throw new IllegalStateException("Only an empty log can skip entries");
+        }
+        if (spilling) {
+            return 0;
+        }
+        dropped = Math.max(count, 0) / CHUNK_SIZE * CHUNK_SIZE;
+        size = dropped;
+        return dropped;
+    }
+
+    /**
+     * @param sequence sequence number of a held or spilled entry
+     */
+    SynchronizationResultEntry get(long sequence) {
+        long offset = sequence - 1 - dropped;
+        Chunk chunk = offset < 0
+            ? this.readSpilled((sequence - 1) / CHUNK_SIZE)
+            : chunks.get((int)(offset / CHUNK_SIZE));
+        int index = (int)((sequence - 1) % CHUNK_SIZE);
+        int name = chunk.names[index];
+        long time = chunk.synchronizedAt[index];
+        return new SynchronizationResultEntry(
+            TYPES[chunk.types[index]],
+            name == NO_NAME ? null : names.get(name),
+            ACTIONS[chunk.actions[index]],
+            chunk.versions[index],
+            chunk.deleted[index],
+            time == NO_TIME ? null : Instant.ofEpochMilli(time)
+        );
+    }
+
+    /**
+     * Entries after {@code fromSequence} up to {@code toSequence}, both limited to the held entries.
+     */
+    List<SynchronizationResultEntry> slice(long fromSequence, long toSequence) {
+        long from = Math.max(fromSequence, this.released());
+        long to = Math.min(toSequence, size);
+        List<SynchronizationResultEntry> slice = new ArrayList<>((int)Math.max(to - from, 0));
+        for (long sequence = from + 1; sequence <= to; sequence++) {
+            slice.add(this.get(sequence));
+        }
+        return slice;
+    }
+
+    /**
+     * Drops the chunks whose entries all have a sequence number up to the given one, spilling them first if the log
+     * spills.
+     *
+     * @throws UncheckedIOException if a chunk cannot be spilled, it is kept then
+     */
+    void release(long sequence) {
+        while (!chunks.isEmpty() && chunks.getFirst().count == CHUNK_SIZE && dropped + CHUNK_SIZE <= sequence) {
+            if (spilling && !closed) {
+                this.writeSpilled(chunks.getFirst(), dropped / CHUNK_SIZE);
+            }
+            chunks.removeFirst();
+            dropped += CHUNK_SIZE;
+        }
+    }
+
+    /**
+     * Deletes the spill file; spilled entries are released then and further chunks are dropped without spilling.
+     */
+    void close() {
+        closed = true;
+        readChunk = null;
+        readChunkIndex = -1;
+        if (spill == null) {
+            return;
+        }
+        try {
+            spill.close();
+            Files.deleteIfExists(spillFile);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to delete spilled entries " + spillFile, ex);
+        } finally {
+            spill = null;
+        }
+    }
+
+    private void writeSpilled(Chunk chunk, long chunkIndex) {
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_BYTES);
+        buffer.asIntBuffer().put(chunk.names);
+        buffer.position(CHUNK_SIZE * Integer.BYTES);
+        buffer.put(chunk.types).put(chunk.actions);
+        for (boolean deleted : chunk.deleted) {
+            buffer.put((byte)(deleted ? 1 : 0));
+        }
+        buffer.asIntBuffer().put(chunk.versions);
+        buffer.position(buffer.position() + CHUNK_SIZE * Integer.BYTES);
+        buffer.asLongBuffer().put(chunk.synchronizedAt);
+        buffer.clear();
+        try {
+            if (spill == null) {
+                spillFile = Files.createTempFile("cpisync-entries-", ".spill");
+                spill = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            long position = chunkIndex * CHUNK_BYTES;
+            while (buffer.hasRemaining()) {
+                position += spill.write(buffer, position);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to spill entries to " + spillFile, ex);
+        }
+    }
+
+    private Chunk readSpilled(long chunkIndex) {
+        if (chunkIndex == readChunkIndex) {
+            return readChunk;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_BYTES);
+        try {
+            long position = chunkIndex * CHUNK_BYTES;
+            while (buffer.hasRemaining()) {
+                int read = spill.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("Spill file ends before chunk " + chunkIndex);
+                }
+                position += read;
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read spilled entries from " + spillFile, ex);
+        }
+        buffer.flip();
+        Chunk chunk = new Chunk();
+        buffer.asIntBuffer().get(chunk.names);
+        buffer.position(CHUNK_SIZE * Integer.BYTES);
+        buffer.get(chunk.types).get(chunk.actions);
+        for (int index = 0; index < CHUNK_SIZE; index++) {
+            chunk.deleted[index] = buffer.get() != 0;
+        }
+        buffer.asIntBuffer().get(chunk.versions);
+        buffer.position(buffer.position() + CHUNK_SIZE * Integer.BYTES);
+        buffer.asLongBuffer().get(chunk.synchronizedAt);
+        chunk.count = CHUNK_SIZE;
+        readChunkIndex = chunkIndex;
+        readChunk = chunk;
+        return chunk;
+    }
+
+    private int intern(String name) {
+        if (name == null) {
+            return NO_NAME;
+        }
+        Integer index = nameIndexes.get(name);
+        if (index == null) {
+            index = names.size();
+            names.add(name);
+            nameIndexes.put(name, index);
+        }
+        return index;
+    }
+
+    private static final class Chunk {
+        private final int[] names = new int[CHUNK_SIZE];
+        private final byte[] types = new byte[CHUNK_SIZE];
+        private final byte[] actions = new byte[CHUNK_SIZE];
+        private final boolean[] deleted = new boolean[CHUNK_SIZE];
+        private final int[] versions = new int[CHUNK_SIZE];
+        private final long[] synchronizedAt = new long[CHUNK_SIZE];
+        private int count;
+    }
+}
@@ -0,0 +1,17 @@
+package com.figaf.training.cpisync.application.service.synchronization.model;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.figaf.training.cpisync.application.dto.SynchronizationResultEntry;
+import java.util.List;
+
+/**
+ * Page of the result entries of a job. Entries are numbered in the order the job recorded them, starting at 1.
+ *
+ * @param nextAfter cursor for the next page; it may be past the last returned entry when the entries in between did
+ * not match the filter
+ * @param hasMore whether further entries were already recorded after the cursor; a running job records more later
+ */
+public record SynchronizationEntryPage(List<SequencedEntry> entries, long nextAfter, boolean hasMore) {
+
+    public record SequencedEntry(long sequence, @JsonUnwrapped SynchronizationResultEntry entry) {}
+}
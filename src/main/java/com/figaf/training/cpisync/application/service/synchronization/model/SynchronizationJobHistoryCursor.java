@@ -0,0 +1,34 @@
+package com.figaf.training.cpisync.application.service.synchronization.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in the job history, which is ordered by submission time and then job id, both descending. Clients get it
+ * as an opaque token.
+ */
+public record SynchronizationJobHistoryCursor(Instant createdAt, UUID jobId) {
+
+    public String toToken() {
+        String position = createdAt.toEpochMilli() + ":" + jobId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException when the token was not created by {@link #toToken()}
+     */
+    public static SynchronizationJobHistoryCursor fromToken(String token) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = position.indexOf(':');
+            return new SynchronizationJobHistoryCursor(
+                Instant.ofEpochMilli(Long.parseLong(position.substring(0, separator))),
+                UUID.fromString(position.substring(separator + 1))
+            );
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid job history cursor: " + token, ex);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.figaf.training.cpisync.application.service.synchronization.model;
+
+import java.util.List;
+
+/**
+ * @param nextCursor token of the next page, {@code null} on the last page
+ */
+public record SynchronizationJobHistoryPage(List<SynchronizationSnapshotMetadata> jobs, String nextCursor) {}
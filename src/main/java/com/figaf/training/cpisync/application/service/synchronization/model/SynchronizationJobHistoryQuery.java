@@ -0,0 +1,21 @@
+package com.figaf.training.cpisync.application.service.synchronization.model;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Stored jobs submitted in a time range, newest first.
+ *
+ * @param from inclusive lower bound of the submission time, {@code null} for no bound
+ * @param to exclusive upper bound of the submission time, {@code null} for no bound
+ * @param statuses statuses to return, empty for all
+ * @param after cursor of the last job of the previous page, {@code null} for the first page
+ * @param limit maximum number of jobs
+ */
+public record SynchronizationJobHistoryQuery(
+    Instant from,
+    Instant to,
+    Set<SynchronizationJobStatus> statuses,
+    SynchronizationJobHistoryCursor after,
+    int limit
+) {}
@@ -0,0 +1,19 @@
+package com.figaf.training.cpisync.application.service.synchronization.model;
+
+/**
+ * Order in which queued jobs are started; jobs of the same priority start in submission order.
+ */
+public enum SynchronizationJobPriority {
+    /**
+     * Package-scoped jobs requested by a user, who usually waits for them.
+     */
+    HIGH,
+    /**
+     * Tenant-wide jobs requested by a user.
+     */
+    NORMAL,
+    /**
+     * Jobs started by a schedule.
+     */
+    LOW
+}
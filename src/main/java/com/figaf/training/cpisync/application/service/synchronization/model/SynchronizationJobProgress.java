@@ -0,0 +1,22 @@
+package com.figaf.training.cpisync.application.service.synchronization.model;
+
+import com.figaf.training.cpisync.application.dto.SynchronizationFailureEntry;
+import com.figaf.training.cpisync.application.dto.SynchronizationResultEntry;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * State of a job together with the progress it made since it was last saved.
+ *
+ * @param completedPackages packages whose package and flow versions were all appended since the last save
+ * @param entries entries added since the last successful save
+ * @param lastEntrySequence sequence number of the last of {@code entries}
+ * @param failures failures added since the last save
+ */
+public record SynchronizationJobProgress(
+    SynchronizationSnapshotMetadata metadata,
+    Collection<String> completedPackages,
+    List<SynchronizationResultEntry> entries,
+    long lastEntrySequence,
+    List<SynchronizationFailureEntry> failures
+) {}
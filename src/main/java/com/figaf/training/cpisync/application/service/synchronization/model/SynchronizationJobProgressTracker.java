@@ -1,15 +1,48 @@
 package com.figaf.training.cpisync.application.service.synchronization.model;
 
+import com.figaf.training.cpisync.application.dto.SynchronizationFailureEntry;
 import com.figaf.training.cpisync.application.dto.SynchronizationResultEntry;
+import java.util.Collection;
+import java.util.Set;
 
 public interface SynchronizationJobProgressTracker {
 
-    void markStarted();
+    /**
+     * @param mode the mode the run actually uses, which may differ from the requested one
+     */
+    void markStarted(SynchronizationMode mode);
 
     void addEntry(SynchronizationResultEntry entry);
 
+    void addFailure(SynchronizationFailureEntry failure);
+
+    /**
+     * Packages completed by an earlier, interrupted attempt of this job; the run does not synchronize them again.
+     */
+    Set<String> getCompletedPackages();
+
+    /**
+     * Takes the failures added since the previous call and the entries not reported saved yet, so the entries of a
+     * progress that could not be saved are taken again.
+     *
+     * @param completedPackages packages completed since the previous call
+     */
+    SynchronizationJobProgress takeProgress(Collection<String> completedPackages);
+
+    /**
+     * Reports that a progress taken from this job was stored; its entries may be released from memory.
+     */
+    void progressSaved(SynchronizationJobProgress progress);
+
+    /**
+     * Registers the action that stops the run when the job is cancelled; it runs at once if the job already was.
+     */
+    void onCancellation(Runnable action);
+
+    /**
+     * Completes the job, with errors if any failure was added.
+     */
     void markCompleted();
 
     void markFailed(Throwable error);
 }
-
@@ -4,6 +4,21 @@ public enum SynchronizationJobStatus {
     QUEUED,
     RUNNING,
     COMPLETED,
-    FAILED
-}
+    /**
+     * The run finished, but some objects failed and are listed in the snapshot.
+     */
+    COMPLETED_WITH_ERRORS,
+    FAILED,
+    /**
+     * The job was cancelled before it finished; objects synchronized until then stay stored, nothing was marked as
+     * deleted.
+     */
+    CANCELLED;
 
+    /**
+     * Whether the job ended; a saved job that did not end was interrupted and can be resumed.
+     */
+    public boolean isFinished() {
+        return this != QUEUED && this != RUNNING;
+    }
+}
@@ -0,0 +1,18 @@
+package com.figaf.training.cpisync.application.service.synchronization.model;
+
+/**
+ * Scope of the remote listing of a synchronization run.
+ */
+public enum SynchronizationMode {
+
+    /**
+     * Every package of the tenant is listed, and stored objects missing remotely are marked as deleted.
+     */
+    FULL,
+
+    /**
+     * Only packages modified since the persisted high-water mark are listed. Deleted packages are not detected, so
+     * the run is promoted to {@link #FULL} when the last full reconciliation is too old or no watermark exists.
+     */
+    INCREMENTAL
+}
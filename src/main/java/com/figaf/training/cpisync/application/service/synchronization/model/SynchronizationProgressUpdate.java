@@ -0,0 +1,16 @@
+package com.figaf.training.cpisync.application.service.synchronization.model;
+
+import java.util.List;
+
+/**
+ * Entries a job recorded after a sequence number, with the state of the job read before them.
+ *
+ * @param lastSequence sequence number to continue after
+ * @param last whether the job ended and no entries follow
+ */
+public record SynchronizationProgressUpdate(
+    SynchronizationSnapshotMetadata metadata,
+    List<SynchronizationEntryPage.SequencedEntry> entries,
+    long lastSequence,
+    boolean last
+) {}
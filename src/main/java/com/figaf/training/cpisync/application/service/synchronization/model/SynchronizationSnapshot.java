@@ -1,9 +1,11 @@
 package com.figaf.training.cpisync.application.service.synchronization.model;
 
+import com.figaf.training.cpisync.application.dto.SynchronizationFailureEntry;
 import com.figaf.training.cpisync.application.dto.SynchronizationResultEntry;
 import java.util.List;
 
 public record SynchronizationSnapshot (
     SynchronizationSnapshotMetadata metadata,
-    List<SynchronizationResultEntry> entries
+    List<SynchronizationResultEntry> entries,
+    List<SynchronizationFailureEntry> failures
 ) {}
\ No newline at end of file
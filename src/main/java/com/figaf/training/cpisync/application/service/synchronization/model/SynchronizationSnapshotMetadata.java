@@ -6,10 +6,13 @@ import java.util.UUID;
 public record SynchronizationSnapshotMetadata(
     UUID jobId,
     SynchronizationJobStatus status,
+    SynchronizationMode mode,
     Instant startedAt,
     Instant finishedAt,
     long registeredCount,
     long updatedCount,
+    long touchedCount,
     long deletedCount,
+    long failedCount,
     String errorMessage
 ) {}
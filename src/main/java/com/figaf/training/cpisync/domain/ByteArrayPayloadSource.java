@@ -0,0 +1,38 @@
+package com.figaf.training.cpisync.domain;
+
+import java.io.InputStream;
+import java.util.Objects;
+
+final class ByteArrayPayloadSource implements PayloadSource {
+
+    private final PayloadBytes payload;
+
+    ByteArrayPayloadSource(PayloadBytes payload) {
+        this.payload = Objects.requireNonNull(payload, "Payload must not be null");
+    }
+
+    @Override
+    public InputStream openStream() {
+        return payload.openStream();
+    }
+
+    @Override
+    public long size() {
+        return payload.size();
+    }
+
+    @Override
+    public String digest() {
+        return payload.digest();
+    }
+
+    @Override
+    public PayloadBytes toPayloadBytes() {
+        return payload;
+    }
+
+    @Override
+    public void close() {
+        // nothing to release, the content is reclaimed by the GC
+    }
+}
@@ -0,0 +1,18 @@
+package com.figaf.training.cpisync.domain;
+
+/**
+ * Strategy used by repositories to decide whether a remote object needs a new version.
+ */
+public enum ChangeDetectionMode {
+
+    /**
+     * A new version is appended whenever the remote modification date or version differs.
+     */
+    METADATA,
+
+    /**
+     * Remote metadata changes trigger a download, but a new version is appended only when the payload digest differs;
+     * otherwise the current version is marked as metadata-touched.
+     */
+    CONTENT
+}
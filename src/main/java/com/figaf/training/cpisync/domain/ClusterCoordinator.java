@@ -0,0 +1,64 @@
+package com.figaf.training.cpisync.domain;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Coordinates the replicas of the service that share one repository: membership through heartbeats, a leader lease
+ * for work that must run once per cluster, and the package shards of distributed synchronization runs.
+ */
+public interface ClusterCoordinator {
+
+    String getNodeId();
+
+    /**
+     * Whether this node holds the leader lease; the lease is treated as lost once it could not be renewed in time.
+     */
+    boolean isLeader();
+
+    /**
+     * Retrieves the nodes whose last heartbeat is within the lease duration, including this one.
+     *
+     * @return identifiers of the nodes, ordered
+     */
+    List<String> getLiveNodes();
+
+    /**
+     * Assigns shards of a run to other nodes, which pick them up with {@link #claimShards()}.
+     *
+     * @param shards shards in {@link SynchronizationShardStatus#PENDING} status
+     */
+    void assignShards(Collection<SynchronizationShard> shards);
+
+    /**
+     * Marks the pending shards assigned to this node as running.
+     *
+     * @return the claimed shards
+     */
+    List<SynchronizationShard> claimShards();
+
+    /**
+     * Reports the outcome of a shard this node claimed.
+     *
+     * @param runId run the shard belongs to
+     * @param status {@link SynchronizationShardStatus#COMPLETED} or {@link SynchronizationShardStatus#FAILED}
+     * @param message reason of a failure, {@code null} otherwise
+     */
+    void finishShard(UUID runId, SynchronizationShardStatus status, String message);
+
+    /**
+     * Retrieves the state of every shard of a run, without their packages.
+     *
+     * @param runId run the shards belong to
+     * @return shards with an empty package set
+     */
+    List<SynchronizationShard> findShards(UUID runId);
+
+    /**
+     * Removes the shards of a run once the run no longer waits for them.
+     *
+     * @param runId run the shards belong to
+     */
+    void deleteShards(UUID runId);
+}
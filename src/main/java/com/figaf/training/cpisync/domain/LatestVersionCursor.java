@@ -0,0 +1,35 @@
+package com.figaf.training.cpisync.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position in the latest versions of a type, ordered by synchronization time, most recent first. Objects synchronized
+ * at the same time are ordered by a key the repository chooses. Clients get it as an opaque token.
+ *
+ * @param tieBreaker key of the object among the ones synchronized at the same time
+ */
+public record LatestVersionCursor(Instant synchronizedAt, String tieBreaker) {
+
+    public String toToken() {
+        String position = synchronizedAt.toEpochMilli() + ":" + tieBreaker;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException when the token was not created by {@link #toToken()}
+     */
+    public static LatestVersionCursor fromToken(String token) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = position.indexOf(':');
+            return new LatestVersionCursor(
+                Instant.ofEpochMilli(Long.parseLong(position.substring(0, separator))),
+                position.substring(separator + 1)
+            );
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid latest objects cursor: " + token, ex);
+        }
+    }
+}
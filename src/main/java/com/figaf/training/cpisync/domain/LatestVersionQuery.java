@@ -0,0 +1,37 @@
+package com.figaf.training.cpisync.domain;
+
+import java.time.Instant;
+
+/**
+ * Latest versions of one object type, most recently synchronized first, read a page at a time.
+ *
+ * @param type object type (package, flow, etc.)
+ * @param parentTechnicalName only objects of this package, {@code null} for all
+ * @param deleted only deleted or only present objects, {@code null} for both
+ * @param modifiedSince only objects modified in CPI at or after this time, {@code null} for all
+ * @param after position of the last object of the previous page, {@code null} for the first page
+ * @param limit maximum number of objects
+ */
+public record LatestVersionQuery(
+    SyncedObjectType type,
+    String parentTechnicalName,
+    Boolean deleted,
+    Instant modifiedSince,
+    LatestVersionCursor after,
+    int limit
+) {
+
+    /**
+     * Whether the version passes the filters of the query; its position is not checked.
+     */
+    public boolean matches(SyncedObjectVersion version) {
+        if (parentTechnicalName != null && !parentTechnicalName.equals(version.getParentTechnicalName().orElse(null))) {
+            return false;
+        }
+        if (deleted != null && deleted != version.isDeleted()) {
+            return false;
+        }
+        return modifiedSince == null
+            || version.getModificationDate().map(date -> !date.isBefore(modifiedSince)).orElse(false);
+    }
+}
@@ -0,0 +1,87 @@
+package com.figaf.training.cpisync.domain;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Immutable payload content that can be shared between the domain, DTO and mapper layers without defensive copies.
+ * The backing array never escapes: readers get a read-only {@link ByteBuffer} view or a stream over it.
+ */
+public final class PayloadBytes {
+
+    private final byte[] content;
+    private volatile String digest;
+
+    private PayloadBytes(byte[] content, String digest) {
+        this.content = Objects.requireNonNull(content, "Payload content must not be null");
+        this.digest = digest;
+    }
+
+    /**
+     * Wraps the array without copying it. The caller hands over ownership and must not modify the array afterwards.
+     */
+    public static PayloadBytes wrap(byte[] content) {
+        return new PayloadBytes(content, null);
+    }
+
+    static PayloadBytes wrap(byte[] content, String digest) {
+        return new PayloadBytes(content, digest);
+    }
+
+    /**
+     * Copies the array, for callers that keep using it.
+     */
+    public static PayloadBytes copyOf(byte[] content) {
+        return new PayloadBytes(content.clone(), null);
+    }
+
+    public int size() {
+        return content.length;
+    }
+
+    /**
+     * Returns a read-only view over the content; creating it does not copy the bytes.
+     */
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(content).asReadOnlyBuffer();
+    }
+
+    public InputStream openStream() {
+        return new ByteArrayInputStream(content);
+    }
+
+    /**
+     * SHA-256 of the content in hex, computed on first use.
+     */
+    public String digest() {
+        String result = digest;
+        if (result == null) {
+            result = PayloadDigests.sha256Hex(content);
+            digest = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of the content, for APIs that insist on a mutable array.
+     */
+    public byte[] toByteArray() {
+        return content.clone();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        return other instanceof PayloadBytes that && Arrays.equals(content, that.content);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(content);
+    }
+}
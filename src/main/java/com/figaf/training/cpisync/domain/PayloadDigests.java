@@ -0,0 +1,56 @@
+package com.figaf.training.cpisync.domain;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Computes the content digests used to detect whether a downloaded payload differs from the stored one.
+ */
+public final class PayloadDigests {
+
+    public static final String ALGORITHM = "SHA-256";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private PayloadDigests() {
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("%s is not supported by the JVM".formatted(ALGORITHM), ex);
+        }
+    }
+
+    public static String sha256Hex(byte[] payload) {
+        MessageDigest digest = newDigest();
+        digest.update(payload);
+        return toHex(digest);
+    }
+
+    /**
+     * Digests the stream in fixed-size chunks so the whole content never has to be held in memory.
+     */
+    public static String sha256Hex(InputStream payload) {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            int read;
+            while ((read = payload.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to digest payload", ex);
+        }
+        return toHex(digest);
+    }
+
+    public static String toHex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,78 @@
+package com.figaf.training.cpisync.domain;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Read-once-or-more source of payload content that knows its size and digest up front, so repositories can stream
+ * it into storage instead of holding another copy on the heap. Spooled sources own a temporary file and must be
+ * closed once the payload was written.
+ */
+public interface PayloadSource extends AutoCloseable {
+
+    /**
+     * Opens a new stream over the content; every call starts from the beginning.
+     */
+    InputStream openStream() throws IOException;
+
+    long size();
+
+    /**
+     * SHA-256 of the content in hex.
+     */
+    String digest();
+
+    /**
+     * Materializes the content. Heap-backed sources return their shared content without copying it.
+     */
+    PayloadBytes toPayloadBytes();
+
+    @Override
+    void close();
+
+    /**
+     * Wraps the array without copying it; the caller hands over ownership of the array.
+     */
+    static PayloadSource ofBytes(byte[] payload) {
+        return new ByteArrayPayloadSource(PayloadBytes.wrap(payload));
+    }
+
+    static PayloadSource ofBytes(PayloadBytes payload) {
+        return new ByteArrayPayloadSource(payload);
+    }
+
+    /**
+     * Writes the content through the given writer, keeping it on the heap up to {@code thresholdBytes} and spooling
+     * it to a temporary file beyond that. The digest is computed while writing. The temporary file is deleted when
+     * writing fails, otherwise when the returned source is closed.
+     */
+    static PayloadSource spool(PayloadWriter writer, long thresholdBytes) {
+        SpoolingOutputStream output = new SpoolingOutputStream(thresholdBytes);
+        try {
+            writer.writeTo(output);
+            output.flush();
+            return output.toPayloadSource();
+        } catch (IOException ex) {
+            output.discard();
+            throw new UncheckedIOException("Failed to spool payload", ex);
+        } catch (RuntimeException | Error ex) {
+            output.discard();
+            throw ex;
+        }
+    }
+
+    /**
+     * Copies the stream into a spooled source, see {@link #spool(PayloadWriter, long)}.
+     */
+    static PayloadSource spool(InputStream input, long thresholdBytes) {
+        return spool(input::transferTo, thresholdBytes);
+    }
+
+    @FunctionalInterface
+    interface PayloadWriter {
+
+        void writeTo(OutputStream output) throws IOException;
+    }
+}
@@ -5,6 +5,7 @@ import com.figaf.training.cpisync.application.dto.SyncedObjectVersionPayload;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 
 /**
@@ -17,9 +18,9 @@ public interface RepositoryService {
      *
      * @param technicalName CPI object's technical name
      * @param type object type (package, flow, etc.)
-     * @return the deleted version if a new one was created, otherwise empty
+     * @return the tombstone if a new one was created, otherwise empty
      */
-    Optional<SyncedObjectVersion> markDeleted(String technicalName, SyncedObjectType type);
+    Optional<SynchronizationRepositoryChange> markDeleted(String technicalName, SyncedObjectType type);
 
     /**
      * Retrieves all histories that belong to the specified object type.
@@ -29,6 +30,33 @@ public interface RepositoryService {
      */
     Collection<SyncedObjectHistory> findAllByType(SyncedObjectType type);
 
+    /**
+     * Passes a page of the latest versions that match the query to the consumer, most recently synchronized first,
+     * without loading whole histories. Payloads are not loaded.
+     *
+     * @param query type, filters and position of the page
+     * @param consumer receives the technical name and latest version of each object, in order
+     * @return position of the last passed object if more objects match, otherwise empty
+     */
+    Optional<LatestVersionCursor> forEachLatestVersion(
+        LatestVersionQuery query,
+        BiConsumer<String, SyncedObjectVersion> consumer
+    );
+
+    /**
+     * Reads a token of a cursor returned by {@link #forEachLatestVersion}, checking its tie-breaker.
+     *
+     * @throws IllegalArgumentException when the token is not a cursor of this repository
+     */
+    LatestVersionCursor parseLatestVersionCursor(String token);
+
+    /**
+     * Retrieves the change-detection state of the latest version of every stored object in a single lookup.
+     *
+     * @return latest states of all objects, payloads are not loaded
+     */
+    Collection<SyncedObjectState> findAllLatestStates();
+
     /**
      * Appends a new version when remote metadata differs from the latest stored version.
      *
@@ -48,7 +76,36 @@ public interface RepositoryService {
     );
 
     /**
-     * Removes every stored history and version (used for test reset / admin cleanup).
+     * Records that the flows of the current versions of the given packages were synchronized completely, which
+     * allows later runs to skip listing them while the package metadata stays unchanged.
+     *
+     * @param packageTechnicalNames technical names of the packages whose flows were synchronized
+     */
+    void markChildrenSynchronized(Collection<String> packageTechnicalNames);
+
+    /**
+     * Writes versions that were accepted by {@link #appendVersionIfNecessary} or {@link #markDeleted} but are still
+     * buffered, so subsequent reads observe them. A version that cannot be written is not stored; the
+     * {@link SynchronizationRepositoryChange#written()} of its change completes exceptionally before this returns.
+     */
+    void flushPendingWrites();
+
+    /**
+     * Loads the watermark of the last successful tenant-wide synchronization.
+     *
+     * @return the stored watermark or empty if no unscoped run completed yet
+     */
+    Optional<SynchronizationWatermark> findWatermark();
+
+    /**
+     * Replaces the stored watermark.
+     *
+     * @param watermark progress of the run that just completed
+     */
+    void saveWatermark(SynchronizationWatermark watermark);
+
+    /**
+     * Removes every stored history and version, and the watermark (used for test reset / admin cleanup).
      */
     void deleteAll();
 }
@@ -0,0 +1,55 @@
+package com.figaf.training.cpisync.domain;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+final class SpooledFilePayloadSource implements PayloadSource {
+
+    private final Path file;
+    private final long size;
+    private final String digest;
+
+    SpooledFilePayloadSource(Path file, long size, String digest) {
+        this.file = file;
+        this.size = size;
+        this.digest = digest;
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        return Files.newInputStream(file);
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public String digest() {
+        return digest;
+    }
+
+    @Override
+    public PayloadBytes toPayloadBytes() {
+        try {
+            return PayloadBytes.wrap(Files.readAllBytes(file), digest);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read spooled payload %s".formatted(file), ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Failed to delete spooled payload {}", file, ex);
+        }
+    }
+}
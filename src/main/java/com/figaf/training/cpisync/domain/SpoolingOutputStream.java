@@ -0,0 +1,96 @@
+package com.figaf.training.cpisync.domain;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Output stream that digests everything written to it and switches from a heap buffer to a temporary file once the
+ * content grows beyond the threshold.
+ */
+@Slf4j
+final class SpoolingOutputStream extends OutputStream {
+
+    private final long thresholdBytes;
+    private final MessageDigest digest = PayloadDigests.newDigest();
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    private Path spoolFile;
+    private OutputStream fileOutput;
+    private long size;
+
+    SpoolingOutputStream(long thresholdBytes) {
+        this.thresholdBytes = Math.max(0, thresholdBytes);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        digest.update(buffer, offset, length);
+        size += length;
+        if (fileOutput == null && size > thresholdBytes) {
+            switchToFile();
+        }
+        if (fileOutput != null) {
+            fileOutput.write(buffer, offset, length);
+        } else {
+            memory.write(buffer, offset, length);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (fileOutput != null) {
+            fileOutput.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fileOutput != null) {
+            fileOutput.close();
+        }
+    }
+
+    PayloadSource toPayloadSource() throws IOException {
+        String hex = PayloadDigests.toHex(digest);
+        if (spoolFile == null) {
+            return new ByteArrayPayloadSource(PayloadBytes.wrap(memory.toByteArray(), hex));
+        }
+        close();
+        return new SpooledFilePayloadSource(spoolFile, size, hex);
+    }
+
+    /**
+     * Closes the stream and deletes the spool file, for content that is not handed over to a {@link PayloadSource}.
+     */
+    void discard() {
+        try {
+            close();
+        } catch (IOException ex) {
+            log.warn("Failed to close spooled payload {}", spoolFile, ex);
+        }
+        if (spoolFile != null) {
+            try {
+                Files.deleteIfExists(spoolFile);
+            } catch (IOException ex) {
+                log.warn("Failed to delete spooled payload {}", spoolFile, ex);
+            }
+        }
+    }
+
+    private void switchToFile() throws IOException {
+        // deleted by the payload source it is handed over to, or by discard
+        spoolFile = Files.createTempFile("cpisync-payload-", ".spool");
+        fileOutput = Files.newOutputStream(spoolFile);
+        memory.writeTo(fileOutput);
+        memory = null;
+    }
+}
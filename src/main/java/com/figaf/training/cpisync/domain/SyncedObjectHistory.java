@@ -27,6 +27,17 @@ public class SyncedObjectHistory {
         return version;
     }
 
+    /**
+     * Replaces the latest version in place, used when only metadata of the current version was touched.
+     */
+    public synchronized SyncedObjectVersion replaceLatestVersion(SyncedObjectVersion version) {
+        if (versions.isEmpty()) {
+            throw new IllegalStateException("History %s has no version to replace".formatted(technicalName));
+        }
+        versions.set(versions.size() - 1, version);
+        return version;
+    }
+
     public synchronized Optional<SyncedObjectVersion> getLatestVersion() {
         if (versions.isEmpty()) {
             return Optional.empty();
@@ -0,0 +1,56 @@
+package com.figaf.training.cpisync.domain;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Change-detection relevant attributes of the latest stored version of an object, without its payload.
+ */
+public record SyncedObjectState(
+    SyncedObjectType type,
+    String technicalName,
+    int versionNumber,
+    Instant modificationDate,
+    String remoteVersion,
+    boolean deleted,
+    String parentTechnicalName,
+    boolean childrenSynchronized
+) {
+
+    public static SyncedObjectState of(SyncedObjectType type, String technicalName, SyncedObjectVersion version) {
+        return new SyncedObjectState(
+            type,
+            technicalName,
+            version.getVersionNumber(),
+            version.getModificationDate().orElse(null),
+            version.getRemoteVersion().orElse(null),
+            version.isDeleted(),
+            version.getParentTechnicalName().orElse(null),
+            version.getChildrenSynchronizedAt().isPresent()
+        );
+    }
+
+    /**
+     * Whether the remote object differs from this state, so a new version may be needed.
+     */
+    public boolean isOutdatedBy(Instant remoteModification, String remoteVersion) {
+        return deleted || hasRemoteChanges(modificationDate, this.remoteVersion, remoteModification, remoteVersion);
+    }
+
+    /**
+     * Compares modification dates with second precision, the precision the database keeps.
+     */
+    public static boolean hasRemoteChanges(
+        Instant currentModification,
+        String currentRemoteVersion,
+        Instant remoteModification,
+        String remoteVersion
+    ) {
+        if (remoteModification != null) {
+            if (currentModification == null || remoteModification.getEpochSecond() > currentModification.getEpochSecond()) {
+                return true;
+            }
+        }
+        return !Objects.equals(remoteVersion, currentRemoteVersion);
+    }
+}
@@ -1,7 +1,6 @@
 package com.figaf.training.cpisync.domain;
 
 import java.time.Instant;
-import java.util.Arrays;
 import java.util.Optional;
 import lombok.Getter;
 
@@ -64,7 +63,7 @@ public class SyncedObjectVersion {
      */
     private final String modifiedBy;
 
-    private final byte[] payload;
+    private final PayloadBytes payload;
 
     /**
      * Example: application/zip
@@ -81,6 +80,22 @@ public class SyncedObjectVersion {
      */
     private final Long payloadSize;
 
+    /**
+     * SHA-256 of the payload in hex. Example: 3a7bd3e2360a3d29eea436fcfb7e44c735d117c42d1c1835420b6b9942dd4f1b
+     */
+    private final String payloadDigest;
+
+    /**
+     * Last time remote metadata moved without the payload changing. Example: 2025-01-19T08:00:00Z
+     */
+    private final Instant metadataTouchedAt;
+
+    /**
+     * Packages only: when the flows of this version were last synchronized completely. Reset whenever the package
+     * metadata changes. Example: 2025-01-19T08:00:05Z
+     */
+    private final Instant childrenSynchronizedAt;
+
     private SyncedObjectVersion(Builder builder) {
         this.versionNumber = builder.versionNumber;
         this.modificationDate = builder.modificationDate;
@@ -94,10 +109,13 @@ public class SyncedObjectVersion {
         this.creationDate = builder.creationDate;
         this.createdBy = builder.createdBy;
         this.modifiedBy = builder.modifiedBy;
-        this.payload = builder.payload == null ? null : builder.payload.clone();
+        this.payload = builder.payload;
         this.payloadContentType = builder.payloadContentType;
         this.payloadFileName = builder.payloadFileName;
         this.payloadSize = builder.payloadSize;
+        this.payloadDigest = builder.payloadDigest;
+        this.metadataTouchedAt = builder.metadataTouchedAt;
+        this.childrenSynchronizedAt = builder.childrenSynchronizedAt;
     }
 
     public Optional<Instant> getModificationDate() {
@@ -136,8 +154,8 @@ public class SyncedObjectVersion {
         return Optional.ofNullable(modifiedBy);
     }
 
-    public Optional<byte[]> getPayload() {
-        return payload == null ? Optional.empty() : Optional.of(Arrays.copyOf(payload, payload.length));
+    public Optional<PayloadBytes> getPayload() {
+        return Optional.ofNullable(payload);
     }
 
     public Optional<String> getPayloadContentType() {
@@ -152,10 +170,49 @@ public class SyncedObjectVersion {
         return Optional.ofNullable(payloadSize);
     }
 
+    public Optional<String> getPayloadDigest() {
+        return Optional.ofNullable(payloadDigest);
+    }
+
+    public Optional<Instant> getMetadataTouchedAt() {
+        return Optional.ofNullable(metadataTouchedAt);
+    }
+
+    public Optional<Instant> getChildrenSynchronizedAt() {
+        return Optional.ofNullable(childrenSynchronizedAt);
+    }
+
     public static Builder builder() {
         return new Builder();
     }
 
+    /**
+     * Creates a builder pre-populated with this version; the payload is shared, not copied.
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.versionNumber = versionNumber;
+        builder.modificationDate = modificationDate;
+        builder.remoteVersion = remoteVersion;
+        builder.deleted = deleted;
+        builder.synchronizedAt = synchronizedAt;
+        builder.displayName = displayName;
+        builder.externalId = externalId;
+        builder.parentTechnicalName = parentTechnicalName;
+        builder.parentExternalId = parentExternalId;
+        builder.creationDate = creationDate;
+        builder.createdBy = createdBy;
+        builder.modifiedBy = modifiedBy;
+        builder.payload = payload;
+        builder.payloadContentType = payloadContentType;
+        builder.payloadFileName = payloadFileName;
+        builder.payloadSize = payloadSize;
+        builder.payloadDigest = payloadDigest;
+        builder.metadataTouchedAt = metadataTouchedAt;
+        builder.childrenSynchronizedAt = childrenSynchronizedAt;
+        return builder;
+    }
+
     public static final class Builder {
         private int versionNumber;
         private Instant modificationDate;
@@ -169,10 +226,13 @@ public class SyncedObjectVersion {
         private Instant creationDate;
         private String createdBy;
         private String modifiedBy;
-        private byte[] payload;
+        private PayloadBytes payload;
         private String payloadContentType;
         private String payloadFileName;
         private Long payloadSize;
+        private String payloadDigest;
+        private Instant metadataTouchedAt;
+        private Instant childrenSynchronizedAt;
 
         private Builder() {
         }
@@ -237,15 +297,7 @@ public class SyncedObjectVersion {
             return this;
         }
 
-        public Builder payload(byte[] payload) {
-            this.payload = payload == null ? null : payload.clone();
-            return this;
-        }
-
-        /**
-         * Internal helper for trusted callers that already hold an immutable copy of the payload.
-         */
-        public Builder payloadRaw(byte[] payload) {
+        public Builder payload(PayloadBytes payload) {
             this.payload = payload;
             return this;
         }
@@ -265,12 +317,27 @@ public class SyncedObjectVersion {
             return this;
         }
 
+        public Builder payloadDigest(String payloadDigest) {
+            this.payloadDigest = payloadDigest;
+            return this;
+        }
+
+        public Builder metadataTouchedAt(Instant metadataTouchedAt) {
+            this.metadataTouchedAt = metadataTouchedAt;
+            return this;
+        }
+
+        public Builder childrenSynchronizedAt(Instant childrenSynchronizedAt) {
+            this.childrenSynchronizedAt = childrenSynchronizedAt;
+            return this;
+        }
+
         public SyncedObjectVersion build() {
             if (synchronizedAt == null) {
                 synchronizedAt = Instant.now();
             }
             if (payload != null && payloadSize == null) {
-                payloadSize = (long) payload.length;
+                payloadSize = (long) payload.size();
             }
             return new SyncedObjectVersion(this);
         }
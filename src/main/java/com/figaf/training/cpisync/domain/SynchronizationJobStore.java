@@ -0,0 +1,132 @@
+package com.figaf.training.cpisync.domain;
+
+import com.figaf.training.cpisync.application.service.synchronization.model.PersistedSynchronizationJob;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationEntryFilter;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationEntryPage;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobHistoryPage;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobHistoryQuery;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobProgress;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationMode;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationSnapshot;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationSnapshotMetadata;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Defines the persistence contract for synchronization jobs, so the job list and unfinished jobs survive a restart.
+ */
+public interface SynchronizationJobStore {
+
+    /**
+     * Registers a job that was just submitted, owned by this node.
+     *
+     * @param jobId identifier of the job
+     * @param packageTechnicalNames package scope of the job, {@code null} for the whole tenant
+     * @param requestedMode mode the job was requested with, {@code null} for the configured default
+     */
+    void create(UUID jobId, Set<String> packageTechnicalNames, SynchronizationMode requestedMode);
+
+    /**
+     * Replaces the state of the job and appends the progress it made since the previous save. Checkpoints of
+     * completed packages are dropped once the job finished. A job that is no longer stored, or that another node
+     * claimed, is not changed.
+     *
+     * @param progress state and progress taken from the job
+     */
+    void save(SynchronizationJobProgress progress);
+
+    /**
+     * Loads a stored job with its entries and failures.
+     *
+     * @param jobId identifier of the job
+     * @return the snapshot or empty if the job is not stored
+     */
+    Optional<SynchronizationSnapshot> findSnapshot(UUID jobId);
+
+    /**
+     * Loads a page of the entries of a stored job, numbered in the order they were saved, starting at 1.
+     *
+     * @param jobId identifier of the job
+     * @param afterSequence sequence number after which the page starts
+     * @param limit maximum number of entries
+     * @param filter entries to return
+     * @return the page, empty if the job is not stored
+     */
+    SynchronizationEntryPage findEntries(UUID jobId, long afterSequence, int limit, SynchronizationEntryFilter filter);
+
+    /**
+     * Whether saved entries are stored and can be read back with {@link #findEntries}, so jobs may release them from
+     * memory.
+     */
+    boolean persistsEntries();
+
+    /**
+     * Retrieves the most recent finished jobs, oldest first.
+     *
+     * @param limit maximum number of jobs
+     * @return metadata of the jobs, without entries
+     */
+    List<SynchronizationSnapshotMetadata> findRecentFinished(int limit);
+
+    /**
+     * Queries the stored jobs, newest first, a page at a time.
+     *
+     * @param query submission time range, statuses and position of the page
+     * @return the page with the cursor of the next one
+     */
+    SynchronizationJobHistoryPage findHistory(SynchronizationJobHistoryQuery query);
+
+    /**
+     * Retrieves the jobs that are stored as queued or running and whose owner is not among the given nodes, which
+     * means their process stopped before they finished, oldest first.
+     *
+     * @param liveNodes nodes whose jobs are still running
+     * @return the jobs with their saved progress and completed packages
+     */
+    List<PersistedSynchronizationJob> findUnfinished(Collection<String> liveNodes);
+
+    /**
+     * Makes this node the owner of an unfinished job, unless another node claimed it since it was read.
+     *
+     * @param jobId identifier of the job
+     * @param previousOwner owner the job was read with, see {@link PersistedSynchronizationJob#ownerNodeId()}
+     * @return whether this node owns the job now and may resume it
+     */
+    boolean claim(UUID jobId, String previousOwner);
+
+    /**
+     * Retrieves when a configured schedule last started a job, so runs missed while the service was down can be
+     * caught up.
+     *
+     * @param scheduleName name of the schedule
+     * @return the scheduled fire time of the last run, or empty if the schedule never fired
+     */
+    Optional<Instant> findLastScheduledRun(String scheduleName);
+
+    /**
+     * Records that a schedule fired.
+     *
+     * @param scheduleName name of the schedule
+     * @param firedAt scheduled fire time, without jitter
+     * @param jobId job the schedule queued, or {@code null} if it queued none and its last job stays recorded
+     */
+    void saveScheduledRun(String scheduleName, Instant firedAt, UUID jobId);
+
+    /**
+     * Checks whether the job a schedule queued last is still queued or running, on any node. A job of a stopped node
+     * counts as well, since the leader resumes it.
+     *
+     * @param scheduleName name of the schedule
+     * @return whether the last job of the schedule is unfinished
+     */
+    boolean isLastScheduledJobUnfinished(String scheduleName);
+
+    /**
+     * Removes every stored job (used for test reset / admin cleanup).
+     */
+    void deleteAll();
+}
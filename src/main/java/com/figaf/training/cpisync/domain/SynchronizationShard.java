@@ -0,0 +1,22 @@
+package com.figaf.training.cpisync.domain;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Packages of a distributed synchronization run assigned to one node.
+ *
+ * @param runId run the shard belongs to, the id of the coordinating job
+ * @param nodeId node the shard is assigned to
+ * @param packageTechnicalNames packages the node synchronizes, including their flows
+ * @param status progress of the shard
+ * @param message reason of a failure, {@code null} otherwise
+ */
+public record SynchronizationShard(
+    UUID runId,
+    String nodeId,
+    Set<String> packageTechnicalNames,
+    SynchronizationShardStatus status,
+    String message
+) {
+}
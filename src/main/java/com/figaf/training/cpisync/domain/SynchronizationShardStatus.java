@@ -0,0 +1,12 @@
+package com.figaf.training.cpisync.domain;
+
+public enum SynchronizationShardStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
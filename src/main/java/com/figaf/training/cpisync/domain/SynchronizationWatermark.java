@@ -0,0 +1,14 @@
+package com.figaf.training.cpisync.domain;
+
+import java.time.Instant;
+
+/**
+ * Progress of the tenant-wide synchronization, persisted after every successful unscoped run.
+ *
+ * @param highWaterMark latest package modification date seen by a successful run, incremental runs only list
+ *                      packages modified since then
+ * @param lastFullSynchronizationAt start of the last successful full run, which is the last time deletions were
+ *                                  reconciled
+ */
+public record SynchronizationWatermark(Instant highWaterMark, Instant lastFullSynchronizationAt) {
+}
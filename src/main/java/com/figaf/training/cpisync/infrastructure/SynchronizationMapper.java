@@ -1,13 +1,16 @@
 package com.figaf.training.cpisync.infrastructure;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.figaf.training.cpisync.application.dto.SyncedObjectLatestVersionResponse;
 import com.figaf.training.cpisync.application.dto.SyncedObjectVersionPayload;
 import com.figaf.training.cpisync.application.service.SyncedObjectDescriptor;
+import com.figaf.training.cpisync.domain.PayloadBytes;
 import com.figaf.training.cpisync.domain.SyncedObjectVersion;
 import com.figaf.training.cpisync.infrastructure.database.entities.SyncedObjectHistoryEntity;
 import com.figaf.training.cpisync.infrastructure.database.entities.SyncedObjectVersionEntity;
+import java.io.IOException;
+import java.io.OutputStream;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -35,7 +38,9 @@ public class SynchronizationMapper {
             version.getModifiedBy().orElse(null),
             version.getPayloadContentType().orElse(null),
             version.getPayloadFileName().orElse(null),
-            version.getPayloadSize().orElse(null)
+            version.getPayloadSize().orElse(null),
+            version.getPayloadDigest().orElse(null),
+            version.getMetadataTouchedAt().orElse(null)
         );
     }
 
@@ -55,6 +60,7 @@ public class SynchronizationMapper {
             version.getPayloadContentType().ifPresent(builder::payloadContentType);
             version.getPayloadFileName().ifPresent(builder::payloadFileName);
             version.getPayloadSize().ifPresent(builder::payloadSize);
+            version.getPayloadDigest().ifPresent(builder::payloadDigest);
         }
         return builder.build();
     }
@@ -74,10 +80,12 @@ public class SynchronizationMapper {
         entity.setCreationDate(version.getCreationDate().orElse(null));
         entity.setCreatedBy(version.getCreatedBy().orElse(null));
         entity.setModifiedBy(version.getModifiedBy().orElse(null));
-        entity.setPayload(version.getPayload().orElse(null));
         entity.setPayloadContentType(version.getPayloadContentType().orElse(null));
         entity.setPayloadFileName(version.getPayloadFileName().orElse(null));
         entity.setPayloadSize(version.getPayloadSize().orElse(null));
+        entity.setPayloadDigest(version.getPayloadDigest().orElse(null));
+        entity.setMetadataTouchedAt(version.getMetadataTouchedAt().orElse(null));
+        entity.setChildrenSynchronizedAt(version.getChildrenSynchronizedAt().orElse(null));
         return entity;
     }
 
@@ -114,11 +122,8 @@ public class SynchronizationMapper {
         if (entity.getModifiedBy() != null) {
             builder.modifiedBy(entity.getModifiedBy());
         }
-        if (includePayload) {
-            byte[] payload = entity.getPayload();
-            if (payload != null) {
-                builder.payloadRaw(payload);
-            }
+        if (includePayload && entity.getPayloadContent() != null) {
+            builder.payload(PayloadBytes.wrap(entity.getPayloadContent().getPayload()));
         }
         if (entity.getPayloadContentType() != null) {
             builder.payloadContentType(entity.getPayloadContentType());
@@ -129,11 +134,27 @@ public class SynchronizationMapper {
         if (entity.getPayloadSize() != null) {
             builder.payloadSize(entity.getPayloadSize());
         }
+        if (entity.getPayloadDigest() != null) {
+            builder.payloadDigest(entity.getPayloadDigest());
+        }
+        if (entity.getMetadataTouchedAt() != null) {
+            builder.metadataTouchedAt(entity.getMetadataTouchedAt());
+        }
+        if (entity.getChildrenSynchronizedAt() != null) {
+            builder.childrenSynchronizedAt(entity.getChildrenSynchronizedAt());
+        }
         return builder.build();
     }
 
-    public byte[] serializeToByteArray(Object obj) throws JsonProcessingException {
-        return objectMapper.writeValueAsBytes(obj);
+    public void serializeTo(OutputStream output, Object obj) throws IOException {
+        objectMapper.writeValue(output, obj);
+    }
+
+    /**
+     * Generator writing JSON to the output piece by piece; closing it leaves the output open.
+     */
+    public JsonGenerator createGenerator(OutputStream output) throws IOException {
+        return objectMapper.createGenerator(output).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
 }
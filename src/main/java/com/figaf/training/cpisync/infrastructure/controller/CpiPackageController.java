@@ -6,6 +6,8 @@ import com.figaf.integration.cpi.client.IntegrationPackageClient;
 import com.figaf.integration.cpi.entity.designtime_artifacts.CpiArtifact;
 import com.figaf.integration.cpi.entity.designtime_artifacts.CpiArtifactType;
 import com.figaf.integration.cpi.entity.designtime_artifacts.IntegrationPackage;
+import com.figaf.training.cpisync.infrastructure.cpi.CpiCallExecutor;
+import com.figaf.training.cpisync.infrastructure.cpi.CpiEndpoint;
 import com.figaf.training.cpisync.infrastructure.cpi.CpiSystemConnectionParameters;
 import com.figaf.training.cpisync.infrastructure.cpi.RequestContextFactory;
 import java.util.List;
@@ -30,13 +32,15 @@ public class CpiPackageController {
     private final IntegrationPackageClient integrationPackageClient;
     private final CpiRuntimeArtifactClient cpiRuntimeArtifactClient;
     private final CpiSystemConnectionParameters cpiSystemConnectionParameters;
+    private final CpiCallExecutor cpiCalls;
 
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     public List<IntegrationPackage> getIntegrationPackages() {
         log.info("GET /packages");
-        return integrationPackageClient.getIntegrationPackages(
-            RequestContextFactory.createRequestContextForWebApi(cpiSystemConnectionParameters),
-            null
+        RequestContext requestContext = RequestContextFactory.createRequestContextForWebApi(cpiSystemConnectionParameters);
+        return cpiCalls.execute(
+            CpiEndpoint.INTEGRATION_PACKAGES,
+            () -> integrationPackageClient.getIntegrationPackages(requestContext, null)
         );
     }
 
@@ -47,13 +51,13 @@ public class CpiPackageController {
         RequestContext requestContext = RequestContextFactory.createRequestContextForWebApi(cpiSystemConnectionParameters);
         IntegrationPackage integrationPackage = findPackageOrThrow(requestContext, packageTechnicalName);
 
-        return cpiRuntimeArtifactClient.getArtifactsByPackage(
+        return cpiCalls.execute(CpiEndpoint.PACKAGE_ARTIFACTS, () -> cpiRuntimeArtifactClient.getArtifactsByPackage(
             requestContext,
             integrationPackage.getTechnicalName(),
             integrationPackage.getDisplayedName(),
             integrationPackage.getExternalId(),
             CpiArtifactType.IFLOW
-        );
+        ));
     }
 
     @GetMapping(value = "/{packageTechnicalName}/artifacts/{artifactExternalId}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
@@ -70,19 +74,19 @@ public class CpiPackageController {
         String safeFileName = buildSafeFileName(artifactExternalId);
         headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"%s.zip\"".formatted(safeFileName));
 
-        byte[] artifactPayload = cpiRuntimeArtifactClient.downloadArtifact(
-            requestContext,
-            integrationPackage.getExternalId(),
-            artifactExternalId
+        byte[] artifactPayload = cpiCalls.execute(
+            CpiEndpoint.ARTIFACT_DOWNLOAD,
+            () -> cpiRuntimeArtifactClient.downloadArtifact(requestContext, integrationPackage.getExternalId(), artifactExternalId)
         );
 
         return new HttpEntity<>(artifactPayload, headers);
     }
 
     private IntegrationPackage findPackageOrThrow(RequestContext requestContext, String packageTechnicalName) {
-        return integrationPackageClient.getIntegrationPackages(
-                requestContext,
-                buildTechnicalNameFilter(packageTechnicalName)
+        String filter = buildTechnicalNameFilter(packageTechnicalName);
+        return cpiCalls.execute(
+                CpiEndpoint.INTEGRATION_PACKAGES,
+                () -> integrationPackageClient.getIntegrationPackages(requestContext, filter)
             ).stream()
             .findFirst()
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Package %s was not found".formatted(packageTechnicalName)));
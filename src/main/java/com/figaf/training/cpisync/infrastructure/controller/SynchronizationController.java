@@ -1,27 +1,39 @@
 package com.figaf.training.cpisync.infrastructure.controller;
 
-import com.figaf.training.cpisync.application.dto.SyncedObjectLatestVersionResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.figaf.training.cpisync.application.dto.SynchronizationActionType;
 import com.figaf.training.cpisync.application.dto.SynchronizationRequest;
 import com.figaf.training.cpisync.application.service.SyncedObjectsService;
 import com.figaf.training.cpisync.application.service.synchronization.SynchronizationJobFactory;
 import com.figaf.training.cpisync.application.service.synchronization.SynchronizationJobScheduler;
 import com.figaf.training.cpisync.application.service.synchronization.model.AbstractSynchronizationJob;
+import com.figaf.training.cpisync.application.service.synchronization.model.ScheduledSynchronization;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationEntryFilter;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationEntryPage;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobHistoryCursor;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobHistoryPage;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobHistoryQuery;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobStatus;
 import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationSnapshot;
 import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationSnapshotMetadata;
+import com.figaf.training.cpisync.domain.LatestVersionCursor;
+import com.figaf.training.cpisync.domain.LatestVersionQuery;
 import com.figaf.training.cpisync.domain.SyncedObjectType;
 import com.figaf.training.cpisync.infrastructure.SynchronizationMapper;
-import java.util.Comparator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.LinkedHashSet;
-import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -29,9 +41,13 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Slf4j
 @RestController
@@ -39,31 +55,71 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 public class SynchronizationController {
 
-    private final ReentrantLock SYNC_LOCK = new ReentrantLock(false);
+    private static final int MAX_ENTRIES_PAGE_SIZE = 5000;
+    private static final int DEFAULT_JOB_HISTORY_PAGE_SIZE = 50;
+    private static final int MAX_JOB_HISTORY_PAGE_SIZE = 500;
+    private static final int MAX_LATEST_OBJECTS_PAGE_SIZE = 5000;
+
     private final SyncedObjectsService syncedObjectsService;
     private final SynchronizationJobScheduler scheduler;
     private final SynchronizationMapper mapper;
     private final SynchronizationJobFactory jobFactory;
+    private final SynchronizationProgressStreamer progressStreamer;
 
+    /**
+     * Queues a synchronization and returns its job id right away; a request already covered by a queued job returns
+     * the id of that job.
+     */
     @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public CompletableFuture<ResponseEntity<?>> synchronize(@RequestBody(required = false) SynchronizationRequest request) {
+    public ResponseEntity<?> synchronize(@RequestBody(required = false) SynchronizationRequest request) {
         log.info("POST /synchronizations");
-        if (SYNC_LOCK.tryLock()) {
-            Set<String> packageFilters = normalizePackageFilters(request);
-            AbstractSynchronizationJob job = packageFilters == null
-                ? jobFactory.createDefaultJob()
-                : jobFactory.createJob(packageFilters);
-            return scheduler.startSynchronization(job).thenApply(ResponseEntity::ok);
-        } else {
-            return CompletableFuture.completedFuture(
-                ResponseEntity.badRequest().body("Synchronization was already started and is in progress..."));
+        Set<String> packageFilters = normalizePackageFilters(request);
+        AbstractSynchronizationJob job = jobFactory.createJob(packageFilters, request == null ? null : request.mode());
+        try {
+            ScheduledSynchronization scheduled = scheduler.startSynchronization(job);
+            return ResponseEntity.ok(scheduled.jobId());
+        } catch (RejectedExecutionException ex) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(ex.getMessage());
         }
     }
 
+    @PostMapping(value = "/{jobId}/cancel", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<SynchronizationSnapshotMetadata> cancelSynchronization(@PathVariable UUID jobId) {
+        log.info("POST /synchronizations/{}/cancel", jobId);
+        return scheduler
+            .cancel(jobId)
+            .map(metadata -> ResponseEntity.accepted().body(metadata))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Returns a page of jobs. Without parameters the page holds every job kept in memory and has no next page. With any
+     * of them it queries the stored job history, newest first: jobs submitted from {@code from} (inclusive) to
+     * {@code to} (exclusive) with one of the given statuses, {@code limit} jobs at a time. Pass the returned
+     * {@code nextCursor} as {@code cursor} to read the next page.
+     */
     @GetMapping(value = "/jobs", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<SynchronizationSnapshotMetadata>> getAllJobs() {
+    public ResponseEntity<?> getAllJobs(
+        @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+        @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+        @RequestParam(value = "status", required = false) Set<SynchronizationJobStatus> statuses,
+        @RequestParam(value = "cursor", required = false) String cursor,
+        @RequestParam(value = "limit", required = false) Integer limit
+    ) {
         log.info("GET /synchronizations/jobs");
-        return ResponseEntity.ok(scheduler.getAllJobsMetadata());
+        if (from == null && to == null && statuses == null && cursor == null && limit == null) {
+            return ResponseEntity.ok(new SynchronizationJobHistoryPage(scheduler.getAllJobsMetadata(), null));
+        }
+        SynchronizationJobHistoryCursor after;
+        try {
+            after = cursor == null ? null : SynchronizationJobHistoryCursor.fromToken(cursor);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+        int pageSize = Math.clamp(limit == null ? DEFAULT_JOB_HISTORY_PAGE_SIZE : limit, 1, MAX_JOB_HISTORY_PAGE_SIZE);
+        return ResponseEntity.ok(scheduler.getJobHistory(
+            new SynchronizationJobHistoryQuery(from, to, statuses == null ? Set.of() : statuses, after, pageSize)
+        ));
     }
 
     @GetMapping(value = "/{jobId}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -75,17 +131,93 @@ public class SynchronizationController {
             .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    /**
+     * Pages through the result entries of a job. Pass the returned {@code nextAfter} as {@code after} to read the next
+     * page; entries keep their sequence numbers while the job runs.
+     */
+    @GetMapping(value = "/{jobId}/entries", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<SynchronizationEntryPage> getSynchronizationEntries(
+        @PathVariable UUID jobId,
+        @RequestParam(value = "after", defaultValue = "0") long after,
+        @RequestParam(value = "limit", defaultValue = "500") int limit,
+        @RequestParam(value = "action", required = false) SynchronizationActionType action,
+        @RequestParam(value = "type", required = false) SyncedObjectType type
+    ) {
+        log.info("GET /synchronizations/{}/entries", jobId);
+        int pageSize = Math.clamp(limit, 1, MAX_ENTRIES_PAGE_SIZE);
+        return scheduler
+            .getEntries(jobId, Math.max(after, 0), pageSize, new SynchronizationEntryFilter(action, type))
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Follows a job as server-sent events instead of polling its snapshot. A reconnecting client resumes after the
+     * last entry it received, taken from the {@code Last-Event-ID} header or the {@code after} parameter.
+     */
+    @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSynchronizationProgress(
+        @PathVariable UUID jobId,
+        @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+        @RequestParam(value = "after", required = false) Long after
+    ) {
+        log.info("GET /synchronizations/{}/events", jobId);
+        if (scheduler.getMetadata(jobId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        long afterSequence = after != null ? after : lastEventId != null ? lastEventId : 0;
+        return ResponseEntity.ok(progressStreamer.stream(jobId, afterSequence));
+    }
+
+    /**
+     * Latest versions of a type, most recently synchronized first, a page of {@code limit} objects at a time and
+     * optionally only of one package ({@code parent}), only deleted or present ones ({@code deleted}) or only the ones
+     * modified in CPI since a time ({@code modifiedSince}). The objects are written as they are read, followed by the
+     * {@code nextCursor} to pass as {@code cursor} for the next page, {@code null} on the last page.
+     */
     @GetMapping(value = "/latest-objects", produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<SyncedObjectLatestVersionResponse> getLatestSyncedObjects(
-        @RequestParam(value = "type") SyncedObjectType type
+    public ResponseEntity<StreamingResponseBody> getLatestSyncedObjects(
+        @RequestParam(value = "type") SyncedObjectType type,
+        @RequestParam(value = "parent", required = false) String parentTechnicalName,
+        @RequestParam(value = "deleted", required = false) Boolean deleted,
+        @RequestParam(value = "modifiedSince", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant modifiedSince,
+        @RequestParam(value = "cursor", required = false) String cursor,
+        @RequestParam(value = "limit", defaultValue = "500") int limit
     ) {
         log.info("GET /latest-objects");
-        return syncedObjectsService.latestVersionsForType(type)
-            .entrySet()
-            .stream()
-            .map(entry -> mapper.toResponse(entry.getKey(), entry.getValue()))
-            .sorted(Comparator.comparing(SyncedObjectLatestVersionResponse::synchronizedAt).reversed())
-            .toList();
+        LatestVersionCursor after;
+        try {
+            after = cursor == null ? null : syncedObjectsService.parseLatestVersionCursor(cursor);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+        LatestVersionQuery query = new LatestVersionQuery(
+            type,
+            StringUtils.trimToNull(parentTechnicalName),
+            deleted,
+            modifiedSince,
+            after,
+            Math.clamp(limit, 1, MAX_LATEST_OBJECTS_PAGE_SIZE)
+        );
+        StreamingResponseBody body = output -> {
+            try (JsonGenerator generator = mapper.createGenerator(output)) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("objects");
+                Optional<LatestVersionCursor> next = syncedObjectsService.forEachLatestVersion(query, (descriptor, version) -> {
+                    try {
+                        generator.writeObject(mapper.toResponse(descriptor, version));
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                generator.writeEndArray();
+                generator.writeStringField("nextCursor", next.map(LatestVersionCursor::toToken).orElse(null));
+                generator.writeEndObject();
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @DeleteMapping
@@ -0,0 +1,122 @@
+package com.figaf.training.cpisync.infrastructure.controller;
+
+import com.figaf.training.cpisync.application.service.synchronization.SynchronizationJobScheduler;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationEntryPage.SequencedEntry;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationProgressUpdate;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Streams the progress of a job as server-sent events, each stream on its own virtual thread:
+ * <ul>
+ *     <li>{@code entry} events carry a result entry, with its sequence number as the event id,</li>
+ *     <li>{@code progress} events carry the job metadata and counts, sent at least every
+ *     {@code app.sync.progressStream.interval} and doubling as a heartbeat,</li>
+ *     <li>a final {@code completed} event carries the metadata of the finished job, then the stream ends.</li>
+ * </ul>
+ * A client resumes after the last entry it received by sending its sequence number.
+ */
+@Slf4j
+@Component
+public class SynchronizationProgressStreamer {
+
+    @Autowired
+    private SynchronizationJobScheduler scheduler;
+
+    //Metadata and counts are sent at least this often.
+    @Value("${app.sync.progressStream.interval:PT2S}")
+    private Duration interval = Duration.ofSeconds(2);
+
+    //Entries sent per read of the job.
+    @Value("${app.sync.progressStream.batchSize:500}")
+    private int batchSize = 500;
+
+    //Streams are closed after this long; clients reconnect and resume.
+    @Value("${app.sync.progressStream.timeout:PT1H}")
+    private Duration timeout = Duration.ofHours(1);
+
+    private final ExecutorService streams = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("sync-progress-stream-", 0).factory());
+
+    /**
+     * @param afterSequence sequence number of the last entry the client received, 0 for all entries
+     */
+    public SseEmitter stream(UUID jobId, long afterSequence) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        AtomicBoolean open = new AtomicBoolean(true);
+        emitter.onCompletion(() -> open.set(false));
+        emitter.onTimeout(() -> open.set(false));
+        emitter.onError(error -> open.set(false));
+        streams.execute(() -> this.send(jobId, Math.max(afterSequence, 0), emitter, open));
+        return emitter;
+    }
+
+    @PreDestroy
+    public void stop() {
+        streams.shutdownNow();
+    }
+
+    private void send(UUID jobId, long afterSequence, SseEmitter emitter, AtomicBoolean open) {
+        long sequence = afterSequence;
+        long lastProgressAt = System.nanoTime() - interval.toNanos();
+        try {
+            while (open.get()) {
+                Optional<SynchronizationProgressUpdate> found = scheduler.awaitProgress(jobId, sequence, batchSize, interval);
+                if (found.isEmpty()) {
+                    // the job was dropped from the history meanwhile
+                    emitter.complete();
+                    return;
+                }
+                SynchronizationProgressUpdate update = found.get();
+                for (SequencedEntry entry : update.entries()) {
+                    if (!this.send(jobId, emitter, SseEmitter.event().id(Long.toString(entry.sequence())).name("entry").data(entry.entry()))) {
+                        return;
+                    }
+                }
+                sequence = Math.max(sequence, update.lastSequence());
+                if (update.last()) {
+                    if (this.send(jobId, emitter, SseEmitter.event().name("completed").data(update.metadata()))) {
+                        emitter.complete();
+                    }
+                    return;
+                }
+                if (update.entries().isEmpty() || System.nanoTime() - lastProgressAt >= interval.toNanos()) {
+                    if (!this.send(jobId, emitter, SseEmitter.event().name("progress").data(update.metadata()))) {
+                        return;
+                    }
+                    lastProgressAt = System.nanoTime();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        } catch (RuntimeException ex) {
+            log.error("Progress stream of job {} failed", jobId, ex);
+            emitter.completeWithError(ex);
+        }
+    }
+
+    /**
+     * @return whether the event was sent; {@code false} once the client closed the stream or it timed out
+     */
+    private boolean send(UUID jobId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException ex) {
+            log.debug("Progress stream of job {} closed by the client", jobId);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.figaf.training.cpisync.infrastructure.cpi;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that adapts to how CPI copes with the load (AIMD with a latency gradient). While calls succeed
+ * with a latency close to the observed baseline and the current limit is actually used, the limit grows by
+ * {@code 1/limit} per call, i.e. about one per round of {@code limit} concurrent calls. Throttled calls and latency
+ * spikes shrink it by {@code backoffRatio}. Callers beyond the limit wait for a permit instead of failing.
+ */
+class AdaptiveConcurrencyLimiter {
+
+    enum Outcome {
+        SUCCESS,
+        /**
+         * CPI rejected or timed out the call because of load.
+         */
+        DROPPED,
+        /**
+         * The call failed for a reason unrelated to load; the limit is left as it is.
+         */
+        IGNORED
+    }
+
+    // weight of a new sample in the latency baseline, low enough that a burst of slow calls is seen as a spike
+    private static final double BASELINE_SMOOTHING = 0.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private double baselineRttNanos;
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, double latencyTolerance) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.clamp(initialLimit, this.minLimit, this.maxLimit);
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+    }
+
+    void acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) {
+                permitAvailable.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(Outcome outcome, long rttNanos) {
+        lock.lock();
+        try {
+            int utilized = inFlight;
+            inFlight--;
+            double previousLimit = limit;
+            switch (outcome) {
+                case SUCCESS -> onSuccess(utilized, rttNanos);
+                case DROPPED -> backOff();
+                case IGNORED -> {
+                }
+            }
+            if (limit > previousLimit) {
+                permitAvailable.signalAll();
+            } else {
+                permitAvailable.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onSuccess(int utilized, long rttNanos) {
+        if (baselineRttNanos == 0) {
+            baselineRttNanos = rttNanos;
+        }
+        boolean spike = rttNanos > baselineRttNanos * latencyTolerance;
+        baselineRttNanos += (rttNanos - baselineRttNanos) * BASELINE_SMOOTHING;
+        if (spike) {
+            backOff();
+        } else if (utilized * 2 >= limit) {
+            // growing an idle limit would only allow a larger burst later
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    private void backOff() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+}
@@ -0,0 +1,200 @@
+package com.figaf.training.cpisync.infrastructure.cpi;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+
+/**
+ * Runs calls against the CPI clients and records their latency per endpoint ({@code cpisync.cpi.requests}, published
+ * as a histogram) and their failures ({@code cpisync.cpi.errors}, tagged with the HTTP status when there is one).
+ * <p>
+ * The number of concurrent calls per endpoint is bounded by an {@link AdaptiveConcurrencyLimiter}, which backs off
+ * when CPI throttles (429, 503, timeouts) or slows down. Its current limit and the calls in flight are published as
+ * {@code cpisync.cpi.concurrency.limit} and {@code cpisync.cpi.concurrency.inflight}.
+ * <p>
+ * Transient failures (throttling, 5xx, I/O errors and timeouts) are retried with exponential backoff and full jitter,
+ * or after the {@code Retry-After} delay when CPI sends one. Retries are counted on {@code cpisync.cpi.retries}.
+ */
+@Slf4j
+@Component
+public class CpiCallExecutor {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<CpiEndpoint, AdaptiveConcurrencyLimiter> limiters = new EnumMap<>(CpiEndpoint.class);
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    public CpiCallExecutor(
+        MeterRegistry meterRegistry,
+        @Value("${app.sync.cpiConcurrency.initialLimit:8}") int initialLimit,
+        @Value("${app.sync.cpiConcurrency.minLimit:1}") int minLimit,
+        @Value("${app.sync.cpiConcurrency.maxLimit:64}") int maxLimit,
+        //Factor applied to the limit when a call is throttled or its latency spikes.
+        @Value("${app.sync.cpiConcurrency.backoffRatio:0.9}") double backoffRatio,
+        //Latency above this multiple of the baseline counts as a spike.
+        @Value("${app.sync.cpiConcurrency.latencyTolerance:2.0}") double latencyTolerance,
+        @Value("${app.sync.retry.maxAttempts:4}") int maxAttempts,
+        @Value("${app.sync.retry.initialBackoff:PT0.5S}") Duration initialBackoff,
+        @Value("${app.sync.retry.maxBackoff:PT30S}") Duration maxBackoff
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        for (CpiEndpoint endpoint : CpiEndpoint.values()) {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                initialLimit, minLimit, maxLimit, backoffRatio, latencyTolerance);
+            limiters.put(endpoint, limiter);
+            Gauge.builder("cpisync.cpi.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive limit of concurrent CPI calls")
+                .tag("endpoint", endpoint.getMetricTag())
+                .register(meterRegistry);
+            Gauge.builder("cpisync.cpi.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("CPI calls currently in flight")
+                .tag("endpoint", endpoint.getMetricTag())
+                .register(meterRegistry);
+        }
+    }
+
+    public <T> T execute(CpiEndpoint endpoint, Supplier<T> call) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return executeOnce(endpoint, call);
+            } catch (RuntimeException ex) {
+                if (attempt >= maxAttempts || !isTransient(ex)) {
+                    throw ex;
+                }
+                Duration backoff = backoff(attempt, ex);
+                log.debug("CPI call to {} failed (attempt {}/{}), retrying in {} ms: {}",
+                    endpoint.getMetricTag(), attempt, maxAttempts, backoff.toMillis(), ex.getMessage());
+                Counter.builder("cpisync.cpi.retries")
+                    .description("Retried CPI API calls")
+                    .tag("endpoint", endpoint.getMetricTag())
+                    .register(meterRegistry)
+                    .increment();
+                sleep(backoff, ex);
+            }
+        }
+    }
+
+    private <T> T executeOnce(CpiEndpoint endpoint, Supplier<T> call) {
+        AdaptiveConcurrencyLimiter limiter = limiters.get(endpoint);
+        try {
+            limiter.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a CPI call permit", ex);
+        }
+        long startedAt = System.nanoTime();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        AdaptiveConcurrencyLimiter.Outcome limiterOutcome = AdaptiveConcurrencyLimiter.Outcome.SUCCESS;
+        try {
+            return call.get();
+        } catch (RuntimeException ex) {
+            outcome = "error";
+            limiterOutcome = isThrottled(ex)
+                ? AdaptiveConcurrencyLimiter.Outcome.DROPPED
+                : AdaptiveConcurrencyLimiter.Outcome.IGNORED;
+            Counter.builder("cpisync.cpi.errors")
+                .description("Failed CPI API calls")
+                .tag("endpoint", endpoint.getMetricTag())
+                .tag("error", describeError(ex))
+                .register(meterRegistry)
+                .increment();
+            throw ex;
+        } finally {
+            limiter.release(limiterOutcome, System.nanoTime() - startedAt);
+            sample.stop(Timer.builder("cpisync.cpi.requests")
+                .description("Latency of CPI API calls")
+                .tag("endpoint", endpoint.getMetricTag())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        }
+    }
+
+    private String describeError(RuntimeException ex) {
+        if (ex instanceof RestClientResponseException responseException) {
+            return Integer.toString(responseException.getStatusCode().value());
+        }
+        return ex.getClass().getSimpleName();
+    }
+
+    /**
+     * The CPI client may wrap the HTTP failure, so the whole cause chain is inspected.
+     */
+    private boolean isTransient(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RestClientResponseException responseException) {
+                int status = responseException.getStatusCode().value();
+                return status == 429 || status >= 500;
+            }
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Duration backoff(int attempt, RuntimeException error) {
+        Duration retryAfter = retryAfter(error);
+        if (retryAfter != null) {
+            return retryAfter.compareTo(maxBackoff) > 0 ? maxBackoff : retryAfter;
+        }
+        long ceiling = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    /**
+     * Only the delay-seconds form of {@code Retry-After} is used; an HTTP date falls back to the computed backoff.
+     */
+    private Duration retryAfter(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RestClientResponseException responseException && responseException.getResponseHeaders() != null) {
+                String value = responseException.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+                return NumberUtils.isDigits(value) ? Duration.ofSeconds(Long.parseLong(value)) : null;
+            }
+        }
+        return null;
+    }
+
+    private void sleep(Duration backoff, RuntimeException failure) {
+        try {
+            Thread.sleep(backoff);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            failure.addSuppressed(ex);
+            throw failure;
+        }
+    }
+
+    private boolean isThrottled(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RestClientResponseException responseException) {
+                int status = responseException.getStatusCode().value();
+                return status == 429 || status == 503;
+            }
+            if (cause instanceof SocketTimeoutException || cause instanceof HttpTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,19 @@
+package com.figaf.training.cpisync.infrastructure.cpi;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * CPI API operations used by the synchronization and the package endpoints, named the way they are tagged on the CPI
+ * call metrics.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum CpiEndpoint {
+
+    INTEGRATION_PACKAGES("integration-packages"),
+    PACKAGE_ARTIFACTS("package-artifacts"),
+    ARTIFACT_DOWNLOAD("artifact-download");
+
+    private final String metricTag;
+}
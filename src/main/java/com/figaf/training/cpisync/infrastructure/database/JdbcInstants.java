@@ -0,0 +1,47 @@
+package com.figaf.training.cpisync.infrastructure.database;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Binds and reads {@link Instant} columns of plain JDBC statements in UTC, the same binding Hibernate uses for
+ * Instant attributes, so rows written here and through the entities read back identically.
+ */
+final class JdbcInstants {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private JdbcInstants() {
+    }
+
+    /**
+     * Creates the calendar to pass to the other methods. Calendars are not thread-safe, so take one per statement or
+     * row mapper.
+     */
+    static Calendar utcCalendar() {
+        return Calendar.getInstance(UTC);
+    }
+
+    static void setInstant(PreparedStatement ps, int index, Instant value, Calendar utc) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.TIMESTAMP);
+        } else {
+            ps.setTimestamp(index, Timestamp.from(value), utc);
+        }
+    }
+
+    static void setInstant(PreparedStatement ps, int index, Instant value) throws SQLException {
+        setInstant(ps, index, value, utcCalendar());
+    }
+
+    static Instant getInstant(ResultSet rs, String column, Calendar utc) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(column, utc);
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+}
@@ -0,0 +1,247 @@
+package com.figaf.training.cpisync.infrastructure.database;
+
+import com.figaf.training.cpisync.domain.ClusterCoordinator;
+import com.figaf.training.cpisync.domain.SynchronizationShard;
+import com.figaf.training.cpisync.domain.SynchronizationShardStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cluster coordination through the shared MySQL database. Every node writes a heartbeat row and tries to take or
+ * renew the leader lease at each heartbeat. All times are taken from the database clock, so clock skew between the
+ * nodes does not matter. A node that cannot renew the lease in time stops considering itself the leader before any
+ * other node can take the lease over.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.repository.type", havingValue = "mysql")
+public class MysqlClusterCoordinator implements ClusterCoordinator {
+
+    private static final String LEADER_LEASE = "leader";
+
+    private static final String HEARTBEAT = """
+        INSERT INTO synchronization_node (node_id, started_at, heartbeat_at) VALUES (?, NOW(3), NOW(3))
+        ON DUPLICATE KEY UPDATE heartbeat_at = NOW(3)
+        """;
+
+    // the holder is only replaced once the lease expired; the assignments apply in order, so the expiry is extended
+    // exactly when the holder is this node afterwards
+    private static final String ACQUIRE_LEASE = """
+        INSERT INTO synchronization_lease (name, holder, expires_at)
+        VALUES (?, ?, TIMESTAMPADD(MICROSECOND, ?, NOW(3)))
+        ON DUPLICATE KEY UPDATE
+            holder = IF(holder = VALUES(holder) OR expires_at < NOW(3), VALUES(holder), holder),
+            expires_at = IF(holder = VALUES(holder), VALUES(expires_at), expires_at)
+        """;
+
+    private static final String INSERT_SHARD = """
+        INSERT INTO synchronization_shard (run_id, node_id, package_filter, status, created_at, updated_at)
+        VALUES (?, ?, ?, ?, NOW(3), NOW(3))
+        """;
+
+    private static final String PACKAGE_FILTER_SEPARATOR = "\n";
+
+    // rows of nodes that stopped without removing them, e.g. after a crash with a generated node id
+    private static final Duration STALE_NODE_AGE = Duration.ofDays(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nodeId;
+    private final Duration heartbeatInterval;
+    private final Duration leaseDuration;
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofVirtual().name("cluster-heartbeat").factory());
+
+    private volatile boolean leader;
+    private volatile long leaseValidUntilNanos;
+
+    public MysqlClusterCoordinator(
+        JdbcTemplate jdbcTemplate,
+        //Defaults to the host name with a random suffix.
+        @Value("${app.cluster.nodeId:}") String nodeId,
+        @Value("${app.cluster.heartbeatInterval:PT5S}") Duration heartbeatInterval,
+        //A node whose heartbeat is older is considered gone; the leader lease lasts as long.
+        @Value("${app.cluster.leaseDuration:PT30S}") Duration leaseDuration
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nodeId = StringUtils.isBlank(nodeId) ? generateNodeId() : nodeId.trim();
+        this.heartbeatInterval = heartbeatInterval;
+        this.leaseDuration = leaseDuration;
+    }
+
+    @PostConstruct
+    public void start() {
+        log.info("Cluster node {} started", nodeId);
+        // the first heartbeat runs right away, so leadership is known before schedules and jobs start
+        this.heartbeat();
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeatInterval.toMillis(), heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeats.shutdownNow();
+        try {
+            jdbcTemplate.update("UPDATE synchronization_lease SET expires_at = NOW(3) WHERE name = ? AND holder = ?", LEADER_LEASE, nodeId);
+            jdbcTemplate.update("DELETE FROM synchronization_node WHERE node_id = ?", nodeId);
+        } catch (RuntimeException ex) {
+            log.warn("Cluster node {} could not leave the cluster, its lease expires on its own", nodeId, ex);
+        }
+        leader = false;
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public boolean isLeader() {
+        return leader && System.nanoTime() - leaseValidUntilNanos < 0;
+    }
+
+    @Override
+    public List<String> getLiveNodes() {
+        return jdbcTemplate.queryForList(
+            "SELECT node_id FROM synchronization_node WHERE heartbeat_at >= TIMESTAMPADD(MICROSECOND, ?, NOW(3)) ORDER BY node_id",
+            String.class,
+            -toMicros(leaseDuration)
+        );
+    }
+
+    @Override
+    public void assignShards(Collection<SynchronizationShard> shards) {
+        List<SynchronizationShard> rows = List.copyOf(shards);
+        jdbcTemplate.batchUpdate(INSERT_SHARD, rows, rows.size(), (ps, shard) -> {
+            ps.setString(1, shard.runId().toString());
+            ps.setString(2, shard.nodeId());
+            ps.setString(3, String.join(PACKAGE_FILTER_SEPARATOR, shard.packageTechnicalNames()));
+            ps.setString(4, SynchronizationShardStatus.PENDING.name());
+        });
+    }
+
+    @Override
+    public List<SynchronizationShard> claimShards() {
+        List<SynchronizationShard> pending = jdbcTemplate.query(
+            "SELECT run_id, package_filter FROM synchronization_shard WHERE node_id = ? AND status = ? ORDER BY created_at",
+            (rs, rowNum) -> new SynchronizationShard(
+                UUID.fromString(rs.getString("run_id")),
+                nodeId,
+                this.parsePackageFilter(rs.getString("package_filter")),
+                SynchronizationShardStatus.RUNNING,
+                null
+            ),
+            nodeId,
+            SynchronizationShardStatus.PENDING.name()
+        );
+        List<SynchronizationShard> claimed = new ArrayList<>(pending.size());
+        for (SynchronizationShard shard : pending) {
+            int updated = jdbcTemplate.update(
+                "UPDATE synchronization_shard SET status = ?, updated_at = NOW(3) WHERE run_id = ? AND node_id = ? AND status = ?",
+                SynchronizationShardStatus.RUNNING.name(),
+                shard.runId().toString(),
+                nodeId,
+                SynchronizationShardStatus.PENDING.name()
+            );
+            if (updated == 1) {
+                claimed.add(shard);
+            }
+        }
+        return claimed;
+    }
+
+    @Override
+    public void finishShard(UUID runId, SynchronizationShardStatus status, String message) {
+        jdbcTemplate.update(
+            "UPDATE synchronization_shard SET status = ?, message = ?, updated_at = NOW(3) WHERE run_id = ? AND node_id = ?",
+            status.name(),
+            message,
+            runId.toString(),
+            nodeId
+        );
+    }
+
+    @Override
+    public List<SynchronizationShard> findShards(UUID runId) {
+        return jdbcTemplate.query(
+            "SELECT node_id, status, message FROM synchronization_shard WHERE run_id = ?",
+            (rs, rowNum) -> new SynchronizationShard(
+                runId,
+                rs.getString("node_id"),
+                Set.of(),
+                SynchronizationShardStatus.valueOf(rs.getString("status")),
+                rs.getString("message")
+            ),
+            runId.toString()
+        );
+    }
+
+    @Override
+    public void deleteShards(UUID runId) {
+        jdbcTemplate.update("DELETE FROM synchronization_shard WHERE run_id = ?", runId.toString());
+    }
+
+    private void heartbeat() {
+        try {
+            jdbcTemplate.update(HEARTBEAT, nodeId);
+            long renewedAt = System.nanoTime();
+            jdbcTemplate.update(ACQUIRE_LEASE, LEADER_LEASE, nodeId, toMicros(leaseDuration));
+            String holder = jdbcTemplate.queryForObject(
+                "SELECT holder FROM synchronization_lease WHERE name = ?", String.class, LEADER_LEASE);
+            boolean leading = nodeId.equals(holder);
+            if (leading != leader) {
+                log.info(leading ? "Cluster node {} became the leader" : "Cluster node {} is no longer the leader", nodeId);
+            }
+            leaseValidUntilNanos = renewedAt + leaseDuration.toNanos();
+            leader = leading;
+            if (leading) {
+                jdbcTemplate.update(
+                    "DELETE FROM synchronization_node WHERE heartbeat_at < TIMESTAMPADD(MICROSECOND, ?, NOW(3))",
+                    -toMicros(STALE_NODE_AGE)
+                );
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Heartbeat of cluster node {} failed", nodeId, ex);
+        }
+    }
+
+    private Set<String> parsePackageFilter(String packageFilter) {
+        if (StringUtils.isEmpty(packageFilter)) {
+            return Set.of();
+        }
+        return Stream.of(packageFilter.split(PACKAGE_FILTER_SEPARATOR))
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private static long toMicros(Duration duration) {
+        return TimeUnit.NANOSECONDS.toMicros(duration.toNanos());
+    }
+
+    private static String generateNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,409 @@
+package com.figaf.training.cpisync.infrastructure.database;
+
+import com.figaf.training.cpisync.domain.LatestVersionCursor;
+import com.figaf.training.cpisync.domain.LatestVersionQuery;
+import com.figaf.training.cpisync.domain.SyncedObjectType;
+import com.figaf.training.cpisync.domain.SyncedObjectVersion;
+import com.figaf.training.cpisync.infrastructure.database.MysqlLatestVersionReader.LatestVersion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-process cache of the latest version of every object, per type and without payloads, in front of the latest
+ * version reads. Accepted appends update it once their transaction committed (write-through), so the node that
+ * synchronizes keeps its cached types.
+ * <p>
+ * Every stored change also increments the {@code latest-versions} row of {@code synced_object_version_counter} in its
+ * own transaction, see {@link #recordChange()}. Changes of this node move the counter to the value the cache expects
+ * next; any other value means another node changed objects, and the cache drops its types and reloads them on their
+ * next read. The counter is read at most every {@code checkInterval} for pages, and before every full read.
+ * <p>
+ * At most {@code maxObjects} objects are cached; the types read least recently are evicted first, and a type larger
+ * than the bound is read from the database every time. Reads are counted as {@code cpisync.repository.latest.cache}
+ * with {@code result} {@code hit} or {@code miss}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.repository.type", havingValue = "mysql")
+public class MysqlLatestVersionCache {
+
+    private static final String COUNTER_NAME = "latest-versions";
+
+    private static final String INCREMENT_COUNTER = """
+        UPDATE synced_object_version_counter SET version = LAST_INSERT_ID(version + 1) WHERE name = ?
+        """;
+
+    // the order of the pages, see MysqlLatestVersionReader
+    private static final Comparator<LatestVersion> LATEST_FIRST = Comparator
+        .comparing((LatestVersion latest) -> latest.version().getSynchronizedAt()).reversed()
+        .thenComparing(LatestVersion::historyId, Comparator.reverseOrder());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MysqlLatestVersionReader reader;
+    private final MysqlVersionBatchWriter versionWriter;
+    private final int maxObjects;
+    private final long checkIntervalNanos;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    private final Map<SyncedObjectType, CachedType> types = new ConcurrentHashMap<>();
+    // incremented by every write-through, a load that overlapped a write of its type is not kept
+    private final Map<SyncedObjectType, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final AtomicInteger cachedObjects = new AtomicInteger();
+    // counter value the cached types reflect
+    private final AtomicLong knownVersion = new AtomicLong(Long.MIN_VALUE);
+    private volatile long checkedAt;
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    public MysqlLatestVersionCache(
+        JdbcTemplate jdbcTemplate,
+        MysqlLatestVersionReader reader,
+        MysqlVersionBatchWriter versionWriter,
+        MeterRegistry meterRegistry,
+        @Value("${app.repository.latestCache.maxObjects:100000}") int maxObjects,
+        @Value("${app.repository.latestCache.checkInterval:PT1S}") Duration checkInterval
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reader = reader;
+        this.versionWriter = versionWriter;
+        this.maxObjects = maxObjects;
+        this.checkIntervalNanos = checkInterval.toNanos();
+        this.checkedAt = System.nanoTime() - checkIntervalNanos;
+        this.hits = Counter.builder("cpisync.repository.latest.cache")
+            .description("Reads of latest versions by whether their type was cached")
+            .tag("result", "hit")
+            .register(meterRegistry);
+        this.misses = Counter.builder("cpisync.repository.latest.cache")
+            .description("Reads of latest versions by whether their type was cached")
+            .tag("result", "miss")
+            .register(meterRegistry);
+        this.evictions = Counter.builder("cpisync.repository.latest.cache.evictions")
+            .description("Types dropped from the latest version cache to stay within its size")
+            .register(meterRegistry);
+        Gauge.builder("cpisync.repository.latest.cache.size", cachedObjects, AtomicInteger::get)
+            .description("Latest versions held in the cache")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Passes a page of the latest versions that match the query to the consumer, see
+     * {@link com.figaf.training.cpisync.domain.RepositoryService#forEachLatestVersion}.
+     */
+    public Optional<LatestVersionCursor> forEachLatestVersion(
+        LatestVersionQuery query,
+        BiConsumer<String, SyncedObjectVersion> consumer
+    ) {
+        this.checkCounter(false);
+        CachedType cached = this.getOrLoad(query.type());
+        if (cached == null) {
+            return reader.forEachLatestVersion(query, consumer);
+        }
+        List<LatestVersion> page = cached.page(query);
+        List<LatestVersion> passed = page.size() > query.limit() ? page.subList(0, query.limit()) : page;
+        passed.forEach(latest -> consumer.accept(latest.technicalName(), latest.version()));
+        if (page.size() <= query.limit()) {
+            return Optional.empty();
+        }
+        LatestVersion last = passed.getLast();
+        return Optional.of(new LatestVersionCursor(last.version().getSynchronizedAt(), Long.toString(last.historyId())));
+    }
+
+    /**
+     * Latest versions of every object of the type; checks the counter first, so changes of other nodes are seen.
+     */
+    public Collection<LatestVersion> findAll(SyncedObjectType type) {
+        this.checkCounter(true);
+        CachedType cached = this.getOrLoad(type);
+        return cached == null ? reader.findAll(type) : cached.all();
+    }
+
+    /**
+     * Caches the new latest version of an object once the current transaction committed.
+     */
+    public void update(SyncedObjectType type, long historyId, String technicalName, SyncedObjectVersion version) {
+        this.afterCommit(() -> this.apply(type, historyId, ignored -> new LatestVersion(historyId, technicalName, version)));
+    }
+
+    /**
+     * Changes the cached latest version of an object once the current transaction committed; objects that are not
+     * cached are left alone.
+     */
+    public void update(SyncedObjectType type, long historyId, UnaryOperator<SyncedObjectVersion> change) {
+        this.afterCommit(() -> this.apply(type, historyId, latest -> latest == null
+            ? null
+            : new LatestVersion(historyId, latest.technicalName(), change.apply(latest.version()))));
+    }
+
+    /**
+     * Changes the cached latest versions of the named objects once the current transaction committed.
+     */
+    public void update(SyncedObjectType type, Collection<String> technicalNames, UnaryOperator<SyncedObjectVersion> change) {
+        this.afterCommit(() -> {
+            CachedType cached = types.get(type);
+            this.generation(type).incrementAndGet();
+            if (cached != null) {
+                cached.historyIdsOf(technicalNames).forEach(historyId -> this.apply(type, historyId, latest -> latest == null
+                    ? null
+                    : new LatestVersion(historyId, latest.technicalName(), change.apply(latest.version()))));
+            }
+        });
+    }
+
+    /**
+     * Increments the change counter; must run in the transaction of the change, which keeps the counter row locked
+     * until the change is visible to the other nodes.
+     */
+    public void recordChange() {
+        jdbcTemplate.update(INCREMENT_COUNTER, COUNTER_NAME);
+        Long version = jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+        if (version != null) {
+            // a change of this node is already cached; any other gap is seen at the next check
+            knownVersion.compareAndSet(version - 1, version);
+        }
+    }
+
+    /**
+     * Drops every cached type, for example when a change that was cached could not be stored.
+     */
+    public void invalidate() {
+        knownVersion.set(Long.MIN_VALUE);
+        this.clear();
+    }
+
+    private void checkCounter(boolean force) {
+        long now = System.nanoTime();
+        if (!force && now - checkedAt < checkIntervalNanos) {
+            return;
+        }
+        checkedAt = now;
+        Long version = jdbcTemplate.queryForObject(
+            "SELECT version FROM synced_object_version_counter WHERE name = ?", Long.class, COUNTER_NAME);
+        long known = knownVersion.get();
+        if (version != null && version != known && knownVersion.compareAndSet(known, version)) {
+            if (!types.isEmpty()) {
+                log.debug("Latest versions changed elsewhere (counter {} -> {}), dropping the cache", known, version);
+            }
+            this.clear();
+        }
+    }
+
+    /**
+     * @return the cached type, or {@code null} if it is larger than the cache
+     */
+    private CachedType getOrLoad(SyncedObjectType type) {
+        CachedType cached = types.get(type);
+        if (cached != null) {
+            hits.increment();
+            cached.touch();
+            return cached;
+        }
+        misses.increment();
+        if (maxObjects <= 0) {
+            return null;
+        }
+        loadLock.lock();
+        try {
+            cached = types.get(type);
+            if (cached != null) {
+                return cached;
+            }
+            long generation = this.generation(type).get();
+            // versions queued by this node are part of the cache, so they have to be in the loaded rows too
+            versionWriter.flush();
+            List<LatestVersion> loaded = reader.findAll(type);
+            if (loaded.size() > maxObjects) {
+                log.debug("{} latest versions of {} exceed the cache size of {}", loaded.size(), type, maxObjects);
+                return null;
+            }
+            cached = new CachedType(loaded);
+            if (this.generation(type).get() == generation) {
+                this.evictFor(loaded.size());
+                types.put(type, cached);
+                cachedObjects.addAndGet(loaded.size());
+            }
+            return cached;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void apply(SyncedObjectType type, long historyId, UnaryOperator<LatestVersion> change) {
+        this.generation(type).incrementAndGet();
+        CachedType cached = types.get(type);
+        if (cached != null && cached.apply(historyId, change) && cachedObjects.incrementAndGet() > maxObjects) {
+            this.evictFor(0);
+        }
+    }
+
+    /**
+     * Evicts the types read least recently until the given number of objects fits.
+     */
+    private void evictFor(int objects) {
+        while (!types.isEmpty() && cachedObjects.get() + objects > maxObjects) {
+            types.entrySet().stream()
+                .min(Comparator.comparingLong(entry -> entry.getValue().readAt))
+                .map(Map.Entry::getKey)
+                .ifPresent(type -> {
+                    CachedType evicted = types.remove(type);
+                    if (evicted != null) {
+                        cachedObjects.addAndGet(-evicted.size());
+                        evictions.increment();
+                    }
+                });
+        }
+    }
+
+    private void clear() {
+        // also a type being loaded right now is not kept
+        for (SyncedObjectType type : SyncedObjectType.values()) {
+            this.generation(type).incrementAndGet();
+        }
+        types.clear();
+        cachedObjects.set(0);
+    }
+
+    private AtomicLong generation(SyncedObjectType type) {
+        return generations.computeIfAbsent(type, ignored -> new AtomicLong());
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Latest versions of one type, in page order and by history id.
+     */
+    private static final class CachedType {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final NavigableSet<LatestVersion> ordered = new TreeSet<>(LATEST_FIRST);
+        private final Map<Long, LatestVersion> byHistory = new HashMap<>();
+        private volatile long readAt = System.nanoTime();
+
+        private CachedType(List<LatestVersion> loaded) {
+            for (LatestVersion latest : loaded) {
+                ordered.add(latest);
+                byHistory.put(latest.historyId(), latest);
+            }
+        }
+
+        private void touch() {
+            readAt = System.nanoTime();
+        }
+
+        private int size() {
+            lock.readLock().lock();
+            try {
+                return byHistory.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Up to {@code limit + 1} matching versions after the position of the query.
+         */
+        private List<LatestVersion> page(LatestVersionQuery query) {
+            lock.readLock().lock();
+            try {
+                NavigableSet<LatestVersion> after = ordered;
+                if (query.after() != null) {
+                    SyncedObjectVersion position = SyncedObjectVersion.builder()
+                        .synchronizedAt(query.after().synchronizedAt())
+                        .build();
+                    after = ordered.tailSet(new LatestVersion(Long.parseLong(query.after().tieBreaker()), null, position), false);
+                }
+                List<LatestVersion> page = new ArrayList<>(Math.min(query.limit() + 1, byHistory.size()));
+                for (LatestVersion latest : after) {
+                    if (query.matches(latest.version())) {
+                        page.add(latest);
+                        if (page.size() > query.limit()) {
+                            break;
+                        }
+                    }
+                }
+                return page;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private List<Long> historyIdsOf(Collection<String> technicalNames) {
+            lock.readLock().lock();
+            try {
+                return byHistory.values().stream()
+                    .filter(latest -> technicalNames.contains(latest.technicalName()))
+                    .map(LatestVersion::historyId)
+                    .toList();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private List<LatestVersion> all() {
+            lock.readLock().lock();
+            try {
+                return List.copyOf(byHistory.values());
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * @return whether the change added an object
+         */
+        private boolean apply(long historyId, UnaryOperator<LatestVersion> change) {
+            lock.writeLock().lock();
+            try {
+                LatestVersion previous = byHistory.get(historyId);
+                LatestVersion changed = change.apply(previous);
+                if (changed == null) {
+                    return false;
+                }
+                if (previous != null) {
+                    ordered.remove(previous);
+                }
+                ordered.add(changed);
+                byHistory.put(historyId, changed);
+                return previous == null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.figaf.training.cpisync.infrastructure.database;
+
+import com.figaf.training.cpisync.domain.LatestVersionCursor;
+import com.figaf.training.cpisync.domain.LatestVersionQuery;
+import com.figaf.training.cpisync.domain.SyncedObjectType;
+import com.figaf.training.cpisync.domain.SyncedObjectVersion;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads pages of the latest versions with keyset pagination over {@code (synchronized_at, history_id)}, so a page
+ * costs the same wherever it starts. The {@code idx_version_latest} index on
+ * {@code (valid_to, synchronized_at, history_id)} returns the open versions already in page order, and rows are
+ * handed on one at a time instead of being mapped to entities. The history id breaks ties because an object has one
+ * latest version and its history id is known before the version is written, see {@link MysqlLatestVersionCache}.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.repository.type", havingValue = "mysql")
+public class MysqlLatestVersionReader {
+
+    private static final String SELECT_LATEST = """
+        SELECT v.history_id, h.technical_name, v.version_number, v.modification_date, v.remote_version, v.deleted,
+            v.synchronized_at, v.display_name, v.external_id, v.parent_technical_name, v.parent_external_id,
+            v.creation_date, v.created_by, v.modified_by, v.payload_content_type, v.payload_file_name, v.payload_size,
+            v.payload_digest, v.metadata_touched_at, v.children_synchronized_at
+        FROM synced_object_version v
+        JOIN synced_object_history h ON h.id = v.history_id
+        WHERE v.valid_to IS NULL AND h.object_type = ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<LatestVersionCursor> forEachLatestVersion(
+        LatestVersionQuery query,
+        BiConsumer<String, SyncedObjectVersion> consumer
+    ) {
+        StringBuilder sql = new StringBuilder(SELECT_LATEST);
+        List<Object> args = new ArrayList<>();
+        args.add(query.type().name());
+        if (query.parentTechnicalName() != null) {
+            sql.append("AND v.parent_technical_name = ?\n");
+            args.add(query.parentTechnicalName());
+        }
+        if (query.deleted() != null) {
+            sql.append("AND v.deleted = ?\n");
+            args.add(query.deleted());
+        }
+        if (query.modifiedSince() != null) {
+            sql.append("AND v.modification_date >= ?\n");
+            args.add(query.modifiedSince());
+        }
+        if (query.after() != null) {
+            sql.append("AND (v.synchronized_at < ? OR (v.synchronized_at = ? AND v.history_id < ?))\n");
+            args.add(query.after().synchronizedAt());
+            args.add(query.after().synchronizedAt());
+            args.add(Long.parseLong(query.after().tieBreaker()));
+        }
+        sql.append("ORDER BY v.synchronized_at DESC, v.history_id DESC\nLIMIT ?");
+        args.add(query.limit() + 1);
+
+        PageReader reader = new PageReader(query.limit(), consumer);
+        jdbcTemplate.query(sql.toString(), ps -> this.bind(ps, args), reader);
+        return Optional.ofNullable(reader.next);
+    }
+
+    /**
+     * Latest versions of every object of the type, in no particular order.
+     */
+    public List<LatestVersion> findAll(SyncedObjectType type) {
+        Calendar utc = JdbcInstants.utcCalendar();
+        return jdbcTemplate.query(
+            SELECT_LATEST,
+            (rs, rowNum) -> new LatestVersion(rs.getLong("history_id"), rs.getString("technical_name"), toVersion(rs, utc)),
+            type.name()
+        );
+    }
+
+    private void bind(PreparedStatement ps, List<Object> args) throws SQLException {
+        Calendar utc = JdbcInstants.utcCalendar();
+        for (int i = 0; i < args.size(); i++) {
+            if (args.get(i) instanceof Instant instant) {
+                JdbcInstants.setInstant(ps, i + 1, instant, utc);
+            } else {
+                ps.setObject(i + 1, args.get(i));
+            }
+        }
+    }
+
+    private static SyncedObjectVersion toVersion(ResultSet rs, Calendar utc) throws SQLException {
+        return SyncedObjectVersion.builder()
+            .versionNumber(rs.getInt("version_number"))
+            .modificationDate(JdbcInstants.getInstant(rs, "modification_date", utc))
+            .remoteVersion(rs.getString("remote_version"))
+            .deleted(rs.getBoolean("deleted"))
+            .synchronizedAt(JdbcInstants.getInstant(rs, "synchronized_at", utc))
+            .displayName(rs.getString("display_name"))
+            .externalId(rs.getString("external_id"))
+            .parentTechnicalName(rs.getString("parent_technical_name"))
+            .parentExternalId(rs.getString("parent_external_id"))
+            .creationDate(JdbcInstants.getInstant(rs, "creation_date", utc))
+            .createdBy(rs.getString("created_by"))
+            .modifiedBy(rs.getString("modified_by"))
+            .payloadContentType(rs.getString("payload_content_type"))
+            .payloadFileName(rs.getString("payload_file_name"))
+            .payloadSize(rs.getObject("payload_size", Long.class))
+            .payloadDigest(rs.getString("payload_digest"))
+            .metadataTouchedAt(JdbcInstants.getInstant(rs, "metadata_touched_at", utc))
+            .childrenSynchronizedAt(JdbcInstants.getInstant(rs, "children_synchronized_at", utc))
+            .build();
+    }
+
+    /**
+     * Hands the rows of a page on as they are read; the extra row only tells that another page follows.
+     */
+    private static final class PageReader implements RowCallbackHandler {
+
+        private final int limit;
+        private final BiConsumer<String, SyncedObjectVersion> consumer;
+        private final Calendar utc = JdbcInstants.utcCalendar();
+        private int count;
+        private LatestVersionCursor last;
+        private LatestVersionCursor next;
+
+        private PageReader(int limit, BiConsumer<String, SyncedObjectVersion> consumer) {
+            this.limit = limit;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            if (++count > limit) {
+                next = last;
+                return;
+            }
+            SyncedObjectVersion version = toVersion(rs, utc);
+            last = new LatestVersionCursor(version.getSynchronizedAt(), Long.toString(rs.getLong("history_id")));
+            consumer.accept(rs.getString("technical_name"), version);
+        }
+    }
+
+    /**
+     * Latest version of an object without its payload.
+     */
+    public record LatestVersion(long historyId, String technicalName, SyncedObjectVersion version) {}
+}
@@ -0,0 +1,73 @@
+package com.figaf.training.cpisync.infrastructure.database;
+
+import com.figaf.training.cpisync.domain.PayloadSource;
+import com.figaf.training.cpisync.infrastructure.database.repository.SyncedObjectPayloadRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.repository.type", havingValue = "mysql")
+public class MysqlPayloadStore implements PayloadStore {
+
+    /**
+     * Inserts the payload, or only bumps its reference count when another writer stored the same digest first.
+     */
+    private static final String INSERT_OR_REFERENCE = """
+        INSERT INTO synced_object_payload (digest, payload, payload_size, reference_count, created_at)
+        VALUES (?, ?, ?, 1, CURRENT_TIMESTAMP)
+        ON DUPLICATE KEY UPDATE reference_count = reference_count + 1
+        """;
+
+    private final SyncedObjectPayloadRepository payloadRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void retain(PayloadSource payload) {
+        String digest = payload.digest();
+        // The common case for reverts and copied packages: the bytes are already stored, so skip sending them again.
+        if (payloadRepository.incrementReference(digest) > 0) {
+            meterRegistry.counter("cpisync.repository.payload.deduplicated").increment();
+            return;
+        }
+        try (InputStream content = payload.openStream()) {
+            jdbcTemplate.update(INSERT_OR_REFERENCE, ps -> {
+                ps.setString(1, digest);
+                ps.setBinaryStream(2, content, payload.size());
+                ps.setLong(3, payload.size());
+            });
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to stream payload %s".formatted(digest), ex);
+        }
+        Counter.builder("cpisync.repository.payload.stored.bytes")
+            .description("Payload bytes sent to the payload table after deduplication")
+            .baseUnit("bytes")
+            .register(meterRegistry)
+            .increment(payload.size());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(String digest) {
+        payloadRepository.decrementReference(digest);
+        // a concurrent retain either counted its reference first or finds no row and inserts the content again
+        jdbcTemplate.update("DELETE FROM synced_object_payload WHERE digest = ? AND reference_count <= 0", digest);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleteAll() {
+        payloadRepository.deleteAllPayloads();
+    }
+}
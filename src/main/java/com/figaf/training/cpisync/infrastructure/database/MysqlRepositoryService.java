@@ -2,27 +2,38 @@ package com.figaf.training.cpisync.infrastructure.database;
 
 import com.figaf.training.cpisync.application.dto.SyncedObjectVersionPayload;
 import com.figaf.training.cpisync.application.dto.SynchronizationActionType;
+import com.figaf.training.cpisync.domain.ChangeDetectionMode;
+import com.figaf.training.cpisync.domain.LatestVersionCursor;
+import com.figaf.training.cpisync.domain.LatestVersionQuery;
 import com.figaf.training.cpisync.domain.RepositoryService;
 import com.figaf.training.cpisync.domain.SyncedObjectHistory;
+import com.figaf.training.cpisync.domain.SyncedObjectState;
 import com.figaf.training.cpisync.domain.SyncedObjectType;
 import com.figaf.training.cpisync.domain.SyncedObjectVersion;
+import com.figaf.training.cpisync.domain.SynchronizationWatermark;
 import com.figaf.training.cpisync.infrastructure.SynchronizationMapper;
+import com.figaf.training.cpisync.infrastructure.database.MysqlLatestVersionReader.LatestVersion;
 import com.figaf.training.cpisync.infrastructure.database.entities.SyncedObjectHistoryEntity;
 import com.figaf.training.cpisync.infrastructure.database.entities.SyncedObjectVersionEntity;
+import com.figaf.training.cpisync.infrastructure.database.entities.SynchronizationWatermarkEntity;
 import com.figaf.training.cpisync.infrastructure.database.repository.MysqlSyncedObjectRepository;
 import com.figaf.training.cpisync.infrastructure.database.repository.SyncedObjectVersionRepository;
+import com.figaf.training.cpisync.infrastructure.database.repository.SynchronizationWatermarkRepository;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
@@ -33,11 +44,20 @@ public class MysqlRepositoryService implements RepositoryService {
     private final SynchronizationMapper mapper;
     private final MysqlSyncedObjectRepository historyRepository;
     private final SyncedObjectVersionRepository versionRepository;
+    private final PayloadStore payloadStore;
+    private final MysqlVersionBatchWriter versionWriter;
+    private final MysqlLatestVersionCache latestCache;
+    private final SynchronizationWatermarkRepository watermarkRepository;
+
+    @Value("${app.sync.changeDetection:METADATA}")
+    private ChangeDetectionMode changeDetectionMode = ChangeDetectionMode.METADATA;
 
     //TODO clear separation according DDD, to work only with entities on infrastructure level
     //TODO: do not translate the objects with mapper from dto to entity
+    // READ_COMMITTED: the payload reference lookup must not take gap locks, otherwise concurrent appends of the same
+    // new payload deadlock on the following insert
     @Override
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public Optional<SynchronizationRepositoryChange> appendVersionIfNecessary(
         String technicalName,
         SyncedObjectType type,
@@ -46,29 +66,35 @@ public class MysqlRepositoryService implements RepositoryService {
         Supplier<SyncedObjectVersionPayload> payloadSupplier
     ) {
         SyncedObjectHistoryEntity history = ensureHistory(technicalName, type);
-        Optional<SyncedObjectVersion> latest = queryLatestVersion(history.getId());
+        Optional<SyncedObjectVersion> latest = queryLatestVersion(history);
         if (latest.isEmpty() || latest.get().isDeleted()) {
-            SyncedObjectVersion created = persistNewVersion(history, payloadSupplier.get(), latest, false);
-            return Optional.of(new SynchronizationRepositoryChange(SynchronizationActionType.REGISTERED, created));
+            try (SyncedObjectVersionPayload payload = payloadSupplier.get()) {
+                return Optional.of(persistNewVersion(history, payload, latest, SynchronizationActionType.REGISTERED));
+            }
         }
 
         SyncedObjectVersion current = latest.get();
         if (hasRemoteChanges(remoteModificationDate, remoteVersion, current)) {
-            SyncedObjectVersion updated = persistNewVersion(history, payloadSupplier.get(), latest, false);
-            return Optional.of(new SynchronizationRepositoryChange(SynchronizationActionType.UPDATED, updated));
+            try (SyncedObjectVersionPayload payload = payloadSupplier.get()) {
+                if (changeDetectionMode == ChangeDetectionMode.CONTENT && payload.hasSameContentAs(current)) {
+                    SyncedObjectVersion touched = touchVersion(history, current, payload);
+                    return Optional.of(new SynchronizationRepositoryChange(SynchronizationActionType.METADATA_TOUCHED, touched));
+                }
+                return Optional.of(persistNewVersion(history, payload, latest, SynchronizationActionType.UPDATED));
+            }
         }
         return Optional.empty();
     }
 
     @Override
-    @Transactional
-    public Optional<SyncedObjectVersion> markDeleted(String technicalName, SyncedObjectType type) {
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public Optional<SynchronizationRepositoryChange> markDeleted(String technicalName, SyncedObjectType type) {
         SyncedObjectHistoryEntity history = findHistoryEntity(technicalName, type);
         if (history == null) {
             return Optional.empty();
         }
 
-        Optional<SyncedObjectVersion> latest = queryLatestVersion(history.getId());
+        Optional<SyncedObjectVersion> latest = queryLatestVersion(history);
         if (latest.isEmpty()) {
             return Optional.empty();
         }
@@ -78,64 +104,179 @@ public class MysqlRepositoryService implements RepositoryService {
             return Optional.empty();
         }
 
+        // without the payload, so the tombstone takes no payload reference
         SyncedObjectVersionPayload payload = mapper.toPayloadFromExisting(current, false);
-        SyncedObjectVersion deletedVersion = persistNewVersion(history, payload, latest, true);
-        return Optional.of(deletedVersion);
+        return Optional.of(persistNewVersion(history, payload, latest, SynchronizationActionType.MARKED_AS_DELETED));
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Collection<SyncedObjectHistory> findAllByType(SyncedObjectType type) {
-        List<SyncedObjectVersionEntity> latestVersions = versionRepository.findLatestVersionsByType(type.name());
-        Map<Long, SyncedObjectHistory> histories = new LinkedHashMap<>();
-        for (SyncedObjectVersionEntity versionEntity : latestVersions) {
-            SyncedObjectHistoryEntity historyEntity = versionEntity.getHistory();
-            SyncedObjectHistory history = histories.computeIfAbsent(
-                historyEntity.getId(),
-                ignored -> new SyncedObjectHistory(historyEntity.getTechnicalName(), type)
-            );
-            history.addVersion(mapper.toDomain(versionEntity, false));
+        List<SyncedObjectHistory> histories = new ArrayList<>();
+        for (LatestVersion latest : latestCache.findAll(type)) {
+            SyncedObjectHistory history = new SyncedObjectHistory(latest.technicalName(), type);
+            history.addVersion(latest.version());
+            histories.add(history);
+        }
+        return histories;
+    }
+
+    @Override
+    public Optional<LatestVersionCursor> forEachLatestVersion(
+        LatestVersionQuery query,
+        BiConsumer<String, SyncedObjectVersion> consumer
+    ) {
+        return latestCache.forEachLatestVersion(query, consumer);
+    }
+
+    @Override
+    public LatestVersionCursor parseLatestVersionCursor(String token) {
+        LatestVersionCursor cursor = LatestVersionCursor.fromToken(token);
+        try {
+            // the tie-breaker is a history id
+            Long.parseLong(cursor.tieBreaker());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid latest objects cursor: " + token, ex);
         }
-        return histories.values();
+        return cursor;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<SyncedObjectState> findAllLatestStates() {
+        return versionRepository.findLatestVersionStates().stream()
+            .map(view -> new SyncedObjectState(
+                SyncedObjectType.valueOf(view.getObjectType()),
+                view.getTechnicalName(),
+                view.getVersionNumber(),
+                view.getModificationDate(),
+                view.getRemoteVersion(),
+                view.getDeleted(),
+                view.getParentTechnicalName(),
+                view.getChildrenSynchronizedAt() != null
+            ))
+            .toList();
     }
 
     @Override
     @Transactional
     public void deleteAll() {
+        versionWriter.discard();
         historyRepository.deleteAll();
+        payloadStore.deleteAll();
+        watermarkRepository.deleteAll();
+        latestCache.recordChange();
+        latestCache.invalidate();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<SynchronizationWatermark> findWatermark() {
+        return watermarkRepository.findById(SynchronizationWatermarkEntity.SCOPE)
+            .map(entity -> new SynchronizationWatermark(entity.getHighWaterMark(), entity.getLastFullSynchronizationAt()));
     }
 
-    private SyncedObjectVersion persistNewVersion(
+    @Override
+    @Transactional
+    public void saveWatermark(SynchronizationWatermark watermark) {
+        SynchronizationWatermarkEntity entity = watermarkRepository.findById(SynchronizationWatermarkEntity.SCOPE)
+            .orElseGet(() -> {
+                SynchronizationWatermarkEntity created = new SynchronizationWatermarkEntity();
+                created.setScope(SynchronizationWatermarkEntity.SCOPE);
+                return created;
+            });
+        entity.setHighWaterMark(watermark.highWaterMark());
+        entity.setLastFullSynchronizationAt(watermark.lastFullSynchronizationAt());
+        entity.setUpdatedAt(Instant.now());
+        watermarkRepository.save(entity);
+    }
+
+    @Override
+    @Transactional
+    public void markChildrenSynchronized(Collection<String> packageTechnicalNames) {
+        if (packageTechnicalNames.isEmpty()) {
+            return;
+        }
+        Instant synchronizedAt = now();
+        versionRepository.markChildrenSynchronized(SyncedObjectType.INTEGRATION_PACKAGE.name(), packageTechnicalNames, synchronizedAt);
+        latestCache.recordChange();
+        latestCache.update(
+            SyncedObjectType.INTEGRATION_PACKAGE,
+            packageTechnicalNames,
+            latest -> latest.toBuilder().childrenSynchronizedAt(synchronizedAt).build()
+        );
+    }
+
+    @Override
+    public void flushPendingWrites() {
+        versionWriter.flush();
+    }
+
+    private SynchronizationRepositoryChange persistNewVersion(
         SyncedObjectHistoryEntity history,
         SyncedObjectVersionPayload payload,
         Optional<SyncedObjectVersion> latest,
-        boolean deleted
+        SynchronizationActionType action
     ) {
         int nextVersionNumber = latest.map(SyncedObjectVersion::getVersionNumber).orElse(0) + 1;
+        boolean deleted = action == SynchronizationActionType.MARKED_AS_DELETED;
         SyncedObjectVersion version = buildVersionFromPayload(payload, nextVersionNumber, deleted);
         SyncedObjectVersionEntity entity = mapper.toEntity(history, version);
-        Instant validityStart = version.getSynchronizedAt();
-        entity.setValidFrom(validityStart);
+        entity.setValidFrom(version.getSynchronizedAt());
         entity.setValidTo(null);
-        if (nextVersionNumber > 1) {
-            versionRepository.closeVersion(history.getId(), nextVersionNumber - 1, validityStart);
-        }
-        versionRepository.save(entity);
-        return version;
+        payload.getPayload().ifPresent(payloadStore::retain);
+        // the insert and the closing of the replaced version are batched with the appends of other objects
+        CompletableFuture<Void> written = versionWriter.enqueue(entity);
+        latestCache.update(SyncedObjectType.valueOf(history.getObjectType()), history.getId(), history.getTechnicalName(), version);
+        return new SynchronizationRepositoryChange(action, version, written);
+    }
+
+    private SyncedObjectVersion touchVersion(
+        SyncedObjectHistoryEntity history,
+        SyncedObjectVersion current,
+        SyncedObjectVersionPayload payload
+    ) {
+        SyncedObjectVersion.Builder builder = current.toBuilder();
+        payload.applyMetadataTo(builder);
+        SyncedObjectVersion touched = builder.metadataTouchedAt(now()).childrenSynchronizedAt(null).build();
+        versionRepository.touchVersion(
+            history.getId(),
+            touched.getVersionNumber(),
+            touched.getModificationDate().orElse(null),
+            touched.getRemoteVersion().orElse(null),
+            touched.getDisplayName().orElse(null),
+            touched.getExternalId().orElse(null),
+            touched.getParentTechnicalName().orElse(null),
+            touched.getParentExternalId().orElse(null),
+            touched.getCreationDate().orElse(null),
+            touched.getCreatedBy().orElse(null),
+            touched.getModifiedBy().orElse(null),
+            touched.getMetadataTouchedAt().orElse(null)
+        );
+        latestCache.recordChange();
+        latestCache.update(SyncedObjectType.valueOf(history.getObjectType()), history.getId(), history.getTechnicalName(), touched);
+        return touched;
     }
 
+    /**
+     * Builds the version without its content; the bytes are streamed into the {@link PayloadStore} separately.
+     */
     private SyncedObjectVersion buildVersionFromPayload(SyncedObjectVersionPayload payload, int versionNumber, boolean deleted) {
-        Instant synchronizedAt = Instant.now();
+        Instant synchronizedAt = now();
         SyncedObjectVersion.Builder builder = SyncedObjectVersion.builder()
             .versionNumber(versionNumber)
             .deleted(deleted)
             .synchronizedAt(synchronizedAt);
-        payload.applyTo(builder);
+        payload.applyMetadataTo(builder);
+        payload.applyPayloadAttributesTo(builder);
         return builder.build();
     }
 
-    private Optional<SyncedObjectVersion> queryLatestVersion(long historyId) {
-        return historyRepository.findLatestVersionByHistoryId(historyId, PageRequest.of(0, 1))
+    private Optional<SyncedObjectVersion> queryLatestVersion(SyncedObjectHistoryEntity history) {
+        // only happens when an object is seen twice before its queued version was written
+        if (versionWriter.hasQueuedVersions(history.getId())) {
+            versionWriter.flush();
+        }
+        return historyRepository.findLatestVersionByHistoryId(history.getId(), PageRequest.of(0, 1))
             .stream()
             .findFirst()
             .map(entity -> mapper.toDomain(entity, false));
@@ -159,15 +300,19 @@ public class MysqlRepositoryService implements RepositoryService {
             .orElse(null);
     }
 
+    /**
+     * The current time at the precision of the timestamp columns, so cached versions equal the stored ones.
+     */
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
     private boolean hasRemoteChanges(Instant remoteModification, String remoteVersion, SyncedObjectVersion currentVersion) {
-        if (remoteModification != null) {
-            Optional<Instant> currentModification = currentVersion.getModificationDate();
-            if (currentModification.isEmpty()
-                || remoteModification.getEpochSecond() > currentModification.get().getEpochSecond()) {
-                return true;
-            }
-        }
-        String currentRemoteVersion = currentVersion.getRemoteVersion().orElse(null);
-        return !Objects.equals(remoteVersion, currentRemoteVersion);
+        return SyncedObjectState.hasRemoteChanges(
+            currentVersion.getModificationDate().orElse(null),
+            currentVersion.getRemoteVersion().orElse(null),
+            remoteModification,
+            remoteVersion
+        );
     }
 }
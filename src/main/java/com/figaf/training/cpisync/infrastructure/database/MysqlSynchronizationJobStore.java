@@ -0,0 +1,450 @@
+package com.figaf.training.cpisync.infrastructure.database;
+
+import com.figaf.training.cpisync.application.dto.SynchronizationActionType;
+import com.figaf.training.cpisync.application.dto.SynchronizationFailureEntry;
+import com.figaf.training.cpisync.application.dto.SynchronizationResultEntry;
+import com.figaf.training.cpisync.application.service.synchronization.model.PersistedSynchronizationJob;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationEntryFilter;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationEntryPage;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobHistoryCursor;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobHistoryPage;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobHistoryQuery;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobProgress;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobStatus;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationMode;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationSnapshot;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationSnapshotMetadata;
+import com.figaf.training.cpisync.domain.ClusterCoordinator;
+import com.figaf.training.cpisync.domain.SyncedObjectType;
+import com.figaf.training.cpisync.domain.SynchronizationJobStore;
+import com.figaf.training.cpisync.infrastructure.database.entities.SynchronizationJobEntity;
+import com.figaf.training.cpisync.infrastructure.database.repository.SynchronizationJobRepository;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.repository.type", havingValue = "mysql")
+public class MysqlSynchronizationJobStore implements SynchronizationJobStore {
+
+    private static final String INSERT_ENTRY = """
+        INSERT INTO synchronization_job_entry (
+            job_id, sequence_number, object_type, technical_name, action, version_number, deleted, synchronized_at
+        ) VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final String INSERT_FAILURE = """
+        INSERT INTO synchronization_job_failure (
+            job_id, object_type, technical_name, package_technical_name, message, failed_at
+        ) VALUES (?, ?, ?, ?, ?, ?)
+        """;
+
+    // a package is completed once per attempt, IGNORE only guards against a checkpoint written twice
+    private static final String INSERT_CHECKPOINT = """
+        INSERT IGNORE INTO synchronization_job_checkpoint (job_id, package_technical_name) VALUES (?, ?)
+        """;
+
+    // seeks on the (job_id, sequence_number) index, so a page costs the same wherever it starts
+    private static final String SELECT_ENTRY_PAGE = """
+        SELECT sequence_number, object_type, technical_name, action, version_number, deleted, synchronized_at
+        FROM synchronization_job_entry
+        WHERE job_id = ?
+            AND sequence_number > ?
+            AND (? IS NULL OR action = ?)
+            AND (? IS NULL OR object_type = ?)
+        ORDER BY sequence_number
+        LIMIT ?
+        """;
+
+    private static final String SELECT_HISTORY = """
+        SELECT id, status, mode, started_at, finished_at, registered_count, updated_count, touched_count,
+            deleted_count, failed_count, error_message, created_at
+        FROM synchronization_job
+        """;
+
+    private static final String UPSERT_SCHEDULE_RUN = """
+        INSERT INTO synchronization_schedule_run (schedule_name, last_fired_at, last_job_id) VALUES (?, ?, ?)
+        ON DUPLICATE KEY UPDATE last_fired_at = VALUES(last_fired_at), last_job_id = COALESCE(VALUES(last_job_id), last_job_id)
+        """;
+
+    private static final Set<String> UNFINISHED_STATUSES = Set.of(
+        SynchronizationJobStatus.QUEUED.name(),
+        SynchronizationJobStatus.RUNNING.name()
+    );
+
+    private static final Set<String> FINISHED_STATUSES = Arrays.stream(SynchronizationJobStatus.values())
+        .filter(SynchronizationJobStatus::isFinished)
+        .map(Enum::name)
+        .collect(Collectors.toUnmodifiableSet());
+
+    private static final String PACKAGE_FILTER_SEPARATOR = "\n";
+
+    private final SynchronizationJobRepository jobRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ClusterCoordinator cluster;
+
+    @Override
+    @Transactional
+    public void create(UUID jobId, Set<String> packageTechnicalNames, SynchronizationMode requestedMode) {
+        SynchronizationJobEntity entity = new SynchronizationJobEntity();
+        entity.setId(jobId.toString());
+        entity.setStatus(SynchronizationJobStatus.QUEUED.name());
+        entity.setRequestedMode(requestedMode == null ? null : requestedMode.name());
+        entity.setPackageFilter(packageTechnicalNames == null ? null : String.join(PACKAGE_FILTER_SEPARATOR, packageTechnicalNames));
+        entity.setOwnerNodeId(cluster.getNodeId());
+        jobRepository.save(entity);
+    }
+
+    @Override
+    @Transactional
+    public void save(SynchronizationJobProgress progress) {
+        SynchronizationSnapshotMetadata metadata = progress.metadata();
+        String jobId = metadata.jobId().toString();
+        Optional<SynchronizationJobEntity> stored = jobRepository.findById(jobId);
+        if (stored.isEmpty()) {
+            log.debug("Job {} was removed, its progress is not saved", jobId);
+            return;
+        }
+        SynchronizationJobEntity entity = stored.get();
+        if (entity.getOwnerNodeId() != null && !entity.getOwnerNodeId().equals(cluster.getNodeId())) {
+            // this node missed its heartbeats for so long that another node resumed the job
+            log.warn("Job {} was claimed by node {}, its progress is not saved", jobId, entity.getOwnerNodeId());
+            return;
+        }
+        entity.setStatus(metadata.status().name());
+        entity.setMode(metadata.mode() == null ? null : metadata.mode().name());
+        entity.setStartedAt(metadata.startedAt());
+        entity.setFinishedAt(metadata.finishedAt());
+        entity.setRegisteredCount(metadata.registeredCount());
+        entity.setUpdatedCount(metadata.updatedCount());
+        entity.setTouchedCount(metadata.touchedCount());
+        entity.setDeletedCount(metadata.deletedCount());
+        entity.setFailedCount(metadata.failedCount());
+        entity.setErrorMessage(metadata.errorMessage());
+        entity.setUpdatedAt(Instant.now());
+
+        if (!progress.entries().isEmpty()) {
+            List<SynchronizationResultEntry> entries = progress.entries();
+            long firstSequence = progress.lastEntrySequence() - entries.size() + 1;
+            jdbcTemplate.batchUpdate(INSERT_ENTRY, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    SynchronizationResultEntry entry = entries.get(i);
+                    ps.setString(1, jobId);
+                    ps.setLong(2, firstSequence + i);
+                    ps.setString(3, entry.type().name());
+                    ps.setString(4, entry.technicalName());
+                    ps.setString(5, entry.action().name());
+                    ps.setInt(6, entry.version());
+                    ps.setBoolean(7, entry.deleted());
+                    JdbcInstants.setInstant(ps, 8, entry.synchronizedAt());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return entries.size();
+                }
+            });
+        }
+        if (!progress.failures().isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_FAILURE, progress.failures(), progress.failures().size(), (ps, failure) -> {
+                ps.setString(1, jobId);
+                ps.setString(2, failure.type().name());
+                ps.setString(3, failure.technicalName());
+                ps.setString(4, failure.packageTechnicalName());
+                ps.setString(5, failure.message());
+                JdbcInstants.setInstant(ps, 6, failure.failedAt());
+            });
+        }
+        if (metadata.status().isFinished()) {
+            jdbcTemplate.update("DELETE FROM synchronization_job_checkpoint WHERE job_id = ?", jobId);
+        } else if (!progress.completedPackages().isEmpty()) {
+            List<String> completedPackages = List.copyOf(progress.completedPackages());
+            jdbcTemplate.batchUpdate(INSERT_CHECKPOINT, completedPackages, completedPackages.size(), (ps, packageTechnicalName) -> {
+                ps.setString(1, jobId);
+                ps.setString(2, packageTechnicalName);
+            });
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<SynchronizationSnapshot> findSnapshot(UUID jobId) {
+        return jobRepository.findById(jobId.toString()).map(this::toSnapshot);
+    }
+
+    @Override
+    public SynchronizationEntryPage findEntries(UUID jobId, long afterSequence, int limit, SynchronizationEntryFilter filter) {
+        Calendar utc = JdbcInstants.utcCalendar();
+        String action = filter.action() == null ? null : filter.action().name();
+        String type = filter.type() == null ? null : filter.type().name();
+        // one row more than requested tells whether another page follows
+        List<SynchronizationEntryPage.SequencedEntry> entries = new ArrayList<>(jdbcTemplate.query(
+            SELECT_ENTRY_PAGE,
+            (rs, rowNum) -> new SynchronizationEntryPage.SequencedEntry(rs.getLong("sequence_number"), this.toEntry(rs, utc)),
+            jobId.toString(),
+            afterSequence,
+            action,
+            action,
+            type,
+            type,
+            limit + 1
+        ));
+        boolean hasMore = entries.size() > limit;
+        if (hasMore) {
+            entries.removeLast();
+        }
+        long nextAfter = entries.isEmpty() ? afterSequence : entries.getLast().sequence();
+        return new SynchronizationEntryPage(entries, nextAfter, hasMore);
+    }
+
+    @Override
+    public boolean persistsEntries() {
+        return true;
+    }
+
+    @Override
+    public SynchronizationJobHistoryPage findHistory(SynchronizationJobHistoryQuery query) {
+        Calendar utc = JdbcInstants.utcCalendar();
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        if (query.from() != null) {
+            conditions.add("created_at >= ?");
+            args.add(query.from());
+        }
+        if (query.to() != null) {
+            conditions.add("created_at < ?");
+            args.add(query.to());
+        }
+        if (query.statuses() != null && !query.statuses().isEmpty()) {
+            conditions.add("status IN (" + String.join(", ", Collections.nCopies(query.statuses().size(), "?")) + ")");
+            query.statuses().forEach(status -> args.add(status.name()));
+        }
+        if (query.after() != null) {
+            // keyset pagination: continue strictly after the last job of the previous page
+            conditions.add("(created_at < ? OR (created_at = ? AND id < ?))");
+            args.add(query.after().createdAt());
+            args.add(query.after().createdAt());
+            args.add(query.after().jobId().toString());
+        }
+        String where = conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + "\n";
+        args.add(query.limit() + 1);
+        List<HistoryRow> rows = new ArrayList<>(jdbcTemplate.query(
+            SELECT_HISTORY + where + "ORDER BY created_at DESC, id DESC\nLIMIT ?",
+            (PreparedStatementSetter)ps -> {
+                for (int i = 0; i < args.size(); i++) {
+                    Object arg = args.get(i);
+                    if (arg instanceof Instant instant) {
+                        JdbcInstants.setInstant(ps, i + 1, instant);
+                    } else {
+                        ps.setObject(i + 1, arg);
+                    }
+                }
+            },
+            (rs, rowNum) -> new HistoryRow(this.toMetadata(rs, utc), JdbcInstants.getInstant(rs, "created_at", utc))
+        ));
+        String nextCursor = null;
+        if (rows.size() > query.limit()) {
+            rows.removeLast();
+            HistoryRow last = rows.getLast();
+            nextCursor = new SynchronizationJobHistoryCursor(last.createdAt(), last.metadata().jobId()).toToken();
+        }
+        return new SynchronizationJobHistoryPage(rows.stream().map(HistoryRow::metadata).toList(), nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SynchronizationSnapshotMetadata> findRecentFinished(int limit) {
+        List<SynchronizationJobEntity> newestFirst = jobRepository.findByStatusInOrderByCreatedAtDesc(
+            FINISHED_STATUSES,
+            PageRequest.of(0, Math.max(1, limit))
+        );
+        return newestFirst.reversed().stream().map(this::toMetadata).toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PersistedSynchronizationJob> findUnfinished(Collection<String> liveNodes) {
+        return jobRepository.findByStatusInOrderByCreatedAtAsc(UNFINISHED_STATUSES).stream()
+            .filter(entity -> entity.getOwnerNodeId() == null || !liveNodes.contains(entity.getOwnerNodeId()))
+            .map(entity -> new PersistedSynchronizationJob(
+                this.parsePackageFilter(entity.getPackageFilter()),
+                entity.getRequestedMode() == null ? null : SynchronizationMode.valueOf(entity.getRequestedMode()),
+                this.toSnapshot(entity),
+                new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT package_technical_name FROM synchronization_job_checkpoint WHERE job_id = ?",
+                    String.class,
+                    entity.getId()
+                )),
+                entity.getOwnerNodeId()
+            ))
+            .toList();
+    }
+
+    @Override
+    public boolean claim(UUID jobId, String previousOwner) {
+        // <=> also matches jobs saved without an owner
+        return jdbcTemplate.update(
+            "UPDATE synchronization_job SET owner_node_id = ? WHERE id = ? AND status IN (?, ?) AND owner_node_id <=> ?",
+            cluster.getNodeId(),
+            jobId.toString(),
+            SynchronizationJobStatus.QUEUED.name(),
+            SynchronizationJobStatus.RUNNING.name(),
+            previousOwner
+        ) == 1;
+    }
+
+    @Override
+    public Optional<Instant> findLastScheduledRun(String scheduleName) {
+        Calendar utc = JdbcInstants.utcCalendar();
+        List<Instant> firedAt = jdbcTemplate.query(
+            "SELECT last_fired_at FROM synchronization_schedule_run WHERE schedule_name = ?",
+            (rs, rowNum) -> JdbcInstants.getInstant(rs, "last_fired_at", utc),
+            scheduleName
+        );
+        return firedAt.stream().findFirst();
+    }
+
+    @Override
+    public void saveScheduledRun(String scheduleName, Instant firedAt, UUID jobId) {
+        jdbcTemplate.update(UPSERT_SCHEDULE_RUN, ps -> {
+            ps.setString(1, scheduleName);
+            JdbcInstants.setInstant(ps, 2, firedAt);
+            ps.setString(3, jobId == null ? null : jobId.toString());
+        });
+    }
+
+    @Override
+    public boolean isLastScheduledJobUnfinished(String scheduleName) {
+        Integer unfinished = jdbcTemplate.queryForObject(
+            """
+                SELECT COUNT(*)
+                FROM synchronization_schedule_run r
+                JOIN synchronization_job j ON j.id = r.last_job_id
+                WHERE r.schedule_name = ? AND j.status IN (?, ?)
+                """,
+            Integer.class,
+            scheduleName,
+            SynchronizationJobStatus.QUEUED.name(),
+            SynchronizationJobStatus.RUNNING.name()
+        );
+        return unfinished != null && unfinished > 0;
+    }
+
+    @Override
+    @Transactional
+    public void deleteAll() {
+        // entries, failures and checkpoints are removed by the cascading foreign keys
+        jobRepository.deleteAllInBatch();
+    }
+
+    private SynchronizationSnapshot toSnapshot(SynchronizationJobEntity entity) {
+        Calendar utc = JdbcInstants.utcCalendar();
+        List<SynchronizationResultEntry> entries = jdbcTemplate.query(
+            """
+                SELECT object_type, technical_name, action, version_number, deleted, synchronized_at
+                FROM synchronization_job_entry
+                WHERE job_id = ?
+                ORDER BY sequence_number
+                """,
+            (rs, rowNum) -> this.toEntry(rs, utc),
+            entity.getId()
+        );
+        List<SynchronizationFailureEntry> failures = jdbcTemplate.query(
+            """
+                SELECT object_type, technical_name, package_technical_name, message, failed_at
+                FROM synchronization_job_failure
+                WHERE job_id = ?
+                ORDER BY id
+                """,
+            (rs, rowNum) -> new SynchronizationFailureEntry(
+                SyncedObjectType.valueOf(rs.getString("object_type")),
+                rs.getString("technical_name"),
+                rs.getString("package_technical_name"),
+                rs.getString("message"),
+                JdbcInstants.getInstant(rs, "failed_at", utc)
+            ),
+            entity.getId()
+        );
+        return new SynchronizationSnapshot(this.toMetadata(entity), entries, failures);
+    }
+
+    private SynchronizationResultEntry toEntry(ResultSet rs, Calendar utc) throws SQLException {
+        return new SynchronizationResultEntry(
+            SyncedObjectType.valueOf(rs.getString("object_type")),
+            rs.getString("technical_name"),
+            SynchronizationActionType.valueOf(rs.getString("action")),
+            rs.getInt("version_number"),
+            rs.getBoolean("deleted"),
+            JdbcInstants.getInstant(rs, "synchronized_at", utc)
+        );
+    }
+
+    private SynchronizationSnapshotMetadata toMetadata(SynchronizationJobEntity entity) {
+        return new SynchronizationSnapshotMetadata(
+            UUID.fromString(entity.getId()),
+            SynchronizationJobStatus.valueOf(entity.getStatus()),
+            entity.getMode() == null ? null : SynchronizationMode.valueOf(entity.getMode()),
+            entity.getStartedAt(),
+            entity.getFinishedAt(),
+            entity.getRegisteredCount(),
+            entity.getUpdatedCount(),
+            entity.getTouchedCount(),
+            entity.getDeletedCount(),
+            entity.getFailedCount(),
+            entity.getErrorMessage()
+        );
+    }
+
+    private SynchronizationSnapshotMetadata toMetadata(ResultSet rs, Calendar utc) throws SQLException {
+        String mode = rs.getString("mode");
+        return new SynchronizationSnapshotMetadata(
+            UUID.fromString(rs.getString("id")),
+            SynchronizationJobStatus.valueOf(rs.getString("status")),
+            mode == null ? null : SynchronizationMode.valueOf(mode),
+            JdbcInstants.getInstant(rs, "started_at", utc),
+            JdbcInstants.getInstant(rs, "finished_at", utc),
+            rs.getLong("registered_count"),
+            rs.getLong("updated_count"),
+            rs.getLong("touched_count"),
+            rs.getLong("deleted_count"),
+            rs.getLong("failed_count"),
+            rs.getString("error_message")
+        );
+    }
+
+    private Set<String> parsePackageFilter(String packageFilter) {
+        if (packageFilter == null) {
+            return null;
+        }
+        return Stream.of(packageFilter.split(PACKAGE_FILTER_SEPARATOR))
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private record HistoryRow(SynchronizationSnapshotMetadata metadata, Instant createdAt) {}
+}
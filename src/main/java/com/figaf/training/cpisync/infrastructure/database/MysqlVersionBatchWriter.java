@@ -0,0 +1,324 @@
+package com.figaf.training.cpisync.infrastructure.database;
+
+import com.figaf.training.cpisync.infrastructure.database.entities.SyncedObjectVersionEntity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind buffer for new versions. Appends are queued once the transaction that stored their history and
+ * payload committed, and a single writer thread inserts them with JDBC batches and then closes the validity of the
+ * replaced versions with one set-based statement per batch. A batch is written once it is full, at the latest
+ * {@code writeMaxDelay} after its first version was queued, or on {@link #flush()}, which the synchronization calls
+ * before it reads the stored state again. Queued versions are not visible to queries until then; the
+ * {@link MysqlLatestVersionCache} holds them from the start. The future returned for each version tells whether it
+ * was stored, so the synchronization can fail the objects whose versions were not.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.repository.type", havingValue = "mysql")
+public class MysqlVersionBatchWriter {
+
+    private static final String INSERT_VERSION = """
+        INSERT INTO synced_object_version (
+            history_id, version_number, modification_date, remote_version, deleted, synchronized_at, valid_from,
+            valid_to, display_name, external_id, parent_technical_name, parent_external_id, creation_date, created_by,
+            modified_by, payload_content_type, payload_file_name, payload_size, payload_digest, metadata_touched_at
+        ) VALUES (?, ?, ?, ?, ?, ?, ?, NULL, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    /**
+     * Closes every open version of the given histories that already has a successor, which also covers several
+     * versions of one object written in the same batch.
+     */
+    private static final String CLOSE_REPLACED_VERSIONS = """
+        UPDATE synced_object_version previous
+        JOIN synced_object_version successor
+          ON successor.history_id = previous.history_id
+         AND successor.version_number = previous.version_number + 1
+        SET previous.valid_to = successor.valid_from
+        WHERE previous.valid_to IS NULL
+          AND previous.history_id IN (%s)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PayloadStore payloadStore;
+    // the cache depends on this writer, so it is looked up when a batch is written
+    private final ObjectProvider<MysqlLatestVersionCache> latestCache;
+    private final TransactionTemplate batchTransaction;
+    private final Timer flushTimer;
+    private final int batchSize;
+    private final Executor delayedWriter;
+
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private List<QueuedVersion> queue = new ArrayList<>();
+    private boolean batchScheduled;
+    private final Map<Long, Integer> queuedVersionsByHistory = new ConcurrentHashMap<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("version-batch-writer").factory());
+
+    public MysqlVersionBatchWriter(
+        JdbcTemplate jdbcTemplate,
+        PayloadStore payloadStore,
+        ObjectProvider<MysqlLatestVersionCache> latestCache,
+        PlatformTransactionManager transactionManager,
+        MeterRegistry meterRegistry,
+        @Value("${app.sync.writeBatchSize:200}") int batchSize,
+        //Longest time a queued version waits for its batch to fill up before it is written anyway.
+        @Value("${app.sync.writeMaxDelay:PT1S}") Duration maxDelay
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.payloadStore = payloadStore;
+        this.latestCache = latestCache;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.batchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.flushTimer = Timer.builder("cpisync.repository.batch.flush")
+            .description("Duration of writing one batch of versions")
+            .register(meterRegistry);
+        this.batchSize = Math.max(1, batchSize);
+        this.delayedWriter = CompletableFuture.delayedExecutor(maxDelay.toMillis(), TimeUnit.MILLISECONDS, writer);
+    }
+
+    /**
+     * Queues the version for insertion once the current transaction committed, so a batch never references a history
+     * or payload row that is not visible yet.
+     *
+     * @return completes once the version is stored, or exceptionally when it could not be written or was discarded
+     */
+    public CompletableFuture<Void> enqueue(SyncedObjectVersionEntity version) {
+        QueuedVersion queued = new QueuedVersion(version, new CompletableFuture<>());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addToQueue(queued);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        queued.written().completeExceptionally(new IllegalStateException("The version was rolled back"));
+                    }
+                }
+            });
+        } else {
+            addToQueue(queued);
+        }
+        return queued.written();
+    }
+
+    public boolean hasQueuedVersions(long historyId) {
+        return queuedVersionsByHistory.containsKey(historyId);
+    }
+
+    /**
+     * Writes every queued version and waits until each is stored or failed.
+     */
+    public void flush() {
+        try {
+            writer.submit(this::writeQueuedBatches).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing queued versions", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Failed to write queued versions", ex.getCause());
+        }
+    }
+
+    /**
+     * Drops queued versions without writing them; used when the whole repository is cleared.
+     */
+    public void discard() {
+        List<QueuedVersion> discarded;
+        queueLock.lock();
+        try {
+            discarded = queue;
+            queue = new ArrayList<>();
+            queuedVersionsByHistory.clear();
+        } finally {
+            queueLock.unlock();
+        }
+        discarded.forEach(queued -> queued.written().completeExceptionally(
+            new IllegalStateException("The repository was cleared before the version was written")));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        try {
+            flush();
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    private void addToQueue(QueuedVersion queued) {
+        queueLock.lock();
+        try {
+            queue.add(queued);
+            queuedVersionsByHistory.merge(queued.version().getHistory().getId(), 1, Integer::sum);
+            if (queue.size() >= batchSize && !batchScheduled) {
+                batchScheduled = true;
+                writer.execute(this::writeQueuedBatches);
+            } else if (queue.size() == 1 && !batchScheduled) {
+                // a run that stops before the batch is full must not leave its versions queued
+                delayedWriter.execute(this::writeQueuedBatches);
+            }
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    private void writeQueuedBatches() {
+        List<QueuedVersion> batch;
+        while (!(batch = takeBatch()).isEmpty()) {
+            List<QueuedVersion> written = batch;
+            flushTimer.record(() -> writeBatch(written));
+            for (QueuedVersion queued : written) {
+                queuedVersionsByHistory.computeIfPresent(queued.version().getHistory().getId(), (id, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+    }
+
+    private List<QueuedVersion> takeBatch() {
+        queueLock.lock();
+        try {
+            if (queue.isEmpty()) {
+                batchScheduled = false;
+                return Collections.emptyList();
+            }
+            if (queue.size() <= batchSize) {
+                List<QueuedVersion> batch = queue;
+                queue = new ArrayList<>();
+                return batch;
+            }
+            List<QueuedVersion> head = queue.subList(0, batchSize);
+            List<QueuedVersion> batch = new ArrayList<>(head);
+            head.clear();
+            return batch;
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    private void writeBatch(List<QueuedVersion> batch) {
+        List<SyncedObjectVersionEntity> versions = batch.stream().map(QueuedVersion::version).toList();
+        try {
+            batchTransaction.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_VERSION, versions, versions.size(), this::bindVersion);
+                closeReplacedVersions(versions);
+                latestCache.ifAvailable(MysqlLatestVersionCache::recordChange);
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Batch of {} versions failed, writing them one by one: {}", batch.size(), ex.getMessage());
+            batch.forEach(this::writeSingle);
+            return;
+        }
+        batch.forEach(queued -> queued.written().complete(null));
+    }
+
+    /**
+     * Fallback for a failed batch, so one conflicting row (for example a version number another writer already took)
+     * does not drop the rest. A version that still fails is not stored and its future completes exceptionally; the
+     * synchronization that appended it records the object as failed, so its package is not reported complete. The
+     * payload reference taken for it when it was appended is released.
+     */
+    private void writeSingle(QueuedVersion queued) {
+        SyncedObjectVersionEntity version = queued.version();
+        try {
+            batchTransaction.executeWithoutResult(status -> {
+                jdbcTemplate.update(INSERT_VERSION, ps -> bindVersion(ps, version));
+                closeReplacedVersions(List.of(version));
+                latestCache.ifAvailable(MysqlLatestVersionCache::recordChange);
+            });
+        } catch (RuntimeException ex) {
+            log.error("Failed to write version {} of history {}", version.getVersionNumber(), version.getHistory().getId(), ex);
+            // the version is cached already
+            latestCache.ifAvailable(MysqlLatestVersionCache::invalidate);
+            releasePayload(version);
+            queued.written().completeExceptionally(ex);
+            return;
+        }
+        queued.written().complete(null);
+    }
+
+    private void releasePayload(SyncedObjectVersionEntity version) {
+        if (version.getPayloadDigest() == null) {
+            return;
+        }
+        try {
+            batchTransaction.executeWithoutResult(status -> payloadStore.release(version.getPayloadDigest()));
+        } catch (RuntimeException ex) {
+            log.error("Failed to release payload {} of an unwritten version", version.getPayloadDigest(), ex);
+        }
+    }
+
+    private void closeReplacedVersions(List<SyncedObjectVersionEntity> batch) {
+        List<Long> historyIds = batch.stream()
+            .filter(version -> version.getVersionNumber() > 1)
+            .map(version -> version.getHistory().getId())
+            .distinct()
+            .toList();
+        if (historyIds.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(historyIds.size(), "?"));
+        jdbcTemplate.update(CLOSE_REPLACED_VERSIONS.formatted(placeholders), historyIds.toArray());
+    }
+
+    private void bindVersion(PreparedStatement ps, SyncedObjectVersionEntity version) throws SQLException {
+        Calendar utc = JdbcInstants.utcCalendar();
+        ps.setLong(1, version.getHistory().getId());
+        ps.setInt(2, version.getVersionNumber());
+        JdbcInstants.setInstant(ps, 3, version.getModificationDate(), utc);
+        ps.setString(4, version.getRemoteVersion());
+        ps.setBoolean(5, version.isDeleted());
+        JdbcInstants.setInstant(ps, 6, version.getSynchronizedAt(), utc);
+        JdbcInstants.setInstant(ps, 7, version.getValidFrom(), utc);
+        ps.setString(8, version.getDisplayName());
+        ps.setString(9, version.getExternalId());
+        ps.setString(10, version.getParentTechnicalName());
+        ps.setString(11, version.getParentExternalId());
+        JdbcInstants.setInstant(ps, 12, version.getCreationDate(), utc);
+        ps.setString(13, version.getCreatedBy());
+        ps.setString(14, version.getModifiedBy());
+        ps.setString(15, version.getPayloadContentType());
+        ps.setString(16, version.getPayloadFileName());
+        if (version.getPayloadSize() == null) {
+            ps.setNull(17, Types.BIGINT);
+        } else {
+            ps.setLong(17, version.getPayloadSize());
+        }
+        ps.setString(18, version.getPayloadDigest());
+        JdbcInstants.setInstant(ps, 19, version.getMetadataTouchedAt(), utc);
+    }
+
+    private record QueuedVersion(SyncedObjectVersionEntity version, CompletableFuture<Void> written) {}
+}
@@ -0,0 +1,30 @@
+package com.figaf.training.cpisync.infrastructure.database;
+
+import com.figaf.training.cpisync.domain.PayloadSource;
+
+/**
+ * Content-addressed storage for version payloads. Identical payloads are stored once and shared by digest, and each
+ * payload counts the versions referencing it. Tombstones carry no payload, so only appended versions hold references.
+ */
+public interface PayloadStore {
+
+    /**
+     * Registers one more reference to the payload's digest, streaming the content only if the digest is new.
+     *
+     * @param payload payload content, read only when its digest is not stored yet
+     */
+    void retain(PayloadSource payload);
+
+    /**
+     * Drops a reference registered by {@link #retain} whose version was not stored after all; the payload is removed
+     * together with its last reference.
+     *
+     * @param digest digest of the payload
+     */
+    void release(String digest);
+
+    /**
+     * Removes every stored payload (used together with {@code RepositoryService#deleteAll}).
+     */
+    void deleteAll();
+}
@@ -3,16 +3,28 @@ package com.figaf.training.cpisync.infrastructure.database;
 import com.figaf.training.cpisync.domain.SyncedObjectVersion;
 import com.figaf.training.cpisync.application.dto.SynchronizationActionType;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * @param written completes once the version is stored, or exceptionally when a buffered write failed; see
+ * {@link com.figaf.training.cpisync.domain.RepositoryService#flushPendingWrites()}
+ */
 public record SynchronizationRepositoryChange(
     SynchronizationActionType action,
-    SyncedObjectVersion version
+    SyncedObjectVersion version,
+    CompletableFuture<Void> written
 ) {
 
     public SynchronizationRepositoryChange {
         Objects.requireNonNull(action, "Synchronization action must not be null");
         Objects.requireNonNull(version, "Synced object version must not be null");
+        Objects.requireNonNull(written, "Write completion must not be null");
     }
-}
-
 
+    /**
+     * A change that is stored already.
+     */
+    public SynchronizationRepositoryChange(SynchronizationActionType action, SyncedObjectVersion version) {
+        this(action, version, CompletableFuture.completedFuture(null));
+    }
+}
@@ -0,0 +1,42 @@
+package com.figaf.training.cpisync.infrastructure.database.entities;
+
+import jakarta.persistence.Basic;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Payload bytes stored once per content digest and shared by every version with identical content.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "synced_object_payload")
+public class SyncedObjectPayloadEntity {
+
+    @Id
+    @Column(name = "digest", nullable = false, length = 64)
+    private String digest;
+
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "payload", nullable = false)
+    private byte[] payload;
+
+    @Column(name = "payload_size", nullable = false)
+    private long payloadSize;
+
+    @Column(name = "reference_count", nullable = false)
+    private int referenceCount;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -1,6 +1,5 @@
 package com.figaf.training.cpisync.infrastructure.database.entities;
 
-import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -8,7 +7,6 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
-import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
@@ -77,11 +75,6 @@ public class SyncedObjectVersionEntity {
     @Column(name = "modified_by", length = 255)
     private String modifiedBy;
 
-    @Lob
-    @Basic(fetch = FetchType.LAZY)
-    @Column(name = "payload")
-    private byte[] payload;
-
     @Column(name = "payload_content_type", length = 255)
     private String payloadContentType;
 
@@ -90,4 +83,20 @@ public class SyncedObjectVersionEntity {
 
     @Column(name = "payload_size")
     private Long payloadSize;
+
+    @Column(name = "payload_digest", length = 64)
+    private String payloadDigest;
+
+    /**
+     * Shared payload content, resolved through {@link #payloadDigest}; only fetched when the bytes are needed.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "payload_digest", referencedColumnName = "digest", insertable = false, updatable = false)
+    private SyncedObjectPayloadEntity payloadContent;
+
+    @Column(name = "metadata_touched_at")
+    private Instant metadataTouchedAt;
+
+    @Column(name = "children_synchronized_at")
+    private Instant childrenSynchronizedAt;
 }
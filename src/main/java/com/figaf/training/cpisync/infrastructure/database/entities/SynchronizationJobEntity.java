@@ -0,0 +1,83 @@
+package com.figaf.training.cpisync.infrastructure.database.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * State of a synchronization job. Its entries, failures and checkpoints are child rows written with JDBC batches.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "synchronization_job")
+public class SynchronizationJobEntity {
+
+    @Id
+    @Column(name = "id", nullable = false, length = 36)
+    private String id;
+
+    @Column(name = "status", nullable = false, length = 32)
+    private String status;
+
+    @Column(name = "requested_mode", length = 32)
+    private String requestedMode;
+
+    @Column(name = "mode", length = 32)
+    private String mode;
+
+    @Column(name = "package_filter", columnDefinition = "TEXT")
+    private String packageFilter;
+
+    // changed by claiming the job only, so saving a loaded job never reverts a claim of another node
+    @Column(name = "owner_node_id", length = 128, updatable = false)
+    private String ownerNodeId;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    @Column(name = "registered_count", nullable = false)
+    private long registeredCount;
+
+    @Column(name = "updated_count", nullable = false)
+    private long updatedCount;
+
+    @Column(name = "touched_count", nullable = false)
+    private long touchedCount;
+
+    @Column(name = "deleted_count", nullable = false)
+    private long deletedCount;
+
+    @Column(name = "failed_count", nullable = false)
+    private long failedCount;
+
+    @Column(name = "error_message", columnDefinition = "MEDIUMTEXT")
+    private String errorMessage;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @PrePersist
+    void prePersist() {
+        Instant now = Instant.now();
+        if (createdAt == null) {
+            createdAt = now;
+        }
+        if (updatedAt == null) {
+            updatedAt = now;
+        }
+    }
+}
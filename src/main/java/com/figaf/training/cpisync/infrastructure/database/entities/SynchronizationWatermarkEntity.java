@@ -0,0 +1,36 @@
+package com.figaf.training.cpisync.infrastructure.database.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Watermark of the tenant-wide synchronization, stored as a single row keyed by {@link #SCOPE}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "synchronization_watermark")
+public class SynchronizationWatermarkEntity {
+
+    public static final String SCOPE = "tenant";
+
+    @Id
+    @Column(name = "scope", nullable = false, length = 64)
+    private String scope;
+
+    @Column(name = "high_water_mark")
+    private Instant highWaterMark;
+
+    @Column(name = "last_full_synchronization_at")
+    private Instant lastFullSynchronizationAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
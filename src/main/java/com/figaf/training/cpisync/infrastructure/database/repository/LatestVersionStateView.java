@@ -0,0 +1,25 @@
+package com.figaf.training.cpisync.infrastructure.database.repository;
+
+import java.time.Instant;
+
+/**
+ * Projection of the latest version of a history, carrying only the attributes needed to detect remote changes.
+ */
+public interface LatestVersionStateView {
+
+    String getObjectType();
+
+    String getTechnicalName();
+
+    int getVersionNumber();
+
+    Instant getModificationDate();
+
+    String getRemoteVersion();
+
+    boolean getDeleted();
+
+    String getParentTechnicalName();
+
+    Instant getChildrenSynchronizedAt();
+}
@@ -0,0 +1,34 @@
+package com.figaf.training.cpisync.infrastructure.database.repository;
+
+import com.figaf.training.cpisync.infrastructure.database.entities.SyncedObjectPayloadEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface SyncedObjectPayloadRepository extends JpaRepository<SyncedObjectPayloadEntity, String> {
+
+    @Modifying
+    @Query(
+        """
+            UPDATE SyncedObjectPayloadEntity p
+            SET p.referenceCount = p.referenceCount + 1
+            WHERE p.digest = :digest
+            """
+    )
+    int incrementReference(@Param("digest") String digest);
+
+    @Modifying
+    @Query(
+        """
+            UPDATE SyncedObjectPayloadEntity p
+            SET p.referenceCount = p.referenceCount - 1
+            WHERE p.digest = :digest
+            """
+    )
+    int decrementReference(@Param("digest") String digest);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("DELETE FROM SyncedObjectPayloadEntity p")
+    void deleteAllPayloads();
+}
@@ -2,6 +2,7 @@ package com.figaf.training.cpisync.infrastructure.database.repository;
 
 import com.figaf.training.cpisync.infrastructure.database.entities.SyncedObjectVersionEntity;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -12,28 +13,75 @@ public interface SyncedObjectVersionRepository extends JpaRepository<SyncedObjec
 
     @Query(
         """
-            SELECT v
+            SELECT h.objectType AS objectType,
+                   h.technicalName AS technicalName,
+                   v.versionNumber AS versionNumber,
+                   v.modificationDate AS modificationDate,
+                   v.remoteVersion AS remoteVersion,
+                   v.deleted AS deleted,
+                   v.parentTechnicalName AS parentTechnicalName,
+                   v.childrenSynchronizedAt AS childrenSynchronizedAt
             FROM SyncedObjectVersionEntity v
-            JOIN FETCH v.history h
-            WHERE h.objectType = :type AND v.validTo IS NULL
-            ORDER BY h.technicalName
+            JOIN v.history h
+            WHERE v.validTo IS NULL
             """
     )
-    List<SyncedObjectVersionEntity> findLatestVersionsByType(@Param("type") String type);
+    List<LatestVersionStateView> findLatestVersionStates();
 
+    /**
+     * Stores the descriptive fields of a version whose content did not change, the same ones
+     * {@code SyncedObjectVersionPayload#applyMetadataTo} sets.
+     */
     @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query(
         """
             UPDATE SyncedObjectVersionEntity v
-            SET v.validTo = :validTo
+            SET v.modificationDate = :modificationDate,
+                v.remoteVersion = :remoteVersion,
+                v.displayName = :displayName,
+                v.externalId = :externalId,
+                v.parentTechnicalName = :parentTechnicalName,
+                v.parentExternalId = :parentExternalId,
+                v.creationDate = :creationDate,
+                v.createdBy = :createdBy,
+                v.modifiedBy = :modifiedBy,
+                v.metadataTouchedAt = :touchedAt,
+                v.childrenSynchronizedAt = NULL
             WHERE v.history.id = :historyId
               AND v.versionNumber = :versionNumber
-              AND v.validTo IS NULL
             """
     )
-    void closeVersion(
+    void touchVersion(
         @Param("historyId") long historyId,
         @Param("versionNumber") int versionNumber,
-        @Param("validTo") Instant validTo
+        @Param("modificationDate") Instant modificationDate,
+        @Param("remoteVersion") String remoteVersion,
+        @Param("displayName") String displayName,
+        @Param("externalId") String externalId,
+        @Param("parentTechnicalName") String parentTechnicalName,
+        @Param("parentExternalId") String parentExternalId,
+        @Param("creationDate") Instant creationDate,
+        @Param("createdBy") String createdBy,
+        @Param("modifiedBy") String modifiedBy,
+        @Param("touchedAt") Instant touchedAt
+    );
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(
+        """
+            UPDATE SyncedObjectVersionEntity v
+            SET v.childrenSynchronizedAt = :synchronizedAt
+            WHERE v.validTo IS NULL
+              AND v.history.id IN (
+                  SELECT h.id
+                  FROM SyncedObjectHistoryEntity h
+                  WHERE h.objectType = :type AND h.technicalName IN :technicalNames
+              )
+            """
+    )
+    int markChildrenSynchronized(
+        @Param("type") String type,
+        @Param("technicalNames") Collection<String> technicalNames,
+        @Param("synchronizedAt") Instant synchronizedAt
     );
 }
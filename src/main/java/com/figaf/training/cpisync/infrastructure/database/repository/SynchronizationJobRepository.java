@@ -0,0 +1,14 @@
+package com.figaf.training.cpisync.infrastructure.database.repository;
+
+import com.figaf.training.cpisync.infrastructure.database.entities.SynchronizationJobEntity;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SynchronizationJobRepository extends JpaRepository<SynchronizationJobEntity, String> {
+
+    List<SynchronizationJobEntity> findByStatusInOrderByCreatedAtDesc(Collection<String> statuses, Pageable pageable);
+
+    List<SynchronizationJobEntity> findByStatusInOrderByCreatedAtAsc(Collection<String> statuses);
+}
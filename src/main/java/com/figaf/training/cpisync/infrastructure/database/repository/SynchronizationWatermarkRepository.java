@@ -0,0 +1,7 @@
+package com.figaf.training.cpisync.infrastructure.database.repository;
+
+import com.figaf.training.cpisync.infrastructure.database.entities.SynchronizationWatermarkEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SynchronizationWatermarkRepository extends JpaRepository<SynchronizationWatermarkEntity, String> {
+}
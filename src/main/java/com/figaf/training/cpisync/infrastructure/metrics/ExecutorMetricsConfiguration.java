@@ -0,0 +1,30 @@
+package com.figaf.training.cpisync.infrastructure.metrics;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Publishes pool size, active count, queue depth and completed tasks of the synchronization executors, tagged with
+ * the bean name of the executor.
+ */
+@Configuration
+public class ExecutorMetricsConfiguration {
+
+    @Bean
+    public MeterBinder synchronizationExecutorsMetrics(
+        @Qualifier("synchronizationJobExecutor") ThreadPoolExecutor synchronizationJobExecutor,
+        @Qualifier("integrationPackagesJobExecutor") ThreadPoolExecutor integrationPackagesJobExecutor,
+        @Qualifier("integrationFlowJobExecutor") ThreadPoolExecutor integrationFlowJobExecutor
+    ) {
+        return registry -> {
+            new ExecutorServiceMetrics(synchronizationJobExecutor, "synchronizationJobExecutor", Tags.empty()).bindTo(registry);
+            new ExecutorServiceMetrics(integrationPackagesJobExecutor, "integrationPackagesJobExecutor", Tags.empty()).bindTo(registry);
+            new ExecutorServiceMetrics(integrationFlowJobExecutor, "integrationFlowJobExecutor", Tags.empty()).bindTo(registry);
+        };
+    }
+}
@@ -0,0 +1,123 @@
+package com.figaf.training.cpisync.infrastructure.metrics;
+
+import com.figaf.training.cpisync.application.dto.SynchronizationActionType;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationMode;
+import com.figaf.training.cpisync.domain.SyncedObjectType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Locale;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Meters of the synchronization engine. Throughput and change ratio are derived from {@code cpisync.sync.objects}:
+ * every processed object is counted once, tagged with the action it caused, {@code unchanged} or {@code failed}.
+ */
+@Component
+@RequiredArgsConstructor
+public class SynchronizationMetrics {
+
+    private static final String UNCHANGED = "unchanged";
+    private static final String FAILED = "failed";
+
+    private final MeterRegistry meterRegistry;
+
+    public Timer.Sample startJob() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void stopJob(Timer.Sample sample, SynchronizationMode mode, boolean succeeded) {
+        sample.stop(Timer.builder("cpisync.sync.jobs")
+            .description("Duration of synchronization runs")
+            .tag("mode", mode.name().toLowerCase(Locale.ROOT))
+            .tag("outcome", succeeded ? "success" : "failure")
+            .register(meterRegistry));
+    }
+
+    public <T> T timePhase(String phase, Supplier<T> action) {
+        return phaseTimer(phase).record(action);
+    }
+
+    public void timePhase(String phase, Runnable action) {
+        phaseTimer(phase).record(action);
+    }
+
+    /**
+     * Times a repository append. For changed objects this includes producing the payload, which for flows is the
+     * archive download also visible on {@code cpisync.cpi.requests}.
+     */
+    public <T> T timeRepositoryAppend(SyncedObjectType type, Supplier<T> action) {
+        return Timer.builder("cpisync.repository.append")
+            .description("Latency of appending a version if the remote object changed")
+            .tag("type", type.name())
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(action);
+    }
+
+    /**
+     * @param action the change caused by the object, {@code null} when it was unchanged
+     */
+    public void objectProcessed(SyncedObjectType type, SynchronizationActionType action) {
+        Counter.builder("cpisync.sync.objects")
+            .description("Remote objects processed by the synchronization")
+            .tag("type", type.name())
+            .tag("outcome", action == null ? UNCHANGED : action.name().toLowerCase(Locale.ROOT))
+            .register(meterRegistry)
+            .increment();
+    }
+
+    public void objectFailed(SyncedObjectType type) {
+        Counter.builder("cpisync.sync.objects")
+            .description("Remote objects processed by the synchronization")
+            .tag("type", type.name())
+            .tag("outcome", FAILED)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    public void packageListingSkipped() {
+        Counter.builder("cpisync.sync.packages.skipped")
+            .description("Packages whose flows were not listed because they did not change since their last sync")
+            .register(meterRegistry)
+            .increment();
+    }
+
+    /**
+     * @param outcome {@code submitted}, {@code coalesced}, {@code skipped} or {@code rejected}
+     */
+    public void scheduleFired(String schedule, String outcome) {
+        Counter.builder("cpisync.sync.schedule.fired")
+            .description("Fire times of the configured synchronization schedules")
+            .tag("schedule", schedule)
+            .tag("outcome", outcome)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    public void bytesDownloaded(long bytes) {
+        Counter.builder("cpisync.sync.downloaded.bytes")
+            .description("Artifact archive bytes downloaded from CPI")
+            .baseUnit("bytes")
+            .register(meterRegistry)
+            .increment(bytes);
+    }
+
+    public void payloadBytesWritten(SyncedObjectType type, long bytes) {
+        Counter.builder("cpisync.repository.payload.bytes")
+            .description("Payload bytes of the versions appended to the repository")
+            .baseUnit("bytes")
+            .tag("type", type.name())
+            .register(meterRegistry)
+            .increment(bytes);
+    }
+
+    private Timer phaseTimer(String phase) {
+        return Timer.builder("cpisync.sync.phase")
+            .description("Duration of the phases of a synchronization run")
+            .tag("phase", phase)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,78 @@
+package com.figaf.training.cpisync.application.service.synchronization;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class ConsistentHashRingTest {
+
+    private static final int KEYS = 10000;
+
+    @Test
+    void ownershipDoesNotDependOnTheOrderOfTheNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"));
+        ConsistentHashRing reordered = new ConsistentHashRing(List.of("node-c", "node-a", "node-b"));
+
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals(ring.ownerOf("pkg" + i), reordered.ownerOf("pkg" + i));
+        }
+    }
+
+    @Test
+    void addedNodeOnlyTakesOverKeysAndAboutItsShare() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"));
+        ConsistentHashRing grown = new ConsistentHashRing(List.of("node-a", "node-b", "node-c", "node-d"));
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String before = ring.ownerOf("pkg" + i);
+            String after = grown.ownerOf("pkg" + i);
+            if (!before.equals(after)) {
+                assertEquals("node-d", after, "a key may only move to the added node");
+                moved++;
+            }
+        }
+
+        // a quarter of the keys in expectation
+        assertTrue(moved > KEYS / 8 && moved < KEYS * 3 / 8, "moved keys: " + moved);
+    }
+
+    @Test
+    void removedNodeOnlyHandsOverItsOwnKeys() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"));
+        ConsistentHashRing shrunk = new ConsistentHashRing(List.of("node-a", "node-c"));
+
+        for (int i = 0; i < KEYS; i++) {
+            String before = ring.ownerOf("pkg" + i);
+            if (!before.equals("node-b")) {
+                assertEquals(before, shrunk.ownerOf("pkg" + i));
+            }
+        }
+    }
+
+    @Test
+    void keysAreSpreadEvenlyAcrossTheNodes() {
+        List<String> nodes = List.of("node-a", "node-b", "node-c", "node-d");
+        ConsistentHashRing ring = new ConsistentHashRing(nodes);
+
+        Map<String, Integer> owned = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            owned.merge(ring.ownerOf("pkg" + i), 1, Integer::sum);
+        }
+
+        for (String node : nodes) {
+            int keys = owned.getOrDefault(node, 0);
+            assertTrue(keys > KEYS / 8 && keys < KEYS * 3 / 8, node + " owns " + keys + " keys");
+        }
+    }
+
+    @Test
+    void ringNeedsANode() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of()));
+    }
+}
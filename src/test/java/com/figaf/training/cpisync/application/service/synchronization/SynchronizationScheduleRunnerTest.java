@@ -0,0 +1,170 @@
+package com.figaf.training.cpisync.application.service.synchronization;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.figaf.training.cpisync.application.service.synchronization.SynchronizationScheduleProperties.CatchUpPolicy;
+import com.figaf.training.cpisync.application.service.synchronization.SynchronizationScheduleProperties.Schedule;
+import com.figaf.training.cpisync.application.service.synchronization.model.ScheduledSynchronization;
+import com.figaf.training.cpisync.domain.ClusterCoordinator;
+import com.figaf.training.cpisync.domain.SynchronizationJobStore;
+import com.figaf.training.cpisync.infrastructure.metrics.SynchronizationMetrics;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class SynchronizationScheduleRunnerTest {
+
+    // fires once a year, so only the catch-up runs during a test
+    private static final String YEARLY = "0 0 0 1 1 *";
+    private static final String EVERY_SECOND = "* * * * * *";
+
+    private final SynchronizationJobFactory jobFactory = mock(SynchronizationJobFactory.class);
+    private final SynchronizationJobScheduler scheduler = mock(SynchronizationJobScheduler.class);
+    private final SynchronizationJobStore jobStore = mock(SynchronizationJobStore.class);
+    private final ClusterCoordinator cluster = mock(ClusterCoordinator.class);
+    private final SynchronizationMetrics metrics = mock(SynchronizationMetrics.class);
+    private final ScheduledExecutorService scheduleExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void stopScheduleExecutor() {
+        scheduleExecutor.shutdownNow();
+    }
+
+    @Test
+    void missedFireTimeIsRunOnceAfterStartup() {
+        UUID jobId = this.queuesJob(new CompletableFuture<>());
+        when(cluster.isLeader()).thenReturn(true);
+        when(jobStore.findLastScheduledRun("nightly")).thenReturn(Optional.of(Instant.now().minus(800, ChronoUnit.DAYS)));
+
+        this.runner(YEARLY, true, CatchUpPolicy.RUN_ONCE).start();
+
+        // two years of missed fire times start a single job
+        verify(scheduler, timeout(5000)).startSynchronization(any());
+        verify(jobStore, timeout(5000)).saveScheduledRun(eq("nightly"), any(), eq(jobId));
+        verify(scheduler, after(500).times(1)).startSynchronization(any());
+    }
+
+    @Test
+    void missedFireTimeIsDroppedWithSkipPolicy() {
+        when(cluster.isLeader()).thenReturn(true);
+        when(jobStore.findLastScheduledRun("nightly")).thenReturn(Optional.of(Instant.now().minus(800, ChronoUnit.DAYS)));
+
+        this.runner(YEARLY, true, CatchUpPolicy.SKIP).start();
+
+        verify(scheduler, after(500).never()).startSynchronization(any());
+        verify(jobStore, never()).saveScheduledRun(anyString(), any(), any());
+    }
+
+    @Test
+    void missedFireTimeIsLeftToTheLeader() {
+        when(cluster.isLeader()).thenReturn(false);
+        when(jobStore.findLastScheduledRun("nightly")).thenReturn(Optional.of(Instant.now().minus(800, ChronoUnit.DAYS)));
+
+        this.runner(YEARLY, true, CatchUpPolicy.RUN_ONCE).start();
+
+        verify(scheduler, after(500).never()).startSynchronization(any());
+        verify(jobStore, never()).findLastScheduledRun(anyString());
+    }
+
+    @Test
+    void onlyTheLeaderFires() {
+        this.queuesJob(CompletableFuture.completedFuture(null));
+        when(cluster.isLeader()).thenReturn(false);
+
+        this.runner(EVERY_SECOND, true, CatchUpPolicy.RUN_ONCE).start();
+
+        verify(scheduler, after(2500).never()).startSynchronization(any());
+        verify(jobStore, never()).saveScheduledRun(anyString(), any(), any());
+
+        // this node took over the lease
+        when(cluster.isLeader()).thenReturn(true);
+        verify(scheduler, timeout(3000)).startSynchronization(any());
+    }
+
+    @Test
+    void fireTimeIsSkippedWhileThePreviousJobRuns() {
+        CompletableFuture<UUID> completion = new CompletableFuture<>();
+        this.queuesJob(completion);
+        when(cluster.isLeader()).thenReturn(true);
+
+        this.runner(EVERY_SECOND, true, CatchUpPolicy.RUN_ONCE).start();
+
+        verify(scheduler, timeout(3000)).startSynchronization(any());
+        verify(metrics, timeout(3000)).scheduleFired("nightly", "skipped");
+        verify(jobStore, timeout(3000).atLeastOnce()).saveScheduledRun(eq("nightly"), any(), isNull());
+        verify(scheduler, times(1)).startSynchronization(any());
+
+        completion.complete(null);
+        verify(scheduler, timeout(3000).times(2)).startSynchronization(any());
+    }
+
+    @Test
+    void fireTimeIsSkippedWhileTheStoreHasThePreviousJobUnfinished() {
+        this.queuesJob(CompletableFuture.completedFuture(null));
+        when(cluster.isLeader()).thenReturn(true);
+        // queued by the former leader, which this node knows nothing about
+        when(jobStore.isLastScheduledJobUnfinished("nightly")).thenReturn(true);
+
+        this.runner(EVERY_SECOND, true, CatchUpPolicy.RUN_ONCE).start();
+
+        verify(metrics, timeout(3000)).scheduleFired("nightly", "skipped");
+        verify(scheduler, never()).startSynchronization(any());
+
+        when(jobStore.isLastScheduledJobUnfinished("nightly")).thenReturn(false);
+        verify(scheduler, timeout(3000)).startSynchronization(any());
+    }
+
+    @Test
+    void fireTimeIsNotSkippedWithoutSkipIfRunning() {
+        this.queuesJob(new CompletableFuture<>());
+        when(cluster.isLeader()).thenReturn(true);
+
+        this.runner(EVERY_SECOND, false, CatchUpPolicy.RUN_ONCE).start();
+
+        verify(scheduler, timeout(4000).times(2)).startSynchronization(any());
+        verify(jobStore, never()).isLastScheduledJobUnfinished(anyString());
+    }
+
+    private UUID queuesJob(CompletableFuture<UUID> completion) {
+        UUID jobId = UUID.randomUUID();
+        when(scheduler.startSynchronization(any())).thenReturn(new ScheduledSynchronization(jobId, false, completion));
+        return jobId;
+    }
+
+    private SynchronizationScheduleRunner runner(String cron, boolean skipIfRunning, CatchUpPolicy catchUp) {
+        SynchronizationScheduleProperties properties = new SynchronizationScheduleProperties(
+            true,
+            ZoneOffset.UTC,
+            Duration.ZERO,
+            skipIfRunning,
+            catchUp,
+            List.of(new Schedule("nightly", cron, null, null))
+        );
+        SynchronizationScheduleRunner runner = new SynchronizationScheduleRunner(
+            properties, jobFactory, scheduler, jobStore, cluster, metrics
+        );
+        ReflectionTestUtils.setField(runner, "scheduleExecutor", scheduleExecutor);
+        return runner;
+    }
+}
@@ -0,0 +1,133 @@
+package com.figaf.training.cpisync.application.service.synchronization.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.figaf.training.cpisync.application.dto.SynchronizationActionType;
+import com.figaf.training.cpisync.application.dto.SynchronizationResultEntry;
+import com.figaf.training.cpisync.domain.SyncedObjectType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class AbstractSynchronizationJobTest {
+
+    @Test
+    void releasedEntriesAreSpilledAndStayReadableUntilDiscarded() {
+        TestJob job = new TestJob(UUID.randomUUID());
+        job.setRetainedEntries(100);
+        job.spillReleasedEntries();
+        for (int index = 1; index <= 5000; index++) {
+            job.addEntry(entry(index));
+        }
+
+        job.progressSaved(job.takeProgress(List.of()));
+
+        // 4096 entries are in whole chunks beyond the retained ones
+        assertEquals(4096L, ReflectionTestUtils.getField(ReflectionTestUtils.getField(job, "entries"), "dropped"));
+        assertEquals(0, job.getReleasedEntries());
+        SynchronizationEntryPage page = job.getEntries(0, 10000, SynchronizationEntryFilter.ALL);
+        assertEquals(5000, page.entries().size());
+        for (SynchronizationEntryPage.SequencedEntry sequenced : page.entries()) {
+            assertEquals(entry((int)sequenced.sequence()), sequenced.entry());
+        }
+        assertEquals(5000, job.getFullSnapshot().entries().size());
+
+        Path spillFile = (Path)ReflectionTestUtils.getField(ReflectionTestUtils.getField(job, "entries"), "spillFile");
+        assertNotNull(spillFile);
+        assertTrue(Files.exists(spillFile));
+        job.discardEntries();
+        assertFalse(Files.exists(spillFile));
+        assertEquals(4096, job.getReleasedEntries());
+        assertEquals(904, job.getEntries(0, 10000, SynchronizationEntryFilter.ALL).entries().size());
+    }
+
+    @Test
+    void entriesAreDroppedWithoutSpillWhenTheStoreKeepsThem() {
+        TestJob job = new TestJob(UUID.randomUUID());
+        job.setRetainedEntries(100);
+        for (int index = 1; index <= 3000; index++) {
+            job.addEntry(entry(index));
+        }
+
+        job.progressSaved(job.takeProgress(List.of()));
+
+        assertEquals(2048, job.getReleasedEntries());
+        assertEquals(null, ReflectionTestUtils.getField(ReflectionTestUtils.getField(job, "entries"), "spillFile"));
+        assertEquals(2049, job.getEntries(0, 10, SynchronizationEntryFilter.ALL).entries().getFirst().sequence());
+    }
+
+    @Test
+    void restoredJobHoldsOnlyTheRetainedTailWithStoredSequenceNumbers() {
+        UUID jobId = UUID.randomUUID();
+        List<SynchronizationResultEntry> stored = new ArrayList<>();
+        for (int index = 1; index <= 5000; index++) {
+            stored.add(entry(index));
+        }
+        SynchronizationSnapshotMetadata metadata = new SynchronizationSnapshotMetadata(
+            jobId, SynchronizationJobStatus.RUNNING, SynchronizationMode.FULL, Instant.now(), null, 5000, 0, 0, 0, 0, null
+        );
+        TestJob job = new TestJob(jobId);
+        job.setRetainedEntries(1000);
+
+        job.restore(new SynchronizationSnapshot(metadata, stored, List.of()), Set.of("Package1"));
+
+        assertEquals(3072, job.getReleasedEntries());
+        List<SynchronizationEntryPage.SequencedEntry> held = job.getEntries(0, 10000, SynchronizationEntryFilter.ALL).entries();
+        assertEquals(1928, held.size());
+        assertEquals(3073, held.getFirst().sequence());
+        assertEquals(entry(3073), held.getFirst().entry());
+        assertEquals(5000, job.getMetadataSnapshot().registeredCount());
+
+        // restored entries are not saved again, new ones continue the stored numbering
+        job.addEntry(entry(5001));
+        SynchronizationJobProgress progress = job.takeProgress(List.of());
+        assertEquals(List.of(entry(5001)), progress.entries());
+        assertEquals(5001, progress.lastEntrySequence());
+    }
+
+    private static SynchronizationResultEntry entry(int index) {
+        return new SynchronizationResultEntry(
+            SyncedObjectType.INTEGRATION_FLOW,
+            "Flow" + (index % 700),
+            SynchronizationActionType.REGISTERED,
+            index,
+            index % 3 == 0,
+            index % 5 == 0 ? null : Instant.ofEpochMilli(1_700_000_000_000L + index)
+        );
+    }
+
+    private static final class TestJob extends AbstractSynchronizationJob {
+
+        private TestJob(UUID id) {
+            super(id);
+        }
+
+        @Override
+        public Set<String> getPackageTechnicalNames() {
+            return null;
+        }
+
+        @Override
+        public SynchronizationMode getRequestedMode() {
+            return null;
+        }
+
+        @Override
+        public SynchronizationJobPriority getPriority() {
+            return SynchronizationJobPriority.NORMAL;
+        }
+
+        @Override
+        public void run() {
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.figaf.training.cpisync.domain;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class SpoolingOutputStreamTest {
+
+    private static final int THRESHOLD = 64 * 1024;
+
+    @Test
+    void contentUpToTheThresholdStaysOnTheHeap() throws IOException {
+        byte[] content = content(THRESHOLD);
+        SpoolingOutputStream output = new SpoolingOutputStream(THRESHOLD);
+
+        output.write(content, 0, content.length);
+
+        assertNull(spoolFile(output));
+        try (PayloadSource source = output.toPayloadSource()) {
+            assertInstanceOf(ByteArrayPayloadSource.class, source);
+            assertEquals(THRESHOLD, source.size());
+            assertEquals(PayloadDigests.sha256Hex(content), source.digest());
+            assertArrayEquals(content, source.toPayloadBytes().toByteArray());
+        }
+    }
+
+    @Test
+    void contentBeyondTheThresholdIsSpooledAndDeletedOnClose() throws IOException {
+        byte[] content = content(THRESHOLD + 1);
+        SpoolingOutputStream output = new SpoolingOutputStream(THRESHOLD);
+
+        output.write(content, 0, THRESHOLD);
+        assertNull(spoolFile(output));
+        output.write(content[THRESHOLD]);
+        Path spoolFile = spoolFile(output);
+        assertNotNull(spoolFile);
+        assertNull(ReflectionTestUtils.getField(output, "memory"), "the heap buffer is released once spooled");
+
+        PayloadSource source = output.toPayloadSource();
+        assertInstanceOf(SpooledFilePayloadSource.class, source);
+        assertEquals(content.length, source.size());
+        assertEquals(PayloadDigests.sha256Hex(content), source.digest());
+        // every stream starts from the beginning
+        for (int read = 0; read < 2; read++) {
+            try (InputStream stream = source.openStream()) {
+                assertArrayEquals(content, stream.readAllBytes());
+            }
+        }
+        assertArrayEquals(content, source.toPayloadBytes().toByteArray());
+
+        source.close();
+        assertFalse(Files.exists(spoolFile));
+    }
+
+    @Test
+    void heapBufferNeverGrowsBeyondTheThreshold() throws IOException {
+        byte[] chunk = content(5000);
+        SpoolingOutputStream output = new SpoolingOutputStream(THRESHOLD);
+        MessageDigest expected = PayloadDigests.newDigest();
+        long size = 0;
+
+        while (size < 4 * 1024 * 1024) {
+            output.write(chunk, 0, chunk.length);
+            expected.update(chunk);
+            size += chunk.length;
+            ByteArrayOutputStream memory = (ByteArrayOutputStream)ReflectionTestUtils.getField(output, "memory");
+            assertTrue(memory == null || memory.size() <= THRESHOLD, "heap buffer holds " + (memory == null ? 0 : memory.size()));
+        }
+
+        try (PayloadSource source = output.toPayloadSource()) {
+            assertEquals(size, source.size());
+            assertEquals(PayloadDigests.toHex(expected), source.digest());
+        }
+    }
+
+    @Test
+    void spoolFileIsDeletedWhenWritingFails() {
+        AtomicReference<Path> spoolFile = new AtomicReference<>();
+
+        UncheckedIOException thrown = assertThrows(UncheckedIOException.class, () -> PayloadSource.spool(output -> {
+            output.write(content(2 * THRESHOLD));
+            spoolFile.set(spoolFile(output));
+            assertTrue(Files.exists(spoolFile.get()));
+            throw new IOException("connection reset");
+        }, THRESHOLD));
+
+        assertEquals("connection reset", thrown.getCause().getMessage());
+        assertFalse(Files.exists(spoolFile.get()));
+    }
+
+    @Test
+    void spoolFileIsDeletedWhenTheWriterThrowsUnchecked() {
+        AtomicReference<Path> spoolFile = new AtomicReference<>();
+
+        assertThrows(IllegalStateException.class, () -> PayloadSource.spool(output -> {
+            output.write(content(2 * THRESHOLD));
+            spoolFile.set(spoolFile(output));
+            throw new IllegalStateException("serialization failed");
+        }, THRESHOLD));
+
+        assertFalse(Files.exists(spoolFile.get()));
+    }
+
+    @Test
+    void discardDeletesTheSpoolFile() throws IOException {
+        SpoolingOutputStream output = new SpoolingOutputStream(THRESHOLD);
+        output.write(content(2 * THRESHOLD));
+        Path spoolFile = spoolFile(output);
+        assertTrue(Files.exists(spoolFile));
+
+        output.discard();
+
+        assertFalse(Files.exists(spoolFile));
+    }
+
+    private static Path spoolFile(OutputStream output) {
+        return (Path)ReflectionTestUtils.getField(output, "spoolFile");
+    }
+
+    private static byte[] content(int length) {
+        byte[] content = new byte[length];
+        new Random(length).nextBytes(content);
+        return content;
+    }
+}
@@ -0,0 +1,116 @@
+package com.figaf.training.cpisync.infrastructure.cpi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long RTT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void limitGrowsAdditivelyWhileItIsUsed() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 64, 0.9, 2.0);
+
+        for (int round = 0; round < 10; round++) {
+            this.runRound(limiter, limiter.getLimit(), AdaptiveConcurrencyLimiter.Outcome.SUCCESS, RTT_NANOS);
+        }
+
+        // at most one per round of limit calls; a per-call increase would have reached the maximum
+        assertTrue(limiter.getLimit() > 4, "limit did not grow: " + limiter.getLimit());
+        assertTrue(limiter.getLimit() <= 14, "limit grew faster than additively: " + limiter.getLimit());
+    }
+
+    @Test
+    void idleLimitDoesNotGrow() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 64, 0.9, 2.0);
+
+        for (int i = 0; i < 100; i++) {
+            this.runRound(limiter, 1, AdaptiveConcurrencyLimiter.Outcome.SUCCESS, RTT_NANOS);
+        }
+
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    void droppedCallShrinksLimitMultiplicatively() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 1, 64, 0.5, 2.0);
+
+        this.runRound(limiter, 1, AdaptiveConcurrencyLimiter.Outcome.DROPPED, RTT_NANOS);
+        assertEquals(10, limiter.getLimit());
+
+        for (int i = 0; i < 10; i++) {
+            this.runRound(limiter, 1, AdaptiveConcurrencyLimiter.Outcome.DROPPED, RTT_NANOS);
+        }
+        assertEquals(1, limiter.getLimit(), "the limit does not drop below the minimum");
+    }
+
+    @Test
+    void latencySpikeShrinksLimit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 64, 0.5, 2.0);
+        this.runRound(limiter, 1, AdaptiveConcurrencyLimiter.Outcome.SUCCESS, RTT_NANOS);
+
+        this.runRound(limiter, 1, AdaptiveConcurrencyLimiter.Outcome.SUCCESS, RTT_NANOS * 3);
+
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void ignoredFailureKeepsLimit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 64, 0.5, 2.0);
+
+        this.runRound(limiter, 4, AdaptiveConcurrencyLimiter.Outcome.IGNORED, RTT_NANOS * 10);
+
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void limitStopsAtMaximum() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 5, 0.9, 2.0);
+
+        for (int round = 0; round < 50; round++) {
+            this.runRound(limiter, limiter.getLimit(), AdaptiveConcurrencyLimiter.Outcome.SUCCESS, RTT_NANOS);
+        }
+
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void callerBeyondLimitWaitsForPermit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 0.9, 2.0);
+        limiter.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiting = Thread.ofVirtual().start(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        limiter.release(AdaptiveConcurrencyLimiter.Outcome.SUCCESS, RTT_NANOS);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        waiting.join();
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    /**
+     * Takes the given number of permits and releases them all with the same outcome.
+     */
+    private void runRound(AdaptiveConcurrencyLimiter limiter, int calls, AdaptiveConcurrencyLimiter.Outcome outcome, long rttNanos)
+        throws InterruptedException {
+        for (int i = 0; i < calls; i++) {
+            limiter.acquire();
+        }
+        for (int i = 0; i < calls; i++) {
+            limiter.release(outcome, rttNanos);
+        }
+    }
+}
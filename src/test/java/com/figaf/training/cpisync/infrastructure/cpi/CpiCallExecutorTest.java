@@ -0,0 +1,147 @@
+package com.figaf.training.cpisync.infrastructure.cpi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+public class CpiCallExecutorTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void transientFailureIsRetriedUntilItSucceeds() {
+        CpiCallExecutor executor = this.executor(4, Duration.ofMillis(1), Duration.ofMillis(10));
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = executor.execute(CpiEndpoint.ARTIFACT_DOWNLOAD, () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw HttpServerErrorException.create(HttpStatus.BAD_GATEWAY, "Bad Gateway", HttpHeaders.EMPTY, null, null);
+            }
+            return "content";
+        });
+
+        assertEquals("content", result);
+        assertEquals(3, calls.get());
+        assertEquals(2.0, this.retries(CpiEndpoint.ARTIFACT_DOWNLOAD));
+    }
+
+    @Test
+    void transientFailureIsThrownAfterMaxAttempts() {
+        CpiCallExecutor executor = this.executor(3, Duration.ofMillis(1), Duration.ofMillis(10));
+        AtomicInteger calls = new AtomicInteger();
+        RuntimeException failure = new ResourceAccessException("connection reset", new IOException("connection reset"));
+
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> executor.execute(CpiEndpoint.PACKAGE_ARTIFACTS, () -> {
+            calls.incrementAndGet();
+            throw failure;
+        }));
+
+        assertSame(failure, thrown);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void clientErrorIsNotRetried() {
+        CpiCallExecutor executor = this.executor(4, Duration.ofMillis(1), Duration.ofMillis(10));
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(HttpClientErrorException.class, () -> executor.execute(CpiEndpoint.INTEGRATION_PACKAGES, () -> {
+            calls.incrementAndGet();
+            throw HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", HttpHeaders.EMPTY, null, null);
+        }));
+
+        assertEquals(1, calls.get());
+        assertEquals(0.0, this.retries(CpiEndpoint.INTEGRATION_PACKAGES));
+    }
+
+    @Test
+    void backoffGrowsExponentiallyUpToMaximum() {
+        CpiCallExecutor executor = this.executor(4, Duration.ofSeconds(10), Duration.ofMillis(50));
+        AtomicInteger calls = new AtomicInteger();
+
+        long startedAt = System.nanoTime();
+        assertThrows(HttpServerErrorException.class, () -> executor.execute(CpiEndpoint.ARTIFACT_DOWNLOAD, () -> {
+            calls.incrementAndGet();
+            throw HttpServerErrorException.create(HttpStatus.INTERNAL_SERVER_ERROR, "Error", HttpHeaders.EMPTY, null, null);
+        }));
+
+        // three waits of at most maxBackoff each, not the ten seconds of the initial backoff
+        assertEquals(4, calls.get());
+        assertTrue(Duration.ofNanos(System.nanoTime() - startedAt).compareTo(Duration.ofSeconds(2)) < 0);
+    }
+
+    @Test
+    void retryAfterReplacesComputedBackoff() {
+        CpiCallExecutor executor = this.executor(2, Duration.ofSeconds(10), Duration.ofSeconds(10));
+        AtomicInteger calls = new AtomicInteger();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "0");
+
+        long startedAt = System.nanoTime();
+        String result = executor.execute(CpiEndpoint.ARTIFACT_DOWNLOAD, () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", headers, null, null);
+            }
+            return "content";
+        });
+
+        assertEquals("content", result);
+        assertTrue(Duration.ofNanos(System.nanoTime() - startedAt).compareTo(Duration.ofSeconds(2)) < 0,
+            "Retry-After 0 must be used instead of a backoff of up to ten seconds");
+    }
+
+    @Test
+    void retryAfterIsCappedAtMaximumBackoff() {
+        CpiCallExecutor executor = this.executor(2, Duration.ofMillis(1), Duration.ofMillis(50));
+        AtomicInteger calls = new AtomicInteger();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "3600");
+
+        long startedAt = System.nanoTime();
+        executor.execute(CpiEndpoint.ARTIFACT_DOWNLOAD, () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Unavailable", headers, null, null);
+            }
+            return "content";
+        });
+
+        assertEquals(2, calls.get());
+        assertTrue(Duration.ofNanos(System.nanoTime() - startedAt).compareTo(Duration.ofSeconds(2)) < 0);
+    }
+
+    @Test
+    void throttledCallShrinksConcurrencyLimit() {
+        CpiCallExecutor executor = this.executor(1, Duration.ofMillis(1), Duration.ofMillis(10));
+
+        assertThrows(HttpClientErrorException.class, () -> executor.execute(CpiEndpoint.PACKAGE_ARTIFACTS, () -> {
+            throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", HttpHeaders.EMPTY, null, null);
+        }));
+
+        assertEquals(5.0, meterRegistry.get("cpisync.cpi.concurrency.limit")
+            .tag("endpoint", CpiEndpoint.PACKAGE_ARTIFACTS.getMetricTag())
+            .gauge()
+            .value());
+    }
+
+    private CpiCallExecutor executor(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+        return new CpiCallExecutor(meterRegistry, 10, 1, 64, 0.5, 2.0, maxAttempts, initialBackoff, maxBackoff);
+    }
+
+    private double retries(CpiEndpoint endpoint) {
+        var counter = meterRegistry.find("cpisync.cpi.retries").tag("endpoint", endpoint.getMetricTag()).counter();
+        return counter == null ? 0.0 : counter.count();
+    }
+}
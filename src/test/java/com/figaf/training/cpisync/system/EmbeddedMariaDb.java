@@ -0,0 +1,53 @@
+package com.figaf.training.cpisync.system;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+/**
+ * MariaDB server started once per test JVM, so the mysql repository is tested against a real database without an
+ * installed server. The schema is created by Liquibase when the application context starts.
+ */
+final class EmbeddedMariaDb {
+
+    private static final String DATABASE = "cpisync";
+
+    private static DB db;
+
+    private EmbeddedMariaDb() {
+    }
+
+    /**
+     * Points the application context at the embedded database and selects the mysql repository.
+     */
+    static void register(DynamicPropertyRegistry registry) {
+        DB started = start();
+        registry.add("app.repository.type", () -> "mysql");
+        registry.add("spring.datasource.url", () -> "jdbc:mysql://localhost:%d/%s?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC&createDatabaseIfNotExist=true&rewriteBatchedStatements=true"
+            .formatted(started.getConfiguration().getPort(), DATABASE));
+        registry.add("spring.datasource.username", () -> "root");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.datasource.driver-class-name", () -> "com.mysql.cj.jdbc.Driver");
+        registry.add("spring.liquibase.enabled", () -> "true");
+        registry.add("spring.liquibase.change-log", () -> "classpath:db/changelog/db.changelog-master.xml");
+    }
+
+    private static synchronized DB start() {
+        if (db == null) {
+            try {
+                DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder().setPort(0);
+                if ("root".equals(System.getProperty("user.name"))) {
+                    // mariadbd refuses to run as root unless told to
+                    config.addArg("--user=root");
+                }
+                DB created = DB.newEmbeddedDB(config.build());
+                created.start();
+                db = created;
+            } catch (ManagedProcessException ex) {
+                throw new IllegalStateException("Failed to start the embedded MariaDB server", ex);
+            }
+        }
+        return db;
+    }
+}
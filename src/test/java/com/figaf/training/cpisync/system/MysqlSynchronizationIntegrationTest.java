@@ -0,0 +1,787 @@
+package com.figaf.training.cpisync.system;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.figaf.integration.cpi.client.CpiRuntimeArtifactClient;
+import com.figaf.integration.cpi.client.IntegrationPackageClient;
+import com.figaf.integration.cpi.entity.designtime_artifacts.CpiArtifact;
+import com.figaf.integration.cpi.entity.designtime_artifacts.CpiArtifactType;
+import com.figaf.integration.cpi.entity.designtime_artifacts.IntegrationPackage;
+import com.figaf.training.cpisync.application.dto.SyncedObjectVersionPayload;
+import com.figaf.training.cpisync.application.dto.SynchronizationActionType;
+import com.figaf.training.cpisync.application.dto.SynchronizationFailureEntry;
+import com.figaf.training.cpisync.application.dto.SynchronizationResultEntry;
+import com.figaf.training.cpisync.application.service.SyncedObjectsService;
+import com.figaf.training.cpisync.application.service.synchronization.SynchronizationJobFactory;
+import com.figaf.training.cpisync.application.service.synchronization.SynchronizationJobRecovery;
+import com.figaf.training.cpisync.application.service.synchronization.SynchronizationJobScheduler;
+import com.figaf.training.cpisync.application.service.synchronization.SynchronizationService;
+import com.figaf.training.cpisync.application.service.synchronization.SynchronizationShardCoordinator;
+import com.figaf.training.cpisync.application.service.synchronization.model.AbstractSynchronizationJob;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationEntryFilter;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationEntryPage;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobProgress;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobStatus;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationMode;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationSnapshot;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationSnapshotMetadata;
+import com.figaf.training.cpisync.domain.ClusterCoordinator;
+import com.figaf.training.cpisync.domain.LatestVersionCursor;
+import com.figaf.training.cpisync.domain.LatestVersionQuery;
+import com.figaf.training.cpisync.domain.PayloadSource;
+import com.figaf.training.cpisync.domain.RepositoryService;
+import com.figaf.training.cpisync.domain.SyncedObjectHistory;
+import com.figaf.training.cpisync.domain.SyncedObjectState;
+import com.figaf.training.cpisync.domain.SyncedObjectType;
+import com.figaf.training.cpisync.domain.SyncedObjectVersion;
+import com.figaf.training.cpisync.domain.SynchronizationJobStore;
+import com.figaf.training.cpisync.infrastructure.database.MysqlClusterCoordinator;
+import com.figaf.training.cpisync.infrastructure.database.MysqlLatestVersionReader;
+import com.figaf.training.cpisync.infrastructure.database.PayloadStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs synchronizations against the mysql repository on an {@link EmbeddedMariaDb}.
+ */
+@SpringBootTest(properties = "spring.config.location=classpath:/application-test.yml")
+@Tag("integration")
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@Import(MysqlSynchronizationIntegrationTest.TestOverrides.class)
+public class MysqlSynchronizationIntegrationTest {
+
+    private static final Date MODIFIED = Date.from(Instant.parse("2025-01-18T12:00:00Z"));
+    private static final Date MODIFIED_LATER = Date.from(Instant.parse("2025-01-19T12:00:00Z"));
+
+    @Autowired
+    private SynchronizationJobFactory jobFactory;
+
+    @Autowired
+    private SyncedObjectsService syncedObjectsService;
+
+    @Autowired
+    private RepositoryService repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SynchronizationJobStore jobStore;
+
+    @Autowired
+    private SynchronizationJobRecovery recovery;
+
+    @Autowired
+    private SynchronizationJobScheduler scheduler;
+
+    @Autowired
+    private ClusterCoordinator cluster;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SynchronizationService synchronizationService;
+
+    @Autowired
+    private SynchronizationShardCoordinator shardCoordinator;
+
+    @Autowired
+    private MysqlLatestVersionReader latestVersionReader;
+
+    @Autowired
+    private PayloadStore payloadStore;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    //MOCKS ---------------------------------
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IntegrationPackageClient integrationPackageClient;
+
+    @Autowired
+    private CpiRuntimeArtifactClient cpiRuntimeArtifactClient;
+    //---------------------------------------
+
+    @DynamicPropertySource
+    static void mysqlRepository(DynamicPropertyRegistry registry) {
+        EmbeddedMariaDb.register(registry);
+    }
+
+    @BeforeEach
+    void resetState() {
+        reset(integrationPackageClient, cpiRuntimeArtifactClient);
+        syncedObjectsService.clearAll();
+    }
+
+    @Test
+    void versionThatCannotBeWrittenFailsItsObjectAndPackage() {
+        IntegrationPackage pkg = createPackage("pkg1", "1.0.0", MODIFIED);
+        CpiArtifact flow = createFlow(pkg, "flow1", "1.0.0", MODIFIED);
+        when(integrationPackageClient.getIntegrationPackages(any(), any())).thenReturn(List.of(pkg));
+        when(cpiRuntimeArtifactClient.getArtifactsByPackage(any(), eq("pkg1"), any(), any(), eq(CpiArtifactType.IFLOW)))
+            .thenReturn(List.of(flow));
+        when(cpiRuntimeArtifactClient.downloadArtifact(any(), any(), eq("flow1-id")))
+            .thenReturn("first".getBytes(StandardCharsets.UTF_8));
+        assertEquals(SynchronizationJobStatus.COMPLETED, runJob().metadata().status());
+
+        pkg.setVersion("1.0.1");
+        pkg.setModificationDate(MODIFIED_LATER);
+        flow.setVersion("1.0.1");
+        flow.setModificationDate(MODIFIED_LATER);
+        when(cpiRuntimeArtifactClient.downloadArtifact(any(), any(), eq("flow1-id"))).thenAnswer(invocation -> {
+            // another writer takes the version number the buffered append is going to use
+            Long historyId = jdbcTemplate.queryForObject(
+                "SELECT id FROM synced_object_history WHERE technical_name = 'flow1' AND object_type = 'INTEGRATION_FLOW'",
+                Long.class
+            );
+            jdbcTemplate.update("INSERT INTO synced_object_version (history_id, version_number, deleted) VALUES (?, 2, FALSE)", historyId);
+            return "second".getBytes(StandardCharsets.UTF_8);
+        });
+
+        SynchronizationSnapshot snapshot = runJob();
+
+        assertEquals(SynchronizationJobStatus.COMPLETED_WITH_ERRORS, snapshot.metadata().status());
+        assertEquals(1, snapshot.metadata().failedCount());
+        SynchronizationFailureEntry failure = snapshot.failures().getFirst();
+        assertEquals(SyncedObjectType.INTEGRATION_FLOW, failure.type());
+        assertEquals("flow1", failure.technicalName());
+        assertEquals("pkg1", failure.packageTechnicalName());
+        assertEquals(0, snapshot.metadata().deletedCount());
+        SyncedObjectState packageState = latestState(SyncedObjectType.INTEGRATION_PACKAGE, "pkg1");
+        assertEquals(2, packageState.versionNumber());
+        assertFalse(packageState.childrenSynchronized(), "a package with a failed flow must be listed again");
+        this.assertPayloadReferencesMatchVersions();
+    }
+
+    @Test
+    void unchangedContentTouchesStoredMetadata() {
+        IntegrationPackage pkg = createPackage("pkg1", "1.0.0", MODIFIED);
+        CpiArtifact flow = createFlow(pkg, "flow1", "1.0.0", MODIFIED);
+        flow.setDisplayedName("Flow 1");
+        flow.setCreatedBy("creator");
+        when(integrationPackageClient.getIntegrationPackages(any(), any())).thenReturn(List.of(pkg));
+        when(cpiRuntimeArtifactClient.getArtifactsByPackage(any(), eq("pkg1"), any(), any(), eq(CpiArtifactType.IFLOW)))
+            .thenReturn(List.of(flow));
+        when(cpiRuntimeArtifactClient.downloadArtifact(any(), any(), eq("flow1-id")))
+            .thenAnswer(invocation -> "same".getBytes(StandardCharsets.UTF_8));
+        runJob();
+
+        flow.setVersion("1.0.1");
+        flow.setModificationDate(MODIFIED_LATER);
+        flow.setDisplayedName("Flow 1 renamed");
+        flow.setCreatedBy("importer");
+        flow.setModifiedBy("editor");
+        SynchronizationSnapshot snapshot = runJob();
+
+        // changeDetection is CONTENT in application-test.yml, the same bytes do not make a new version
+        assertTrue(snapshot.entries().stream().anyMatch(entry -> entry.technicalName().equals("flow1")
+            && entry.action() == SynchronizationActionType.METADATA_TOUCHED));
+        Map<String, Object> stored = jdbcTemplate.queryForMap(
+            """
+                SELECT v.version_number, v.remote_version, v.display_name, v.created_by, v.modified_by, v.metadata_touched_at
+                FROM synced_object_version v JOIN synced_object_history h ON h.id = v.history_id
+                WHERE h.technical_name = 'flow1' AND v.valid_to IS NULL
+                """
+        );
+        assertEquals(1, ((Number)stored.get("version_number")).intValue());
+        assertEquals("1.0.1", stored.get("remote_version"));
+        assertEquals("Flow 1 renamed", stored.get("display_name"));
+        assertEquals("importer", stored.get("created_by"));
+        assertEquals("editor", stored.get("modified_by"));
+        assertNotNull(stored.get("metadata_touched_at"));
+    }
+
+    @Test
+    void recoveryResumesOnlyJobsOfStoppedNodes() throws Exception {
+        when(integrationPackageClient.getIntegrationPackages(any(), any())).thenReturn(List.of());
+        UUID liveNodeJob = UUID.randomUUID();
+        UUID stoppedNodeJob = UUID.randomUUID();
+        jobStore.create(liveNodeJob, null, null);
+        jobStore.create(stoppedNodeJob, null, null);
+        jdbcTemplate.update(
+            "INSERT INTO synchronization_node (node_id, started_at, heartbeat_at) VALUES ('live-node', NOW(3), NOW(3))");
+        jdbcTemplate.update("UPDATE synchronization_job SET owner_node_id = 'live-node' WHERE id = ?", liveNodeJob.toString());
+        jdbcTemplate.update("UPDATE synchronization_job SET owner_node_id = 'stopped-node' WHERE id = ?", stoppedNodeJob.toString());
+
+        try {
+            recovery.recoverJobs();
+            assertEquals(stoppedNodeJob, scheduler.getMetadata(stoppedNodeJob).orElseThrow().jobId());
+            while (scheduler.hasRunningJobs()) {
+                Thread.sleep(50);
+            }
+
+            assertEquals(cluster.getNodeId(), this.jobOwner(stoppedNodeJob));
+            assertEquals(SynchronizationJobStatus.COMPLETED, scheduler.getMetadata(stoppedNodeJob).orElseThrow().status());
+            assertEquals("live-node", this.jobOwner(liveNodeJob));
+            assertTrue(scheduler.getMetadata(liveNodeJob).isEmpty(), "a job of a live node must not be resumed");
+            assertFalse(jobStore.claim(liveNodeJob, "stopped-node"), "a job is claimed from the owner it was read with only");
+        } finally {
+            jdbcTemplate.update("DELETE FROM synchronization_node WHERE node_id = 'live-node'");
+            scheduler.clearAll();
+        }
+    }
+
+    @Test
+    void spooledPayloadIsStreamedIntoThePayloadTableOnce() throws Exception {
+        byte[] content = new byte[2 * 1024 * 1024];
+        new Random(7).nextBytes(content);
+
+        try (PayloadSource payload = PayloadSource.spool(new ByteArrayInputStream(content), 64 * 1024)) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> payloadStore.retain(payload));
+                transactionTemplate.executeWithoutResult(status -> payloadStore.retain(payload));
+
+                Map<String, Object> row = jdbcTemplate.queryForMap(
+                    "SELECT payload, payload_size, reference_count FROM synced_object_payload WHERE digest = ?", payload.digest());
+                assertArrayEquals(content, (byte[])row.get("payload"));
+                assertEquals((long)content.length, ((Number)row.get("payload_size")).longValue());
+                assertEquals(2, ((Number)row.get("reference_count")).intValue(), "the second retain only counts a reference");
+            } finally {
+                transactionTemplate.executeWithoutResult(status -> {
+                    payloadStore.release(payload.digest());
+                    payloadStore.release(payload.digest());
+                });
+            }
+            assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM synced_object_payload WHERE digest = ?", Integer.class, payload.digest()));
+        }
+    }
+
+    @Test
+    void scheduleSkipsWhileItsLastJobIsUnfinishedOnAnyNode() {
+        UUID jobId = UUID.randomUUID();
+        jobStore.create(jobId, null, null);
+        jdbcTemplate.update("UPDATE synchronization_job SET owner_node_id = 'remote-node' WHERE id = ?", jobId.toString());
+        Instant firedAt = Instant.parse("2026-01-01T02:00:00Z");
+
+        try {
+            assertFalse(jobStore.isLastScheduledJobUnfinished("nightly"));
+            jobStore.saveScheduledRun("nightly", firedAt, jobId);
+            assertTrue(jobStore.isLastScheduledJobUnfinished("nightly"), "a queued job of another node is unfinished");
+
+            // a skipped fire time keeps the job it was skipped for
+            jobStore.saveScheduledRun("nightly", firedAt.plus(1, ChronoUnit.DAYS), null);
+            assertEquals(firedAt.plus(1, ChronoUnit.DAYS), jobStore.findLastScheduledRun("nightly").orElseThrow());
+            assertTrue(jobStore.isLastScheduledJobUnfinished("nightly"));
+
+            jdbcTemplate.update("UPDATE synchronization_job SET status = 'COMPLETED' WHERE id = ?", jobId.toString());
+            assertFalse(jobStore.isLastScheduledJobUnfinished("nightly"));
+            assertFalse(jobStore.isLastScheduledJobUnfinished("weekly"));
+        } finally {
+            jdbcTemplate.update("DELETE FROM synchronization_schedule_run WHERE schedule_name = 'nightly'");
+            jobStore.deleteAll();
+        }
+    }
+
+    @Test
+    void latestVersionsAreCachedUntilAnotherNodeChangesThem() {
+        IntegrationPackage pkg = createPackage("pkg1", "1.0.0", MODIFIED);
+        when(integrationPackageClient.getIntegrationPackages(any(), any())).thenReturn(List.of(pkg));
+        runJob();
+        this.latestVersion("pkg1");
+
+        // appends of this node are written through to the cache
+        pkg.setVersion("1.0.1");
+        pkg.setModificationDate(MODIFIED_LATER);
+        runJob();
+        double misses = this.cacheReads("miss");
+        double hits = this.cacheReads("hit");
+        assertEquals("1.0.1", this.latestVersion("pkg1").getRemoteVersion().orElseThrow());
+        assertEquals(misses, this.cacheReads("miss"));
+        assertEquals(hits + 1, this.cacheReads("hit"));
+
+        // a change that does not move the counter is not seen, one that does drops the cache
+        jdbcTemplate.update(
+            """
+                UPDATE synced_object_version v JOIN synced_object_history h ON h.id = v.history_id
+                SET v.display_name = 'Renamed elsewhere'
+                WHERE h.technical_name = 'pkg1' AND v.valid_to IS NULL
+                """
+        );
+        assertTrue(this.latestVersion("pkg1").getDisplayName().isEmpty());
+        jdbcTemplate.update("UPDATE synced_object_version_counter SET version = version + 1 WHERE name = 'latest-versions'");
+
+        assertEquals("Renamed elsewhere", this.latestVersion("pkg1").getDisplayName().orElseThrow());
+        assertEquals(misses + 1, this.cacheReads("miss"));
+    }
+
+    @Test
+    void versionsOfAnAbortedRunAreWritten() {
+        IntegrationPackage pkg = createPackage("pkg1", "1.0.0", MODIFIED);
+        when(integrationPackageClient.getIntegrationPackages(any(), any())).thenReturn(List.of(pkg));
+        when(cpiRuntimeArtifactClient.getArtifactsByPackage(any(), eq("pkg1"), any(), any(), eq(CpiArtifactType.IFLOW)))
+            .thenReturn(List.of(createFlow(pkg, "flow1", "1.0.0", MODIFIED), createFlow(pkg, "flow2", "1.0.0", MODIFIED)));
+        when(cpiRuntimeArtifactClient.downloadArtifact(any(), any(), eq("flow1-id")))
+            .thenReturn("flow1".getBytes(StandardCharsets.UTF_8));
+        when(cpiRuntimeArtifactClient.downloadArtifact(any(), any(), eq("flow2-id")))
+            .thenThrow(new IllegalStateException("Download timed out"));
+        ReflectionTestUtils.setField(synchronizationService, "failureBudget", 0);
+        try {
+            assertThrows(IllegalStateException.class, jobFactory.createDefaultJob()::run);
+        } finally {
+            ReflectionTestUtils.setField(synchronizationService, "failureBudget", 50);
+        }
+
+        // far fewer than writeBatchSize, so only the flush of the aborted run writes them right away
+        assertEquals(2L, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM synced_object_version", Long.class));
+        this.assertPayloadReferencesMatchVersions();
+    }
+
+    @Test
+    void partialBatchIsWrittenAfterMaxDelay() throws Exception {
+        repository.appendVersionIfNecessary("pkg1", SyncedObjectType.INTEGRATION_PACKAGE, MODIFIED.toInstant(), "1.0.0",
+            () -> SyncedObjectVersionPayload.builder()
+                .modificationDate(MODIFIED.toInstant())
+                .remoteVersion("1.0.0")
+                .payload("pkg1".getBytes(StandardCharsets.UTF_8))
+                .build());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        long stored = 0;
+        while (stored == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            stored = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM synced_object_version", Long.class);
+        }
+        assertEquals(1L, stored, "a partial batch must not wait for a flush");
+    }
+
+    @Test
+    void entryPagesContinueAcrossSavesOfTheJob() {
+        UUID jobId = UUID.randomUUID();
+        UUID otherJobId = UUID.randomUUID();
+        jobStore.create(jobId, null, null);
+        jobStore.create(otherJobId, null, null);
+        try {
+            this.saveEntries(jobId, 3, entry("pkg1", SyncedObjectType.INTEGRATION_PACKAGE), entry("flow1", SyncedObjectType.INTEGRATION_FLOW),
+                entry("flow2", SyncedObjectType.INTEGRATION_FLOW));
+            this.saveEntries(otherJobId, 1, entry("other", SyncedObjectType.INTEGRATION_FLOW));
+            this.saveEntries(jobId, 5, entry("pkg2", SyncedObjectType.INTEGRATION_PACKAGE), entry("flow3", SyncedObjectType.INTEGRATION_FLOW));
+
+            SynchronizationEntryPage first = jobStore.findEntries(jobId, 0, 2, SynchronizationEntryFilter.ALL);
+            assertEquals(List.of(1L, 2L), first.entries().stream().map(SynchronizationEntryPage.SequencedEntry::sequence).toList());
+            assertTrue(first.hasMore());
+            SynchronizationEntryPage second = jobStore.findEntries(jobId, first.nextAfter(), 2, SynchronizationEntryFilter.ALL);
+            assertEquals(List.of("flow2", "pkg2"), second.entries().stream().map(entry -> entry.entry().technicalName()).toList());
+            assertEquals(List.of(3L, 4L), second.entries().stream().map(SynchronizationEntryPage.SequencedEntry::sequence).toList());
+
+            SynchronizationEntryPage flows = jobStore.findEntries(
+                jobId, 2, 10, new SynchronizationEntryFilter(null, SyncedObjectType.INTEGRATION_FLOW));
+            assertEquals(List.of(3L, 5L), flows.entries().stream().map(SynchronizationEntryPage.SequencedEntry::sequence).toList());
+            assertFalse(flows.hasMore());
+            assertEquals(5, jobStore.findSnapshot(jobId).orElseThrow().entries().size());
+        } finally {
+            jobStore.deleteAll();
+        }
+    }
+
+    @Test
+    void progressStreamOfAJobOfAnEarlierProcessIsReadFromTheStore() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        jobStore.create(jobId, null, null);
+        try {
+            this.saveEntries(jobId, 3, entry("pkg1", SyncedObjectType.INTEGRATION_PACKAGE), entry("flow1", SyncedObjectType.INTEGRATION_FLOW),
+                entry("flow2", SyncedObjectType.INTEGRATION_FLOW));
+            SynchronizationSnapshotMetadata finished = new SynchronizationSnapshotMetadata(
+                jobId, SynchronizationJobStatus.COMPLETED, SynchronizationMode.FULL, Instant.now(), Instant.now(), 3, 0, 0, 0, 0, null);
+            jobStore.save(new SynchronizationJobProgress(finished, List.of(), List.of(), 3, List.of()));
+            scheduler.restoreHistory(List.of(finished));
+
+            MvcResult result = mockMvc.perform(get("/synchronizations/" + jobId + "/events").header("Last-Event-ID", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            result.getAsyncResult(TimeUnit.SECONDS.toMillis(30));
+            String events = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+            assertEquals(List.of("id:2", "id:3"), events.lines().filter(line -> line.startsWith("id:")).toList());
+            assertTrue(events.contains("\"technicalName\":\"flow2\""), events);
+            assertTrue(events.contains("event:completed"), events);
+        } finally {
+            scheduler.clearAll();
+        }
+    }
+
+    @Test
+    void latestObjectsArePagedAcrossEqualSynchronizationTimes() throws Exception {
+        IntegrationPackage pkg1 = createPackage("pkg1", "1.0.0", MODIFIED);
+        IntegrationPackage pkg2 = createPackage("pkg2", "1.0.0", MODIFIED);
+        when(integrationPackageClient.getIntegrationPackages(any(), any())).thenReturn(List.of(pkg1, pkg2));
+        CpiArtifact flow1 = createFlow(pkg1, "flow1", "1.0.0", MODIFIED);
+        CpiArtifact flow2 = createFlow(pkg1, "flow2", "1.0.0", MODIFIED_LATER);
+        CpiArtifact flow3 = createFlow(pkg1, "flow3", "1.0.0", MODIFIED);
+        CpiArtifact flow4 = createFlow(pkg2, "flow4", "1.0.0", MODIFIED_LATER);
+        this.listFlows(pkg1, flow1, flow2, flow3);
+        this.listFlows(pkg2, flow4);
+        runJob();
+        // flow3 is removed in CPI
+        this.listFlows(pkg1, flow1, flow2);
+        runJob();
+
+        // every flow synchronized at the same time; the counter moves as if another node stored them, so the full read
+        // reloads the cache
+        jdbcTemplate.update(
+            """
+                UPDATE synced_object_version v JOIN synced_object_history h ON h.id = v.history_id
+                SET v.synchronized_at = ?
+                WHERE h.object_type = 'INTEGRATION_FLOW' AND v.valid_to IS NULL
+                """,
+            Timestamp.valueOf("2025-01-20 12:00:00")
+        );
+        jdbcTemplate.update("UPDATE synced_object_version_counter SET version = version + 1 WHERE name = 'latest-versions'");
+        assertEquals(4, repository.findAllByType(SyncedObjectType.INTEGRATION_FLOW).size());
+
+        // ties are ordered by history id, the object stored last first
+        List<String> all = jdbcTemplate.queryForList(
+            "SELECT technical_name FROM synced_object_history WHERE object_type = 'INTEGRATION_FLOW' ORDER BY id DESC", String.class);
+        assertEquals(4, all.size());
+        assertEquals(all, this.readLatestFlows(null, null, null));
+        assertEquals(all, this.latestObjectNames("type", "INTEGRATION_FLOW", "limit", "1"));
+
+        List<String> ofPkg1 = all.stream().filter(name -> !name.equals("flow4")).toList();
+        assertEquals(ofPkg1, this.readLatestFlows("pkg1", null, null));
+        assertEquals(ofPkg1, this.latestObjectNames("type", "INTEGRATION_FLOW", "parent", "pkg1", "limit", "2"));
+        assertEquals(List.of("flow3"), this.readLatestFlows(null, true, null));
+        assertEquals(List.of("flow3"), this.latestObjectNames("type", "INTEGRATION_FLOW", "deleted", "true", "limit", "1"));
+        List<String> presentOfPkg1 = ofPkg1.stream().filter(name -> !name.equals("flow3")).toList();
+        assertEquals(presentOfPkg1, this.readLatestFlows("pkg1", false, null));
+        assertEquals(presentOfPkg1, this.latestObjectNames("type", "INTEGRATION_FLOW", "parent", "pkg1", "deleted", "false", "limit", "1"));
+        List<String> modifiedLater = all.stream().filter(name -> name.equals("flow2") || name.equals("flow4")).toList();
+        assertEquals(modifiedLater, this.readLatestFlows(null, null, MODIFIED_LATER.toInstant()));
+        assertEquals(modifiedLater,
+            this.latestObjectNames("type", "INTEGRATION_FLOW", "modifiedSince", MODIFIED_LATER.toInstant().toString(), "limit", "1"));
+    }
+
+    @Test
+    void latestObjectsCursorOfAnotherRepositoryIsRejected() throws Exception {
+        // the in-memory repository breaks ties by technical name
+        String nameTieBreaker = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString("1737374400000:flow1".getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(get("/synchronizations/latest-objects").param("type", "INTEGRATION_FLOW").param("cursor", nameTieBreaker))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/synchronizations/latest-objects").param("type", "INTEGRATION_FLOW").param("cursor", "not a cursor"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void leaderLeaseIsTakenOverOnlyOnceReleasedOrExpired() {
+        MysqlClusterCoordinator standby = new MysqlClusterCoordinator(jdbcTemplate, "standby-node", Duration.ofHours(1), Duration.ofHours(1));
+        try {
+            standby.start();
+            assertFalse(standby.isLeader(), "the lease of the running node has not expired");
+            assertTrue(cluster.getLiveNodes().containsAll(List.of(cluster.getNodeId(), "standby-node")));
+
+            this.takeLeaderLease(standby);
+            heartbeat(cluster);
+            assertFalse(cluster.isLeader(), "a valid lease must not be taken over");
+
+            // a node that stops releases the lease right away
+            standby.stop();
+            heartbeat(cluster);
+            assertTrue(cluster.isLeader());
+            assertFalse(cluster.getLiveNodes().contains("standby-node"));
+        } finally {
+            standby.stop();
+            heartbeat(cluster);
+        }
+    }
+
+    @Test
+    void leaderStepsDownWhenItCannotRenewTheLeaseInTime() throws Exception {
+        MysqlClusterCoordinator lapsing = new MysqlClusterCoordinator(jdbcTemplate, "lapsing-node", Duration.ofHours(1), Duration.ofMillis(500));
+        try {
+            this.takeLeaderLease(lapsing);
+
+            // no heartbeat renews the lease; the node gives it up by its own clock, before the database lets others take it
+            Thread.sleep(600);
+            assertFalse(lapsing.isLeader());
+        } finally {
+            lapsing.stop();
+            heartbeat(cluster);
+        }
+    }
+
+    @Test
+    void failedShardFailsItsPackagesInTheCoordinatingRun() throws Exception {
+        ShardedJob sharded = this.runShardedJob(runId -> jdbcTemplate.update(
+            "UPDATE synchronization_shard SET status = 'FAILED', message = 'disk full' WHERE run_id = ? AND node_id = 'remote-node'",
+            runId
+        ));
+
+        assertEquals(SynchronizationJobStatus.COMPLETED_WITH_ERRORS, sharded.snapshot().metadata().status());
+        assertTrue(sharded.snapshot().failures().stream()
+                .anyMatch(failure -> failure.message().endsWith("on node remote-node failed: disk full")),
+            sharded.snapshot().failures().toString());
+        this.assertShardNotSynchronizedLocally(sharded);
+    }
+
+    @Test
+    void shardOfAStoppedNodeFailsItsPackagesInTheCoordinatingRun() throws Exception {
+        ShardedJob sharded = this.runShardedJob(runId -> jdbcTemplate.update("DELETE FROM synchronization_node WHERE node_id = 'remote-node'"));
+
+        assertEquals(SynchronizationJobStatus.COMPLETED_WITH_ERRORS, sharded.snapshot().metadata().status());
+        assertTrue(sharded.snapshot().failures().stream()
+                .anyMatch(failure -> failure.message().endsWith("on node remote-node failed: the node stopped")),
+            sharded.snapshot().failures().toString());
+        this.assertShardNotSynchronizedLocally(sharded);
+    }
+
+    private void assertPayloadReferencesMatchVersions() {
+        List<String> mismatched = jdbcTemplate.queryForList(
+            """
+                SELECT p.digest FROM synced_object_payload p
+                WHERE p.reference_count <> (SELECT COUNT(*) FROM synced_object_version v WHERE v.payload_digest = p.digest)
+                """,
+            String.class
+        );
+        assertEquals(List.of(), mismatched, "payloads whose reference count differs from the versions referencing them");
+    }
+
+    private void listFlows(IntegrationPackage pkg, CpiArtifact... flows) {
+        when(cpiRuntimeArtifactClient.getArtifactsByPackage(any(), eq(pkg.getTechnicalName()), any(), any(), eq(CpiArtifactType.IFLOW)))
+            .thenReturn(List.of(flows));
+    }
+
+    /**
+     * Reads the latest flows through the reader, without the cache, two at a time.
+     */
+    private List<String> readLatestFlows(String parentTechnicalName, Boolean deleted, Instant modifiedSince) {
+        List<String> names = new ArrayList<>();
+        LatestVersionCursor after = null;
+        do {
+            LatestVersionQuery query = new LatestVersionQuery(
+                SyncedObjectType.INTEGRATION_FLOW, parentTechnicalName, deleted, modifiedSince, after, 2);
+            after = latestVersionReader.forEachLatestVersion(query, (technicalName, version) -> names.add(technicalName)).orElse(null);
+        } while (after != null);
+        return names;
+    }
+
+    /**
+     * Follows the cursors of the latest objects endpoint to the last page.
+     *
+     * @param params names and values of the query parameters
+     */
+    private List<String> latestObjectNames(String... params) throws Exception {
+        List<String> names = new ArrayList<>();
+        String cursor = null;
+        do {
+            MockHttpServletRequestBuilder page = get("/synchronizations/latest-objects");
+            for (int i = 0; i < params.length; i += 2) {
+                page.param(params[i], params[i + 1]);
+            }
+            if (cursor != null) {
+                page.param("cursor", cursor);
+            }
+            MvcResult result = mockMvc.perform(page).andExpect(request().asyncStarted()).andReturn();
+            result.getAsyncResult(TimeUnit.SECONDS.toMillis(30));
+            JsonNode body = objectMapper.readTree(result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+            body.get("objects").forEach(object -> names.add(object.get("technicalName").asText()));
+            cursor = body.get("nextCursor").textValue();
+        } while (cursor != null);
+        return names;
+    }
+
+    /**
+     * Expires the lease as if its holder stopped renewing it and lets the node take it over. The background heartbeat
+     * of the running node may renew it first, so this is attempted a few times.
+     */
+    private void takeLeaderLease(MysqlClusterCoordinator node) {
+        for (int attempt = 0; attempt < 5 && !node.isLeader(); attempt++) {
+            jdbcTemplate.update("UPDATE synchronization_lease SET expires_at = TIMESTAMPADD(SECOND, -1, NOW(3)) WHERE name = 'leader'");
+            heartbeat(node);
+        }
+        assertTrue(node.isLeader());
+    }
+
+    private static void heartbeat(ClusterCoordinator node) {
+        ReflectionTestUtils.invokeMethod(node, "heartbeat");
+    }
+
+    /**
+     * Runs a tenant-wide job sharded with a live {@code remote-node}, which does not synchronize its shard; the
+     * action plays its part once the shard is assigned.
+     *
+     * @param remoteNode receives the id of the run
+     */
+    private ShardedJob runShardedJob(Consumer<String> remoteNode) throws Exception {
+        List<IntegrationPackage> packages = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            packages.add(createPackage("pkg" + i, "1.0.0", MODIFIED));
+        }
+        when(integrationPackageClient.getIntegrationPackages(any(), any())).thenReturn(packages);
+        jdbcTemplate.update("INSERT INTO synchronization_node (node_id, started_at, heartbeat_at) VALUES ('remote-node', NOW(3), NOW(3))");
+        ReflectionTestUtils.setField(shardCoordinator, "enabled", true);
+        ReflectionTestUtils.setField(shardCoordinator, "minPackages", 1);
+        ReflectionTestUtils.setField(shardCoordinator, "pollInterval", Duration.ofMillis(50));
+        try {
+            AbstractSynchronizationJob job = jobFactory.createDefaultJob();
+            CompletableFuture<Void> run = CompletableFuture.runAsync(job::run);
+            Map<String, Object> shard = null;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (shard == null && System.nanoTime() < deadline) {
+                shard = jdbcTemplate.queryForList("SELECT run_id, package_filter FROM synchronization_shard WHERE node_id = 'remote-node'")
+                    .stream().findFirst().orElse(null);
+                Thread.sleep(20);
+            }
+            assertNotNull(shard, "no shard was assigned to remote-node");
+            String runId = (String)shard.get("run_id");
+            remoteNode.accept(runId);
+            run.get(30, TimeUnit.SECONDS);
+
+            assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM synchronization_shard WHERE run_id = ?", Integer.class, runId),
+                "the shards are removed once the run no longer waits for them");
+            return new ShardedJob(job.getFullSnapshot(), Set.of(((String)shard.get("package_filter")).split("\n")));
+        } finally {
+            ReflectionTestUtils.setField(shardCoordinator, "enabled", false);
+            ReflectionTestUtils.setField(shardCoordinator, "minPackages", 100);
+            ReflectionTestUtils.setField(shardCoordinator, "pollInterval", Duration.ofSeconds(5));
+            jdbcTemplate.update("DELETE FROM synchronization_node WHERE node_id = 'remote-node'");
+        }
+    }
+
+    private void assertShardNotSynchronizedLocally(ShardedJob sharded) {
+        Set<String> stored = repository.findAllByType(SyncedObjectType.INTEGRATION_PACKAGE).stream()
+            .map(SyncedObjectHistory::getTechnicalName)
+            .collect(Collectors.toSet());
+        assertEquals(40, stored.size() + sharded.remotePackages().size(), "the coordinating node synchronizes every other package");
+        assertTrue(sharded.remotePackages().stream().noneMatch(stored::contains));
+    }
+
+    private String jobOwner(UUID jobId) {
+        return jdbcTemplate.queryForObject("SELECT owner_node_id FROM synchronization_job WHERE id = ?", String.class, jobId.toString());
+    }
+
+    private SynchronizationSnapshot runJob() {
+        AbstractSynchronizationJob job = jobFactory.createDefaultJob();
+        job.run();
+        return job.getFullSnapshot();
+    }
+
+    private SyncedObjectState latestState(SyncedObjectType type, String technicalName) {
+        return repository.findAllLatestStates().stream()
+            .filter(state -> state.type() == type && state.technicalName().equals(technicalName))
+            .findFirst()
+            .orElseThrow();
+    }
+
+    private SyncedObjectVersion latestVersion(String packageTechnicalName) {
+        return repository.findAllByType(SyncedObjectType.INTEGRATION_PACKAGE).stream()
+            .filter(history -> history.getTechnicalName().equals(packageTechnicalName))
+            .findFirst()
+            .flatMap(SyncedObjectHistory::getLatestVersion)
+            .orElseThrow();
+    }
+
+    private double cacheReads(String result) {
+        return meterRegistry.get("cpisync.repository.latest.cache").tag("result", result).counter().count();
+    }
+
+    /**
+     * Saves the entries as the progress of a running job whose last entry has the given sequence number.
+     */
+    private void saveEntries(UUID jobId, long lastEntrySequence, SynchronizationResultEntry... entries) {
+        SynchronizationSnapshotMetadata metadata = new SynchronizationSnapshotMetadata(
+            jobId, SynchronizationJobStatus.RUNNING, SynchronizationMode.FULL, Instant.now(), null, entries.length, 0, 0, 0, 0, null);
+        jobStore.save(new SynchronizationJobProgress(metadata, List.of(), List.of(entries), lastEntrySequence, List.of()));
+    }
+
+    private static SynchronizationResultEntry entry(String technicalName, SyncedObjectType type) {
+        return new SynchronizationResultEntry(type, technicalName, SynchronizationActionType.REGISTERED, 1, false, Instant.now());
+    }
+
+    private static IntegrationPackage createPackage(String technicalName, String version, Date modificationDate) {
+        IntegrationPackage pkg = new IntegrationPackage();
+        pkg.setTechnicalName(technicalName);
+        pkg.setExternalId(technicalName + "-id");
+        pkg.setVersion(version);
+        pkg.setModificationDate(modificationDate);
+        return pkg;
+    }
+
+    private static CpiArtifact createFlow(IntegrationPackage pkg, String technicalName, String version, Date modificationDate) {
+        CpiArtifact artifact = new CpiArtifact();
+        artifact.setTechnicalName(technicalName);
+        artifact.setExternalId(technicalName + "-id");
+        artifact.setPackageTechnicalName(pkg.getTechnicalName());
+        artifact.setPackageExternalId(pkg.getExternalId());
+        artifact.setVersion(version);
+        artifact.setModificationDate(modificationDate);
+        return artifact;
+    }
+
+    private record ShardedJob(SynchronizationSnapshot snapshot, Set<String> remotePackages) {}
+
+    @TestConfiguration
+    static class TestOverrides {
+
+        @Bean
+        @Primary
+        IntegrationPackageClient mockIntegrationPackageClient() {
+            return mock(IntegrationPackageClient.class);
+        }
+
+        @Bean
+        @Primary
+        CpiRuntimeArtifactClient mockCpiRuntimeArtifactClient() {
+            return mock(CpiRuntimeArtifactClient.class);
+        }
+    }
+}
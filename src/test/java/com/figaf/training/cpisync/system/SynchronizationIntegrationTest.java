@@ -1,11 +1,23 @@
 package com.figaf.training.cpisync.system;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.figaf.integration.cpi.client.CpiRuntimeArtifactClient;
@@ -13,14 +25,34 @@ import com.figaf.integration.cpi.client.IntegrationPackageClient;
 import com.figaf.integration.cpi.entity.designtime_artifacts.CpiArtifact;
 import com.figaf.integration.cpi.entity.designtime_artifacts.CpiArtifactType;
 import com.figaf.integration.cpi.entity.designtime_artifacts.IntegrationPackage;
+import com.figaf.training.cpisync.application.dto.SynchronizationFailureEntry;
 import com.figaf.training.cpisync.application.service.SyncedObjectsService;
 import com.figaf.training.cpisync.application.service.synchronization.SynchronizationJobFactory;
 import com.figaf.training.cpisync.application.service.synchronization.SynchronizationJobScheduler;
 import com.figaf.training.cpisync.application.service.synchronization.SynchronizationService;
 import com.figaf.training.cpisync.application.service.synchronization.model.AbstractSynchronizationJob;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationEntryFilter;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationEntryPage;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobHistoryPage;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobStatus;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationMode;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationSnapshot;
+import com.figaf.training.cpisync.domain.RepositoryService;
+import com.figaf.training.cpisync.domain.SyncedObjectHistory;
+import com.figaf.training.cpisync.domain.SyncedObjectType;
+import com.figaf.training.cpisync.domain.SyncedObjectVersion;
+import com.figaf.training.cpisync.domain.SynchronizationWatermark;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -31,8 +63,14 @@ import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.client.HttpServerErrorException;
 
 @SpringBootTest(properties = "spring.config.location=classpath:/application-test.yml")
 @Tag("integration")
@@ -41,6 +79,9 @@ import org.springframework.test.web.servlet.MockMvc;
 @Import(SynchronizationIntegrationTest.TestOverrides.class)
 public class SynchronizationIntegrationTest {
 
+    private static final Instant MODIFIED = Instant.parse("2025-01-18T12:00:00Z");
+    private static final Instant MODIFIED_LATER = Instant.parse("2025-01-19T12:00:00Z");
+
     @Autowired
     private SynchronizationJobFactory jobFactory;
 
@@ -53,6 +94,9 @@ public class SynchronizationIntegrationTest {
     @Autowired
     private SynchronizationService synchronizationService;
 
+    @Autowired
+    private RepositoryService repository;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -70,6 +114,12 @@ public class SynchronizationIntegrationTest {
     @BeforeEach
     void resetMocks() {
         reset(integrationPackageClient, cpiRuntimeArtifactClient);
+        syncedObjectsService.clearAll();
+    }
+
+    @AfterEach
+    void restoreSettings() {
+        ReflectionTestUtils.setField(synchronizationService, "skipUnchangedPackages", false);
     }
 
     @SuppressWarnings("BusyWait")
@@ -118,6 +168,286 @@ public class SynchronizationIntegrationTest {
         assertEquals(sum, packages.size() + artifacts.size(), "Concurrent jobs process same packages");
     }
 
+    @Test
+    void jobKeepsEntriesBeyondRetentionWhenTheStoreDoesNotPersistThem() throws Exception {
+        final List<IntegrationPackage> packages = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            IntegrationPackage pkg = new IntegrationPackage();
+            pkg.setTechnicalName("pkg" + i);
+            pkg.setExternalId(UUID.randomUUID().toString());
+            pkg.setVersion("1.0.0");
+            packages.add(pkg);
+        }
+        when(integrationPackageClient.getIntegrationPackages(any(), any())).thenReturn(packages);
+
+        AbstractSynchronizationJob job = jobFactory.createDefaultJob();
+        scheduler.startSynchronization(job).completion().get(30, TimeUnit.SECONDS);
+
+        // more than a chunk beyond retainedEntriesPerJob (100), but the in-memory job store keeps no entries
+        assertEquals(0, job.getReleasedEntries());
+        assertEquals(packages.size(), scheduler.getProgress(job.getId()).orElseThrow().entries().size());
+        SynchronizationEntryPage page = scheduler.getEntries(job.getId(), 0, 2000, SynchronizationEntryFilter.ALL).orElseThrow();
+        assertEquals(packages.size(), page.entries().size());
+        assertEquals(1, page.entries().getFirst().sequence());
+    }
+
+    @Test
+    void jobListAndJobHistoryShareOneResponseShape() throws Exception {
+        when(integrationPackageClient.getIntegrationPackages(any(), any())).thenReturn(List.of());
+        AbstractSynchronizationJob job = jobFactory.createDefaultJob();
+        scheduler.startSynchronization(job).completion().get(30, TimeUnit.SECONDS);
+
+        String listed = mockMvc.perform(get("/synchronizations/jobs"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        String queried = mockMvc.perform(get("/synchronizations/jobs").param("limit", "10"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        SynchronizationJobHistoryPage listedPage = objectMapper.readValue(listed, SynchronizationJobHistoryPage.class);
+        assertTrue(listedPage.jobs().stream().anyMatch(metadata -> metadata.jobId().equals(job.getId())));
+        assertNull(listedPage.nextCursor());
+        assertTrue(objectMapper.readTree(queried).has("jobs"));
+    }
+
+    @Test
+    void progressStreamResumesAfterTheLastReceivedEntryAndEndsWithCompleted() throws Exception {
+        when(integrationPackageClient.getIntegrationPackages(any(), any())).thenReturn(List.of(
+            createPackage("pkg1", MODIFIED), createPackage("pkg2", MODIFIED), createPackage("pkg3", MODIFIED)));
+        AbstractSynchronizationJob job = jobFactory.createDefaultJob();
+        scheduler.startSynchronization(job).completion().get(30, TimeUnit.SECONDS);
+        String events = "/synchronizations/" + job.getId() + "/events";
+
+        String all = this.streamEvents(get(events));
+        String resumed = this.streamEvents(get(events).header("Last-Event-ID", "1"));
+        String after = this.streamEvents(get(events).header("Last-Event-ID", "1").param("after", "2"));
+
+        assertEquals(List.of(1L, 2L, 3L), eventIds(all));
+        assertEquals(List.of(2L, 3L), eventIds(resumed));
+        // the parameter wins over the header
+        assertEquals(List.of(3L), eventIds(after));
+        assertTrue(resumed.contains("event:completed"), resumed);
+        String completed = resumed.substring(resumed.indexOf("event:completed"));
+        assertTrue(completed.contains("\"status\":\"COMPLETED\""), completed);
+        assertTrue(completed.contains("\"registeredCount\":3"), completed);
+        mockMvc.perform(get("/synchronizations/" + UUID.randomUUID() + "/events")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void failedObjectsAreNotMarkedAsDeleted() {
+        IntegrationPackage pkg1 = createPackage("pkg1", MODIFIED);
+        IntegrationPackage pkg2 = createPackage("pkg2", MODIFIED);
+        CpiArtifact flow1 = createFlow(pkg1, "flow1", MODIFIED);
+        CpiArtifact flow2 = createFlow(pkg1, "flow2", MODIFIED);
+        CpiArtifact flow3 = createFlow(pkg1, "flow3", MODIFIED);
+        CpiArtifact flow4 = createFlow(pkg2, "flow4", MODIFIED);
+        when(integrationPackageClient.getIntegrationPackages(any(), any())).thenReturn(List.of(pkg1, pkg2));
+        this.listFlows(pkg1, flow1, flow2, flow3);
+        this.listFlows(pkg2, flow4);
+        when(cpiRuntimeArtifactClient.downloadArtifact(any(), any(), any()))
+            .thenAnswer(invocation -> ("content of " + invocation.getArgument(2)).getBytes(StandardCharsets.UTF_8));
+        assertEquals(SynchronizationJobStatus.COMPLETED, this.runJob(SynchronizationMode.FULL).metadata().status());
+
+        // flow2 changed but cannot be downloaded, flow3 was deleted and the flows of pkg2 cannot be listed
+        flow2.setVersion("1.0.1");
+        flow2.setModificationDate(Date.from(MODIFIED_LATER));
+        this.listFlows(pkg1, flow1, flow2);
+        when(cpiRuntimeArtifactClient.downloadArtifact(any(), any(), eq("flow2-id")))
+            .thenThrow(new IllegalStateException("Download timed out"));
+        when(cpiRuntimeArtifactClient.getArtifactsByPackage(any(), eq("pkg2"), any(), any(), eq(CpiArtifactType.IFLOW)))
+            .thenThrow(new IllegalStateException("Listing failed"));
+
+        SynchronizationSnapshot snapshot = this.runJob(SynchronizationMode.FULL);
+
+        assertEquals(SynchronizationJobStatus.COMPLETED_WITH_ERRORS, snapshot.metadata().status());
+        assertEquals(2, snapshot.metadata().failedCount());
+        assertEquals(
+            Set.of("flow2", "pkg2"),
+            snapshot.failures().stream().map(SynchronizationFailureEntry::technicalName).collect(Collectors.toSet())
+        );
+        assertEquals(1, snapshot.metadata().deletedCount());
+        assertTrue(this.latestVersion(SyncedObjectType.INTEGRATION_FLOW, "flow3").isDeleted());
+        SyncedObjectVersion failedFlow = this.latestVersion(SyncedObjectType.INTEGRATION_FLOW, "flow2");
+        assertFalse(failedFlow.isDeleted(), "a flow that failed must not be marked as deleted");
+        assertEquals(1, failedFlow.getVersionNumber());
+        assertFalse(this.latestVersion(SyncedObjectType.INTEGRATION_FLOW, "flow4").isDeleted(),
+            "the flows of a package that cannot be listed must not be marked as deleted");
+    }
+
+    @Test
+    void unchangedPackagesAreListedOnlyAfterTheirFlowsSynchronizedCompletely() {
+        ReflectionTestUtils.setField(synchronizationService, "skipUnchangedPackages", true);
+        IntegrationPackage pkg1 = createPackage("pkg1", MODIFIED);
+        IntegrationPackage pkg2 = createPackage("pkg2", MODIFIED);
+        when(integrationPackageClient.getIntegrationPackages(any(), any())).thenReturn(List.of(pkg1, pkg2));
+        this.listFlows(pkg1, createFlow(pkg1, "flow1", MODIFIED));
+        this.listFlows(pkg2, createFlow(pkg2, "flow2", MODIFIED));
+        when(cpiRuntimeArtifactClient.downloadArtifact(any(), any(), eq("flow1-id")))
+            .thenAnswer(invocation -> "flow1".getBytes(StandardCharsets.UTF_8));
+        when(cpiRuntimeArtifactClient.downloadArtifact(any(), any(), eq("flow2-id")))
+            .thenThrow(new IllegalStateException("Download timed out"));
+        assertEquals(SynchronizationJobStatus.COMPLETED_WITH_ERRORS, this.runJob(SynchronizationMode.FULL).metadata().status());
+
+        // only the package with the failed flow is listed again
+        reset(cpiRuntimeArtifactClient);
+        this.listFlows(pkg1, createFlow(pkg1, "flow1", MODIFIED));
+        this.listFlows(pkg2, createFlow(pkg2, "flow2", MODIFIED));
+        when(cpiRuntimeArtifactClient.downloadArtifact(any(), any(), any()))
+            .thenAnswer(invocation -> "content".getBytes(StandardCharsets.UTF_8));
+        assertEquals(SynchronizationJobStatus.COMPLETED, this.runJob(SynchronizationMode.FULL).metadata().status());
+        verify(cpiRuntimeArtifactClient, never()).getArtifactsByPackage(any(), eq("pkg1"), any(), any(), any());
+        verify(cpiRuntimeArtifactClient).getArtifactsByPackage(any(), eq("pkg2"), any(), any(), any());
+
+        SynchronizationSnapshot snapshot = this.runJob(SynchronizationMode.FULL);
+
+        verify(cpiRuntimeArtifactClient, times(1)).getArtifactsByPackage(any(), eq("pkg2"), any(), any(), any());
+        assertEquals(0, snapshot.metadata().deletedCount(), "the flows of a skipped package count as present");
+
+        pkg1.setModificationDate(Date.from(MODIFIED_LATER));
+        this.runJob(SynchronizationMode.FULL);
+
+        verify(cpiRuntimeArtifactClient).getArtifactsByPackage(any(), eq("pkg1"), any(), any(), any());
+        verify(cpiRuntimeArtifactClient, times(1)).getArtifactsByPackage(any(), eq("pkg2"), any(), any(), any());
+    }
+
+    @Test
+    void incrementalRunListsPackagesSinceWatermarkHeldBackByFailures() {
+        IntegrationPackage pkg1 = createPackage("pkg1", MODIFIED);
+        IntegrationPackage pkg2 = createPackage("pkg2", MODIFIED_LATER);
+        CpiArtifact flow1 = createFlow(pkg1, "flow1", MODIFIED);
+        when(integrationPackageClient.getIntegrationPackages(any(), any())).thenReturn(List.of(pkg1, pkg2));
+        this.listFlows(pkg1, flow1);
+        when(cpiRuntimeArtifactClient.downloadArtifact(any(), any(), any()))
+            .thenAnswer(invocation -> "content".getBytes(StandardCharsets.UTF_8));
+
+        SynchronizationSnapshot first = this.runJob(SynchronizationMode.INCREMENTAL);
+
+        assertEquals(SynchronizationMode.FULL, first.metadata().mode(), "without a watermark the run is a full one");
+        verify(integrationPackageClient).getIntegrationPackages(any(), isNull());
+        SynchronizationWatermark watermark = repository.findWatermark().orElseThrow();
+        assertEquals(MODIFIED_LATER, watermark.highWaterMark());
+        assertNotNull(watermark.lastFullSynchronizationAt());
+
+        SynchronizationSnapshot second = this.runJob(SynchronizationMode.INCREMENTAL);
+
+        assertEquals(SynchronizationMode.INCREMENTAL, second.metadata().mode());
+        String filter = "ModifiedDate ge '%d'".formatted(MODIFIED_LATER.minus(Duration.ofMinutes(5)).toEpochMilli());
+        verify(integrationPackageClient).getIntegrationPackages(any(), eq(filter));
+        verify(cpiRuntimeArtifactClient, times(1)).getArtifactsByPackage(any(), eq("pkg1"), any(), any(), any());
+
+        // pkg1 changes before pkg2 and its flow fails, so the watermark stays before pkg1
+        Instant pkg1Modified = MODIFIED_LATER.plus(Duration.ofHours(1));
+        Instant pkg2Modified = MODIFIED_LATER.plus(Duration.ofHours(2));
+        pkg1.setModificationDate(Date.from(pkg1Modified));
+        pkg2.setModificationDate(Date.from(pkg2Modified));
+        flow1.setVersion("1.0.1");
+        flow1.setModificationDate(Date.from(pkg1Modified));
+        when(cpiRuntimeArtifactClient.downloadArtifact(any(), any(), eq("flow1-id")))
+            .thenThrow(new IllegalStateException("Download timed out"));
+
+        SynchronizationSnapshot third = this.runJob(SynchronizationMode.INCREMENTAL);
+
+        assertEquals(SynchronizationMode.INCREMENTAL, third.metadata().mode());
+        assertEquals(SynchronizationJobStatus.COMPLETED_WITH_ERRORS, third.metadata().status());
+        assertEquals(pkg1Modified, repository.findWatermark().orElseThrow().highWaterMark());
+        assertEquals(watermark.lastFullSynchronizationAt(), repository.findWatermark().orElseThrow().lastFullSynchronizationAt());
+    }
+
+    @Test
+    void incrementalRunIsPromotedToFullReconciliation() {
+        IntegrationPackage pkg = createPackage("pkg1", MODIFIED);
+        when(integrationPackageClient.getIntegrationPackages(any(), any())).thenReturn(List.of(pkg));
+        Instant lastFullSynchronizationAt = Instant.now().minus(Duration.ofDays(2));
+        repository.saveWatermark(new SynchronizationWatermark(MODIFIED, lastFullSynchronizationAt));
+
+        SynchronizationSnapshot snapshot = this.runJob(SynchronizationMode.INCREMENTAL);
+
+        assertEquals(SynchronizationMode.FULL, snapshot.metadata().mode());
+        verify(integrationPackageClient).getIntegrationPackages(any(), isNull());
+        assertTrue(repository.findWatermark().orElseThrow().lastFullSynchronizationAt().isAfter(lastFullSynchronizationAt));
+    }
+
+    @Test
+    void packageEndpointsRetryTransientCpiFailures() throws Exception {
+        IntegrationPackage pkg = createPackage("pkg1", MODIFIED);
+        CpiArtifact flow = createFlow(pkg, "flow1", MODIFIED);
+        when(integrationPackageClient.getIntegrationPackages(any(), any()))
+            .thenThrow(HttpServerErrorException.create(HttpStatus.BAD_GATEWAY, "Bad Gateway", HttpHeaders.EMPTY, null, null))
+            .thenReturn(List.of(pkg));
+        this.listFlows(pkg, flow);
+        byte[] archive = "archive".getBytes(StandardCharsets.UTF_8);
+        when(cpiRuntimeArtifactClient.downloadArtifact(any(), eq(pkg.getExternalId()), eq(flow.getExternalId())))
+            .thenThrow(HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Unavailable", HttpHeaders.EMPTY, null, null))
+            .thenReturn(archive);
+
+        String flows = mockMvc.perform(get("/packages/pkg1/integration-flows"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        byte[] downloaded = mockMvc.perform(get("/packages/pkg1/artifacts/" + flow.getExternalId()))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsByteArray();
+
+        assertTrue(flows.contains("\"technicalName\":\"flow1\""), flows);
+        assertArrayEquals(archive, downloaded);
+        verify(integrationPackageClient, times(3)).getIntegrationPackages(any(), eq("TechnicalName eq 'pkg1'"));
+        verify(cpiRuntimeArtifactClient, times(2)).downloadArtifact(any(), any(), any());
+    }
+
+    private SynchronizationSnapshot runJob(SynchronizationMode mode) {
+        AbstractSynchronizationJob job = jobFactory.createJob(null, mode);
+        job.run();
+        return job.getFullSnapshot();
+    }
+
+    /**
+     * Reads a progress stream until the server ends it.
+     */
+    private String streamEvents(MockHttpServletRequestBuilder events) throws Exception {
+        MvcResult result = mockMvc.perform(events).andExpect(request().asyncStarted()).andReturn();
+        result.getAsyncResult(TimeUnit.SECONDS.toMillis(30));
+        return result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    private static List<Long> eventIds(String events) {
+        return events.lines()
+            .filter(line -> line.startsWith("id:"))
+            .map(line -> Long.parseLong(line.substring("id:".length())))
+            .toList();
+    }
+
+    private void listFlows(IntegrationPackage pkg, CpiArtifact... flows) {
+        when(cpiRuntimeArtifactClient.getArtifactsByPackage(any(), eq(pkg.getTechnicalName()), any(), any(), eq(CpiArtifactType.IFLOW)))
+            .thenReturn(List.of(flows));
+    }
+
+    private SyncedObjectVersion latestVersion(SyncedObjectType type, String technicalName) {
+        return repository.findAllByType(type).stream()
+            .filter(history -> history.getTechnicalName().equals(technicalName))
+            .findFirst()
+            .flatMap(SyncedObjectHistory::getLatestVersion)
+            .orElseThrow();
+    }
+
+    private static IntegrationPackage createPackage(String technicalName, Instant modificationDate) {
+        IntegrationPackage pkg = new IntegrationPackage();
+        pkg.setTechnicalName(technicalName);
+        pkg.setExternalId(technicalName + "-id");
+        pkg.setVersion("1.0.0");
+        pkg.setModificationDate(Date.from(modificationDate));
+        return pkg;
+    }
+
+    private static CpiArtifact createFlow(IntegrationPackage pkg, String technicalName, Instant modificationDate) {
+        CpiArtifact artifact = new CpiArtifact();
+        artifact.setTechnicalName(technicalName);
+        artifact.setExternalId(technicalName + "-id");
+        artifact.setPackageTechnicalName(pkg.getTechnicalName());
+        artifact.setPackageExternalId(pkg.getExternalId());
+        artifact.setVersion("1.0.0");
+        artifact.setModificationDate(Date.from(modificationDate));
+        return artifact;
+    }
+
     @TestConfiguration
     static class TestOverrides {
 
@@ -0,0 +1,220 @@
+package com.figaf.training.cpisync.system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.figaf.training.cpisync.application.service.synchronization.SynchronizationJobScheduler;
+import com.figaf.training.cpisync.application.service.synchronization.model.AbstractSynchronizationJob;
+import com.figaf.training.cpisync.application.service.synchronization.model.ScheduledSynchronization;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobPriority;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobStatus;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Admission, coalescing and cancellation of queued jobs, with jobs that run until the test releases them.
+ */
+@SpringBootTest(properties = "spring.config.location=classpath:/application-test.yml")
+@Tag("integration")
+@ActiveProfiles("test")
+public class SynchronizationJobSchedulerIntegrationTest {
+
+    @Autowired
+    private SynchronizationJobScheduler scheduler;
+
+    private final List<BlockingJob> jobs = new ArrayList<>();
+
+    @AfterEach
+    void releaseJobs() {
+        jobs.forEach(BlockingJob::release);
+        scheduler.clearAll();
+    }
+
+    @Test
+    void scopedJobWaitsForRunningTenantWideJob() throws Exception {
+        BlockingJob tenantWide = this.job(null, SynchronizationJobPriority.NORMAL);
+        BlockingJob scoped = this.job(Set.of("pkg1"), SynchronizationJobPriority.HIGH);
+
+        scheduler.startSynchronization(tenantWide);
+        tenantWide.awaitStarted();
+        ScheduledSynchronization scheduled = scheduler.startSynchronization(scoped);
+
+        assertFalse(scheduled.coalesced());
+        assertFalse(scoped.awaitStarted(200), "a scoped job must not run next to a tenant-wide one");
+        tenantWide.release();
+        assertTrue(scoped.awaitStarted(5000));
+    }
+
+    @Test
+    void tenantWideJobWaitsForRunningScopedJob() throws Exception {
+        BlockingJob scoped = this.job(Set.of("pkg1"), SynchronizationJobPriority.HIGH);
+        BlockingJob tenantWide = this.job(null, SynchronizationJobPriority.NORMAL);
+
+        scheduler.startSynchronization(scoped);
+        scoped.awaitStarted();
+        scheduler.startSynchronization(tenantWide);
+
+        assertFalse(tenantWide.awaitStarted(200), "a tenant-wide job must not run next to a scoped one");
+        scoped.release();
+        assertTrue(tenantWide.awaitStarted(5000));
+    }
+
+    @Test
+    void scopedJobsRunTogetherUnlessTheyShareAPackage() throws Exception {
+        BlockingJob first = this.job(Set.of("pkg1", "pkg2"), SynchronizationJobPriority.HIGH);
+        BlockingJob disjoint = this.job(Set.of("pkg3"), SynchronizationJobPriority.HIGH);
+        BlockingJob sharing = this.job(Set.of("pkg2"), SynchronizationJobPriority.HIGH);
+
+        scheduler.startSynchronization(first);
+        first.awaitStarted();
+        scheduler.startSynchronization(disjoint);
+        scheduler.startSynchronization(sharing);
+
+        assertTrue(disjoint.awaitStarted(5000));
+        assertFalse(sharing.awaitStarted(200));
+        first.release();
+        assertTrue(sharing.awaitStarted(5000));
+    }
+
+    @Test
+    void queuedTenantWideJobIsNotPassedByLaterScopedJobs() throws Exception {
+        BlockingJob running = this.job(Set.of("pkg1"), SynchronizationJobPriority.NORMAL);
+        BlockingJob tenantWide = this.job(null, SynchronizationJobPriority.NORMAL);
+        // a different mode, so the request is not coalesced into the tenant-wide job
+        BlockingJob later = this.job(Set.of("pkg2"), SynchronizationMode.FULL, SynchronizationJobPriority.NORMAL);
+
+        scheduler.startSynchronization(running);
+        running.awaitStarted();
+        scheduler.startSynchronization(tenantWide);
+        scheduler.startSynchronization(later);
+
+        assertFalse(later.awaitStarted(200), "a job queued after an overlapping one waits for it");
+        running.release();
+        assertTrue(tenantWide.awaitStarted(5000));
+        assertFalse(later.awaitStarted(200));
+        tenantWide.release();
+        assertTrue(later.awaitStarted(5000));
+    }
+
+    @Test
+    void requestCoveredByQueuedJobIsCoalesced() throws Exception {
+        BlockingJob running = this.job(null, SynchronizationJobPriority.NORMAL);
+        BlockingJob queued = this.job(Set.of("pkg1", "pkg2"), SynchronizationJobPriority.HIGH);
+        BlockingJob covered = this.job(Set.of("pkg2"), SynchronizationJobPriority.HIGH);
+        BlockingJob wider = this.job(Set.of("pkg2", "pkg3"), SynchronizationJobPriority.HIGH);
+
+        scheduler.startSynchronization(running);
+        running.awaitStarted();
+        ScheduledSynchronization queuedRequest = scheduler.startSynchronization(queued);
+        ScheduledSynchronization coveredRequest = scheduler.startSynchronization(covered);
+        ScheduledSynchronization widerRequest = scheduler.startSynchronization(wider);
+
+        assertTrue(coveredRequest.coalesced());
+        assertEquals(queuedRequest.jobId(), coveredRequest.jobId());
+        assertFalse(widerRequest.coalesced());
+        running.release();
+        queued.release();
+        assertEquals(queued.getId(), coveredRequest.completion().get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void cancelRemovesQueuedJobAndStopsRunningJob() throws Exception {
+        BlockingJob running = this.job(null, SynchronizationJobPriority.NORMAL);
+        BlockingJob queued = this.job(Set.of("pkg1"), SynchronizationJobPriority.HIGH);
+
+        ScheduledSynchronization runningRequest = scheduler.startSynchronization(running);
+        running.awaitStarted();
+        ScheduledSynchronization queuedRequest = scheduler.startSynchronization(queued);
+
+        assertEquals(SynchronizationJobStatus.CANCELLED, scheduler.cancel(queued.getId()).orElseThrow().status());
+        queuedRequest.completion().get(5, TimeUnit.SECONDS);
+        scheduler.cancel(running.getId());
+        runningRequest.completion().get(5, TimeUnit.SECONDS);
+
+        assertEquals(SynchronizationJobStatus.CANCELLED, running.getStatus());
+        assertFalse(queued.awaitStarted(0));
+        assertFalse(scheduler.hasRunningJobs());
+    }
+
+    private BlockingJob job(Set<String> packageTechnicalNames, SynchronizationJobPriority priority) {
+        return this.job(packageTechnicalNames, null, priority);
+    }
+
+    private BlockingJob job(Set<String> packageTechnicalNames, SynchronizationMode mode, SynchronizationJobPriority priority) {
+        BlockingJob job = new BlockingJob(packageTechnicalNames, mode, priority);
+        jobs.add(job);
+        return job;
+    }
+
+    /**
+     * Runs until it is released or cancelled.
+     */
+    private static class BlockingJob extends AbstractSynchronizationJob {
+
+        private final Set<String> packageTechnicalNames;
+        private final SynchronizationMode requestedMode;
+        private final SynchronizationJobPriority priority;
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        BlockingJob(Set<String> packageTechnicalNames, SynchronizationMode requestedMode, SynchronizationJobPriority priority) {
+            this.packageTechnicalNames = packageTechnicalNames;
+            this.requestedMode = requestedMode;
+            this.priority = priority;
+        }
+
+        @Override
+        public Set<String> getPackageTechnicalNames() {
+            return packageTechnicalNames;
+        }
+
+        @Override
+        public SynchronizationMode getRequestedMode() {
+            return requestedMode;
+        }
+
+        @Override
+        public SynchronizationJobPriority getPriority() {
+            return priority;
+        }
+
+        @Override
+        public void run() {
+            this.onCancellation(released::countDown);
+            started.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            }
+            if (this.isCancellationRequested()) {
+                throw new IllegalStateException("Cancelled");
+            }
+            this.markCompleted();
+        }
+
+        void awaitStarted() throws InterruptedException {
+            assertTrue(this.awaitStarted(5000), "job did not start");
+        }
+
+        boolean awaitStarted(long millis) throws InterruptedException {
+            return started.await(millis, TimeUnit.MILLISECONDS);
+        }
+
+        void release() {
+            released.countDown();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.figaf.training.cpisync.system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.figaf.integration.cpi.client.CpiRuntimeArtifactClient;
+import com.figaf.integration.cpi.client.IntegrationPackageClient;
+import com.figaf.training.cpisync.application.service.SyncedObjectsService;
+import com.figaf.training.cpisync.application.service.synchronization.SynchronizationJobFactory;
+import com.figaf.training.cpisync.application.service.synchronization.model.AbstractSynchronizationJob;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationJobStatus;
+import com.figaf.training.cpisync.application.service.synchronization.model.SynchronizationSnapshotMetadata;
+import com.figaf.training.cpisync.system.fake.FakeCpiRuntimeArtifactClient;
+import com.figaf.training.cpisync.system.fake.FakeCpiServer;
+import com.figaf.training.cpisync.system.fake.FakeIntegrationPackageClient;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs full synchronization cycles against a {@link FakeCpiServer} over real HTTP and reports throughput, p99
+ * download latency and the heap high-water mark. Excluded from {@code test}; run it with
+ * {@code ./gradlew loadTest -Pload.packages=2000 -Pload.flowsPerPackage=5 -Pload.latencyMs=20}.
+ */
+@Slf4j
+@SpringBootTest(properties = "spring.config.location=classpath:/application-test.yml")
+@Tag("load")
+@ActiveProfiles("test")
+@Import(SynchronizationLoadTest.FakeCpi.class)
+public class SynchronizationLoadTest {
+
+    private static final int CYCLES = Integer.getInteger("load.cycles", 3);
+
+    @Autowired
+    private SynchronizationJobFactory jobFactory;
+
+    @Autowired
+    private SyncedObjectsService syncedObjectsService;
+
+    @Autowired
+    private FakeCpiServer server;
+
+    @Autowired
+    private FakeCpiRuntimeArtifactClient artifactClient;
+
+    @BeforeEach
+    void clearRepository() {
+        syncedObjectsService.clearAll();
+    }
+
+    @Test
+    void fullSynchronizationCyclesAgainstFakeCpi() {
+        for (int cycle = 1; cycle <= CYCLES; cycle++) {
+            artifactClient.getDownloadLatency().reset();
+            resetHeapPeaks();
+            long requestsBefore = server.getRequestCount().get();
+            long failedRequestsBefore = server.getFailedRequestCount().get();
+
+            AbstractSynchronizationJob job = jobFactory.createDefaultJob();
+            long start = System.nanoTime();
+            job.run();
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+            SynchronizationSnapshotMetadata metadata = job.getMetadataSnapshot();
+            long failedRequests = server.getFailedRequestCount().get() - failedRequestsBefore;
+            // with load.errorRate an object fails once all retries of one of its requests did
+            assertTrue(
+                metadata.status() == SynchronizationJobStatus.COMPLETED
+                    || metadata.status() == SynchronizationJobStatus.COMPLETED_WITH_ERRORS,
+                metadata.status() + ": " + metadata.errorMessage()
+            );
+            assertEquals(metadata.status() == SynchronizationJobStatus.COMPLETED_WITH_ERRORS, metadata.failedCount() > 0);
+            assertTrue(metadata.failedCount() <= failedRequests,
+                "%d objects failed, but only %d requests".formatted(metadata.failedCount(), failedRequests));
+            if (cycle == 1 && metadata.failedCount() == 0) {
+                assertEquals(server.getTotalFlows(), metadata.registeredCount() - server.getSettings().getPackageCount());
+            }
+
+            int downloads = artifactClient.getDownloadLatency().count();
+            log.info(
+                "Load cycle {}/{}: {} ms, {} CPI requests ({} failed), {} downloads, {} artifacts/s, p99 download {} ms, heap high-water {} MiB, registered {}, updated {}, failed objects {}",
+                cycle,
+                CYCLES,
+                elapsed.toMillis(),
+                server.getRequestCount().get() - requestsBefore,
+                failedRequests,
+                downloads,
+                "%.1f".formatted(server.getTotalFlows() / Math.max(elapsed.toNanos() / 1e9, 1e-9)),
+                artifactClient.getDownloadLatency().percentile(99).toMillis(),
+                heapPeakBytes() / (1024 * 1024),
+                metadata.registeredCount(),
+                metadata.updatedCount(),
+                metadata.failedCount()
+            );
+        }
+    }
+
+    private static void resetHeapPeaks() {
+        System.gc();
+        ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    private static long heapPeakBytes() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .mapToLong(pool -> pool.getPeakUsage().getUsed())
+            .sum();
+    }
+
+    @TestConfiguration
+    static class FakeCpi {
+
+        @Bean(destroyMethod = "close")
+        FakeCpiServer fakeCpiServer() throws IOException {
+            return new FakeCpiServer(FakeCpiServer.Settings.builder()
+                .packageCount(Integer.getInteger("load.packages", 1000))
+                .flowsPerPackage(Integer.getInteger("load.flowsPerPackage", 5))
+                .archiveSize(Integer.getInteger("load.archiveBytes", 64 * 1024))
+                .latency(Duration.ofMillis(Long.getLong("load.latencyMs", 20)))
+                .errorRate(Double.parseDouble(System.getProperty("load.errorRate", "0")))
+                .build());
+        }
+
+        @Bean
+        @Primary
+        IntegrationPackageClient fakeIntegrationPackageClient(FakeCpiServer server) {
+            return new FakeIntegrationPackageClient(server);
+        }
+
+        @Bean
+        @Primary
+        FakeCpiRuntimeArtifactClient fakeCpiRuntimeArtifactClient(FakeCpiServer server) {
+            return new FakeCpiRuntimeArtifactClient(server);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.figaf.training.cpisync.system.fake;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+/**
+ * Minimal HTTP access to {@link FakeCpiServer}. Error responses are raised as the same Spring exceptions the
+ * RestTemplate based CPI clients throw, so the synchronization engine sees realistic failures.
+ */
+class FakeCpiHttpClient {
+
+    private final URI baseUri;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    FakeCpiHttpClient(URI baseUri) {
+        this.baseUri = baseUri;
+    }
+
+    JsonNode getResults(String path) {
+        byte[] body = get(path);
+        try {
+            return objectMapper.readTree(body).path("d").path("results");
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    byte[] get(String path) {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(path))
+            .timeout(Duration.ofSeconds(30))
+            .GET()
+            .build();
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Request to fake CPI interrupted", ex);
+        }
+        int status = response.statusCode();
+        if (status >= 500) {
+            throw HttpServerErrorException.create(HttpStatusCode.valueOf(status), "Fake CPI error", HttpHeaders.EMPTY, response.body(), StandardCharsets.UTF_8);
+        }
+        if (status >= 400) {
+            throw HttpClientErrorException.create(HttpStatusCode.valueOf(status), "Fake CPI error", HttpHeaders.EMPTY, response.body(), StandardCharsets.UTF_8);
+        }
+        return response.body();
+    }
+
+    static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    static Date toDate(JsonNode millis) {
+        return millis.isMissingNode() || millis.isNull() ? null : new Date(Long.parseLong(millis.asText()));
+    }
+}
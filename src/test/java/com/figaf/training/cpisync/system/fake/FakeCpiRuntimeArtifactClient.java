@@ -0,0 +1,61 @@
+package com.figaf.training.cpisync.system.fake;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.figaf.integration.common.entity.RequestContext;
+import com.figaf.integration.common.factory.HttpClientsFactory;
+import com.figaf.integration.cpi.client.CpiRuntimeArtifactClient;
+import com.figaf.integration.cpi.entity.designtime_artifacts.CpiArtifact;
+import com.figaf.integration.cpi.entity.designtime_artifacts.CpiArtifactType;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * {@link CpiRuntimeArtifactClient} backed by a {@link FakeCpiServer}, recording the latency of every download.
+ */
+public class FakeCpiRuntimeArtifactClient extends CpiRuntimeArtifactClient {
+
+    private final FakeCpiHttpClient httpClient;
+
+    @Getter
+    private final LatencyRecorder downloadLatency = new LatencyRecorder();
+
+    public FakeCpiRuntimeArtifactClient(FakeCpiServer server) {
+        super(new HttpClientsFactory());
+        this.httpClient = new FakeCpiHttpClient(server.getBaseUri());
+    }
+
+    @Override
+    public List<CpiArtifact> getArtifactsByPackage(
+        RequestContext requestContext,
+        String packageTechnicalName,
+        String packageDisplayedName,
+        String packageExternalId,
+        CpiArtifactType type
+    ) {
+        String path = "IntegrationPackages('%s')/IntegrationDesigntimeArtifacts".formatted(FakeCpiHttpClient.encode(packageExternalId));
+        List<CpiArtifact> artifacts = new ArrayList<>();
+        for (JsonNode node : httpClient.getResults(path)) {
+            CpiArtifact artifact = new CpiArtifact();
+            artifact.setTechnicalName(node.path("Id").asText());
+            artifact.setExternalId(node.path("Id").asText());
+            artifact.setDisplayedName(node.path("Name").asText());
+            artifact.setVersion(node.path("Version").asText());
+            artifact.setPackageTechnicalName(packageTechnicalName);
+            artifact.setPackageExternalId(packageExternalId);
+            artifact.setModificationDate(FakeCpiHttpClient.toDate(node.path("ModifiedDate")));
+            artifacts.add(artifact);
+        }
+        return artifacts;
+    }
+
+    @Override
+    public byte[] downloadArtifact(RequestContext requestContext, String packageExternalId, String artifactExternalId) {
+        long start = System.nanoTime();
+        try {
+            return httpClient.get("IntegrationDesigntimeArtifacts(Id='%s',Version='active')/$value".formatted(FakeCpiHttpClient.encode(artifactExternalId)));
+        } finally {
+            downloadLatency.record(System.nanoTime() - start);
+        }
+    }
+}
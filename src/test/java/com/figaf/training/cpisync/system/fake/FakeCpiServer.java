@@ -0,0 +1,173 @@
+package com.figaf.training.cpisync.system.fake;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Embeddable stand-in for the CPI Web API, serving synthetic packages, their iFlows and zip archives over HTTP.
+ * <p>
+ * Endpoints follow the OData v2 layout of the tenant API:
+ * <ul>
+ *     <li>{@code GET /api/v1/IntegrationPackages}</li>
+ *     <li>{@code GET /api/v1/IntegrationPackages('{packageId}')/IntegrationDesigntimeArtifacts}</li>
+ *     <li>{@code GET /api/v1/IntegrationDesigntimeArtifacts(Id='{artifactId}',Version='active')/$value}</li>
+ * </ul>
+ * Every request is delayed by {@link Settings#latency} and fails with HTTP 503 with probability
+ * {@link Settings#errorRate}.
+ */
+public class FakeCpiServer implements AutoCloseable {
+
+    private static final Pattern ARTIFACTS_PATH = Pattern.compile("/api/v1/IntegrationPackages\\('([^']+)'\\)/IntegrationDesigntimeArtifacts");
+    private static final Pattern DOWNLOAD_PATH = Pattern.compile("/api/v1/IntegrationDesigntimeArtifacts\\(Id='([^']+)',Version='[^']*'\\)/\\$value");
+
+    @Getter
+    private final Settings settings;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final HttpServer server;
+    private final byte[] archive;
+    private final long modifiedAt = System.currentTimeMillis();
+
+    @Getter
+    private final AtomicLong requestCount = new AtomicLong();
+
+    @Getter
+    private final AtomicLong failedRequestCount = new AtomicLong();
+
+    public FakeCpiServer(Settings settings) throws IOException {
+        this.settings = settings;
+        this.archive = new byte[settings.archiveSize];
+        ThreadLocalRandom.current().nextBytes(archive);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        this.server.setExecutor(executor);
+        this.server.createContext("/api/v1/", this::handle);
+        this.server.start();
+    }
+
+    public URI getBaseUri() {
+        return URI.create("http://127.0.0.1:%d/api/v1/".formatted(server.getAddress().getPort()));
+    }
+
+    public int getTotalFlows() {
+        return settings.packageCount * settings.flowsPerPackage;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        try (exchange) {
+            if (!settings.latency.isZero()) {
+                Thread.sleep(settings.latency);
+            }
+            if (settings.errorRate > 0 && ThreadLocalRandom.current().nextDouble() < settings.errorRate) {
+                failedRequestCount.incrementAndGet();
+                send(exchange, 503, "text/plain", "Service Unavailable".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            Matcher artifacts = ARTIFACTS_PATH.matcher(path);
+            Matcher download = DOWNLOAD_PATH.matcher(path);
+            if (path.equals("/api/v1/IntegrationPackages")) {
+                sendJson(exchange, packages());
+            } else if (artifacts.matches()) {
+                sendJson(exchange, artifacts(artifacts.group(1)));
+            } else if (download.matches()) {
+                send(exchange, 200, "application/zip", archive);
+            } else {
+                send(exchange, 404, "text/plain", path.getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<Map<String, Object>> packages() {
+        List<Map<String, Object>> result = new ArrayList<>(settings.packageCount);
+        for (int i = 0; i < settings.packageCount; i++) {
+            Map<String, Object> pkg = new LinkedHashMap<>();
+            pkg.put("Id", packageId(i));
+            pkg.put("Name", "Package " + i);
+            pkg.put("Version", "1.0.0");
+            pkg.put("ModifiedDate", Long.toString(modifiedAt));
+            pkg.put("CreationDate", Long.toString(modifiedAt));
+            result.add(pkg);
+        }
+        return result;
+    }
+
+    private List<Map<String, Object>> artifacts(String packageId) {
+        List<Map<String, Object>> result = new ArrayList<>(settings.flowsPerPackage);
+        for (int i = 0; i < settings.flowsPerPackage; i++) {
+            Map<String, Object> artifact = new LinkedHashMap<>();
+            artifact.put("Id", packageId + "_IFLOW_" + i);
+            artifact.put("Name", "Flow " + i + " of " + packageId);
+            artifact.put("PackageId", packageId);
+            artifact.put("Version", "1.0.0");
+            artifact.put("ModifiedDate", Long.toString(modifiedAt));
+            result.add(artifact);
+        }
+        return result;
+    }
+
+    private void sendJson(HttpExchange exchange, List<Map<String, Object>> results) throws IOException {
+        byte[] body = objectMapper.writeValueAsBytes(Map.of("d", Map.of("results", results)));
+        send(exchange, 200, "application/json", body);
+    }
+
+    private void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    static String packageId(int index) {
+        return "PKG_%05d".formatted(index);
+    }
+
+    @Getter
+    @Builder
+    public static class Settings {
+
+        @Builder.Default
+        private final int packageCount = 100;
+
+        @Builder.Default
+        private final int flowsPerPackage = 5;
+
+        @Builder.Default
+        private final int archiveSize = 64 * 1024;
+
+        @Builder.Default
+        private final Duration latency = Duration.ZERO;
+
+        @Builder.Default
+        private final double errorRate = 0;
+    }
+}
@@ -0,0 +1,39 @@
+package com.figaf.training.cpisync.system.fake;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.figaf.integration.common.entity.RequestContext;
+import com.figaf.integration.common.factory.HttpClientsFactory;
+import com.figaf.integration.cpi.client.IntegrationPackageClient;
+import com.figaf.integration.cpi.entity.designtime_artifacts.IntegrationPackage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link IntegrationPackageClient} that lists packages from a {@link FakeCpiServer} instead of a real tenant.
+ */
+public class FakeIntegrationPackageClient extends IntegrationPackageClient {
+
+    private final FakeCpiHttpClient httpClient;
+
+    public FakeIntegrationPackageClient(FakeCpiServer server) {
+        super(new HttpClientsFactory());
+        this.httpClient = new FakeCpiHttpClient(server.getBaseUri());
+    }
+
+    @Override
+    public List<IntegrationPackage> getIntegrationPackages(RequestContext requestContext, String filter) {
+        String query = filter == null ? "" : "?$filter=" + FakeCpiHttpClient.encode(filter);
+        List<IntegrationPackage> packages = new ArrayList<>();
+        for (JsonNode node : httpClient.getResults("IntegrationPackages" + query)) {
+            IntegrationPackage pkg = new IntegrationPackage();
+            pkg.setTechnicalName(node.path("Id").asText());
+            pkg.setExternalId(node.path("Id").asText());
+            pkg.setDisplayedName(node.path("Name").asText());
+            pkg.setVersion(node.path("Version").asText());
+            pkg.setModificationDate(FakeCpiHttpClient.toDate(node.path("ModifiedDate")));
+            pkg.setCreationDate(FakeCpiHttpClient.toDate(node.path("CreationDate")));
+            packages.add(pkg);
+        }
+        return packages;
+    }
+}
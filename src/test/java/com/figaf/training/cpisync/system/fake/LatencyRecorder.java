@@ -0,0 +1,35 @@
+package com.figaf.training.cpisync.system.fake;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Collects raw latency samples of a load run and computes percentiles over them.
+ */
+public class LatencyRecorder {
+
+    private final ConcurrentLinkedQueue<Long> samples = new ConcurrentLinkedQueue<>();
+
+    public void record(long nanos) {
+        samples.add(nanos);
+    }
+
+    public int count() {
+        return samples.size();
+    }
+
+    public Duration percentile(double percentile) {
+        long[] sorted = samples.stream().mapToLong(Long::longValue).toArray();
+        if (sorted.length == 0) {
+            return Duration.ZERO;
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return Duration.ofNanos(sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+    }
+
+    public void reset() {
+        samples.clear();
+    }
+}